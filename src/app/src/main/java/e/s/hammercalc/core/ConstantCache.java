@@ -0,0 +1,292 @@
+package e.s.hammercalc.core;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Arbitrary precision values of π, ln(10) and ln(2) for Decimal.
+ * <p>
+ * Values are held as fixed point digit arrays in base 1e7, most significant limb first,
+ * with the integer part in the first limb. The embedded strings in `Decimal.Const` are
+ * parsed once, and when more digits are requested they are calculated on a background
+ * thread. The longest result so far is kept, and lower precision callers take a prefix of it.</p>
+ * <p>
+ * The calculations here use only the limb arithmetic in `LimbArithmetic`, so they don't touch
+ * the global state in `Decimal.Config` and are safe to run alongside other Decimal work.</p>
+ */
+final class ConstantCache {
+    private static final int LOG_BASE = 7;
+
+    /** Extra limbs calculated and then dropped, to absorb truncation errors */
+    private static final int GUARD_LIMBS = 3;
+
+    /** 640320^3 / 24, used in the Chudnovsky series */
+    private static final int[] C3_OVER_24 = LimbArithmetic.bigFromLong(10939058860032000L);
+
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "Decimal constants");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    });
+
+    private static final Entry pi = new Entry(parseFixed(Decimal.Const.PI)) {
+        @Override
+        int[] calculate(int limbs) {
+            return calculatePi(limbs);
+        }
+    };
+
+    private static final Entry ln10 = new Entry(parseFixed(Decimal.Const.LN10)) {
+        @Override
+        int[] calculate(int limbs) {
+            return calculateLn10(limbs);
+        }
+    };
+
+    private static final Entry ln2 = new Entry(null) {
+        @Override
+        int[] calculate(int limbs) {
+            return calculateLn2(limbs);
+        }
+    };
+
+    private ConstantCache() { }
+
+    /** π to at least `digits` digits after the decimal point. The result must not be modified */
+    static int[] pi(int digits) {
+        return pi.get(digits);
+    }
+
+    /** ln(10) to at least `digits` digits after the decimal point. The result must not be modified */
+    static int[] ln10(int digits) {
+        return ln10.get(digits);
+    }
+
+    /** ln(2) to at least `digits` digits after the decimal point. The result must not be modified */
+    static int[] ln2(int digits) {
+        return ln2.get(digits);
+    }
+
+    /** Start calculating all the constants to at least `digits` digits, without waiting for the result */
+    static void prefetch(int digits) {
+        pi.request(limbsFor(digits));
+        ln10.request(limbsFor(digits));
+        ln2.request(limbsFor(digits));
+    }
+
+    /** Number of limbs, including the integer limb, needed for `digits` fractional digits */
+    private static int limbsFor(int digits) {
+        return (digits + LOG_BASE - 1) / LOG_BASE + 1;
+    }
+
+    /**
+     * A single cached constant.
+     * The best value is replaced only by a longer one, so readers can use it without copying.
+     */
+    private static abstract class Entry {
+        private int[] best;
+        private Future<int[]> pending;
+        private int pendingLimbs;
+
+        Entry(int[] initial) {
+            best = initial;
+        }
+
+        /** Calculate the constant to `limbs` limbs. Must be safe to call from any thread */
+        abstract int[] calculate(int limbs);
+
+        int[] get(int digits) {
+            int limbs = limbsFor(digits);
+            for (; ; ) {
+                Future<int[]> job;
+                synchronized (this) {
+                    if (best != null && best.length >= limbs) return best;
+                    job = request(limbs);
+                }
+
+                try {
+                    job.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return calculateHere(limbs);
+                } catch (ExecutionException ex) {
+                    return calculateHere(limbs);
+                }
+            }
+        }
+
+        /** Make sure a calculation of at least `limbs` limbs is done or underway */
+        synchronized Future<int[]> request(int limbs) {
+            if (pending != null && pendingLimbs >= limbs) return pending;
+
+            // Grow geometrically, so a slowly rising precision doesn't recalculate every time
+            int current = (best == null) ? 0 : best.length;
+            final int target = Math.max(limbs, current * 2);
+
+            pendingLimbs = target;
+            pending = worker.submit(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    return store(calculate(target));
+                }
+            });
+            return pending;
+        }
+
+        /** Fallback if the background thread can't be used */
+        private int[] calculateHere(int limbs) {
+            return store(calculate(limbs));
+        }
+
+        private synchronized int[] store(int[] value) {
+            if (best == null || value.length > best.length) best = value;
+            if (pendingLimbs <= best.length) pending = null;
+            return best;
+        }
+    }
+
+    /** Parse an unsigned decimal string with a single digit integer part into fixed point limbs */
+    private static int[] parseFixed(String str) {
+        int point = str.indexOf('.');
+        String fraction = str.substring(point + 1);
+        int[] result = new int[(fraction.length() / LOG_BASE) + 1]; // any partial last limb is dropped
+
+        result[0] = Integer.parseInt(str.substring(0, point));
+        for (int i = 1; i < result.length; i++) {
+            int start = (i - 1) * LOG_BASE;
+            result[i] = Integer.parseInt(fraction.substring(start, start + LOG_BASE));
+        }
+        return result;
+    }
+
+    //region Constant calculations
+
+    /**
+     * π by the Chudnovsky series, with binary splitting of the terms:
+     * <p>
+     * 1/π = 12 Σ (-1)^k (6k)! (13591409 + 545140134k) / ((3k)! (k!)^3 640320^(3k+3/2))</p>
+     * <p>
+     * which gives π = 426880 sqrt(10005) Q / T</p>
+     */
+    static int[] calculatePi(int limbs) {
+        int n = limbs + GUARD_LIMBS;
+
+        // Each term adds about 14.18 digits
+        int terms = (int) (n * LOG_BASE / 14.18) + 2;
+        SplitTerm all = splitChudnovsky(0, terms);
+
+        int[] x = LimbArithmetic.bigMultiplySmall(all.q, 426880);
+        int[] ratio = LimbArithmetic.fixedDivideBig(x, all.t, n);
+        int[] result = LimbArithmetic.fixedMultiply(ratio, LimbArithmetic.fixedSqrtSmall(10005, n), n);
+
+        return Arrays.copyOf(result, limbs);
+    }
+
+    /** ln(10) = 46 atanh(1/31) + 34 atanh(1/49) + 20 atanh(1/161) */
+    static int[] calculateLn10(int limbs) {
+        int[][] a = atanhSet(limbs + GUARD_LIMBS);
+        return combine(limbs, a, 46, 34, 20);
+    }
+
+    /** ln(2) = 14 atanh(1/31) + 10 atanh(1/49) + 6 atanh(1/161) */
+    static int[] calculateLn2(int limbs) {
+        int[][] a = atanhSet(limbs + GUARD_LIMBS);
+        return combine(limbs, a, 14, 10, 6);
+    }
+
+    private static int[][] lastAtanhSet;
+
+    /** atanh(1/31), atanh(1/49) and atanh(1/161), shared between the ln(10) and ln(2) calculations */
+    private static synchronized int[][] atanhSet(int n) {
+        if (lastAtanhSet == null || lastAtanhSet[0].length < n) {
+            lastAtanhSet = new int[][]{atanhInverse(31, n), atanhInverse(49, n), atanhInverse(161, n)};
+        }
+        return lastAtanhSet;
+    }
+
+    private static int[] combine(int limbs, int[][] a, int k0, int k1, int k2) {
+        int n = limbs + GUARD_LIMBS;
+        int[] result = LimbArithmetic.fixedMultiplySmall(Arrays.copyOf(a[0], n), k0);
+        LimbArithmetic.fixedAdd(result, LimbArithmetic.fixedMultiplySmall(Arrays.copyOf(a[1], n), k1));
+        LimbArithmetic.fixedAdd(result, LimbArithmetic.fixedMultiplySmall(Arrays.copyOf(a[2], n), k2));
+        return Arrays.copyOf(result, limbs);
+    }
+
+    /** atanh(1/m) = 1/m + 1/(3m^3) + 1/(5m^5) + ... to `n` limbs */
+    private static int[] atanhInverse(int m, int n) {
+        int[] power = new int[n];
+        power[0] = 1;
+        LimbArithmetic.fixedDivideSmall(power, m);
+
+        int[] sum = power.clone();
+        int[] term = new int[n];
+        long m2 = (long) m * m;
+
+        for (long k = 3; ; k += 2) {
+            if (!LimbArithmetic.fixedDivideSmall(power, m2)) return sum;
+            System.arraycopy(power, 0, term, 0, n);
+            LimbArithmetic.fixedDivideSmall(term, k);
+            LimbArithmetic.fixedAdd(sum, term);
+        }
+    }
+
+    /** P, Q and T for a range of Chudnovsky terms */
+    private static final class SplitTerm {
+        int[] p, q, t;
+        int pSign, tSign;
+    }
+
+    /** Binary splitting of the Chudnovsky series over terms [a, b) */
+    private static SplitTerm splitChudnovsky(long a, long b) {
+        SplitTerm r = new SplitTerm();
+        if (b - a == 1) {
+            if (a == 0) {
+                r.p = r.q = LimbArithmetic.bigFromLong(1);
+                r.pSign = 1;
+            } else {
+                r.p = LimbArithmetic.bigMultiplySmall(LimbArithmetic.bigMultiplySmall(LimbArithmetic.bigFromLong(6 * a - 5), 2 * a - 1), 6 * a - 1);
+                r.pSign = -1;
+                r.q = LimbArithmetic.bigMultiplySmall(LimbArithmetic.bigMultiplySmall(LimbArithmetic.bigMultiplySmall(C3_OVER_24, a), a), a);
+            }
+            r.t = LimbArithmetic.bigMultiply(r.p, LimbArithmetic.bigFromLong(13591409L + 545140134L * a));
+            r.tSign = r.pSign;
+            return r;
+        }
+
+        long m = (a + b) / 2;
+        SplitTerm left = splitChudnovsky(a, m);
+        SplitTerm right = splitChudnovsky(m, b);
+
+        r.p = LimbArithmetic.bigMultiply(left.p, right.p);
+        r.pSign = left.pSign * right.pSign;
+        r.q = LimbArithmetic.bigMultiply(left.q, right.q);
+
+        // T = right.q * left.t + left.p * right.t
+        int[] t1 = LimbArithmetic.bigMultiply(right.q, left.t);
+        int[] t2 = LimbArithmetic.bigMultiply(left.p, right.t);
+        int s1 = left.tSign;
+        int s2 = left.pSign * right.tSign;
+        if (s1 == s2) {
+            r.t = LimbArithmetic.bigAdd(t1, t2);
+            r.tSign = s1;
+        } else if (LimbArithmetic.bigCompare(t1, t2) >= 0) {
+            r.t = LimbArithmetic.bigSubtract(t1, t2);
+            r.tSign = s1;
+        } else {
+            r.t = LimbArithmetic.bigSubtract(t2, t1);
+            r.tSign = s2;
+        }
+        return r;
+    }
+
+    //endregion
+}
@@ -0,0 +1,450 @@
+package e.s.hammercalc.core;
+
+/**
+ * Exact real numbers, evaluated lazily to whatever precision is asked for.
+ * <p>
+ * A value is a graph of operation nodes over integers and fractions. Nothing is calculated until
+ * a result is displayed, then each node is asked for an approximation just precise enough for the
+ * digits shown. Every node keeps its most precise approximation, so asking again for fewer digits
+ * costs nothing, and asking for more only re-evaluates what has to change.</p>
+ * <p>
+ * Approximations are scaled integers: `approximation(p)` returns an integer `a` with
+ * |a * 2^p - x| &lt; 2^p. So (1/3)*3 and sqrt(2)^2 display exactly as 1 and 2.</p>
+ * <p>
+ * Follows "Constructive real arithmetic" (H. Boehm, 1990) and the CR package used by the Android calculator.</p>
+ */
+public abstract class ConstructiveReal {
+    /**
+     * Values whose magnitude is below 2^ZERO_TEST_PRECISION (about 1e-1000) are taken to be
+     * zero when dividing, as an exact zero can never be told apart from a very small number
+     */
+    private static final int ZERO_TEST_PRECISION = -3400;
+
+    /** Best approximation found so far, or null */
+    private LargeInt maxAppr;
+    /** Binary precision of `maxAppr` */
+    private int minPrec;
+
+    /**
+     * Return an integer `a` where |a * 2^p - x| &lt; 2^p, for the value x of this node.
+     * Subclasses implement this; callers should use `approximation`, which caches results.
+     */
+    protected abstract LargeInt approximate(int p);
+
+    /**
+     * Return an integer `a` where |a * 2^p - x| &lt; 2^p.
+     * If a more precise approximation is already known, it is scaled down rather than recalculated.
+     */
+    public LargeInt approximation(int p) {
+        if (maxAppr != null && p >= minPrec) return scale(maxAppr, minPrec - p);
+
+        LargeInt result = approximate(p);
+        maxAppr = result;
+        minPrec = p;
+        return result;
+    }
+
+    //region Construction
+
+    /** Return the exact value `i` */
+    public static ConstructiveReal fromInteger(long i) {
+        return new IntegerNode(LargeInt.fromLong(i));
+    }
+
+    /** Return the exact value `i` */
+    public static ConstructiveReal fromInteger(LargeInt i) {
+        return new IntegerNode(i);
+    }
+
+    /** Return the exact value of `f`. Fractions with a zero denominator are not allowed */
+    public static ConstructiveReal fromFraction(Fraction f) {
+        if (f.isNaN()) throw new ArithmeticException("Fraction has no value");
+        if (f.getDenominator().equals(LargeInt.ONE)) return new IntegerNode(f.getNumerator());
+        return new FractionNode(f);
+    }
+
+    /** Return π, found by Machin's formula π = 16 atan(1/5) - 4 atan(1/239) */
+    public static ConstructiveReal pi() {
+        return PI;
+    }
+
+    private static final ConstructiveReal PI = new InverseTangentNode(5).shiftLeft(2)
+            .subtract(new InverseTangentNode(239)).shiftLeft(2);
+
+    //endregion
+
+    //region Operations
+
+    /** Return this + y */
+    public ConstructiveReal add(ConstructiveReal y) {
+        return new AddNode(this, y);
+    }
+
+    /** Return this - y */
+    public ConstructiveReal subtract(ConstructiveReal y) {
+        return new AddNode(this, y.negate());
+    }
+
+    /** Return -this */
+    public ConstructiveReal negate() {
+        return new NegateNode(this);
+    }
+
+    /** Return this * y */
+    public ConstructiveReal multiply(ConstructiveReal y) {
+        return new MultiplyNode(this, y);
+    }
+
+    /**
+     * Return 1 / this.
+     * Evaluating the result throws ArithmeticException if this value is zero, or too small to tell from zero.
+     */
+    public ConstructiveReal inverse() {
+        return new InverseNode(this);
+    }
+
+    /** Return this / y. See `inverse` for division by zero */
+    public ConstructiveReal divide(ConstructiveReal y) {
+        return new MultiplyNode(this, y.inverse());
+    }
+
+    /** Return this * 2^n */
+    public ConstructiveReal shiftLeft(int n) {
+        return new ShiftNode(this, n);
+    }
+
+    /** Return this / 2^n */
+    public ConstructiveReal shiftRight(int n) {
+        return new ShiftNode(this, -n);
+    }
+
+    /** Return the square root. Evaluating the result throws ArithmeticException if this value is negative */
+    public ConstructiveReal sqrt() {
+        return new SqrtNode(this);
+    }
+
+    /** Return e ** this */
+    public ConstructiveReal exp() {
+        return new ExpNode(this);
+    }
+
+    //endregion
+
+    //region Display
+
+    /** Return the value rounded to `places` decimal places. Exact values show exactly */
+    public String toString(int places) {
+        LargeInt scaled = scaledToDecimal(places);
+        String digits = scaled.abs().toString();
+        StringBuilder sb = new StringBuilder();
+        if (scaled.sign() < 0) sb.append('-');
+        if (places == 0) return sb.append(digits).toString();
+
+        while (digits.length() <= places) digits = "0" + digits;
+        int point = digits.length() - places;
+        return sb.append(digits, 0, point).append('.').append(digits, point, digits.length()).toString();
+    }
+
+    /** Return the value rounded to `places` decimal places, as a Decimal */
+    public Decimal toDecimal(int places) {
+        return new Decimal(scaledToDecimal(places).toString() + "e-" + places);
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public String toString() {
+        return toString(20);
+    }
+
+    /**
+     * The value times 10^places, rounded half away from zero.
+     * Two extra digits are found then rounded off, so values that are exact at this many places show exactly.
+     */
+    private LargeInt scaledToDecimal(int places) {
+        int digits = places + 2;
+
+        // Enough bits that the scaled error is under a quarter
+        int p = -((int) Math.ceil(digits * 3.321928094887362) + 2);
+        LargeInt power = LargeInt.TEN.pow(digits);
+        LargeInt scaled = scale(approximation(p).multiply(power), p);
+
+        LargeInt[] qr = scaled.abs().divideAndRemainder(LargeInt.fromInt(100));
+        LargeInt rounded = qr[1].compareTo(LargeInt.fromInt(50)) >= 0 ? qr[0].add(LargeInt.ONE) : qr[0];
+        return scaled.sign() < 0 ? rounded.negate() : rounded;
+    }
+
+    //endregion
+
+    //region Precision helpers
+
+    /**
+     * Return the position k of the most significant bit, where 2^(k-1) &lt; |x| &lt; 2^(k+1), if it is above `p`.
+     * Returns Integer.MIN_VALUE if |x| may be below 2^(p+1).
+     */
+    int msd(int p) {
+        if (maxAppr == null || maxAppr.abs().compareTo(LargeInt.ONE) <= 0) {
+            approximation(p - 1);
+            if (maxAppr.abs().compareTo(LargeInt.ONE) <= 0) return Integer.MIN_VALUE;
+        }
+        return knownMsd();
+    }
+
+    /** As `msd`, but looks at increasing precision so large values are found cheaply */
+    int iterativeMsd(int p) {
+        for (int prec = 0; prec > p + 30; prec = (prec * 3) / 2 - 16) {
+            int msd = msd(prec);
+            if (msd != Integer.MIN_VALUE) return msd;
+        }
+        return msd(p);
+    }
+
+    /** Most significant bit position of the cached approximation, which must be larger than one */
+    private int knownMsd() {
+        return minPrec + maxAppr.abs().bitLength() - 1;
+    }
+
+    /** Return x * 2^n, rounding half away from zero when n is negative */
+    static LargeInt scale(LargeInt x, int n) {
+        if (n >= 0) return x.shiftLeft(n);
+        LargeInt magnitude = x.abs().shiftRight(-n - 1).add(LargeInt.ONE).shiftRight(1);
+        return x.sign() < 0 ? magnitude.negate() : magnitude;
+    }
+
+    /** Bits needed for |n|, plus one */
+    private static int boundLog2(int n) {
+        return (int) Math.ceil(Math.log(Math.abs((double) n) + 1) / Math.log(2.0));
+    }
+
+    //endregion
+
+    //region Nodes
+
+    private static final class IntegerNode extends ConstructiveReal {
+        private final LargeInt value;
+
+        IntegerNode(LargeInt value) {
+            this.value = value;
+        }
+
+        @Override
+        protected LargeInt approximate(int p) {
+            return scale(value, -p);
+        }
+    }
+
+    private static final class FractionNode extends ConstructiveReal {
+        private final LargeInt num;
+        private final LargeInt den;
+
+        FractionNode(Fraction f) {
+            num = f.getNumerator();
+            den = f.getDenominator();
+        }
+
+        @Override
+        protected LargeInt approximate(int p) {
+            // Two extra bits, then round them off
+            LargeInt scaled = scale(num, 2 - p).divide(den);
+            return scale(scaled, -2);
+        }
+    }
+
+    private static final class AddNode extends ConstructiveReal {
+        private final ConstructiveReal a;
+        private final ConstructiveReal b;
+
+        AddNode(ConstructiveReal a, ConstructiveReal b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        protected LargeInt approximate(int p) {
+            return scale(a.approximation(p - 2).add(b.approximation(p - 2)), -2);
+        }
+    }
+
+    private static final class NegateNode extends ConstructiveReal {
+        private final ConstructiveReal a;
+
+        NegateNode(ConstructiveReal a) {
+            this.a = a;
+        }
+
+        @Override
+        protected LargeInt approximate(int p) {
+            return a.approximation(p).negate();
+        }
+    }
+
+    private static final class ShiftNode extends ConstructiveReal {
+        private final ConstructiveReal a;
+        private final int n;
+
+        ShiftNode(ConstructiveReal a, int n) {
+            this.a = a;
+            this.n = n;
+        }
+
+        @Override
+        protected LargeInt approximate(int p) {
+            return a.approximation(p - n);
+        }
+    }
+
+    private static final class MultiplyNode extends ConstructiveReal {
+        private final ConstructiveReal x;
+        private final ConstructiveReal y;
+
+        MultiplyNode(ConstructiveReal x, ConstructiveReal y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        protected LargeInt approximate(int p) {
+            // Each operand only needs enough bits to match the size of the other
+            ConstructiveReal a = x, b = y;
+            int halfPrec = (p >> 1) - 1;
+            int msdA = a.msd(halfPrec);
+            if (msdA == Integer.MIN_VALUE) {
+                msdA = b.msd(halfPrec);
+                if (msdA == Integer.MIN_VALUE) return LargeInt.ZERO; // Both small enough that the product is below 2^p
+                a = y;
+                b = x;
+            }
+
+            int precB = p - msdA - 3;
+            LargeInt apprB = b.approximation(precB);
+            if (apprB.sign() == 0) return LargeInt.ZERO;
+
+            int msdB = b.knownMsd();
+            int precA = p - msdB - 3;
+            LargeInt apprA = a.approximation(precA);
+            return scale(apprA.multiply(apprB), precA + precB - p);
+        }
+    }
+
+    private static final class InverseNode extends ConstructiveReal {
+        private final ConstructiveReal a;
+
+        InverseNode(ConstructiveReal a) {
+            this.a = a;
+        }
+
+        @Override
+        protected LargeInt approximate(int p) {
+            int msd = a.iterativeMsd(ZERO_TEST_PRECISION);
+            if (msd == Integer.MIN_VALUE) throw new ArithmeticException("Division by zero, or by a value too small to tell from zero");
+
+            int invMsd = 1 - msd;
+            int digitsNeeded = invMsd - p + 3;
+            int precNeeded = msd - digitsNeeded;
+            int logScaleFactor = -p - precNeeded;
+            if (logScaleFactor < 0) return LargeInt.ZERO;
+
+            LargeInt dividend = LargeInt.ONE.shiftLeft(logScaleFactor);
+            LargeInt divisor = a.approximation(precNeeded);
+            LargeInt absDivisor = divisor.abs();
+            LargeInt result = dividend.add(absDivisor.shiftRight(1)).divide(absDivisor);
+            return divisor.sign() < 0 ? result.negate() : result;
+        }
+    }
+
+    private static final class SqrtNode extends ConstructiveReal {
+        private final ConstructiveReal a;
+
+        SqrtNode(ConstructiveReal a) {
+            this.a = a;
+        }
+
+        @Override
+        protected LargeInt approximate(int p) {
+            // With four more bits each side, truncation and input error are both well under one unit
+            LargeInt x = a.approximation(2 * p - 8);
+            if (x.sign() < 0) {
+                if (x.compareTo(LargeInt.NEG_ONE) < 0) throw new ArithmeticException("Square root of a negative value");
+                return LargeInt.ZERO;
+            }
+            return scale(x.sqrt(), -4);
+        }
+    }
+
+    /** e^a, by its Taylor series. The series converges quickly for |a| up to 1/2; larger values use exp(a/2)^2 */
+    private static final class ExpNode extends ConstructiveReal {
+        private final ConstructiveReal a;
+        /** exp(a/2)^2 when |a| is too large for the series, or null. Decided on first use, so building costs nothing */
+        private ConstructiveReal squaredHalf;
+        private boolean rangeChecked;
+
+        ExpNode(ConstructiveReal a) {
+            this.a = a;
+        }
+
+        @Override
+        protected LargeInt approximate(int p) {
+            if (!rangeChecked) {
+                if (a.approximation(-10).abs().compareTo(LargeInt.fromInt(512)) > 0) {
+                    ConstructiveReal half = new ExpNode(a.shiftRight(1));
+                    squaredHalf = half.multiply(half);
+                }
+                rangeChecked = true;
+            }
+            if (squaredHalf != null) return squaredHalf.approximation(p);
+            if (p >= 1) return LargeInt.ZERO;
+
+            int iterationsNeeded = -p / 2 + 2; // Terms shrink by at least a factor of 2
+            int calcPrecision = p - boundLog2(2 * iterationsNeeded) - 4;
+            int opPrec = p - 3;
+            LargeInt opAppr = a.approximation(opPrec);
+
+            LargeInt scaledOne = LargeInt.ONE.shiftLeft(-calcPrecision);
+            LargeInt term = scaledOne;
+            LargeInt sum = scaledOne;
+            LargeInt maxTruncError = LargeInt.ONE.shiftLeft(p - 4 - calcPrecision);
+            int n = 0;
+            while (term.abs().compareTo(maxTruncError) >= 0) {
+                n++;
+                term = scale(term.multiply(opAppr), opPrec).divide(LargeInt.fromInt(n));
+                sum = sum.add(term);
+            }
+            return scale(sum, calcPrecision - p);
+        }
+    }
+
+    /** atan(1/n) for integer n > 1, by its Taylor series */
+    private static final class InverseTangentNode extends ConstructiveReal {
+        private final LargeInt n;
+
+        InverseTangentNode(int n) {
+            this.n = LargeInt.fromInt(n);
+        }
+
+        @Override
+        protected LargeInt approximate(int p) {
+            if (p >= 1) return LargeInt.ZERO;
+
+            int iterationsNeeded = -p / 2 + 2;
+            int calcPrecision = p - boundLog2(2 * iterationsNeeded) - 2;
+            LargeInt scaledOne = LargeInt.ONE.shiftLeft(-calcPrecision);
+            LargeInt nSquared = n.multiply(n);
+
+            LargeInt power = scaledOne.divide(n);
+            LargeInt sum = power;
+            LargeInt term = power;
+            LargeInt maxTruncError = LargeInt.ONE.shiftLeft(p - 2 - calcPrecision);
+            int sign = 1;
+            int k = 1;
+            while (term.abs().compareTo(maxTruncError) >= 0) {
+                k += 2;
+                power = power.divide(nSquared);
+                sign = -sign;
+                term = power.divide(LargeInt.fromInt(sign * k));
+                sum = sum.add(term);
+            }
+            return scale(sum, calcPrecision - p);
+        }
+    }
+
+    //endregion
+}
@@ -1,4 +1,8 @@
 package e.s.hammercalc.core;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
 ///////////////////////////////////////////////////////////////////////////////////////////////
 // NOTE
 //
@@ -11,42 +15,88 @@ package e.s.hammercalc.core;
 
 public class ContinuedFraction {
 
-    private LargeInt[] _components;
+    /** Terms before the shared store. Usually empty, or the single zero added by invert() */
+    private final LargeInt[] _head;
+    /** Terms, shared between this and any views made from it */
+    private final TermStore _store;
+    /** First term of `_store` that belongs to this */
+    private final int _offset;
+    /** Number of terms of `_store` that belong to this */
+    private final int _length;
+
+    private static final LargeInt[] NO_TERMS = new LargeInt[0];
 
     public ContinuedFraction(LargeInt[] components) {
-        this._components = components;
+        this(components, 0);
     }
 
     public ContinuedFraction(LargeInt prefix, LargeInt[] components) {
-        this._components = new LargeInt[components.length + 1];
-        _components[0] = prefix;
-        for (int i = 1; i <= components.length; i++) {
-            _components[i] = components[i-1];
-        }
+        this(new LargeInt[]{prefix}, TermStore.fromArray(components, 0), 0, components.length);
     }
 
     public ContinuedFraction(LargeInt[] components, int offset) {
-        this._components = new LargeInt[components.length - offset];
-        for (int i = 0; i < _components.length; i++) {
-            _components[i] = components[i+offset];
-        }
+        this(NO_TERMS, TermStore.fromArray(components, offset), 0, components.length - offset);
     }
 
     public ContinuedFraction(Fraction f) {
-        this(f.toContinuedFractionArray());
+        this(NO_TERMS, storeTerms(f), 0, -1);
+    }
+
+    /** View onto part of a store, which is not copied */
+    private ContinuedFraction(LargeInt[] head, TermStore store, int offset, int length) {
+        _head = head;
+        _store = store;
+        _offset = offset;
+        _length = length < 0 ? store.size() - offset : length;
+    }
+
+    private static TermStore storeTerms(Fraction f) {
+        TermStore store = new TermStore();
+        Iterator<LargeInt> terms = f.continuedFractionTerms();
+        while (terms.hasNext()) store.addLast(terms.next());
+        store.trimToSize();
+        return store;
+    }
+
+    /** Number of terms */
+    public int size() {
+        return _head.length + _length;
+    }
+
+    /** Return term k */
+    public LargeInt term(int k) {
+        if (k < _head.length) return _head[k];
+        if (k >= size()) throw new IndexOutOfBoundsException("Term " + k + " of " + size());
+        return _store.get(_offset + k - _head.length);
+    }
+
+    /** Return all the terms as an array */
+    public LargeInt[] toArray() {
+        LargeInt[] result = new LargeInt[size()];
+        System.arraycopy(_head, 0, result, 0, _head.length);
+        for (int i = 0; i < _length; i++) result[_head.length + i] = _store.get(_offset + i);
+        return result;
     }
 
     /** Convert continued fraction to a rational */
     public Fraction toFraction() {
-        return Fraction.continuedFractionToFraction(_components);
+        return Fraction.continuedFractionToFraction(toArray());
     }
 
-    /** Create a new CF, with reciprocal of the value of this */
+    /** Create a new CF, with reciprocal of the value of this.
+     * This adds or removes a leading zero, and shares the rest of the terms with this */
     public ContinuedFraction invert() {
-        if (_components[0].isZero()){
-            return new ContinuedFraction(_components, 1);
-        } else {
-            return new ContinuedFraction(LargeInt.ZERO, _components);
+        if (_head.length > 0) {
+            if (_head[0].isZero()){
+                return new ContinuedFraction(Arrays.copyOfRange(_head, 1, _head.length), _store, _offset, _length);
+            }
+        } else if (_length > 0 && _store.isZero(_offset)) {
+            return new ContinuedFraction(NO_TERMS, _store, _offset + 1, _length - 1);
         }
+
+        LargeInt[] head = new LargeInt[_head.length + 1];
+        head[0] = LargeInt.ZERO;
+        System.arraycopy(_head, 0, head, 1, _head.length);
+        return new ContinuedFraction(head, _store, _offset, _length);
     }
-}
\ No newline at end of file
+}
@@ -131,6 +131,15 @@ public class DdVec {
         for (double d : c) addLast(d);
     }
 
+    /**
+     * Constructs a deque containing the elements of the array
+     * in the range [start..end)
+     */
+    public DdVec(double[] c, int start, int end) {
+        allocateElements(end - start);
+        for (int i = start; i < end; i++) addLast(c[i]);
+    }
+
     /**
      * Create a copy of 'other'. No data is shared.
      */
@@ -505,12 +514,14 @@ public class DdVec {
 
     /**
      * Create a copy from [start..end)
+     * As with JavaScript, an end index beyond the length is clamped to the length.
      * @param start inclusive start index
      * @param end exclusive end index
      */
     public DdVec slice(int start, int end) {
         if (start < 0) start += length();
         if (end < 0) end += length();
+        if (end > length()) end = length();
         if (start < 0 || start >= end) return new DdVec();
 
         DdVec result = new DdVec(end - start);
@@ -2,6 +2,9 @@ package e.s.hammercalc.core;
 
 import static java.lang.Double.NaN;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 /**
@@ -228,6 +231,15 @@ public class Decimal {
         public static final String PI = "3.1415926535897932384626433832795028841971693993751058209749445923078164062862089986280348253421170679821480865132823066470938446095505822317253594081284811174502841027019385211055596446229489549303819644288109756659334461284756482337867831652712019091456485669234603486104543266482133936072602491412737245870066063155881748815209209628292540917153643678925903600113305305488204665213841469519415116094330572703657595919530921861173819326117931051185480744623799627495673518857527248912279381830119491298336733624406566430860213949463952247371907021798609437027705392171762931767523846748184676694051320005681271452635608277857713427577896091736371787214684409012249534301465495853710507922796892589235420199561121290219608640344181598136297747713099605187072113499999983729780499510597317328160963185950244594553469083026425223082533446850352619311881710100031378387528865875332083814206171776691473035982534904287554687311595628638823537875937519577818577805321712268066130019278766111959092164201989380952572010654858632789";
         public static double PI_PRECISION = PI.length() - 1;
 
+        /**
+         * Start calculating π, ln(10) and ln(2) to at least `digits` significant digits on a background thread,
+         * so that later calculations at that precision don't have to wait for them.
+         * Digits beyond `PI_PRECISION` and `LN10_PRECISION` are otherwise calculated when first needed.
+         */
+        public static void prefetch(int digits) {
+            ConstantCache.prefetch(digits);
+        }
+
         /**
          * Base for digit elements
          */
@@ -380,8 +392,9 @@ public class Decimal {
                     case 'o':
                     case 'O': // OCT base marker
                     {
-                        if (!inExp && sb.length() == 1) {
-                            // must be at start of mantissa, and be '0x...', '0b...', '0o...', or uppercase version
+                        if (!inExp && baseSize == 10 && sb.length() == 1) {
+                            // must be at start of mantissa, and be '0x...', '0b...', '0o...', or uppercase version.
+                            // Once the base is set, 'b' is a hex digit.
                             if (sb.charAt(0) != '0') {
                                 valid = false;
                                 return;
@@ -413,6 +426,12 @@ public class Decimal {
                                 return;
                             } // no fractional 'E' form (these are not real exponents)
                             decimalPosition = sb.length();
+                        } else if (inExp && baseSize != 16) { // binary and octal powers of two are written in decimal
+                            if (c >= '0' && c <= '9') sb.append(c);
+                            else if (notSeparator(c)) {
+                                valid = false;
+                                return;
+                            }
                         } else {
                             switch (baseSize) {
                                 case 16: { // integer only, 0..F
@@ -565,8 +584,10 @@ public class Decimal {
             return;
         }
 
-        // Slow path for floats
-        parseDecimal(this, new NumericString(Double.toString(v)));
+        // Slow path for floats. Java always renders these as plain digits with '.' and 'E'
+        double sign = s;
+        parsePlainDecimal(this, Double.toString(v), '.');
+        s = sign;
     }
 
     /**
@@ -592,6 +613,9 @@ public class Decimal {
             return;
         }
 
+        // Fast path for plain `[-]digits[.digits][e±N]` strings
+        if (parsePlainDecimal(this, str, Config.decimalPlaceChar)) return;
+
         NumericString nstr = new NumericString(str);
 
         if (!nstr.valid) { // badly formed strings result in NaN
@@ -716,6 +740,15 @@ public class Decimal {
         return finalise(x, NaN, Config.rounding, false);
     }
 
+    /**
+     * Return a new Decimal whose value is the value of this Decimal negated, i.e. as if multiplied by -1.
+     */
+    public Decimal negated() {
+        Decimal x = new Decimal(this);
+        x.s = -x.s;
+        return finalise(x, NaN, Config.rounding, false);
+    }
+
     /**
      * Return a new Decimal whose value is the value of this Decimal rounded to a whole number in the direction of positive Infinity.
      */
@@ -801,15 +834,12 @@ public class Decimal {
      *</pre>
      * @param y The power to which to raise this Decimal. */
     public Decimal pow(Decimal y){// L2264
-        // Precondition checks
-        if (this.isNaN() || y.isNaN()) return Decimal.decimalNaN();
-        if (y.isPositiveInfinity()) return Decimal.signedInfinity(1);
-        if (y.isNegativeInfinity()) return Decimal.signedZero((int)this.s);
-        if (y.isZero()) return new Decimal(1);
+        // Either ±Infinity, NaN or ±0? These all follow the rules of Math.pow
+        if (this.d == null || y.d == null || this.d.get(0) == 0 || y.d.get(0) == 0) {
+            return new Decimal(Math.pow(this.toDouble(), y.toDouble()));
+        }
 
         Decimal x = new Decimal(this);
-        if (x.isInfinity()) return x;
-        if (x.isZero()) return x;
         if (x.eq(1)) return x;
 
         double pr = Config.precision;
@@ -824,7 +854,7 @@ public class Decimal {
 
         // If y is a small integer, use the 'exponentiation by squaring' algorithm.
         double yn = y.toDouble();
-        if ((e >= y.d.length() - 1) && ((k = (long)(yn < 0 ? -yn : yn))) <= Const.MAX_SAFE_INTEGER) {
+        if (y.isInteger() && ((k = (long)(yn < 0 ? -yn : yn))) <= Const.MAX_SAFE_INTEGER) {
             Decimal r = intPow(x, (long)k, (int) pr);
             if (y.s < 0) return new Decimal(1).div(r);
             else return finalise(r, pr, rm, false);
@@ -836,7 +866,7 @@ public class Decimal {
         // if x is negative
         if (_s < 0){
             // if y is not an integer
-            if (e < y.d.length() - 1) return Decimal.decimalNaN();
+            if (!y.isInteger()) return Decimal.decimalNaN();
 
             // Result is positive if x is negative and the last digit of integer y is even.
             if (((int)y.d.get((int)e) & 1) == 0) _s = 1;
@@ -861,283 +891,2616 @@ public class Decimal {
             e = new Decimal(Double.toString(k)).e;
         }
 
-        // IEB: Continue here
-        return Decimal.decimalNaN(); // delete later
-    }
+        // Exponent estimate may be incorrect e.g. x: 0.999999999999999999, y: 2.29, e: 0, r.e: -1.
 
-    private String digitsToString(DdVec d) {
-        int i;
-        long k;
-        int indexOfLastWord = d.length() - 1;
-        double w = d.get(0);
-        String ws;
-        StringBuilder str = new StringBuilder();
+        // Overflow/underflow?
+        if (e > Config.maxE + 1 || e < Config.minE - 1) return e > 0 ? Decimal.signedInfinity((int) _s) : new Decimal();
 
-        if (indexOfLastWord > 0) {
-            str.append((long)w);
-            for (i = 1; i < indexOfLastWord; i++) {
-                ws = Long.toString((long)d.get(i));
-                k = (long)Const.LOG_BASE - ws.length();
-                if (k != 0) str.append(getZeroString(k));
-                str.append(ws);
+        external = false;
+        Config.rounding = Rounding.ROUND_DOWN;
+        x.s = 1;
+
+        // Estimate the extra guard digits needed to ensure five correct rounding digits from
+        // naturalLogarithm(x). Example of failure without these extra digits (precision: 10):
+        // new Decimal(2.32456).pow('2087987436534566.46411')
+        // should be 1.162377823e+764914905173815, but is 1.162355823e+764914905173815
+        int guard = Math.min(12, Long.toString((long) e).length());
+
+        // r = x^y = exp(y*ln(x))
+        Decimal r = naturalExponential(y.times(naturalLogarithm(x, (int) pr + guard)), (int) pr);
+
+        // r may be Infinity, e.g. (0.9999999999999999).pow(-1e+40)
+        if (r.d != null) {
+            // Truncate to the required precision plus five rounding digits.
+            r = finalise(r, pr + 5, Rounding.ROUND_DOWN, false);
+
+            // If the rounding digits are [49]9999 or [50]0000 increase the precision by 10 and recalculate
+            // the result.
+            if (checkRoundingDigits(r.d, (int) pr, rm, -1)) {
+                e = pr + 10;
+
+                // Truncate to the increased precision plus five rounding digits.
+                r = finalise(naturalExponential(y.times(naturalLogarithm(x, (int) e + guard)), (int) e), e + 5, Rounding.ROUND_DOWN, false);
+
+                // Check for 14 nines from the 2nd rounding digit (the first rounding digit may be 4 or 9).
+                String rs = digitsToString(r.d);
+                int start = Math.min((int) pr + 1, rs.length());
+                int end = Math.min((int) pr + 15, rs.length());
+                if (start < end && parseDoubleOrNaN(rs, start, end) + 1 == 1e14) {
+                    r = finalise(r, pr + 1, Rounding.ROUND_UP, false);
+                }
             }
-
-            w = d.get(i);
-            ws = Long.toString((long)w);
-            k = (long)Const.LOG_BASE - ws.length();
-            if (k != 0) str.append(getZeroString(k));
-        } else if (w == 0) {
-            return "0";
         }
 
-        // Remove trailing zeros of last w.
-        while (w % 10 == 0) w /= 10;
+        r.s = _s;
+        external = true;
+        Config.rounding = rm;
 
-        str.append(w);
-        return str.toString();
+        return finalise(r, pr, rm, false);
     }
 
-    private static String getZeroString(long k) {
-        StringBuilder zs = new StringBuilder();
-        while (k-->0) zs.append('0');
-        return zs.toString();
+    /**
+     * Return a new Decimal whose value is the natural exponential of this Decimal, i.e. the base e
+     * raised to the power the value of this Decimal, rounded to `precision` significant digits
+     * using rounding mode `rounding`.
+     */
+    public Decimal exp() { // L1020
+        return naturalExponential(this, -1);
     }
 
-    /** Return this decimal converted to the nearest double value */
-    private double toDouble() {
-        try {
-            return Double.parseDouble(toStringBinary(this, 10, -1, Config.rounding));
-        } catch (Exception ex) {
-            return NaN;
-        }
+    /**
+     * Return a new Decimal whose value is the natural logarithm of this Decimal, rounded to
+     * `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * ln(-n) = NaN; ln(0) = -Infinity; ln(-0) = -Infinity; ln(1) = 0;
+     * ln(Infinity) = Infinity; ln(-Infinity) = NaN; ln(NaN) = NaN</p>
+     */
+    public Decimal ln() { // L1210
+        return naturalLogarithm(this, -1);
     }
 
     /**
-     * Return the value of Decimal `x` as a string in base `baseOut`.
-     *
-     * If the optional `sd` argument is present include a binary exponent suffix.
+     * Return a new Decimal whose value is the square root of this Decimal, rounded to `precision`
+     * significant digits using rounding mode `rounding`.
+     * <p>
+     * sqrt(-n) = N; sqrt(N) = N; sqrt(-I) = N; sqrt(I) = I; sqrt(0) = 0; sqrt(-0) = -0</p>
      */
-    private static String toStringBinary(Decimal x, int baseOut, int sd, Rounding rm){
-        // L3790
-        // TODO
-        return "TODO";
+    public Decimal sqrt() { // L2466
+        return nthRoot(this, 2);
     }
 
-    public boolean eq(double other) {
-        // TODO
-        return false;
+    /**
+     * Return a new Decimal whose value is the cube root of this Decimal, rounded to `precision`
+     * significant digits using rounding mode `rounding`.
+     * <p>
+     * cbrt(0) = 0; cbrt(-0) = -0; cbrt(1) = 1; cbrt(-1) = -1; cbrt(N) = N; cbrt(-I) = -I; cbrt(I) = I</p>
+     */
+    public Decimal cbrt() { // L794
+        return nthRoot(this, 3);
     }
 
-    public boolean eq(Decimal other) {
-        // TODO
-        return false;
+    /**
+     * Return a new Decimal whose value is the `n`th root of this Decimal, rounded to `precision`
+     * significant digits using rounding mode `rounding`.
+     * Even roots of negative values are NaN. `n` must be 1 or more, otherwise the result is NaN.
+     */
+    public Decimal root(int n) {
+        return nthRoot(this, n);
     }
 
-    /* IEB:TEMP */
-    public boolean gt(Decimal other) {
-        // TODO
-        return false;
+    /**
+     * Return a new Decimal whose value is the sine of the value in radians of this Decimal, rounded to
+     * `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * sin(0) = 0; sin(-0) = -0; sin(Infinity) = NaN; sin(-Infinity) = NaN; sin(NaN) = NaN</p>
+     */
+    public Decimal sin() { // L2395
+        return trigonometric(this, TRIG_SIN);
     }
 
-    public int cmp(Decimal other) { // decimal.mjs#L242
-        int xs = (int)this.s;
-        int ys = (int)other.s;
+    /**
+     * Return a new Decimal whose value is the cosine of the value in radians of this Decimal, rounded to
+     * `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * cos(0) = 1; cos(-0) = 1; cos(Infinity) = NaN; cos(-Infinity) = NaN; cos(NaN) = NaN</p>
+     */
+    public Decimal cos() { // L730
+        return trigonometric(this, TRIG_COS);
+    }
 
-        // Either NaN or ±Infinity?
-        if (!this.isFinite() || !other.isFinite()) {
-            if (this.isNaN() || other.isNaN()) return 0;
-            if (xs != ys) return xs;
-        }
+    /**
+     * Return a new Decimal whose value is the tangent of the value in radians of this Decimal, rounded to
+     * `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * tan(0) = 0; tan(-0) = -0; tan(Infinity) = NaN; tan(-Infinity) = NaN; tan(NaN) = NaN</p>
+     */
+    public Decimal tan() { // L2548
+        return trigonometric(this, TRIG_TAN);
+    }
 
-        // Either zero?
-        if (this.isZero() || other.isZero()){
-            if (!this.isZero()) return xs;
-            if (!other.isZero()) return -ys;
-            return 0;
+    /**
+     * Return a new Decimal whose value is the arctangent (inverse tangent) in radians of the value of
+     * this Decimal, rounded to `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * Domain: [-Infinity, Infinity]; Range: [-pi/2, pi/2]</p>
+     * <p>
+     * atan(0) = 0; atan(-0) = -0; atan(1) = pi/4; atan(-1) = -pi/4; atan(Infinity) = pi/2;
+     * atan(-Infinity) = -pi/2; atan(NaN) = NaN</p>
+     */
+    public Decimal atan() { // L1149
+        Decimal x = this;
+        if (x.isNaN()) return Decimal.decimalNaN();
+        if (x.isZero()) return new Decimal(x);
+
+        int pr = Config.precision;
+        Rounding rm = Config.rounding;
+        int wpr = pr + 10;
+        boolean wasExternal = external;
+        external = false;
+        Config.precision = wpr;
+
+        Decimal r;
+        if (x.d == null) {
+            r = divide(getPi(wpr), new Decimal(2), wpr, Rounding.ROUND_DOWN, false, -1);
+            r.s = x.s;
+        } else {
+            r = arctangent(x, wpr);
         }
 
-        // Signs differ?
-        if (xs != ys) return xs;
+        Config.precision = pr;
+        external = wasExternal;
+        return finalise(r, pr, rm, false);
+    }
 
-        // Compare exponents.
-        if (this.e != other.e) return ((this.e > other.e) ^ (xs < 0)) ? 1 : -1;
+    /**
+     * Return a new Decimal whose value is the arcsine (inverse sine) in radians of the value of this
+     * Decimal, rounded to `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * Domain: [-1, 1]; Range: [-pi/2, pi/2]</p>
+     * <p>
+     * asin(0) = 0; asin(-0) = -0; asin(1) = pi/2; asin(-1) = -pi/2; asin(|x| > 1) = NaN; asin(NaN) = NaN</p>
+     */
+    public Decimal asin() { // L1073
+        return arcSineOrCosine(this, false);
+    }
 
-        // Compare digit by digit.
-        int xdL = this.d.length();
-        int ydL = other.d.length();
-        int i, j;
-        for (i = 0, j = Math.min(xdL, ydL); i < j; ++i) {
-            //if (this.d[i] !== other.d[i]) return this.d[i] > other.d[i] ^ xs < 0 ? 1 : -1;
-            if (this.d.get(i) != other.d.get(i)) return ((this.d.get(i) > other.d.get(i)) ^ (xs < 0)) ? 1 : -1;
-        }
+    /**
+     * Return a new Decimal whose value is the arccosine (inverse cosine) in radians of the value of this
+     * Decimal, rounded to `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * Domain: [-1, 1]; Range: [0, pi]</p>
+     * <p>
+     * acos(0) = pi/2; acos(1) = 0; acos(-1) = pi; acos(|x| > 1) = NaN; acos(NaN) = NaN</p>
+     */
+    public Decimal acos() { // L968
+        return arcSineOrCosine(this, true);
+    }
 
-        // Compare lengths.
-        return xdL == ydL ? 0 : xdL > ydL ^ xs < 0 ? 1 : -1;
+    /**
+     * Return a new Decimal whose value is the hyperbolic sine of the value in radians of this Decimal,
+     * rounded to `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * sinh(0) = 0; sinh(-0) = -0; sinh(Infinity) = Infinity; sinh(-Infinity) = -Infinity; sinh(NaN) = NaN</p>
+     */
+    public Decimal sinh() { // L2433
+        return hyperbolic(this, TRIG_SIN);
     }
 
     /**
-     * Return a new decimal with invalid value
+     * Return a new Decimal whose value is the hyperbolic cosine of the value in radians of this Decimal,
+     * rounded to `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * cosh(0) = 1; cosh(-0) = 1; cosh(Infinity) = Infinity; cosh(-Infinity) = Infinity; cosh(NaN) = NaN</p>
      */
-    public static Decimal NaN() {
-        return new Decimal(NaN);
+    public Decimal cosh() { // L760
+        return hyperbolic(this, TRIG_COS);
     }
 
     /**
-     * Return true if decimal is invalid, false otherwise
+     * Return a new Decimal whose value is the hyperbolic tangent of the value in radians of this Decimal,
+     * rounded to `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * tanh(0) = 0; tanh(-0) = -0; tanh(Infinity) = 1; tanh(-Infinity) = -1; tanh(NaN) = NaN</p>
      */
-    public boolean isNaN() {
-        return (d == null || d.isEmpty()) && Double.isNaN(s);
+    public Decimal tanh() { // L2575
+        return hyperbolic(this, TRIG_TAN);
     }
 
-    /** Display the internal state of this Decimal */
-    public String toRawString() {
-        StringBuilder sb = new StringBuilder();
+    /**
+     * Return a new Decimal whose value is the inverse of the hyperbolic sine of the value of this Decimal,
+     * rounded to `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * asinh(x) = ln(x + sqrt(x^2 + 1))</p>
+     */
+    public Decimal asinh() { // L1106
+        Decimal x = this;
+        if (x.d == null || x.d.get(0) == 0) return new Decimal(x);
 
-        sb.append("Sign=");
-        sb.append((int)s);
+        int pr = Config.precision;
+        Rounding rm = Config.rounding;
 
-        sb.append("; Exponent=");
-        if (Double.isFinite(e)) sb.append((long)e);
-        else sb.append(e);
+        // Guard digits for the cancellation in ln(1 + small x). When x is so small that x^3 is past them,
+        // asinh(x) = x - x^3/6 + ..., and the result is x nudged toward zero
+        boolean tiny = -x.e > pr + 10;
+        int wpr = pr + 10 + (tiny ? 0 : (int) Math.max(0, -x.e));
+        boolean wasExternal = external;
+        external = false;
+        Config.precision = wpr;
+
+        // asinh(-x) = -asinh(x)
+        Decimal ax = new Decimal(x);
+        ax.s = 1;
+        Decimal r = tiny ? ax.minus(ax.times(ax).times(ax).div(new Decimal(6)))
+                : naturalLogarithm(ax.times(ax).plus(1).sqrt().plus(ax), wpr);
+        r.s = x.s;
+
+        Config.precision = pr;
+        external = wasExternal;
+        return finalise(r, pr, rm, false);
+    }
 
-        if (d == null){
-            sb.append("; Digits=<null>;");
-        } else if (d.isEmpty()) {
-            sb.append("; Digits=<empty>;");
-        } else {
-            sb.append("; Digits=");
-            boolean s = false;
-            double[] digits = d.toArray();
-            for (double v : digits) {
-                if (s) sb.append(',');
-                else s = true;
+    /**
+     * Return a new Decimal whose value is the inverse of the hyperbolic cosine of the value of this Decimal,
+     * rounded to `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * Domain: [1, Infinity]; acosh(x) = ln(x + sqrt(x^2 - 1))</p>
+     */
+    public Decimal acosh() { // L1048
+        Decimal x = this;
+        if (x.isNaN()) return Decimal.decimalNaN();
+        int c = x.cmp(1);
+        if (c < 0) return Decimal.decimalNaN();
+        if (x.d == null) return new Decimal(x);
+        if (c == 0) return new Decimal(0);
+
+        int pr = Config.precision;
+        Rounding rm = Config.rounding;
+        int wpr = pr + 10;
+        boolean wasExternal = external;
+        external = false;
+        Config.precision = wpr;
 
-                sb.append('[');
-                sb.append((long)v);
-                sb.append(']');
-            }
-        }
+        Decimal r = naturalLogarithm(x.times(x).minus(1).sqrt().plus(x), wpr);
 
-        return sb.toString();
+        Config.precision = pr;
+        external = wasExternal;
+        return finalise(r, pr, rm, false);
     }
 
-    /*-------------------------------------------------------------------------------------------------------------------------*/
-    /*-------------------------------------------------------------------------------------------------------------------------*/
-    /*-------------------------------------------------------------------------------------------------------------------------*/
+    /**
+     * Return a new Decimal whose value is the inverse of the hyperbolic tangent of the value of this Decimal,
+     * rounded to `precision` significant digits using rounding mode `rounding`.
+     * <p>
+     * Domain: [-1, 1]; atanh(x) = 0.5 * ln((1 + x) / (1 - x))</p>
+     * <p>
+     * atanh(|x| > 1) = NaN; atanh(1) = Infinity; atanh(-1) = -Infinity; atanh(NaN) = NaN</p>
+     */
+    public Decimal atanh() { // L1129
+        Decimal x = this;
+        if (x.isNaN() || x.d == null) return Decimal.decimalNaN();
+        if (x.d.get(0) == 0) return new Decimal(x);
+
+        Decimal ax = new Decimal(x);
+        ax.s = 1;
+        int c = ax.cmp(1);
+        if (c > 0) return Decimal.decimalNaN();
+        if (c == 0) return Decimal.signedInfinity((int) x.s);
+
+        int pr = Config.precision;
+        Rounding rm = Config.rounding;
+
+        // Guard digits for the cancellation in ln(1 + small x). When x is so small that x^3 is past them,
+        // atanh(x) = x + x^3/3 + ..., and the result is x nudged away from zero
+        boolean tiny = -x.e > pr + 10;
+        int wpr = pr + 10 + (tiny ? 0 : (int) Math.max(0, -x.e));
+        boolean wasExternal = external;
+        external = false;
+        Config.precision = wpr;
+
+        Decimal r;
+        if (tiny) {
+            r = ax.plus(ax.times(ax).times(ax).div(new Decimal(3)));
+        } else {
+            Decimal q = divide(ax.plus(1), new Decimal(1).minus(ax), wpr, Rounding.ROUND_DOWN, false, -1);
+            r = naturalLogarithm(q, wpr).times(0.5);
+        }
+        r.s = x.s;
 
+        Config.precision = pr;
+        external = wasExternal;
+        return finalise(r, pr, rm, false);
+    }
 
     /**
-     * Modify this Decimal in place -- for use in constructors only.
-     * Parse the input string as an unsigned decimal string.
-     * Input string should have been through the filter process before calling
+     * Return a new Decimal whose value is the value of this Decimal plus `y`, rounded to `precision`
+     * significant digits using rounding mode `rounding`.
+     * <pre>
+     *  n + 0 = n; n + N = N; n + I = I; 0 + n = n; 0 + 0 = 0; 0 + N = N; 0 + I = I;
+     *  N + n = N; N + 0 = N; N + N = N; N + I = N; I + n = I; I + 0 = I; I + N = N; I + I = I;
+     * </pre>
      */
-    private static void parseDecimal(Decimal x, NumericString num) {
-        // L3513
-        // try to find decimal place
-        int e = num.decimalPosition;
+    public Decimal plus(Decimal y) { // L1735
+        return plus(this, y, Config.precision, Config.rounding, external);
+    }
 
-        // TODO: update NumericString to simplify this
-        // TODO: do our own parsing so we can remove substring and string concatenation
+    /**
+     * x + y, rounded to `pr` significant digits using rounding mode `rm` if `round` is set.
+     * Rounding also checks for over/under-flow, whatever the state of `external`.
+     */
+    static Decimal plus(Decimal x, Decimal y, int pr, Rounding rm, boolean round) {
+        y = new Decimal(y);
+
+        // If either is not finite...
+        if (x.d == null || y.d == null) {
+            // Return NaN if either is NaN.
+            if (Double.isNaN(x.s) || Double.isNaN(y.s)) return Decimal.decimalNaN();
+
+            // Return x if y is finite and x is ±Infinity.
+            // Return x if both are ±Infinity with the same sign.
+            // Return NaN if both are ±Infinity with different signs.
+            // Return y if x is finite and y is ±Infinity.
+            if (x.d == null) return (y.d != null || x.s == y.s) ? new Decimal(x) : Decimal.decimalNaN();
+            return y;
+        }
 
-        // Exponent form?
-        if (num.exponent.length() > 0) {
-            e += parseDoubleOrNaN(num.exponent);
-        } else if (e < 0) {
-            e = num.mantissa.length(); // integer
+        // If signs differ...
+        if (x.s != y.s) {
+            y.s = -y.s;
+            return minus(x, y, pr, rm, round);
         }
 
-        // Determine leading zeros
-        int i;
-        for (i = 0; i < num.mantissa.length() && num.mantissa.charAt(i) == '0'; i++) ;
+        DdVec xd = x.d;
+        DdVec yd = y.d;
 
-        // Determine trailing zeros
-        int len;
-        for (len = num.mantissa.length(); len > 0 && num.mantissa.charAt(len - 1) == '0'; --len) ;
+        // If either is zero...
+        if (xd.get(0) == 0 || yd.get(0) == 0) {
+            // Return x if y is zero.
+            // Return y if y is non-zero.
+            if (yd.get(0) == 0) y = new Decimal(x);
+            return round ? finalise(y, pr, rm, false, true) : y;
+        }
 
-        if (len <= i) { // all zeros
-            x.e = 0;
-            x.d = DdVec.FromDouble(0);
-        } else { // L3540
-            String str = num.mantissa.substring(i, len);
-            x.d = new DdVec();
-            len -= i;
-            e = e - i - 1;
-            x.e = e;
+        // x and y are finite, non-zero numbers with the same sign.
 
-            // Transform base
+        // Calculate base 1e7 exponents.
+        long k = (long) Math.floor(x.e / Const.LOG_BASE);
+        long e = (long) Math.floor(y.e / Const.LOG_BASE);
 
-            // e is the base10 exponent
-            // i is where to slice str to get the first word of the digits array
-            i = (e + 1) % (int) Const.LOG_BASE;
-            if (e < 0) i += Const.LOG_BASE;
+        double[] xa = xd.toArray();
+        double[] ya = yd.toArray();
+        long shift = k - e;
+        int i, len;
 
-            if (i < len) {
-                if (i != 0) x.d.addLast(parseDoubleOrNaN(str, 0, i));
-                for (len -= Const.LOG_BASE; i < len; ) {
-                    x.d.addLast(parseDoubleOrNaN(str, i, i += Const.LOG_BASE));
-                }
-                str = str.substring(i);
-                i = (int) Const.LOG_BASE - str.length();
+        // If base 1e7 exponents differ...
+        if (shift != 0) {
+            boolean padX = shift < 0;
+            if (padX) {
+                shift = -shift;
+                len = ya.length;
             } else {
-                i -= len;
+                e = k;
+                len = xa.length;
             }
 
-            for (; i-- > 0; ) str = str + "0";
-            x.d.addLast(parseDoubleOrNaN(str));
+            // Limit number of zeros prepended to max(ceil(pr / LOG_BASE), len) + 1.
+            i = (int) Math.ceil(pr / Const.LOG_BASE);
+            len = i > len ? i + 1 : len + 1;
 
-            if (external) {
-                if (x.e > Config.maxE) { // Overflow to infinity
-                    x.d = null;
-                    x.e = NaN;
-                } else if (x.e < Config.minE) { // underflow to zero
-                    x.e = 0;
-                    x.d = DdVec.FromDouble(0);
-                }
-            }
+            // Prepend zeros to equalise exponents.
+            if (padX) xa = prependZeros(xa, (int) Math.min(shift, len), shift > len);
+            else ya = prependZeros(ya, (int) Math.min(shift, len), shift > len);
         }
-    }
-
 
-    /**
-     * Modify this Decimal in place -- for use in constructors only.
-     * Parse the input string as an unsigned unknown number
-     * Input string should have been through the filter process before calling
-     */
-    private static void parseOther(Decimal target, NumericString num) {
-        // L3620 (lines before this are in NumericString
-        Decimal x = target;
+        // If ya is longer than xa, swap xa and ya so xa points to the longer array.
+        if (xa.length < ya.length) {
+            double[] t = xa;
+            xa = ya;
+            ya = t;
+        }
 
-        long p = 0;
-        if (num.exponent.length() > 0) {
-            double px = parseDoubleOrNaN(num.exponent);
-            if (Double.isNaN(px)){
-                x.makeNaN();
-                return;
-            }
-            p = (long)px;
+        // Only start adding at ya.length - 1 as the further digits of xa can be left as they are.
+        double carry = 0;
+        for (i = ya.length; i-- > 0; ) {
+            double t = xa[i] + ya[i] + carry;
+            carry = Math.floor(t / Const.BASE);
+            xa[i] = t % Const.BASE;
         }
-        String str = num.mantissa;
 
+        // Remove trailing zeros.
+        for (len = xa.length; len > 0 && xa[len - 1] == 0; ) len--;
 
-        // Convert `str` as an integer then divide the result by `base` raised to a power such that the
-        // fraction part will be restored.
-        int i = num.mantissa.length();
-        Decimal divisor = new Decimal(1);
-        Decimal dbase = new Decimal(num.baseSize);
-        if (num.decimalPosition >= 0){ // L3635
-            // log[10](16) = 1.2041... , log[10](88) = 1.9444....
-            i = num.mantissa.length() - num.decimalPosition; // ??? L3638
-            divisor = intPow(dbase, i, i*i);
+        DdVec rd = new DdVec(xa, 0, len);
+        if (carry != 0) {
+            rd.addFirst(carry);
+            ++e;
         }
 
+        y.d = rd;
+        y.e = getBase10Exponent(rd, e);
 
-        DdVec xd = convertBase(str, num.baseSize, Const.BASE);
-        int xe = xd.length() - 1;
+        return round ? finalise(y, pr, rm, false, true) : y;
+    }
 
-        // Remove trailing zeros. // L3647
-        for (i = xe; xd.get(i) == 0; --i) xd.removeLast();
-        if (i < 0) { // I think the original code is doing a signed zero here: `return new Ctor(x.s * 0);`
-            x.makeZero();
+    /**
+     * Return a new Decimal whose value is the value of this Decimal plus `y`
+     */
+    public Decimal plus(double y) {
+        return plus(new Decimal(y));
+    }
+
+    /**
+     * Return a new Decimal whose value is the value of this Decimal minus `y`, rounded to `precision`
+     * significant digits using rounding mode `rounding`.
+     * <pre>
+     *  n - 0 = n; n - N = N; n - I = -I; 0 - n = -n; 0 - 0 = 0; 0 - N = N; 0 - I = -I;
+     *  N - n = N; N - 0 = N; N - N = N; N - I = N; I - n = I; I - 0 = I; I - N = N; I - I = N;
+     * </pre>
+     */
+    public Decimal minus(Decimal y) { // L1480
+        return minus(this, y, Config.precision, Config.rounding, external);
+    }
+
+    /**
+     * x - y, rounded to `pr` significant digits using rounding mode `rm` if `round` is set.
+     * Rounding also checks for over/under-flow, whatever the state of `external`.
+     */
+    static Decimal minus(Decimal x, Decimal y, int pr, Rounding rm, boolean round) {
+        y = new Decimal(y);
+
+        // If either is not finite...
+        if (x.d == null || y.d == null) {
+            // Return NaN if either is NaN.
+            if (Double.isNaN(x.s) || Double.isNaN(y.s)) return Decimal.decimalNaN();
+
+            // Return y negated if x is finite and y is ±Infinity.
+            if (x.d != null) {
+                y.s = -y.s;
+                return y;
+            }
+
+            // Return x if y is finite and x is ±Infinity.
+            // Return x if both are ±Infinity with different signs.
+            // Return NaN if both are ±Infinity with the same sign.
+            return (y.d != null || x.s != y.s) ? new Decimal(x) : Decimal.decimalNaN();
+        }
+
+        // If signs differ...
+        if (x.s != y.s) {
+            y.s = -y.s;
+            return plus(x, y, pr, rm, round);
+        }
+
+        DdVec xd = x.d;
+        DdVec yd = y.d;
+
+        // If either is zero...
+        if (xd.get(0) == 0 || yd.get(0) == 0) {
+            if (yd.get(0) != 0) {
+                // Return y negated if x is zero and y is non-zero.
+                y.s = -y.s;
+            } else if (xd.get(0) != 0) {
+                // Return x if y is zero and x is non-zero.
+                y = new Decimal(x);
+            } else {
+                // Return zero if both are zero.
+                // From IEEE 754 (2008) 6.3: 0 - 0 = -0 - -0 = -0 when rounding to -Infinity.
+                return Decimal.signedZero(rm == Rounding.ROUND_FLOOR ? -1 : 1);
+            }
+
+            return round ? finalise(y, pr, rm, false, true) : y;
+        }
+
+        // x and y are finite, non-zero numbers with the same sign.
+
+        // Calculate base 1e7 exponents.
+        long e = (long) Math.floor(y.e / Const.LOG_BASE);
+        long xe = (long) Math.floor(x.e / Const.LOG_BASE);
+
+        double[] xa = xd.toArray();
+        double[] ya = yd.toArray();
+        long shift = xe - e;
+        int i, j, k, len;
+        boolean xLTy;
+
+        // If base 1e7 exponents differ...
+        if (shift != 0) {
+            xLTy = shift < 0;
+
+            if (xLTy) {
+                shift = -shift;
+                len = ya.length;
+            } else {
+                e = xe;
+                len = xa.length;
+            }
+
+            // Numbers with massively different exponents would result in a very high number of
+            // zeros needing to be prepended, but this can be avoided while still ensuring correct
+            // rounding by limiting the number of zeros to `Math.ceil(pr / LOG_BASE) + 2`.
+            i = Math.max((int) Math.ceil(pr / Const.LOG_BASE), len) + 2;
+
+            // Prepend zeros to equalise exponents.
+            k = (int) Math.min(shift, i);
+            if (xLTy) xa = prependZeros(xa, k, shift > i);
+            else ya = prependZeros(ya, k, shift > i);
+        } else { // Base 1e7 exponents equal.
+            // Check digits to determine which is the bigger number.
+            len = Math.min(xa.length, ya.length);
+            xLTy = xa.length < ya.length;
+
+            for (i = 0; i < len; i++) {
+                if (xa[i] != ya[i]) {
+                    xLTy = xa[i] < ya[i];
+                    break;
+                }
+            }
+
+            k = 0;
+        }
+
+        if (xLTy) {
+            double[] t = xa;
+            xa = ya;
+            ya = t;
+            y.s = -y.s;
+        }
+
+        // Append zeros to `xa` if shorter.
+        // Don't add zeros to `ya` if shorter as subtraction only needs to start at `ya` length.
+        if (xa.length < ya.length) xa = Arrays.copyOf(xa, ya.length);
+        len = xa.length;
+
+        // Subtract ya from xa.
+        for (i = ya.length; i > k; ) {
+            if (xa[--i] < ya[i]) {
+                for (j = i; j > 0 && xa[--j] == 0; ) xa[j] = Const.BASE - 1;
+                --xa[j];
+                xa[i] += Const.BASE;
+            }
+
+            xa[i] -= ya[i];
+        }
+
+        // Remove trailing zeros.
+        for (; len > 0 && xa[len - 1] == 0; ) len--;
+
+        // Remove leading zeros and adjust exponent accordingly.
+        int start;
+        for (start = 0; start < len && xa[start] == 0; start++) --e;
+
+        // Zero?
+        if (start >= len) return Decimal.signedZero(rm == Rounding.ROUND_FLOOR ? -1 : 1);
+
+        y.d = new DdVec(xa, start, len);
+        y.e = getBase10Exponent(y.d, e);
+
+        return round ? finalise(y, pr, rm, false, true) : y;
+    }
+
+    /**
+     * Return a new Decimal whose value is the value of this Decimal minus `y`
+     */
+    public Decimal minus(double y) {
+        return minus(new Decimal(y));
+    }
+
+    /** Return a copy of `src` with `count` zeros at the start.
+     * If `firstOnly` is set, only the first element of `src` is kept after the zeros */
+    private static double[] prependZeros(double[] src, int count, boolean firstOnly) {
+        int srcL = firstOnly ? 1 : src.length;
+        double[] result = new double[count + srcL];
+        System.arraycopy(src, 0, result, count, srcL);
+        return result;
+    }
+
+    /**
+     * Return a new Decimal whose value is the natural exponential of `x` rounded to `sd` significant
+     * digits.
+     * <p>
+     * Taylor/Maclaurin series: exp(x) = x^0/0! + x^1/1! + x^2/2! + x^3/3! + ...
+     * Argument reduction: Repeat x = x / 32, k += 5, until |x| < 0.1,
+     * then exp(x) = exp(x / 2^k)^(2^k)</p>
+     *
+     * @param x value to raise e to
+     * @param sd significant digits of the result. Use -1 for 'not specified', which will use Config settings
+     *           and give a correctly rounded result.
+     */
+    private static Decimal naturalExponential(Decimal x, int sd) { // L3228
+        int rep = 0, i = 0, k = 0;
+        Rounding rm = Config.rounding;
+        int pr = Config.precision;
+
+        // 0/NaN/Infinity?
+        if (x.d == null || x.d.get(0) == 0 || x.e > 17) {
+            if (x.d != null && x.d.get(0) == 0) return new Decimal(1);
+            if (x.isNaN()) return Decimal.decimalNaN();
+            return x.s < 0 ? new Decimal() : Decimal.signedInfinity(1);
+        }
+
+        int wpr;
+        if (sd < 0) {
+            external = false;
+            wpr = pr;
+        } else {
+            wpr = sd;
+        }
+
+        Decimal t = new Decimal(0.03125);
+
+        // while abs(x) >= 0.1
+        while (x.e > -2) {
+            // x = x / 2^5
+            x = x.times(t);
+            k += 5;
+        }
+
+        // Use 2 * log10(2^k) + 5 (empirically derived) to estimate the increase in precision
+        // necessary to ensure the first 4 rounding digits are correct.
+        int guard = (int) (Math.log(Math.pow(2, k)) / Math.log(10) * 2 + 5);
+        wpr += guard;
+        Decimal denominator, pow, sum;
+        denominator = pow = sum = new Decimal(1);
+        Config.precision = wpr;
+
+        for (; ; ) {
+            pow = finalise(pow.times(x), wpr, Rounding.ROUND_DOWN, false);
+            denominator = denominator.times(++i);
+            t = sum.plus(divide(pow, denominator, wpr, Rounding.ROUND_DOWN, false, -1));
+
+            if (sameLeadingDigits(t.d, sum.d, wpr)) {
+                int j = k;
+                while (j-- > 0) sum = finalise(sum.times(sum), wpr, Rounding.ROUND_DOWN, false);
+
+                // Check to see if the first 4 rounding digits are [49]999.
+                // If so, repeat the summation with a higher precision, otherwise
+                // e.g. with precision: 18, rounding: 1
+                // exp(18.404272462595034083567793919843761) = 98372560.1229999999 (should be 98372560.123)
+                // `wpr - guard` is the index of first rounding digit.
+                if (sd < 0) {
+                    if (rep < 3 && checkRoundingDigits(sum.d, wpr - guard, rm, rep)) {
+                        Config.precision = wpr += 10;
+                        denominator = pow = t = new Decimal(1);
+                        i = 0;
+                        rep++;
+                    } else {
+                        Config.precision = pr;
+                        external = true;
+                        return finalise(sum, pr, rm, true);
+                    }
+                } else {
+                    Config.precision = pr;
+                    return sum;
+                }
+            }
+
+            sum = t;
+        }
+    }
+
+    /**
+     * Return a new Decimal whose value is the natural logarithm of `y` rounded to `sd` significant
+     * digits.
+     * <p>
+     * ln(-n) = NaN; ln(0) = -Infinity; ln(-0) = -Infinity; ln(1) = 0; ln(Infinity) = Infinity;
+     * ln(-Infinity) = NaN; ln(NaN) = NaN</p>
+     * <p>
+     * ln(n) (n != 1) is non-terminating.</p>
+     *
+     * @param y value to take the logarithm of
+     * @param sd significant digits of the result. Use -1 for 'not specified', which will use Config settings
+     *           and give a correctly rounded result.
+     */
+    private static Decimal naturalLogarithm(Decimal y, int sd) { // L3324
+        int n = 1;
+        int guard = 10;
+        Decimal x = y;
+        DdVec xd = x.d;
+        Rounding rm = Config.rounding;
+        int pr = Config.precision;
+
+        // Is x negative or Infinity, NaN, 0 or 1?
+        if (x.s < 0 || xd == null || xd.get(0) == 0 || (x.e == 0 && xd.get(0) == 1 && xd.length() == 1)) {
+            if (xd != null && xd.get(0) == 0) return Decimal.signedInfinity(-1);
+            if (x.s != 1) return Decimal.decimalNaN();
+            return xd != null ? new Decimal() : new Decimal(x);
+        }
+
+        int wpr;
+        if (sd < 0) {
+            external = false;
+            wpr = pr;
+        } else {
+            wpr = sd;
+        }
+
+        Config.precision = wpr += guard;
+        String c = digitsToString(xd);
+        char c0 = c.charAt(0);
+        double e = x.e;
+
+        if (Math.abs(e) < 1.5e15) {
+            // Argument reduction.
+            // The series converges faster the closer the argument is to 1, so using
+            // ln(a^b) = b * ln(a),   ln(a) = ln(a^b) / b
+            // multiply the argument by itself until the leading digits of the significand are 7, 8, 9,
+            // 10, 11, 12 or 13, recording the number of multiplications so the sum of the series can
+            // later be divided by this number, then separate out the power of 10 using
+            // ln(a*10^b) = ln(a) + b*ln(10).
+
+            // max n is 6 (gives 0.7 - 1.3)
+            while (c0 < '7' && c0 != '1' || c0 == '1' && c.length() > 1 && c.charAt(1) > '3') {
+                x = x.times(y);
+                c = digitsToString(x.d);
+                c0 = c.charAt(0);
+                n++;
+            }
+
+            e = x.e;
+
+            if (c0 > '1') {
+                x = new Decimal("0" + Config.decimalPlaceChar + c);
+                e++;
+            } else {
+                x = new Decimal(c0 + "" + Config.decimalPlaceChar + c.substring(1));
+            }
+        } else {
+            // The argument reduction method above may result in overflow if the argument y is a massive
+            // number with exponent >= 1500000000000000 (9e15 / 6 = 1.5e15), so instead recall this
+            // function using ln(x*10^e) = ln(x) + e*ln(10).
+            Decimal t = getLn10(wpr + 2).times(e);
+            x = naturalLogarithm(new Decimal(c0 + "" + Config.decimalPlaceChar + c.substring(1)), wpr - guard).plus(t);
+            Config.precision = pr;
+
+            if (sd < 0) {
+                external = true;
+                return finalise(x, pr, rm, true);
+            }
+            return x;
+        }
+
+        // x1 is x reduced to a value near 1.
+        Decimal x1 = x;
+
+        // Taylor series.
+        // ln(y) = ln((1 + x)/(1 - x)) = 2(x + x^3/3 + x^5/5 + x^7/7 + ...)
+        // where x = (y - 1)/(y + 1)    (|x| < 1)
+        Decimal sum, numerator, x2, t;
+        sum = numerator = x = divide(x.minus(1), x.plus(1), wpr, Rounding.ROUND_DOWN, false, -1);
+        x2 = finalise(x.times(x), wpr, Rounding.ROUND_DOWN, false);
+        int denominator = 3;
+        int rep = -1;
+
+        for (; ; ) {
+            numerator = finalise(numerator.times(x2), wpr, Rounding.ROUND_DOWN, false);
+            t = sum.plus(divide(numerator, new Decimal(denominator), wpr, Rounding.ROUND_DOWN, false, -1));
+
+            if (sameLeadingDigits(t.d, sum.d, wpr)) {
+                sum = sum.times(2);
+
+                // Reverse the argument reduction. Check that e is not 0 because, besides preventing an
+                // unnecessary calculation, -0 + 0 = +0 and to ensure correct rounding -0 needs to stay -0.
+                if (e != 0) sum = sum.plus(getLn10(wpr + 2).times(e));
+                sum = divide(sum, new Decimal(n), wpr, Rounding.ROUND_DOWN, false, -1);
+
+                // Is rm > 3 and the first 4 rounding digits 4999, or rm < 4 (or the summation has
+                // been repeated previously) and the first 4 rounding digits 9999?
+                // If so, restart the summation with a higher precision, otherwise
+                // e.g. with precision: 12, rounding: 1
+                // ln(135520028.6126091714265381533) = 18.7246299999 when it should be 18.72463.
+                // `wpr - guard` is the index of first rounding digit.
+                if (sd < 0) {
+                    if (checkRoundingDigits(sum.d, wpr - guard, rm, rep)) {
+                        Config.precision = wpr += guard;
+                        t = numerator = x = divide(x1.minus(1), x1.plus(1), wpr, Rounding.ROUND_DOWN, false, -1);
+                        x2 = finalise(x.times(x), wpr, Rounding.ROUND_DOWN, false);
+                        denominator = rep = 1;
+                    } else {
+                        Config.precision = pr;
+                        external = true;
+                        return finalise(sum, pr, rm, true);
+                    }
+                } else {
+                    Config.precision = pr;
+                    return sum;
+                }
+            }
+
+            sum = t;
+            denominator += 2;
+        }
+    }
+
+    /**
+     * Return the `n`th root of `x`, correctly rounded to `precision` significant digits.
+     * <p>
+     * Newton iteration r = ((n-1)r + x/r^(n-1)) / n starts from a double estimate, and the working
+     * precision is doubled each step so that only the last step runs at full precision. For large `n`
+     * the root is taken as exp(ln(x)/n) instead.</p>
+     * <p>
+     * The result is then placed between the rounding boundaries (multiples of half a unit in the last
+     * place). Only when it is too close to a boundary to tell is the boundary raised to the `n`th power,
+     * first rounded with an error bound, and exactly only if that cannot decide it.</p>
+     */
+    private static Decimal nthRoot(Decimal x, int n) {
+        // NaN, ±Infinity or ±0?
+        if (n < 1 || x.isNaN()) return Decimal.decimalNaN();
+        boolean even = (n % 2) == 0;
+        if (x.s < 0 && even && !x.isZero()) return Decimal.decimalNaN();
+        if (x.d == null) return Decimal.signedInfinity((int) x.s);
+        if (x.d.get(0) == 0) return Decimal.signedZero((int) x.s);
+
+        int pr = Config.precision;
+        Rounding rm = Config.rounding;
+        if (n == 1) return finalise(new Decimal(x), pr, rm, false);
+
+        boolean wasExternal = external;
+        external = false;
+        double sign = x.s;
+        Decimal a = new Decimal(x);
+        a.s = 1;
+
+        // Five extra digits leave the truncated result within a few units of the fifth of them
+        int target = pr + 5;
+        Decimal r;
+        if (n > ROOT_NEWTON_MAX_N) {
+            // ln(a) is about 2.3 * a.e in size, so keep enough extra digits for the exponent
+            int guard = Long.toString(Math.abs((long) a.e)).length() + 2;
+            Decimal lnA = naturalLogarithm(a, target + 3 + guard);
+            r = naturalExponential(divide(lnA, new Decimal(n), target + 3 + guard, Rounding.ROUND_DOWN, false, -1), target + 3);
+        } else {
+            // Newton iteration, doubling the number of correct digits on each step.
+            int correct = 14;
+            r = rootEstimate(a, n);
+            do {
+                int wpr = Math.min(correct * 2, target);
+                r = rootNewtonStep(a, r, n, wpr + 3);
+                correct = wpr;
+            } while (correct < target);
+        }
+
+        Config.precision = pr + 10;
+
+        // t is the root truncated to `pr` digits. r is within `slack` of the root, far less than half a unit.
+        Decimal t = finalise(new Decimal(r), pr, Rounding.ROUND_DOWN, false);
+        long place = lastPlace(t, pr);
+        Decimal ulp = new Decimal("1e" + place);
+        Decimal half = new Decimal("5e" + (place - 1));
+        Decimal slack = new Decimal("1e" + (place - 3));
+        Decimal offset = r.minus(t);
+
+        // `above` is +1 if the root is above t + half, -1 if below it, 0 if equal
+        int above;
+        if (offset.cmp(slack) < 0) {
+            int c = compareRootPower(t, n, a, pr);
+            if (c > 0) {
+                // The root is just below t, so it truncates to the number before
+                t = finalise(t.minus(slack), pr, Rounding.ROUND_DOWN, false);
+                place = lastPlace(t, pr);
+                half = new Decimal("5e" + (place - 1));
+                above = 1;
+            } else if (c == 0) {
+                return finishRoot(t, sign, pr, rm, wasExternal);
+            } else {
+                above = -1;
+            }
+        } else if (offset.cmp(ulp.minus(slack)) > 0) {
+            Decimal next = t.plus(ulp);
+            int c = compareRootPower(next, n, a, pr);
+            if (c <= 0) {
+                // The root is at or just above the next number
+                if (c == 0) return finishRoot(next, sign, pr, rm, wasExternal);
+                t = next;
+                place = lastPlace(t, pr);
+                half = new Decimal("5e" + (place - 1));
+                above = -1;
+            } else {
+                above = 1;
+            }
+        } else if (offset.minus(half).abs().cmp(slack) < 0) {
+            // Near the halfway point, which is the only tie that needs to be decided
+            above = -compareRootPower(t.plus(half), n, a, pr);
+        } else {
+            above = offset.cmp(half);
+        }
+
+        // Give `finalise` a value on the same side of halfway as the root, so it can apply the rounding mode
+        Decimal result;
+        if (above == 0) result = t.plus(half);
+        else if (above < 0) result = t.plus(new Decimal("1e" + (place - 1)));
+        else result = t.plus(new Decimal("6e" + (place - 1)));
+        return finishRoot(result, sign, pr, rm, wasExternal);
+    }
+
+    /** Roots above this degree are found by exp(ln(x)/n) rather than Newton's method */
+    private static final int ROOT_NEWTON_MAX_N = 1 << 26;
+
+    /** Restore the settings changed by nthRoot, and round the result */
+    private static Decimal finishRoot(Decimal result, double sign, int pr, Rounding rm, boolean wasExternal) {
+        result.s = sign;
+        Config.precision = pr;
+        external = wasExternal;
+        return finalise(result, pr, rm, false);
+    }
+
+    /** Exponent of the last of `pr` significant digits of `t` */
+    private static long lastPlace(Decimal t, int pr) {
+        return (long) (t.e - pr + 1);
+    }
+
+    /**
+     * Compare b^n with `a`, for positive `b` with about `pr` digits: 1 if b^n is greater, -1 if less, 0 if equal.
+     * <p>
+     * The power is first found with every product truncated to a working precision. That loses at most
+     * n + log2(n) units of relative precision, so if the truncated power, or it plus that error bound,
+     * is clear of `a` the answer is known. Only values within the bound are raised to the exact power.</p>
+     */
+    private static int compareRootPower(Decimal b, int n, Decimal a, int pr) {
+        int wp = pr + 20 + Integer.toString(n).length();
+        Decimal low = powerRounded(b, n, wp);
+        if (low.cmp(a) > 0) return 1;
+
+        // true power <= low / (1 - 2n * 10^(1-wp)) <= low * (1 + 4n * 10^(1-wp))
+        Decimal high = low.plus(low.times(new Decimal((4L * n) + "e" + (1 - wp))));
+        if (high.cmp(a) < 0) return -1;
+
+        return powerRounded(b, n, -1).cmp(a);
+    }
+
+    /** Estimate the `n`th root of positive finite `x`, using double arithmetic on its leading digits */
+    private static Decimal rootEstimate(Decimal x, int n) {
+        String digits = digitsToString(x.d);
+        int len = Math.min(17, digits.length());
+        double m = parseDoubleOrNaN(digits, 0, len) / Math.pow(10, len - 1);
+
+        // x = m * 10^e, with e = qn + rem
+        long e = (long) x.e;
+        long q = Math.floorDiv(e, n);
+        long rem = e - q * n;
+
+        double mantissa = Math.pow(10, (Math.log10(m) + rem) / n);
+        return new Decimal(mantissa + "e" + q);
+    }
+
+    /** One Newton step toward the `n`th root of `a`, at `wpr` significant digits */
+    private static Decimal rootNewtonStep(Decimal a, Decimal r, int n, int wpr) {
+        Config.precision = wpr;
+        Decimal q = divide(a, powerRounded(r, n - 1, wpr), wpr, Rounding.ROUND_DOWN, false, -1);
+        Decimal sum = (n == 2) ? r.plus(q) : r.times(n - 1).plus(q);
+        return divide(sum, new Decimal(n), wpr, Rounding.ROUND_DOWN, false, -1);
+    }
+
+    /**
+     * Return x^n for positive integer n, truncated to `sd` significant digits after each multiplication.
+     * If `sd` is -1 the result is exact. Call with `external` turned off.
+     */
+    private static Decimal powerRounded(Decimal x, long n, int sd) {
+        Decimal r = null;
+        for (; ; ) {
+            if ((n & 1) != 0) {
+                r = (r == null) ? new Decimal(x) : r.times(x);
+                if (sd > 0) r = finalise(r, sd, Rounding.ROUND_DOWN, false);
+            }
+            n >>= 1;
+            if (n == 0) return r;
+            x = x.times(x);
+            if (sd > 0) x = finalise(x, sd, Rounding.ROUND_DOWN, false);
+        }
+    }
+
+    private static final int TRIG_SIN = 0;
+    private static final int TRIG_COS = 1;
+    private static final int TRIG_TAN = 2;
+
+    /**
+     * Sine, cosine or tangent of `x`, rounded to `precision` significant digits using rounding mode `rounding`.
+     * `x` is reduced to |r| <= pi/4 with x = k*pi/2 + r, then the series for sin(r) and/or cos(r) used.
+     */
+    private static Decimal trigonometric(Decimal x, int function) {
+        if (x.d == null) return Decimal.decimalNaN();
+        if (x.d.get(0) == 0) return (function == TRIG_COS) ? new Decimal(1) : new Decimal(x);
+
+        int pr = Config.precision;
+        Rounding rm = Config.rounding;
+        int wpr = pr + 10;
+        boolean wasExternal = external;
+        external = false;
+
+        ReducedArgument reduced = reduceByHalfPi(x, wpr);
+        int quadrant = reduced.quadrant;
+        Decimal r = reduced.remainder;
+
+        // The remainder can be very small near multiples of pi/2, but has `wpr` significant digits
+        Config.precision = wpr;
+        Decimal result;
+        if (function == TRIG_TAN) {
+            Decimal sin = sineSeries(r, wpr);
+            Decimal cos = cosineSeries(r, wpr);
+            if ((quadrant & 1) == 0) {
+                result = divide(sin, cos, wpr, Rounding.ROUND_DOWN, false, -1);
+            } else {
+                result = divide(cos, sin, wpr, Rounding.ROUND_DOWN, false, -1);
+                result.s = -result.s;
+            }
+        } else {
+            // sin(x) = cos(x - pi/2), so the cosine is the sine one quadrant on
+            if (function == TRIG_COS) quadrant++;
+            result = ((quadrant & 1) == 0) ? sineSeries(r, wpr) : cosineSeries(r, wpr);
+            if ((quadrant & 2) != 0) result.s = -result.s;
+        }
+
+        // sine and tangent are odd functions, cosine is even.
+        if (function != TRIG_COS && x.s < 0) result.s = -result.s;
+
+        Config.precision = pr;
+        external = wasExternal;
+        return finalise(result, pr, rm, false);
+    }
+
+    /**
+     * Hyperbolic sine, cosine or tangent of `x`, rounded to `precision` significant digits using rounding mode `rounding`.
+     * Small arguments use the power series, larger ones are calculated from exp(|x|).
+     */
+    private static Decimal hyperbolic(Decimal x, int function) {
+        if (x.isNaN()) return Decimal.decimalNaN();
+        if (x.d == null) {
+            if (function == TRIG_COS) return Decimal.signedInfinity(1);
+            return (function == TRIG_SIN) ? new Decimal(x) : new Decimal(x.s);
+        }
+        if (x.d.get(0) == 0) return (function == TRIG_COS) ? new Decimal(1) : new Decimal(x);
+
+        int pr = Config.precision;
+        Rounding rm = Config.rounding;
+        int wpr = pr + 10;
+        boolean wasExternal = external;
+        external = false;
+        Config.precision = wpr;
+
+        Decimal ax = new Decimal(x);
+        ax.s = 1;
+        Decimal result;
+        boolean inexact = false;
+
+        if (ax.e < 0) {
+            // |x| < 1: sinh by series, then cosh(x) = sqrt(1 + sinh(x)^2)
+            Decimal sinh = hyperbolicSineSeries(ax, wpr);
+            if (function == TRIG_SIN) {
+                result = sinh;
+            } else {
+                Decimal cosh = finalise(sinh.times(sinh).plus(1), wpr, Rounding.ROUND_DOWN, false).sqrt();
+                result = (function == TRIG_COS) ? cosh : divide(sinh, cosh, wpr, Rounding.ROUND_DOWN, false, -1);
+            }
+        } else if (function == TRIG_TAN && ax.e > 0 && ax.gt((long) Math.ceil(wpr * 1.16))) {
+            // tanh(x) = 1 - 2/(e^2x + 1), and the last term is beyond the working precision. The result is
+            // just below 1, so it is kept as 0.99...9 marked inexact for directed rounding to see
+            result = new Decimal(1).minus(new Decimal("1e-" + wpr));
+            inexact = true;
+        } else {
+            Decimal ex = naturalExponential(ax, wpr);
+            Decimal inverse = divide(new Decimal(1), ex, wpr, Rounding.ROUND_DOWN, false, -1);
+            if (function == TRIG_SIN) {
+                result = ex.minus(inverse).times(0.5);
+            } else if (function == TRIG_COS) {
+                result = ex.plus(inverse).times(0.5);
+            } else {
+                result = divide(ex.minus(inverse), ex.plus(inverse), wpr, Rounding.ROUND_DOWN, false, -1);
+            }
+        }
+
+        // sinh and tanh are odd functions, cosh is even.
+        if (function != TRIG_COS) result.s = x.s;
+
+        Config.precision = pr;
+        external = wasExternal;
+        return finalise(result, pr, rm, inexact);
+    }
+
+    /** asin(x) = atan(x / sqrt(1 - x^2)); acos(x) = pi/2 - asin(x) */
+    private static Decimal arcSineOrCosine(Decimal x, boolean isCosine) {
+        if (x.isNaN() || x.d == null) return Decimal.decimalNaN();
+        if (x.d.get(0) == 0 && !isCosine) return new Decimal(x);
+
+        int c = x.compareMagnitude(1);
+        if (c > 0) return Decimal.decimalNaN();
+
+        Decimal ax = new Decimal(x);
+        ax.s = 1;
+
+        int pr = Config.precision;
+        Rounding rm = Config.rounding;
+        int wpr = pr + 10;
+        boolean wasExternal = external;
+        external = false;
+        Config.precision = wpr;
+
+        Decimal halfPi = divide(getPi(wpr + 5), new Decimal(2), wpr + 5, Rounding.ROUND_DOWN, false, -1);
+        Decimal asin;
+        if (c == 0) {
+            asin = new Decimal(halfPi);
+        } else if (ax.d.get(0) == 0) {
+            asin = new Decimal(0);
+        } else {
+            // 1 - x^2 is calculated as (1 - x)(1 + x) to keep precision near |x| = 1
+            Decimal one = new Decimal(1);
+            Decimal root = one.minus(ax).times(one.plus(ax)).sqrt();
+            asin = arctangent(divide(ax, root, wpr, Rounding.ROUND_DOWN, false, -1), wpr);
+        }
+        asin.s = x.s;
+
+        Decimal result = isCosine ? halfPi.minus(asin) : asin;
+
+        Config.precision = pr;
+        external = wasExternal;
+        return finalise(result, pr, rm, false);
+    }
+
+    /**
+     * Arctangent of finite non-zero `x` to `wpr` significant digits. Call with `external` turned off.
+     * Uses atan(x) = pi/2 - atan(1/x) for |x| > 1, then atan(x) = 2 atan(x / (1 + sqrt(1 + x^2)))
+     * until |x| < 0.1, and finally the power series.
+     */
+    private static Decimal arctangent(Decimal x, int wpr) {
+        double sign = x.s;
+        Decimal ax = new Decimal(x);
+        ax.s = 1;
+
+        boolean inverted = ax.gt(1);
+        if (inverted) ax = divide(new Decimal(1), ax, wpr, Rounding.ROUND_DOWN, false, -1);
+
+        int doublings = 0;
+        while (ax.e > -2) {
+            Decimal root = finalise(ax.times(ax).plus(1), wpr, Rounding.ROUND_DOWN, false).sqrt();
+            ax = divide(ax, root.plus(1), wpr, Rounding.ROUND_DOWN, false, -1);
+            doublings++;
+        }
+
+        Decimal r = arctangentSeries(ax, wpr);
+        for (; doublings > 0; doublings--) r = r.times(2);
+
+        if (inverted) {
+            Decimal halfPi = divide(getPi(wpr + 2), new Decimal(2), wpr + 2, Rounding.ROUND_DOWN, false, -1);
+            r = halfPi.minus(r);
+        }
+
+        r = finalise(r, wpr, Rounding.ROUND_DOWN, false);
+        r.s = sign;
+        return r;
+    }
+
+    /** Result of reducing an argument by multiples of pi/2 */
+    private static final class ReducedArgument {
+        /** |x| - quadrant * pi/2, in the range [-pi/4, pi/4] */
+        final Decimal remainder;
+        /** the multiple of pi/2 removed, modulo 4 */
+        final int quadrant;
+
+        ReducedArgument(Decimal remainder, int quadrant) {
+            this.remainder = remainder;
+            this.quadrant = quadrant;
+        }
+    }
+
+    /** Most recent argument reductions, keyed by argument and working precision */
+    private static final Map<String, ReducedArgument> reductionCache = new LinkedHashMap<String, ReducedArgument>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReducedArgument> eldest) {
+            return size() > 16;
+        }
+    };
+
+    /**
+     * Reduce |x| to r = |x| - k * pi/2, with |r| <= pi/4, using the cached value of pi.
+     * The result has `wpr` significant digits, even when |x| is very close to a multiple of pi/2.
+     * Recent results are cached, as the same argument is often used repeatedly.
+     */
+    private static ReducedArgument reduceByHalfPi(Decimal x, int wpr) {
+        String key = digitsToString(x.d) + "e" + (long) x.e + "@" + wpr;
+        synchronized (reductionCache) {
+            ReducedArgument cached = reductionCache.get(key);
+            if (cached != null) return new ReducedArgument(new Decimal(cached.remainder), cached.quadrant);
+        }
+
+        Decimal ax = new Decimal(x);
+        ax.s = 1;
+
+        // pi needs enough digits for the integer part of x/pi and a full precision remainder.
+        // If the remainder is small, cancellation has lost digits so try again with more.
+        int piDigits = wpr + (int) Math.max(0, ax.e) + 5;
+        ReducedArgument result;
+        for (; ; ) {
+            int savedPrecision = Config.precision;
+            Config.precision = piDigits + 5;
+
+            Decimal halfPi = divide(getPi(piDigits), new Decimal(2), piDigits, Rounding.ROUND_DOWN, false, -1);
+            Decimal k = divide(ax, halfPi, 0, Rounding.ROUND_HALF_EVEN, true, -1);
+            Decimal r = ax.minus(k.times(halfPi));
+
+            Config.precision = savedPrecision;
+
+            int lost = r.isZero() ? wpr : (int) Math.max(0, -r.e);
+            if (lost > 0 && piDigits < wpr + (int) Math.max(0, ax.e) + 5 + lost) {
+                piDigits += lost;
+                continue;
+            }
+
+            result = new ReducedArgument(finalise(r, wpr, Rounding.ROUND_DOWN, false), integerModulo4(k));
+            break;
+        }
+
+        synchronized (reductionCache) {
+            reductionCache.put(key, new ReducedArgument(new Decimal(result.remainder), result.quadrant));
+        }
+        return result;
+    }
+
+    /** Value of non-negative integer `k`, modulo 4 */
+    private static int integerModulo4(Decimal k) {
+        if (k.isZero()) return 0;
+        String digits = digitsToString(k.d);
+        long trailingZeros = (long) k.e - digits.length() + 1;
+
+        // 100 = 0 mod 4, so only the last two digits matter
+        if (trailingZeros >= 2) return 0;
+        String lastTwo = (trailingZeros == 1) ? digits.substring(digits.length() - 1) + "0"
+                : digits.substring(Math.max(0, digits.length() - 2));
+        return Integer.parseInt(lastTwo) % 4;
+    }
+
+    /** sin(r) = r * (1 - r^2/3! + r^4/5! - ...) to `wpr` digits */
+    private static Decimal sineSeries(Decimal r, int wpr) {
+        Decimal y = finalise(r.times(r), wpr, Rounding.ROUND_DOWN, false);
+        return finalise(r.times(factorialSeries(y, 1, true, wpr)), wpr, Rounding.ROUND_DOWN, false);
+    }
+
+    /** cos(r) = 1 - r^2/2! + r^4/4! - ... to `wpr` digits */
+    private static Decimal cosineSeries(Decimal r, int wpr) {
+        Decimal y = finalise(r.times(r), wpr, Rounding.ROUND_DOWN, false);
+        return factorialSeries(y, 0, true, wpr);
+    }
+
+    /** sinh(r) = r * (1 + r^2/3! + r^4/5! + ...) to `wpr` digits */
+    private static Decimal hyperbolicSineSeries(Decimal r, int wpr) {
+        Decimal y = finalise(r.times(r), wpr, Rounding.ROUND_DOWN, false);
+        return finalise(r.times(factorialSeries(y, 1, false, wpr)), wpr, Rounding.ROUND_DOWN, false);
+    }
+
+    /**
+     * Sum Σ (±y)^k / (2k + offset)! * offset! for k = 0, 1, 2 ... to `wpr` digits, where 0 <= y < 1.
+     * This is the series for cos (offset 0) and sin(r)/r (offset 1), or their hyperbolic versions.
+     * <p>
+     * Paterson–Stockmeyer evaluation: powers y^1..y^m are calculated once, then blocks of m terms are
+     * combined by Horner's rule in y^m. This needs about 2*sqrt(n) full precision multiplications
+     * for n terms, instead of n. Inside a block the factorial coefficients are applied by nested
+     * division by small integers, which is cheap.</p>
+     */
+    private static Decimal factorialSeries(Decimal y, int offset, boolean alternating, int wpr) {
+        Decimal one = new Decimal(1);
+        if (y.isZero()) return one;
+
+        // Count the terms needed, using doubles
+        double log10y = Math.log10(leadingValue(y)) + y.e;
+        int n = 1;
+        for (double logTerm = 0; logTerm > -wpr - 2; n++) {
+            logTerm += log10y - Math.log10((2.0 * n - 1 + offset) * (2.0 * n + offset));
+        }
+
+        int m = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+        Decimal[] powers = seriesPowers(y, m, wpr);
+
+        int blocks = (n + m - 1) / m;
+        Decimal acc = null;
+        for (int i = blocks - 1; i >= 0; i--) {
+            // Inner sum: Y_0 ± Y_1/f(1) + Y_2/(f(1)f(2)) ± ... by nested division
+            int last = Math.min(m, n - i * m) - 1;
+            Decimal block = powers[last];
+            for (int j = last; j > 0; j--) {
+                block = divide(block, factorialStep(i * m + j, offset), wpr, Rounding.ROUND_DOWN, false, -1);
+                block = alternating ? powers[j - 1].minus(block) : powers[j - 1].plus(block);
+            }
+
+            if (acc == null) {
+                acc = block;
+            } else {
+                // Horner step: acc = block ± acc * y^m / (f(im+1) ... f(im+m))
+                Decimal t = finalise(acc.times(powers[m]), wpr, Rounding.ROUND_DOWN, false);
+                for (int j = 1; j <= m; j++) {
+                    t = divide(t, factorialStep(i * m + j, offset), wpr, Rounding.ROUND_DOWN, false, -1);
+                }
+                acc = (alternating && (m & 1) != 0) ? block.minus(t) : block.plus(t);
+            }
+            acc = finalise(acc, wpr, Rounding.ROUND_DOWN, false);
+        }
+        return acc;
+    }
+
+    /** (2k - 1 + offset)(2k + offset), the ratio of the factorials in terms k-1 and k */
+    private static Decimal factorialStep(int k, int offset) {
+        return new Decimal((2.0 * k - 1 + offset) * (2.0 * k + offset));
+    }
+
+    /**
+     * atan(x) = x - x^3/3 + x^5/5 - ... to `wpr` digits, for 0 < x < 0.1.
+     * Uses Paterson–Stockmeyer evaluation in y = x^2, as in `factorialSeries`.
+     */
+    private static Decimal arctangentSeries(Decimal x, int wpr) {
+        Decimal y = finalise(x.times(x), wpr, Rounding.ROUND_DOWN, false);
+
+        double log10y = Math.log10(leadingValue(y)) + y.e;
+        int n = (int) Math.ceil((wpr + 2) / -log10y) + 1;
+        int m = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+        Decimal[] powers = seriesPowers(y, m, wpr);
+
+        int blocks = (n + m - 1) / m;
+        Decimal acc = null;
+        for (int i = blocks - 1; i >= 0; i--) {
+            // Inner sum: Y_0/(2im+1) - Y_1/(2im+3) + ...
+            int last = Math.min(m, n - i * m) - 1;
+            Decimal block = new Decimal(0);
+            for (int j = 0; j <= last; j++) {
+                Decimal term = divide(powers[j], new Decimal(2.0 * (i * m + j) + 1), wpr, Rounding.ROUND_DOWN, false, -1);
+                block = ((j & 1) == 0) ? block.plus(term) : block.minus(term);
+            }
+
+            if (acc == null) {
+                acc = block;
+            } else {
+                Decimal t = acc.times(powers[m]);
+                acc = ((m & 1) != 0) ? block.minus(t) : block.plus(t);
+            }
+            acc = finalise(acc, wpr, Rounding.ROUND_DOWN, false);
+        }
+        return finalise(x.times(acc), wpr, Rounding.ROUND_DOWN, false);
+    }
+
+    /** y^0 .. y^m, each truncated to `wpr` digits */
+    private static Decimal[] seriesPowers(Decimal y, int m, int wpr) {
+        Decimal[] powers = new Decimal[m + 1];
+        powers[0] = new Decimal(1);
+        powers[1] = y;
+        for (int j = 2; j <= m; j++) powers[j] = finalise(powers[j - 1].times(y), wpr, Rounding.ROUND_DOWN, false);
+        return powers;
+    }
+
+    /** The leading digits of finite non-zero `x` as a double in [1, 10) */
+    private static double leadingValue(Decimal x) {
+        String digits = digitsToString(x.d);
+        int len = Math.min(15, digits.length());
+        return parseDoubleOrNaN(digits, 0, len) / Math.pow(10, len - 1);
+    }
+
+    /**
+     * Return ln(10) to `sd` significant digits, rounded down.
+     * Digits beyond those held in `Const.LN10` are calculated on demand and cached.
+     */
+    private static Decimal getLn10(int sd) { // L3131
+        return fromFixedLimbs(ConstantCache.ln10(sd), sd);
+    }
+
+    /**
+     * Return π to `sd` significant digits, rounded down.
+     * Digits beyond those held in `Const.PI` are calculated on demand and cached.
+     */
+    private static Decimal getPi(int sd) { // L3136
+        return fromFixedLimbs(ConstantCache.pi(sd), sd);
+    }
+
+    /**
+     * Return ln(2) to `sd` significant digits, rounded down.
+     */
+    private static Decimal getLn2(int sd) {
+        // ln(2) has no integer digit, so ask for one more fractional digit
+        return fromFixedLimbs(ConstantCache.ln2(sd + 1), sd);
+    }
+
+    /**
+     * Build a positive Decimal from base 1e7 fixed point limbs (with the integer part in the first limb),
+     * rounded down to `sd` significant digits. The limbs are not modified.
+     */
+    private static Decimal fromFixedLimbs(int[] limbs, int sd) {
+        int first = 0;
+        while (first < limbs.length - 1 && limbs[first] == 0) first++;
+        int end = Math.min(limbs.length, first + (int) Math.ceil(sd / Const.LOG_BASE) + 1);
+        while (end > first + 1 && limbs[end - 1] == 0) end--;
+
+        Decimal x = new Decimal();
+        x.s = 1;
+        x.d = new DdVec(end - first);
+        for (int i = first; i < end; i++) x.d.addLast(limbs[i]);
+        x.e = getBase10Exponent(x.d, -first);
+        return finalise(x, sd, Rounding.ROUND_DOWN, true);
+    }
+
+    /**
+     * Check to see if the rounding digits of `d` are [49]999 or [50]000 (or similar),
+     * in which case the result may be incorrectly rounded and should be recalculated
+     * at a higher precision.
+     *
+     * @param d digits to check
+     * @param i index of the first rounding digit
+     * @param rm rounding mode
+     * @param repeating -1 for a first check; otherwise the number of times the calculation has been repeated
+     */
+    private static boolean checkRoundingDigits(DdVec d, int i, Rounding rm, int repeating) { // L3139
+        int rmi = Rounding.toInt(rm);
+        int di;
+        double k;
+
+        // Get the length of the first word of the array d.
+        for (k = d.get(0); k >= 10; k /= 10) --i;
+
+        // Is the rounding digit in the first word of d?
+        if (--i < 0) {
+            i += Const.LOG_BASE;
+            di = 0;
+        } else {
+            di = (int) Math.ceil((i + 1) / Const.LOG_BASE);
+            i %= Const.LOG_BASE;
+        }
+
+        // i is the index (0 - 6) of the rounding digit.
+        // E.g. if within the word 3487563 the first rounding digit is 5,
+        // then i = 4, k = 1000, rd = 3487563 % 1000 = 563
+        k = Math.pow(10, Const.LOG_BASE - i);
+        long rd = (long) (d.get(di, 0) % k);
+        double next = d.get(di + 1, 0);
+        boolean r;
+
+        if (repeating < 0) {
+            if (i < 3) {
+                if (i == 0) rd = rd / 100;
+                else if (i == 1) rd = rd / 10;
+                r = rmi < 4 && rd == 99999 || rmi > 3 && rd == 49999 || rd == 50000 || rd == 0;
+            } else {
+                r = (rmi < 4 && rd + 1 == k || rmi > 3 && rd + 1 == k / 2) &&
+                        (long) (next / k / 100) == Math.pow(10, i - 2) - 1 ||
+                        (rd == k / 2 || rd == 0) && (long) (next / k / 100) == 0;
+            }
+        } else {
+            boolean rep = repeating > 0;
+            if (i < 4) {
+                if (i == 0) rd = rd / 1000;
+                else if (i == 1) rd = rd / 100;
+                else if (i == 2) rd = rd / 10;
+                r = (rep || rmi < 4) && rd == 9999 || !rep && rmi > 3 && rd == 4999;
+            } else {
+                r = ((rep || rmi < 4) && rd + 1 == k || (!rep && rmi > 3) && rd + 1 == k / 2) &&
+                        (long) (next / k / 1000) == Math.pow(10, i - 3) - 1;
+            }
+        }
+
+        return r;
+    }
+
+    /** Returns true if the first `n` digits of `a` and `b` are the same */
+    private static boolean sameLeadingDigits(DdVec a, DdVec b, int n) {
+        String as = digitsToString(a);
+        String bs = digitsToString(b);
+        return as.substring(0, Math.min(n, as.length())).equals(bs.substring(0, Math.min(n, bs.length())));
+    }
+
+    /** Render the digits of a Decimal as a string, without leading or trailing zeros */
+    private static String digitsToString(DdVec d) {
+        char[] buf = new char[digitCount(d)];
+        writeDigits(d, buf, 0);
+        return new String(buf);
+    }
+
+    /** The characters "00" to "99", so limbs can be written two digits at a time */
+    private static final char[] DIGIT_PAIRS = new char[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[2 * i] = (char) ('0' + i / 10);
+            DIGIT_PAIRS[2 * i + 1] = (char) ('0' + i % 10);
+        }
+    }
+
+    /** Number of decimal digits in a non-negative value. Zero has one digit */
+    private static int decimalWidth(long v) {
+        int width = 1;
+        while (v >= 10) {
+            v /= 10;
+            width++;
+        }
+        return width;
+    }
+
+    /** Write non-negative `v` as exactly `width` digits, zero padded, into `buf` starting at `at` */
+    private static void writeFixedWidth(char[] buf, int at, long v, int width) {
+        int i = at + width;
+        while (i - at >= 2) {
+            int r = (int) (v % 100);
+            v /= 100;
+            buf[--i] = DIGIT_PAIRS[2 * r + 1];
+            buf[--i] = DIGIT_PAIRS[2 * r];
+        }
+        if (i > at) buf[--i] = (char) ('0' + v % 10);
+    }
+
+    /** Number of digits in `d`, without leading or trailing zeros. Zero has one digit */
+    private static int digitCount(DdVec d) {
+        int last = d.length() - 1;
+        int count = decimalWidth((long) d.get(0)) + last * (int) Const.LOG_BASE;
+        if (last == 0 && d.get(0) == 0) return 1;
+
+        // Trailing zeros of the last word
+        for (long w = (long) d.get(last); w % 10 == 0; w /= 10) count--;
+        return count;
+    }
+
+    /**
+     * Write the digits of `d`, without leading or trailing zeros, into `buf` starting at `at`.
+     * `buf` must have room for `digitCount(d)` characters. Returns the index after the last digit.
+     */
+    private static int writeDigits(DdVec d, char[] buf, int at) {
+        int last = d.length() - 1;
+        long w = (long) d.get(0);
+        if (last == 0) {
+            if (w == 0) {
+                buf[at] = '0';
+                return at + 1;
+            }
+            while (w % 10 == 0) w /= 10;
+            int width = decimalWidth(w);
+            writeFixedWidth(buf, at, w, width);
+            return at + width;
+        }
+
+        int width = decimalWidth(w);
+        writeFixedWidth(buf, at, w, width);
+        at += width;
+        for (int i = 1; i < last; i++) {
+            writeFixedWidth(buf, at, (long) d.get(i), (int) Const.LOG_BASE);
+            at += (int) Const.LOG_BASE;
+        }
+
+        // Remove trailing zeros of last w.
+        w = (long) d.get(last);
+        width = (int) Const.LOG_BASE;
+        while (w % 10 == 0) {
+            w /= 10;
+            width--;
+        }
+        writeFixedWidth(buf, at, w, width);
+        return at + width;
+    }
+
+    /** Return this decimal converted to the nearest double value */
+    public double toDouble() {
+        if (d == null) return Double.isNaN(s) ? NaN : s * Double.POSITIVE_INFINITY;
+        String str = finiteToString(this, e <= Config.toExpNeg || e >= Config.toExpPos, 0, '.');
+        try {
+            return (s < 0) ? -Double.parseDouble(str) : Double.parseDouble(str);
+        } catch (Exception ex) {
+            return NaN;
+        }
+    }
+
+    /**
+     * Return a string representing the value of this Decimal.
+     * <p>
+     * Return exponential notation if this Decimal has a positive exponent equal to or greater than
+     * `toExpPos`, or a negative exponent equal to or less than `toExpNeg`.</p>
+     */
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public String toString() { // L2660
+        return render(this, e <= Config.toExpNeg || e >= Config.toExpPos, 0, isSignShown(this));
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in normal (fixed-point) notation.
+     * Unlike `toString`, exponential notation is never used.
+     */
+    public String toFixed() { // L2607
+        return render(this, false, 0, isSignShown(this));
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in normal notation to `dp` fixed decimal places,
+     * rounded using rounding mode `rounding`.
+     * <p>
+     * (-0).toFixed(0) is '0', but (-0.1).toFixed(0) is '-0'.</p>
+     */
+    public String toFixed(int dp) {
+        return toFixed(dp, Rounding.NOT_SPECIFIED);
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in normal notation to `dp` fixed decimal places,
+     * rounded using rounding mode `rm`, or `rounding` if NOT_SPECIFIED.
+     */
+    public String toFixed(int dp, Rounding rm) {
+        checkDigitsArgument(dp, 0);
+        if (!isFinite()) return toFixed();
+
+        Decimal y = finalise(new Decimal(this), dp + e + 1, orDefault(rm), false);
+        return render(y, false, (int) (dp + y.e + 1), isSignShown(this));
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in exponential notation, with as many
+     * digits as necessary to represent the value exactly.
+     */
+    public String toExponential() { // L2562
+        return render(this, true, 0, isSignShown(this));
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in exponential notation rounded to `dp` fixed
+     * decimal places using rounding mode `rounding`.
+     */
+    public String toExponential(int dp) {
+        return toExponential(dp, Rounding.NOT_SPECIFIED);
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in exponential notation rounded to `dp` fixed
+     * decimal places using rounding mode `rm`, or `rounding` if NOT_SPECIFIED.
+     */
+    public String toExponential(int dp, Rounding rm) {
+        checkDigitsArgument(dp, 0);
+        if (!isFinite()) return toExponential();
+
+        Decimal y = finalise(new Decimal(this), dp + 1, orDefault(rm), false);
+        return render(y, true, dp + 1, isSignShown(y));
+    }
+
+    /**
+     * Return a string representing the value of this Decimal, with exponential notation used under the
+     * same conditions as `toString`.
+     */
+    public String toPrecision() { // L2733
+        return toString();
+    }
+
+    /**
+     * Return a string representing the value of this Decimal rounded to `sd` significant digits using
+     * rounding mode `rounding`.
+     * <p>
+     * Return exponential notation if `sd` is less than the number of digits necessary to represent
+     * the integer part of the value in normal notation.</p>
+     */
+    public String toPrecision(int sd) {
+        return toPrecision(sd, Rounding.NOT_SPECIFIED);
+    }
+
+    /**
+     * Return a string representing the value of this Decimal rounded to `sd` significant digits using
+     * rounding mode `rm`, or `rounding` if NOT_SPECIFIED.
+     */
+    public String toPrecision(int sd, Rounding rm) {
+        checkDigitsArgument(sd, 1);
+        if (!isFinite()) return toString();
+
+        Decimal y = finalise(new Decimal(this), sd, orDefault(rm), false);
+        return render(y, sd <= y.e || y.e <= Config.toExpNeg, sd, isSignShown(y));
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in base 2, rounded to `precision`
+     * significant digits using rounding mode `rounding`. E.g. 0b101.01
+     */
+    public String toBinary() { // L2491
+        return toStringBinary(this, 2, 0, Rounding.NOT_SPECIFIED);
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in base 2 with a binary exponent suffix,
+     * rounded to `sd` significant digits using rounding mode `rm`, or `rounding` if NOT_SPECIFIED.
+     * E.g. 0b1.0101p+2
+     */
+    public String toBinary(int sd, Rounding rm) {
+        checkDigitsArgument(sd, 1);
+        return toStringBinary(this, 2, sd, rm);
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in base 8, rounded to `precision`
+     * significant digits using rounding mode `rounding`. E.g. 0o5.2
+     */
+    public String toOctal() { // L2706
+        return toStringBinary(this, 8, 0, Rounding.NOT_SPECIFIED);
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in base 8 with a binary exponent suffix,
+     * rounded to `sd` significant digits using rounding mode `rm`, or `rounding` if NOT_SPECIFIED.
+     * E.g. 0o1.2p+2
+     */
+    public String toOctal(int sd, Rounding rm) {
+        checkDigitsArgument(sd, 1);
+        return toStringBinary(this, 8, sd, rm);
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in base 16, rounded to `precision`
+     * significant digits using rounding mode `rounding`. E.g. 0x5.4
+     */
+    public String toHexadecimal() { // L2645
+        return toStringBinary(this, 16, 0, Rounding.NOT_SPECIFIED);
+    }
+
+    /**
+     * Return a string representing the value of this Decimal in base 16 with a binary exponent suffix,
+     * rounded to `sd` significant digits using rounding mode `rm`, or `rounding` if NOT_SPECIFIED.
+     * E.g. 0x1.5p+2
+     */
+    public String toHexadecimal(int sd, Rounding rm) {
+        checkDigitsArgument(sd, 1);
+        return toStringBinary(this, 16, sd, rm);
+    }
+
+    /** Throw if a digit count argument is outside of `min`..MAX_DIGITS */
+    private static void checkDigitsArgument(int digits, int min) {
+        if (digits < min || digits > Const.MAX_DIGITS) {
+            throw new IllegalArgumentException("Argument out of range: " + digits);
+        }
+    }
+
+    private static Rounding orDefault(Rounding rm) {
+        return rm == Rounding.NOT_SPECIFIED ? Config.rounding : rm;
+    }
+
+    /** Should a minus sign be written for this value? Negative zero and NaN are written without one */
+    private static boolean isSignShown(Decimal x) {
+        return x.s < 0 && !x.isZero() && !x.isNaN();
+    }
+
+    /**
+     * Render an unsigned finite decimal as a string
+     *
+     * @param x value to render
+     * @param isExp use exponential notation?
+     * @param sd minimum number of significant digits to show, padding with zeros. Use 0 for no padding.
+     * @param point character to use as the decimal point
+     */
+    private static String finiteToString(Decimal x, boolean isExp, int sd, char point) { // L3095
+        if (!x.isFinite()) return x.isNaN() ? "NaN" : "Infinity";
+        return new String(writeFinite(x, isExp, sd, point, false));
+    }
+
+    /** Render a decimal with `Config.decimalPlaceChar`, and a leading minus sign if `negative` */
+    private static String render(Decimal x, boolean isExp, int sd, boolean negative) {
+        if (!x.isFinite()) {
+            if (x.isNaN()) return "NaN";
+            return negative ? "-Infinity" : "Infinity";
+        }
+        return new String(writeFinite(x, isExp, sd, Config.decimalPlaceChar, negative));
+    }
+
+    /**
+     * Write a finite decimal into a character array sized for the result.
+     * See `finiteToString` for the arguments.
+     */
+    private static char[] writeFinite(Decimal x, boolean isExp, int sd, char point, boolean negative) {
+        long e = (long) x.e;
+        int len = digitCount(x.d);
+        int sign = negative ? 1 : 0;
+        long k;
+        char[] buf;
+
+        if (isExp) {
+            // d[.ddd][000]e±n
+            k = sd > 0 ? Math.max(0, sd - len) : 0;
+            boolean hasPoint = len > 1 || k > 0;
+            int expWidth = decimalWidth(Math.abs(e));
+            buf = new char[sign + len + (hasPoint ? 1 : 0) + (int) k + 2 + expWidth];
+
+            int at = sign;
+            writeDigits(x.d, buf, at + 1);
+            buf[at] = buf[at + 1];
+            at++;
+            if (hasPoint) buf[at++] = point;
+            at += len - 1;
+            Arrays.fill(buf, at, at + (int) k, '0');
+            at += (int) k;
+            buf[at++] = 'e';
+            buf[at++] = e < 0 ? '-' : '+';
+            writeFixedWidth(buf, at, Math.abs(e), expWidth);
+        } else if (e < 0) {
+            // 0.000ddd[000]
+            int zeros = (int) (-e - 1);
+            k = sd > 0 ? Math.max(0, sd - len) : 0;
+            buf = new char[sign + 2 + zeros + len + (int) k];
+
+            int at = sign;
+            buf[at++] = '0';
+            buf[at++] = point;
+            Arrays.fill(buf, at, at + zeros, '0');
+            at = writeDigits(x.d, buf, at + zeros);
+            Arrays.fill(buf, at, buf.length, '0');
+        } else if (e >= len) {
+            // ddd000[.000]
+            int zeros = (int) (e + 1 - len);
+            k = sd > 0 ? Math.max(0, sd - e - 1) : 0;
+            buf = new char[sign + len + zeros + (k > 0 ? 1 + (int) k : 0)];
+
+            int at = writeDigits(x.d, buf, sign);
+            Arrays.fill(buf, at, at + zeros, '0');
+            at += zeros;
+            if (k > 0) {
+                buf[at++] = point;
+                Arrays.fill(buf, at, buf.length, '0');
+            }
+        } else {
+            // ddd[.ddd][000]
+            int intLen = (int) (e + 1);
+            k = sd > 0 ? Math.max(0, sd - len) : 0;
+            boolean hasPoint = intLen < len || k > 0;
+            buf = new char[sign + len + (hasPoint ? 1 : 0) + (int) k];
+
+            int at = writeDigits(x.d, buf, sign);
+            if (hasPoint) {
+                int pointAt = sign + intLen;
+                System.arraycopy(buf, pointAt, buf, pointAt + 1, at - pointAt);
+                buf[pointAt] = point;
+                at++;
+            }
+            Arrays.fill(buf, at, buf.length, '0');
+        }
+
+        if (negative) buf[0] = '-';
+        return buf;
+    }
+
+    /**
+     * Return the value of Decimal `x` as a string in base `baseOut`, which must be 2, 8 or 16.
+     * <p>
+     * If `sd` is 1 or more, the result has `sd` significant digits and a binary exponent suffix, in the
+     * form `NumericString` parses: a leading '1', then digits of the fraction, then 'p' and the power of two.
+     * Otherwise the result is in normal notation, rounded to `precision` significant digits.</p>
+     * <p>
+     * The value is scaled exactly by a power of two into [0.5, 1), then bits are taken from the fraction
+     * 23 at a time, stopping early if the fraction runs out.</p>
+     */
+    private static String toStringBinary(Decimal x, int baseOut, int sd, Rounding rm){
+        // L3790
+        if (!x.isFinite()) return x.isNaN() ? "NaN" : (x.s < 0 ? "-Infinity" : "Infinity");
+
+        boolean isExp = sd > 0;
+        boolean negative = x.s < 0;
+        rm = orDefault(rm);
+        int digitBits = Integer.numberOfTrailingZeros(baseOut);
+        String prefix = baseOut == 16 ? "0x" : baseOut == 2 ? "0b" : "0o";
+        String sign = negative ? "-" : "";
+        if (x.isZero()) return sign + prefix + (isExp ? "0p+0" : "0");
+
+        boolean wasExternal = external;
+        external = false;
+        BinaryFraction z;
+        try {
+            z = toBinaryFraction(x);
+        } finally {
+            external = wasExternal;
+        }
+
+        // Range of bits to output, counted down from `top` (the bit at 2^top). In exponent form, the leading bit
+        // stands alone and the fraction is grouped into digits. Otherwise, digits are aligned to the point.
+        long top, bits;
+        if (isExp) {
+            top = z.exponent;
+            bits = 1 + (long) digitBits * (sd - 1);
+        } else {
+            top = (Math.floorDiv(z.exponent, (long) digitBits) + 1) * digitBits - 1;
+            bits = (long) digitBits * Config.precision;
+        }
+
+        // Take the bits, plus one rounding bit. The first bit taken from the fraction is at 2^exponent
+        int leading = (int) (top - z.exponent);
+        byte[] out = z.takeBits(leading, bits + 1);
+        int count = (int) Math.min(bits, out.length);
+        int roundBit = out.length > bits ? out[count] : 0;
+        boolean sticky = z.hasRemainder();
+
+        boolean roundUp;
+        switch (rm) {
+            case ROUND_UP:
+                roundUp = roundBit != 0 || sticky;
+                break;
+            case ROUND_CEIL:
+                roundUp = !negative && (roundBit != 0 || sticky);
+                break;
+            case ROUND_FLOOR:
+                roundUp = negative && (roundBit != 0 || sticky);
+                break;
+            case ROUND_DOWN:
+                roundUp = false;
+                break;
+            default:
+                roundUp = roundBit != 0 && (sticky || rm == Rounding.ROUND_HALF_UP
+                        || (rm == Rounding.ROUND_HALF_EVEN && count > 0 && out[count - 1] != 0)
+                        || rm == (negative ? Rounding.ROUND_HALF_FLOOR : Rounding.ROUND_HALF_CEIL));
+                break;
+        }
+
+        // Rounding up may mean the previous bit has to be rounded up and so on.
+        // If every bit was 1, they all become 0 and the value is the next power of two.
+        boolean overflow = false;
+        if (roundUp) {
+            int i = count;
+            while (i-- > 0 && out[i] == 1) out[i] = 0;
+            if (i >= 0) out[i] = 1;
+            else overflow = true;
+        }
+
+        StringBuilder str = new StringBuilder();
+        str.append(sign).append(prefix);
+        if (isExp) {
+            long e = top;
+            str.append('1');
+            if (overflow) {
+                e++;
+            } else {
+                char[] digits = bitsToDigits(out, 1, count, digitBits);
+                if (digits.length > 0) str.append('.').append(digits);
+            }
+            str.append(e < 0 ? "p" : "p+").append(e);
+            return str.toString();
+        }
+
+        // Position of the first digit, in digits above the point
+        long e = Math.floorDiv(top, (long) digitBits);
+        char[] digits;
+        if (overflow) {
+            e++;
+            digits = new char[]{'1'};
+        } else {
+            digits = bitsToDigits(out, 0, count, digitBits);
+            int skip = 0;
+            while (skip < digits.length && digits[skip] == '0') skip++;
+            if (skip == digits.length) return str.append('0').toString();
+            e -= skip;
+            digits = Arrays.copyOfRange(digits, skip, digits.length);
+        }
+
+        int len = digits.length;
+        if (e < 0) {
+            str.append("0.");
+            for (long k = -e - 1; k > 0; k--) str.append('0');
+            str.append(digits);
+        } else if (e + 1 >= len) {
+            str.append(digits);
+            for (long k = e + 1 - len; k > 0; k--) str.append('0');
+        } else {
+            str.append(digits, 0, (int) e + 1).append('.').append(digits, (int) e + 1, len - (int) e - 1);
+        }
+        return str.toString();
+    }
+
+    /**
+     * Group bits [start, end) into digits of `digitBits` bits each, padding the last with zeros.
+     * Trailing zero digits are removed.
+     */
+    private static char[] bitsToDigits(byte[] bits, int start, int end, int digitBits) {
+        while (end > start && bits[end - 1] == 0) end--;
+        char[] digits = new char[(end - start + digitBits - 1) / digitBits];
+        for (int i = 0; i < digits.length; i++) {
+            int v = 0;
+            for (int j = start + i * digitBits, last = j + digitBits; j < last; j++) {
+                v = (v << 1) | (j < end ? bits[j] : 0);
+            }
+            digits[i] = Const.NUMERALS[v];
+        }
+        return digits;
+    }
+
+    /**
+     * A positive value as exponent and fraction, value = fraction * 2^(exponent + 1) where 0.5 <= fraction < 1.
+     * The fraction is held as fixed point limbs, and is consumed as bits are taken.
+     */
+    private static final class BinaryFraction {
+        /** Bits taken at a time. 2^23 is less than a limb, so a whole chunk fits in the integer limb */
+        private static final int CHUNK_BITS = 23;
+
+        long exponent;
+        /** Fixed point limbs, integer part in the first limb, which is always zero between chunks */
+        int[] limbs;
+        /** True if bits were taken from the fraction but not returned, and any of them was 1 */
+        boolean dropped;
+
+        /**
+         * Take `count` bits, after `leading` zero bits. Fewer are returned if the fraction runs out,
+         * so the rest of the bits are zero.
+         */
+        byte[] takeBits(int leading, long count) {
+            int total = (int) Math.min(count, Integer.MAX_VALUE - 8);
+            byte[] out = new byte[Math.min(total, leading + CHUNK_BITS)];
+            int n = Math.min(leading, total);
+            while (n < total && !isExhausted()) {
+                LimbArithmetic.fixedMultiplySmall(limbs, 1 << CHUNK_BITS);
+                int chunk = limbs[0];
+                limbs[0] = 0;
+
+                if (out.length < n + CHUNK_BITS) {
+                    out = Arrays.copyOf(out, (int) Math.min(total, Math.max(2L * out.length, n + CHUNK_BITS)));
+                }
+                for (int b = CHUNK_BITS; b-- > 0; ) {
+                    int bit = (chunk >>> b) & 1;
+                    if (n < total) out[n++] = (byte) bit;
+                    else if (bit != 0) dropped = true;
+                }
+            }
+            return n == out.length ? out : Arrays.copyOf(out, n);
+        }
+
+        /** True if every bit of the fraction has been taken */
+        boolean isExhausted() {
+            for (int limb : limbs) if (limb != 0) return false;
+            return true;
+        }
+
+        /** True if the value has non-zero bits after those returned */
+        boolean hasRemainder() {
+            return dropped || !isExhausted();
+        }
+    }
+
+    /** Scale |x| exactly by a power of two, to give a fraction in [0.5, 1). Must be called with external=false */
+    private static BinaryFraction toBinaryFraction(Decimal x) {
+        // Estimate floor(log2 |x|) from the leading limbs
+        double lead = x.d.get(0) + x.d.get(1, 0) / Const.BASE;
+        double log10 = Math.log10(lead) + x.e - (decimalWidth((long) x.d.get(0)) - 1);
+        long exponent = (long) Math.floor(log10 * (Math.log(10) / Math.log(2)));
+
+        Decimal z = new Decimal(x);
+        z.s = 1;
+        Decimal half = new Decimal(0.5);
+        for (; ; ) {
+            Decimal scaled = timesPowerOfTwo(z, -(exponent + 1));
+            if (scaled.cmp(1) >= 0) {
+                exponent++;
+            } else if (scaled.cmp(half) < 0) {
+                exponent--;
+            } else {
+                z = scaled;
+                break;
+            }
+        }
+
+        // 0.5 <= z < 1, so the exponent is -1 and the first limb holds the first seven fractional digits
+        BinaryFraction result = new BinaryFraction();
+        result.exponent = exponent;
+        result.limbs = new int[z.d.length() + 1];
+        for (int i = 0; i < z.d.length(); i++) result.limbs[i + 1] = (int) z.d.get(i);
+        return result;
+    }
+
+    /** x * 2^k, exactly. Must be called with external=false */
+    private static Decimal timesPowerOfTwo(Decimal x, long k) {
+        if (k == 0) return x;
+        if (k > 0) return x.times(integerToDecimal(LimbArithmetic.integerPower(2, k)));
+
+        // 2^-k = 5^k / 10^k
+        Decimal y = x.times(integerToDecimal(LimbArithmetic.integerPower(5, -k)));
+        return y.times(new Decimal("1e" + k));
+    }
+
+    /**
+     * x * 2^k for non-zero finite x, as used for the binary exponent of a parsed value. Must be called with external=false.
+     * <p>
+     * The result is exact when the power of two (or of five, for negative k) has no more digits than the
+     * working precision, so the output of `toStringBinary` round-trips. Larger powers are found to the
+     * working precision and the result rounded to `precision` significant digits using rounding mode
+     * `rounding`. Results past `maxE` or `minE` are ±Infinity or ±0.</p>
+     */
+    private static Decimal scaleByPowerOfTwo(Decimal x, long k) {
+        if (k == 0) return x;
+
+        int sign = (int) x.s;
+        double e = x.e + k * LOG10_2;
+        if (e > Config.maxE + 1) return Decimal.signedInfinity(sign);
+        if (e < Config.minE - 1) return Decimal.signedZero(sign);
+
+        int pr = Config.precision;
+        int wpr = pr + 10;
+        double powerDigits = Math.abs((double) k) * (k > 0 ? LOG10_2 : 1 - LOG10_2) + 1;
+        if (powerDigits <= wpr) return timesPowerOfTwo(x, k);
+
+        // 2^k or 0.5^-k to the working precision. Neither has intermediate exponents past that of the result
+        Decimal power = powerRounded(new Decimal(k > 0 ? "2" : "0.5"), Math.abs(k), wpr);
+        Decimal y = finalise(x.times(power), wpr, Rounding.ROUND_DOWN, false);
+        return finalise(y, pr, Config.rounding, true);
+    }
+
+    private static final double LOG10_2 = 0.30102999566398119521;
+
+    /** A positive Decimal from integer limbs, least significant first */
+    private static Decimal integerToDecimal(int[] limbs) {
+        DdVec dd = limbsToDdVec(limbs);
+        int xe = dd.length() - 1;
+        for (int i = xe; i > 0 && dd.get(i) == 0; i--) dd.removeLast();
+        Decimal result = new Decimal();
+        result.s = 1;
+        result.e = getBase10Exponent(dd, xe);
+        result.d = dd;
+        return result;
+    }
+
+    /** Return true if the value of this Decimal is equal to `other`, or false otherwise. */
+    public boolean eq(long other) {
+        if (this.isNaN()) return false;
+        return cmp(other) == 0;
+    }
+
+    /** Return true if the value of this Decimal is greater than `other`, or false otherwise. */
+    public boolean gt(long other) {
+        if (this.isNaN()) return false;
+        return cmp(other) > 0;
+    }
+
+    /** Return true if the value of this Decimal is less than `other`, or false otherwise. */
+    public boolean lt(long other) {
+        if (this.isNaN()) return false;
+        return cmp(other) < 0;
+    }
+
+    /** Return true if the value of this Decimal is equal to `other`, or false otherwise. */
+    public boolean eq(double other) {
+        if (this.isNaN() || Double.isNaN(other)) return false;
+        return cmp(other) == 0;
+    }
+
+    /** Return true if the value of this Decimal is greater than `other`, or false otherwise. */
+    public boolean gt(double other) {
+        if (this.isNaN() || Double.isNaN(other)) return false;
+        return cmp(other) > 0;
+    }
+
+    /** Return true if the value of this Decimal is less than `other`, or false otherwise. */
+    public boolean lt(double other) {
+        if (this.isNaN() || Double.isNaN(other)) return false;
+        return cmp(other) < 0;
+    }
+
+    /** Return true if the value of this Decimal is equal to `other`, or false otherwise. */
+    public boolean eq(Decimal other) {
+        if (this.isNaN() || other.isNaN()) return false;
+        return cmp(other) == 0;
+    }
+
+    /** Return true if the value of this Decimal is greater than `other`, or false otherwise. */
+    public boolean gt(Decimal other) {
+        if (this.isNaN() || other.isNaN()) return false;
+        return cmp(other) > 0;
+    }
+
+    /** Return true if the value of this Decimal is less than `other`, or false otherwise. */
+    public boolean lt(Decimal other) {
+        if (this.isNaN() || other.isNaN()) return false;
+        return cmp(other) < 0;
+    }
+
+    public int cmp(Decimal other) { // decimal.mjs#L242
+        int xs = (int)this.s;
+        int ys = (int)other.s;
+
+        // Either NaN or ±Infinity?
+        if (!this.isFinite() || !other.isFinite()) {
+            if (this.isNaN() || other.isNaN()) return 0;
+            if (xs != ys) return xs;
+            if (this.d == null && other.d == null) return 0;
+            return ((this.d == null) ^ (xs < 0)) ? 1 : -1;
+        }
+
+        // Either zero?
+        if (this.isZero() || other.isZero()){
+            if (!this.isZero()) return xs;
+            if (!other.isZero()) return -ys;
+            return 0;
+        }
+
+        // Signs differ?
+        if (xs != ys) return xs;
+
+        int c = compareMagnitude(other);
+        return xs < 0 ? -c : c;
+    }
+
+    /**
+     * Compare with a whole number without allocating. The exponent of `other` comes from its digit
+     * count, and its base 1e7 limbs are cut out arithmetically and checked against the leading limbs.
+     * Returns 1 if this is greater, -1 if less, and 0 if equal or NaN.
+     */
+    public int cmp(long other) {
+        // |Long.MIN_VALUE| does not fit in a long
+        if (other == Long.MIN_VALUE) return cmp(new Decimal(Long.toString(other)));
+
+        int ys = Long.signum(other);
+        if (this.isNaN()) return 0;
+        if (this.d == null) return (int)this.s; // ±Infinity
+        if (this.isZero()) return -ys;
+
+        int xs = (int)this.s;
+        if (xs != ys) return xs;
+
+        int c = compareMagnitude(other < 0 ? -other : other);
+        return xs < 0 ? -c : c;
+    }
+
+    /**
+     * Compare with a double. Whole numbers up to 2^53 and most values of a different magnitude are
+     * decided without allocating; anything closer is converted the same way as `new Decimal(double)`.
+     * Returns 1 if this is greater, -1 if less, and 0 if equal or either is NaN.
+     */
+    public int cmp(double other) {
+        if (this.isNaN() || Double.isNaN(other)) return 0;
+
+        double ao = Math.abs(other);
+        if (ao <= Const.MAX_SAFE_INTEGER && ao == Math.floor(ao)) return cmp((long) other);
+
+        // Infinity or a non-integer, so never zero
+        int ys = other < 0 ? -1 : 1;
+        if (this.d == null) {
+            if (!Double.isInfinite(other) || (int)this.s != ys) return (int)this.s;
+            return 0;
+        }
+        if (Double.isInfinite(other)) return -ys;
+        if (this.isZero()) return -ys;
+
+        int xs = (int)this.s;
+        if (xs != ys) return xs;
+
+        // log10 of a double is good to well within one, so exponents further apart decide it
+        double oe = Math.floor(Math.log10(ao));
+        if (Math.abs(this.e - oe) > 1) return ((this.e > oe) ^ (xs < 0)) ? 1 : -1;
+
+        return cmp(new Decimal(other));
+    }
+
+    /**
+     * Compare absolute values, ignoring signs. Returns 1 if |this| is greater, -1 if less,
+     * and 0 if equal or either is NaN.
+     */
+    public int compareMagnitude(Decimal other) {
+        if (this.isNaN() || other.isNaN()) return 0;
+
+        // Either ±Infinity?
+        if (this.d == null || other.d == null) {
+            if (this.d == null && other.d == null) return 0;
+            return this.d == null ? 1 : -1;
+        }
+
+        // Either zero?
+        if (this.isZero() || other.isZero()) {
+            if (!this.isZero()) return 1;
+            if (!other.isZero()) return -1;
+            return 0;
+        }
+
+        // Compare exponents.
+        if (this.e != other.e) return this.e > other.e ? 1 : -1;
+
+        // Compare digit by digit.
+        int xdL = this.d.length();
+        int ydL = other.d.length();
+        int i, j;
+        for (i = 0, j = Math.min(xdL, ydL); i < j; ++i) {
+            if (this.d.get(i) != other.d.get(i)) return this.d.get(i) > other.d.get(i) ? 1 : -1;
+        }
+
+        // Compare lengths.
+        return xdL == ydL ? 0 : xdL > ydL ? 1 : -1;
+    }
+
+    /** Powers of the limb base, for cutting a long into limbs */
+    private static final long[] LIMB_POWERS = {1L, 10000000L, 100000000000000L};
+
+    /** Compare |this| with a positive long. This must be finite. */
+    private int compareMagnitude(long n) {
+        int ne = decimalWidth(n) - 1;
+        if (this.e != ne) return this.e > ne ? 1 : -1;
+
+        // Same exponent, so the leading limbs hold the same number of digits
+        int nL = ne / (int) Const.LOG_BASE + 1;
+        int xdL = this.d.length();
+        for (int i = 0; i < nL; i++) {
+            long limb = (n / LIMB_POWERS[nL - 1 - i]) % (long) Const.BASE;
+            double x = this.d.get(i, 0);
+            if (x != limb) return x > limb ? 1 : -1;
+        }
+
+        // Any further non-zero limb is a fractional part
+        for (int i = nL; i < xdL; i++) {
+            if (this.d.get(i) != 0) return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Return 1 if the value is positive, -1 if negative, and 0 for zero (of either sign) or NaN.
+     */
+    public int signum() {
+        if (this.isNaN() || this.isZero()) return 0;
+        return this.s < 0 ? -1 : 1;
+    }
+
+    /**
+     * Return true if the value is a finite whole number, that is, no non-zero limb
+     * lies after the units digit.
+     */
+    public boolean isInteger() { // decimal.mjs isInt
+        if (!this.isFinite()) return false;
+        int last = this.d.length() - 1;
+        while (last > 0 && this.d.get(last) == 0) last--;
+        return Math.floor(this.e / Const.LOG_BASE) >= last;
+    }
+
+    /**
+     * Return a new decimal with invalid value
+     */
+    public static Decimal NaN() {
+        return new Decimal(NaN);
+    }
+
+    /**
+     * Return true if decimal is invalid, false otherwise
+     */
+    public boolean isNaN() {
+        return (d == null || d.isEmpty()) && Double.isNaN(s);
+    }
+
+    /** Display the internal state of this Decimal */
+    public String toRawString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("Sign=");
+        sb.append((int)s);
+
+        sb.append("; Exponent=");
+        if (Double.isFinite(e)) sb.append((long)e);
+        else sb.append(e);
+
+        if (d == null){
+            sb.append("; Digits=<null>;");
+        } else if (d.isEmpty()) {
+            sb.append("; Digits=<empty>;");
+        } else {
+            sb.append("; Digits=");
+            boolean s = false;
+            double[] digits = d.toArray();
+            for (double v : digits) {
+                if (s) sb.append(',');
+                else s = true;
+
+                sb.append('[');
+                sb.append((long)v);
+                sb.append(']');
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /*-------------------------------------------------------------------------------------------------------------------------*/
+    /*-------------------------------------------------------------------------------------------------------------------------*/
+    /*-------------------------------------------------------------------------------------------------------------------------*/
+
+
+    /**
+     * Modify this Decimal in place -- for use in constructors only.
+     * Single pass parse of a plain decimal string, `[+-]digits[.digits][e[+-]digits]`, writing
+     * digit limbs directly without building intermediate strings.
+     * <p>
+     * Returns false without changing `x` if the string is in any other form (prefixed bases,
+     * separators, alternative sign characters, or badly formed), so the caller can fall back
+     * to the general `NumericString` parser.</p>
+     */
+    private static boolean parsePlainDecimal(Decimal x, String str, char point) {
+        int len = str.length();
+        int i = 0;
+        int sign = 1;
+
+        char c = str.charAt(0);
+        if (c == '-' || c == '+') {
+            if (c == '-') sign = -1;
+            i++;
+        }
+
+        // Scan the mantissa, recording where the significant digits start and end
+        int mantissaStart = i;
+        int pointIndex = -1;
+        int firstNonZero = -1, lastNonZero = -1;
+        int digitCount = 0;
+        for (; i < len; i++) {
+            c = str.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (c != '0') {
+                    if (firstNonZero < 0) firstNonZero = i;
+                    lastNonZero = i;
+                }
+                digitCount++;
+            } else if (c == point && pointIndex < 0) {
+                pointIndex = i;
+            } else {
+                break;
+            }
+        }
+        if (digitCount == 0) return false;
+        int mantissaEnd = i;
+
+        // Optional exponent
+        long exponent = 0;
+        if (i < len) {
+            c = str.charAt(i);
+            if (c != 'e' && c != 'E') return false;
+            i++;
+
+            boolean negativeExponent = false;
+            if (i < len && (str.charAt(i) == '-' || str.charAt(i) == '+')) {
+                negativeExponent = str.charAt(i) == '-';
+                i++;
+            }
+            if (i >= len) return false;
+            for (; i < len; i++) {
+                c = str.charAt(i);
+                if (c < '0' || c > '9') return false;
+                if (exponent < Const.EXP_LIMIT) exponent = exponent * 10 + (c - '0');
+            }
+            if (negativeExponent) exponent = -exponent;
+        }
+
+        x.s = sign;
+
+        if (firstNonZero < 0) { // all zeros
+            x.e = 0;
+            x.d = DdVec.FromDouble(0);
+            return true;
+        }
+
+        // Base 10 exponent of the first significant digit
+        int integerDigits = (pointIndex < 0 ? mantissaEnd : pointIndex) - mantissaStart;
+        int leadingZeros = firstNonZero - mantissaStart - ((pointIndex >= 0 && pointIndex < firstNonZero) ? 1 : 0);
+        long e = integerDigits - leadingZeros - 1 + exponent;
+
+        // The first limb holds (e mod LOG_BASE) + 1 digits, the rest hold LOG_BASE digits
+        int logBase = (int) Const.LOG_BASE;
+        int limbDigits = (int) Math.floorMod(e, (long) logBase) + 1;
+        int significant = lastNonZero - firstNonZero + 1 - ((pointIndex > firstNonZero && pointIndex < lastNonZero) ? 1 : 0);
+        x.d = new DdVec(significant / logBase + 2);
+
+        int limb = 0;
+        int count = 0;
+        for (i = firstNonZero; i <= lastNonZero; i++) {
+            c = str.charAt(i);
+            if (c == point) continue;
+            limb = limb * 10 + (c - '0');
+            if (++count == limbDigits) {
+                x.d.addLast(limb);
+                limb = 0;
+                count = 0;
+                limbDigits = logBase;
+            }
+        }
+        if (count > 0) { // pad out the last limb
+            for (; count < limbDigits; count++) limb *= 10;
+            x.d.addLast(limb);
+        }
+
+        x.e = e;
+        if (external) {
+            if (x.e > Config.maxE) { // Overflow to infinity
+                x.d = null;
+                x.e = NaN;
+            } else if (x.e < Config.minE) { // underflow to zero
+                x.e = 0;
+                x.d = DdVec.FromDouble(0);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Modify this Decimal in place -- for use in constructors only.
+     * Parse the input string as an unsigned decimal string.
+     * Input string should have been through the filter process before calling
+     */
+    private static void parseDecimal(Decimal x, NumericString num) {
+        // L3513
+        // try to find decimal place
+        int e = num.decimalPosition;
+
+        // TODO: update NumericString to simplify this
+        // TODO: do our own parsing so we can remove substring and string concatenation
+
+        // Exponent form?
+        if (num.exponent.length() > 0) {
+            if (e < 0) e = num.mantissa.length(); // integer mantissa
+            e += parseDoubleOrNaN(num.exponent);
+        } else if (e < 0) {
+            e = num.mantissa.length(); // integer
+        }
+
+        // Determine leading zeros
+        int i;
+        for (i = 0; i < num.mantissa.length() && num.mantissa.charAt(i) == '0'; i++) ;
+
+        // Determine trailing zeros
+        int len;
+        for (len = num.mantissa.length(); len > 0 && num.mantissa.charAt(len - 1) == '0'; --len) ;
+
+        if (len <= i) { // all zeros
+            x.e = 0;
+            x.d = DdVec.FromDouble(0);
+        } else { // L3540
+            String str = num.mantissa.substring(i, len);
+            x.d = new DdVec();
+            len -= i;
+            e = e - i - 1;
+            x.e = e;
+
+            // Transform base
+
+            // e is the base10 exponent
+            // i is where to slice str to get the first word of the digits array
+            i = (e + 1) % (int) Const.LOG_BASE;
+            if (e < 0) i += Const.LOG_BASE;
+
+            if (i < len) {
+                if (i != 0) x.d.addLast(parseDoubleOrNaN(str, 0, i));
+                for (len -= Const.LOG_BASE; i < len; ) {
+                    x.d.addLast(parseDoubleOrNaN(str, i, i += Const.LOG_BASE));
+                }
+                str = str.substring(i);
+                i = (int) Const.LOG_BASE - str.length();
+            } else {
+                i -= len;
+            }
+
+            for (; i-- > 0; ) str = str + "0";
+            x.d.addLast(parseDoubleOrNaN(str));
+
+            if (external) {
+                if (x.e > Config.maxE) { // Overflow to infinity
+                    x.d = null;
+                    x.e = NaN;
+                } else if (x.e < Config.minE) { // underflow to zero
+                    x.e = 0;
+                    x.d = DdVec.FromDouble(0);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Modify this Decimal in place -- for use in constructors only.
+     * Parse the input string as an unsigned unknown number
+     * Input string should have been through the filter process before calling
+     */
+    private static void parseOther(Decimal target, NumericString num) {
+        // L3620 (lines before this are in NumericString
+        Decimal x = target;
+
+        long p = 0;
+        if (num.exponent.length() > 0) {
+            double px = parseDoubleOrNaN(num.exponent);
+            if (Double.isNaN(px)){
+                x.makeNaN();
+                return;
+            }
+            p = (long)px;
+        }
+        String str = num.mantissa;
+
+
+        // Convert `str` as an integer then divide the result by `base` raised to a power such that the
+        // fraction part will be restored.
+        int i;
+        Decimal divisor = null;
+        if (num.decimalPosition >= 0){ // L3635
+            // The divisor is an exact integer power of the base, found with the same limb arithmetic as the digits
+            i = num.mantissa.length() - num.decimalPosition; // ??? L3638
+            divisor = integerToDecimal(LimbArithmetic.integerPower(num.baseSize, i));
+        }
+
+
+        DdVec xd = convertBase(str, num.baseSize);
+        int xe = xd.length() - 1;
+
+        // Remove trailing zeros. // L3647
+        for (i = xe; i >= 0 && xd.get(i) == 0; --i) xd.removeLast();
+        if (i < 0) { // I think the original code is doing a signed zero here: `return new Ctor(x.s * 0);`
+            x.makeZero();
             return;
         }
         x.e = getBase10Exponent(xd, xe);
@@ -1152,11 +3515,8 @@ public class Decimal {
         // Therefore using 4 * the number of digits of str will always be enough.
         if (num.decimalPosition >= 0) x = divide(x, divisor, num.mantissa.length() * 4, Rounding.NOT_SPECIFIED, false, -1); // L3660
 
-        // Multiply by the binary exponent part if present.
-        if (p != 0) {
-            if (Math.abs(p) < 54) x = x.times(Math.pow(2, p));
-            else x = x.times(Decimal.pow(2, p));
-        }
+        // Multiply by the binary exponent part if present. This is exact within the working precision, so output of `toStringBinary` round-trips
+        if (p != 0) x = scaleByPowerOfTwo(x, p);
         external = true;
         target.setTo(x);
     }
@@ -1166,13 +3526,11 @@ public class Decimal {
         DdVec x = new DdVec(src);
         double carry = 0;
 
-        for (int i = x.length(); i > 0; i--) {
-            double temp = x.get(i) * k + Math.floor(carry);
-
-            carry = temp / base;
-            double val = temp % base;
+        for (int i = x.length(); i-- > 0; ) {
+            double temp = x.get(i) * k + carry;
 
-            x.set(i, (long)(val));
+            carry = Math.floor(temp / base);
+            x.set(i, Math.floor(temp % base));
         }
 
         if (carry != 0) x.addFirst(carry);
@@ -1206,20 +3564,25 @@ public class Decimal {
             a.set(aL, i * base + av - bv);
         }
         // Remove leading zeros.
-        a.trimLeadingZero();
+        while (a.length() > 1 && a.getFirst() == 0) a.removeFirst();
     }
 
     /**
      * Perform division in the specified base.
      * @param x in x/y
      * @param y in x/y
-     * @param pr precision for result (in significant figures). Use -1 for 'not specified'
+     * @param pr precision for result (in significant figures, or decimal places if `dp` is set). Use -1 for 'not specified'
      * @param rm rounding mode
      * @param dp use decimal places for significant digits?
      * @param base BIN=2;OCT=8;DEC=10;HEX=16; (positional notation numeric base). Use -1 for default large base.
      * @return new Decimal result
      */
     private static Decimal divide(Decimal x, Decimal y, int pr, Rounding rm, boolean dp, int base) {
+        return divide(x, y, pr, rm, dp, base, external);
+    }
+
+    /** As `divide`, where `checkRange` sets whether the result is checked for over/under-flow */
+    static Decimal divide(Decimal x, Decimal y, int pr, Rounding rm, boolean dp, int base, boolean checkRange) {
         // This is big, and has its own sub-functions. Start at lines 2674 and 2724.
         // precondition checks
         if (x.isNaN() || y.isNaN()) return Decimal.decimalNaN();
@@ -1256,7 +3619,7 @@ public class Decimal {
         if (yd.get(i) > xd.get(i,0.0)) e--;
 
         double sd;
-        if (pr <= 0) { // L2762
+        if (pr < 0) { // L2762
             sd = Config.precision;
             pr = (int)sd;
             rm = Config.rounding;
@@ -1276,134 +3639,18 @@ public class Decimal {
             sd = Math.floor(sd / logBase + 2);
             i = 0;
 
+            // One digit before the point, then `sd` more
+            int digits = (int) sd + 1;
             if (yL == 1) {// divisor < 1e7
-                k = 0;
-                double yd0 = yd.get(0);
-                sd++;
-
-                // k is carry
-                for (; (i < xL || k != 0) && (sd > 0); i++, sd--){
-                    t = k * base + (xd.get(i, 0.0));
-                    qd.set(i, Math.floor(t / yd0));
-                    k = Math.floor(t % yd0);
-                }
-
-                more = (k != 0) || (i < xL);
+                more = divideByLimb(xd, (long) yd.get(0), digits, base, qd);
+            } else if (logBase != 1 && yL >= NEWTON_DIVISION_LIMBS && digits >= NEWTON_DIVISION_LIMBS) {
+                more = divideByReciprocal(xd, yd, digits, qd);
             } else { // divisor >= 1e7 (L2796)
-                // Normalise xd and yd so highest order digit of yd is >= base/2
-                k = Math.floor(base / (yd.get(0) + 1));
-                if (k > 1) {
-                    yd = multiplyInteger(yd, k, base);
-                    xd = multiplyInteger(xd, k, base);
-                    yL = yd.length();
-                    xL = xd.length();
-                }
-
-                int xi = yL;
-                DdVec rem = xd.slice(0, yL);
-                int remL = rem.length();
-
-                // Add zeros to make remainder as long as divisor.
-                for (; remL < yL; remL++) rem.addLast(0);
-
-                DdVec yz = new DdVec(yd);
-                yz.addFirst(0);
-                double yd0 = yd.get(0);
-                if (yd.get(1) >= (base / 2.0)) yd0++;
-
-                DdVec prod;
-                int prodL;
-                do { // L2821
-                    k=0;
-
-                    int cmp = compare(yd, rem, yL, remL);
-
-                    if (cmp < 0) { // divisor < remainder  (L2828)
-                        // Calculate trial digit, k.
-                        double rem0 = rem.get(0);
-                        if (yL != remL) rem0 = rem0 * base + (rem.get(1,0));
-
-                        // k will be how many times the divisor goes into the current remainder.
-                        k = Math.floor(rem0 / yd0);
-
-                        //  Algorithm:
-                        //  1. product = divisor * trial digit (k)
-                        //  2. if product > remainder: product -= divisor, k--
-                        //  3. remainder -= product
-                        //  4. if product was < remainder at 2:
-                        //    5. compare new remainder and divisor
-                        //    6. If remainder > divisor: remainder -= divisor, k++
-
-                        if (k > 1){ // L2844
-                            if (k >= base) k = base - 1;
-
-                            // product = divisor * trial digit.
-                            prod = multiplyInteger(yd, k, base);
-                            prodL = prod.length();
-                            remL = rem.length();
-                            // Compare product and remainder.
-                            cmp = compare(prod, rem, prodL, remL);
-
-                            // product > remainder.
-                            if (cmp == 1) {
-                                k--;
-                                // Subtract divisor from product.
-                                subtract(prod, yL < prodL ? yz : yd, prodL, base);
-                            }
-                        } else { // L2862
-                            // cmp is -1.
-                            // If k is 0, there is no need to compare yd and rem again below, so change cmp to 1
-                            // to avoid it. If k is 1 there is a need to compare yd and rem again below.
-                            if (k == 0) {cmp = 1; k = 1;}
-                            prod = new DdVec(yd);
-                        } // L2869
-
-                        prodL = prod.length();
-                        if (prodL < remL) prod.addFirst(0);
-
-                        // Subtract product from remainder.
-                        subtract(rem, prod, remL, base);
-
-                        // If product was < previous remainder.
-                        if (cmp == -1) {
-                            remL = rem.length();
-
-                            // Compare divisor and new remainder.
-                            cmp = compare(yd, rem, yL, remL);
-
-                            // If divisor < new remainder, subtract divisor from remainder.
-                            if (cmp < 1) {
-                                k++;
-                                // Subtract divisor from remainder.
-                                subtract(rem, yL < remL ? yz : yd, remL, base);
-                            }
-                        }
-
-                        remL = rem.length();
-                    } else if (cmp == 0){ // L2896
-                        k++;
-                        rem = DdVec.FromDouble(0);
-                    } // else if cmp == 1, k will be 0
-
-                    // Add the next digit, k, to the result array.
-                    qd.set(i, k);
-                    i++;
-
-                    // Update the remainder.
-                    if ((cmp != 0) && (rem.get(0,0) != 0)) {
-                        rem.set(remL, xd.get(xi, 0));
-                        remL++;
-                    } else {
-                        rem = DdVec.FromDouble(xd.get(xi));
-                        remL = 1;
-                    }
-                } while ((xi++ < xL || rem.length() > 0) && (sd-- != 0)); //?? L2911
-
-                more = rem.length() > 0; // L2913
+                more = longDivide(xd, yd, digits, base, qd);
             }
 
             // Leading zero?
-            qd.trimLeadingZero();
+            if (qd.get(0, 1) == 0) qd.removeFirst();
         } // if (sd < 0) {} else {}
 
         // logBase is 1 when divide is being used for base conversion.
@@ -1415,17 +3662,187 @@ public class Decimal {
             for (i = 1, k = qd.get(0); k >= 10; k /= 10) i++;
             q.e = i + e * logBase - 1;
 
-            finalise(q, dp ? pr + q.e + 1 : pr, rm, more);
+            finalise(q, dp ? pr + q.e + 1 : pr, rm, more, checkRange);
         }
 
         return q;
     }
 
+    /**
+     * Divisors with at least this many limbs, at result precisions of at least this many limbs,
+     * are divided by multiplying by a reciprocal found by Newton iteration.
+     */
+    private static final int NEWTON_DIVISION_LIMBS = 700;
+
+    /**
+     * Internal to 'divide'. Write up to `digits` limbs of x/y into `qd`, for a divisor of a single limb.
+     * Stops early if the division is exact. Returns true if the result was truncated.
+     */
+    private static boolean divideByLimb(DdVec xd, long y0, int digits, long base, DdVec qd) {
+        int xL = xd.length();
+        double[] dividend = xd.toArray();
+        double[] q = new double[Math.min(digits, xL + 16)];
+        long k = 0; // k is carry
+        int i = 0;
+        for (; (i < xL || k != 0) && (i < digits); i++) {
+            long t = k * base + (i < xL ? (long) dividend[i] : 0);
+            if (i == q.length) q = Arrays.copyOf(q, (int) Math.min(digits, 2L * q.length));
+            q[i] = t / y0;
+            k = t % y0;
+        }
+
+        for (int j = 0; j < i; j++) qd.addLast(q[j]);
+        return (k != 0) || (i < xL);
+    }
+
+    /**
+     * Internal to 'divide'. Write up to `digits` limbs of x/y into `qd` by schoolbook long division,
+     * for a divisor of two or more limbs. The remainder is updated in place, so nothing is allocated per limb.
+     * Stops early if the division is exact. Returns true if the result was truncated.
+     */
+    private static boolean longDivide(DdVec xd, DdVec yd, int digits, long base, DdVec qd) {
+        int yL = yd.length();
+        long[] y = new long[yL];
+        for (int i = 0; i < yL; i++) y[i] = (long) yd.get(i);
+
+        // Normalise x and y so highest order digit of y is >= base/2. x may gain a limb.
+        long k = base / (y[0] + 1);
+        long[] x = new long[xd.length() + 1];
+        long carry = 0;
+        for (int i = xd.length(); i-- > 0; ) {
+            long t = (long) xd.get(i) * k + carry;
+            x[i + 1] = t % base;
+            carry = t / base;
+        }
+        x[0] = carry;
+        int xStart = carry == 0 ? 1 : 0;
+        int xL = x.length;
+        if (k > 1) {
+            carry = 0;
+            for (int i = yL; i-- > 0; ) {
+                long t = y[i] * k + carry;
+                y[i] = t % base;
+                carry = t / base;
+            }
+        }
+
+        // The remainder, with one more limb than the divisor. Starts with the first yL limbs of x.
+        long[] rem = new long[yL + 1];
+        int xi = xStart;
+        for (int i = 1; i <= yL; i++, xi++) rem[i] = xi < xL ? x[xi] : 0;
+
+        long y0 = y[0];
+        long y1 = y[1];
+        double[] q = new double[Math.min(digits, xL + 16)];
+        int n = 0;
+        for (; ; ) { // L2821
+            // Trial digit from the leading limbs, which is at most one too large after the second limb check
+            long top = rem[0] * base + rem[1];
+            long qk = Math.min(top / y0, base - 1);
+            while (qk > 0 && top - qk * y0 < base && qk * y1 > (top - qk * y0) * base + rem[2]) qk--;
+
+            if (qk > 0) {
+                // remainder -= divisor * trial digit
+                long borrow = 0;
+                for (int j = yL; j-- > 0; ) {
+                    long t = rem[j + 1] - qk * y[j] - borrow;
+                    borrow = t < 0 ? (base - 1 - t) / base : 0;
+                    rem[j + 1] = t + borrow * base;
+                }
+                rem[0] -= borrow;
+
+                // Trial digit was one too large: add the divisor back
+                if (rem[0] < 0) {
+                    qk--;
+                    carry = 0;
+                    for (int j = yL; j-- > 0; ) {
+                        long t = rem[j + 1] + y[j] + carry;
+                        carry = t >= base ? 1 : 0;
+                        rem[j + 1] = t - carry * base;
+                    }
+                    rem[0] += carry;
+                }
+            }
+
+            if (n == q.length) q = Arrays.copyOf(q, (int) Math.min(digits, 2L * q.length));
+            q[n++] = qk;
+            if (n >= digits) break;
+            if (xi >= xL && isZero(rem)) break;
+
+            // Bring down the next limb of the dividend
+            System.arraycopy(rem, 1, rem, 0, yL);
+            rem[yL] = xi < xL ? x[xi] : 0;
+            xi++;
+        }
+
+        for (int j = 0; j < n; j++) qd.addLast(q[j]);
+        if (!isZero(rem)) return true;
+        for (; xi < xL; xi++) if (x[xi] != 0) return true;
+        return false;
+    }
+
+    private static boolean isZero(long[] limbs) {
+        for (long limb : limbs) if (limb != 0) return false;
+        return true;
+    }
+
+    /**
+     * Internal to 'divide'. Write `digits` limbs of x/y into `qd`, where x and y are base 1e7.
+     * <p>
+     * 1/y is found by Newton iteration and multiplied by x, both with Karatsuba multiplication.
+     * The estimate is then corrected with the exact remainder, so the limbs and the returned
+     * truncation flag are the same as from long division.</p>
+     */
+    private static boolean divideByReciprocal(DdVec xd, DdVec yd, int digits, DdVec qd) {
+        int xL = xd.length();
+        int yL = yd.length();
+        int n = digits + 2;
+
+        // As fixed point with the integer part in the first limb, 1 <= x, y < BASE, and x/y < BASE
+        int[] xf = new int[Math.min(xL, n + 1)];
+        for (int i = 0; i < xf.length; i++) xf[i] = (int) xd.get(i);
+        int[] yf = new int[yL];
+        for (int i = 0; i < yL; i++) yf[i] = (int) yd.get(i);
+
+        int[] estimate = LimbArithmetic.fixedMultiply(xf, LimbArithmetic.fixedReciprocal(Arrays.copyOf(yf, Math.min(yL, n + 1)), n + 1), n + 1);
+        int[] q = LimbArithmetic.fixedToBig(estimate, digits);
+
+        // The exact quotient is floor(num / den), where num is x scaled to have `digits` limbs of result
+        int[] den = LimbArithmetic.fixedToBig(yf, yL);
+        int shift = digits - 1 + yL - xL;
+        boolean dropped = false;
+        int[] num = new int[xL + shift];
+        int used = Math.min(xL, num.length);
+        for (int i = 0; i < used; i++) num[num.length - 1 - i] = (int) xd.get(i);
+        for (int i = used; i < xL; i++) dropped |= xd.get(i) != 0;
+
+        // Correct the estimate until 0 <= num - q * den < den
+        int[] one = LimbArithmetic.bigFromLong(1);
+        int[] product = LimbArithmetic.bigMultiply(q, den);
+        while (LimbArithmetic.bigCompare(product, num) > 0) {
+            q = LimbArithmetic.bigSubtract(q, one);
+            product = LimbArithmetic.bigSubtract(product, den);
+        }
+        int[] rem = LimbArithmetic.bigSubtract(num, product);
+        while (LimbArithmetic.bigCompare(rem, den) >= 0) {
+            q = LimbArithmetic.bigAdd(q, one);
+            rem = LimbArithmetic.bigSubtract(rem, den);
+        }
+
+        // Most significant limb first, with a leading zero if x < y as long division gives
+        for (int i = digits; i-- > q.length; ) qd.addLast(0);
+        int last = 0;
+        while (last < q.length - 1 && q[last] == 0) last++;
+        for (int i = q.length; i-- > last; ) qd.addLast(q[i]);
+        return rem.length > 0 || dropped;
+    }
+
     private static Decimal pow(int x, long y) {
         return new Decimal(x).pow(new Decimal(y));
     }
 
-    private static double getBase10Exponent(DdVec digits, int e) {
+    /** Base 10 exponent of a value whose first limb is a multiple of 1e7^e. `e` is a long, as exponents go past the range of an int */
+    private static double getBase10Exponent(DdVec digits, long e) {
         // L3143
         double w = digits.get(0);
 
@@ -1438,7 +3855,7 @@ public class Decimal {
      * Return a new Decimal whose value is the value of Decimal `x` to the power `n`, where `n` is an
      * integer of type number.
      *
-     * Implements 'exponentiation by squaring'. Called by `pow` and `parseOther`.
+     * Implements 'exponentiation by squaring'. Called by `pow`.
      *
      * @param x number to be raised
      * @param n integer exponent
@@ -1460,7 +3877,7 @@ public class Decimal {
                 if (truncate(r.d, k)) isTruncated = true;
             }
 
-            n = (int)Math.floor(n / 2.0);
+            n = n / 2;
             if (n == 0) {
 
                 // To ensure correct rounding when r.d is truncated, increment the last word if it is zero.
@@ -1478,11 +3895,95 @@ public class Decimal {
         return r;
     }
 
-    public Decimal times(Decimal x) { // L1869
-        return x; // TODO: implement
+    /**
+     * Return a new Decimal whose value is this Decimal times `y`, rounded to `precision` significant
+     * digits using rounding mode `rounding`.
+     * <pre>
+     *  n * 0 = 0; n * N = N; n * I = I; 0 * n = 0; 0 * 0 = 0; 0 * N = N; 0 * I = N;
+     *  N * n = N; N * 0 = N; N * N = N; N * I = N; I * n = I; I * 0 = N; I * N = N; I * I = I;
+     * </pre>
+     */
+    public Decimal times(Decimal y) { // L1869
+        return times(this, y, Config.precision, Config.rounding, external);
+    }
+
+    /**
+     * x * y, rounded to `pr` significant digits using rounding mode `rm` if `round` is set.
+     * Rounding also checks for over/under-flow, whatever the state of `external`.
+     */
+    static Decimal times(Decimal x, Decimal y, int pr, Rounding rm, boolean round) {
+        y = new Decimal(y);
+        DdVec xd = x.d;
+        DdVec yd = y.d;
+
+        y.s *= x.s;
+
+        // If either is NaN, ±Infinity or ±0...
+        boolean xZero = xd != null && xd.get(0) == 0;
+        boolean yZero = yd != null && yd.get(0) == 0;
+        if (xd == null || yd == null || xZero || yZero) {
+            // Return NaN if either is NaN.
+            // Return NaN if x is ±0 and y is ±Infinity, or y is ±0 and x is ±Infinity.
+            if (Double.isNaN(y.s) || (xZero && yd == null) || (yZero && xd == null)) return Decimal.decimalNaN();
+
+            // Return ±Infinity if either is ±Infinity.
+            // Return ±0 if either is ±0.
+            return (xd == null || yd == null) ? Decimal.signedInfinity((int) y.s) : Decimal.signedZero((int) y.s);
+        }
+
+        long e = (long) (Math.floor(x.e / Const.LOG_BASE) + Math.floor(y.e / Const.LOG_BASE));
+        double[] xa = xd.toArray();
+        double[] ya = yd.toArray();
+
+        // Ensure xa points to the longer array.
+        if (xa.length < ya.length) {
+            double[] t = xa;
+            xa = ya;
+            ya = t;
+        }
+        int xdL = xa.length;
+        int ydL = ya.length;
+
+        // Initialise the result array with zeros.
+        int rL = xdL + ydL;
+        double[] r = new double[rL];
+        final long base = (long) Const.BASE;
+        long carry = 0;
+        int i, k;
+
+        // Multiply!
+        for (i = ydL; --i >= 0; ) {
+            carry = 0;
+            long yi = (long) ya[i];
+            for (k = xdL + i; k > i; ) {
+                long t = (long) r[k] + yi * (long) xa[k - i - 1] + carry;
+                r[k--] = t % base;
+                carry = t / base;
+            }
+
+            r[k] = ((long) r[k] + carry) % base;
+        }
+
+        // Remove trailing zeros.
+        for (; r[rL - 1] == 0; ) rL--;
+
+        // Remove leading zero
+        int start = 0;
+        if (carry != 0) ++e;
+        else start = 1;
+
+        y.d = new DdVec(r, start, rL);
+        y.e = getBase10Exponent(y.d, e);
+
+        return round ? finalise(y, pr, rm, false, true) : y;
     }
-    public Decimal times(double x) { // L1869
-        return null; // TODO: implement
+
+    /**
+     * Return a new Decimal whose value is this Decimal times `y`, rounded to `precision` significant
+     * digits using rounding mode `rounding`.
+     */
+    public Decimal times(double y) { // L1869
+        return times(new Decimal(y));
     }
 
 
@@ -1511,6 +4012,61 @@ public class Decimal {
         d = DdVec.FromDouble(0);
     }
 
+    //region Access for DecimalArray and DecimalAccumulator, which hold values as flat limbs
+
+    /** Number of limbs, or zero if the value is not finite */
+    int limbCount() {
+        return d == null ? 0 : d.length();
+    }
+
+    /** Copy the limbs of a finite value into `dest`, starting at `offset` */
+    void copyLimbs(int[] dest, int offset) {
+        for (int i = 0; i < d.length(); i++) dest[offset + i] = (int) d.get(i);
+    }
+
+    double signValue() {
+        return s;
+    }
+
+    double exponentValue() {
+        return e;
+    }
+
+    /**
+     * Set this decimal from parts, reusing the digit vector if there is one.
+     * A `length` of zero gives a non-finite value: ±Infinity, or NaN if `sign` is NaN
+     */
+    void setParts(double sign, double exponent, int[] limbs, int offset, int length) {
+        s = sign;
+        if (length == 0) {
+            e = NaN;
+            d = null;
+            return;
+        }
+        e = exponent;
+        if (d == null) d = new DdVec(length);
+        else d.clear();
+        for (int i = 0; i < length; i++) d.addLast(limbs[offset + i]);
+    }
+
+    /**
+     * Return a new Decimal whose value is `x` rounded to `sd` significant digits using rounding mode `rm`,
+     * checked for over/under-flow
+     */
+    static Decimal roundToPrecision(Decimal x, int sd, Rounding rm) {
+        return finalise(new Decimal(x), sd, rm, false, true);
+    }
+
+    /**
+     * As `roundToPrecision`, where `isTruncated` is true if non-zero digits
+     * were dropped after the last digit of `x`
+     */
+    static Decimal roundToPrecision(Decimal x, int sd, Rounding rm, boolean isTruncated) {
+        return finalise(new Decimal(x), sd, rm, isTruncated, true);
+    }
+
+    //endregion
+
     /** Mutate this decimal to use same values as another (INTERNAL USE ONLY) */
     private void setTo(Decimal x) {
         d = x.d; // ref, not copy
@@ -1522,6 +4078,11 @@ public class Decimal {
      * Round `x` to `sd` significant digits using rounding mode `rm`. Check for over/under-flow.
      */
     private static Decimal finalise(Decimal x, double sd, Rounding rm, boolean isTruncated) {
+        return finalise(x, sd, rm, isTruncated, external);
+    }
+
+    /** As `finalise`, where `checkRange` sets whether to check for over/under-flow */
+    private static Decimal finalise(Decimal x, double sd, Rounding rm, boolean isTruncated, boolean checkRange) {
         // rd: the rounding digit, i.e. the digit after the digit that may be rounded up.
         // w: the word of xd containing rd, a base 1e7 number.
         // xdi: the index of w within xd.
@@ -1601,8 +4162,8 @@ public class Decimal {
                     : rd > 5 || rd == 5 && (rmi == 4 || isTruncated || rmi == 6 &&
 
                     // Check whether the digit to the left of the rounding digit is odd.
-                    ((i > 0 ? (j > 0 ? ((w / Math.pow(10, digits - j)) != 0) : false) : (((long) (xd.get(xdi - 1)) % 10) & 1) != 0) ||
-                            rmi == (x.s < 0 ? 8 : 7)));
+                    ((long) (i > 0 ? (j > 0 ? w / Math.pow(10, digits - j) : 0) : xd.get(xdi - 1)) % 10 & 1) != 0 ||
+                            rmi == (x.s < 0 ? 8 : 7));
 
             // No significant digits?
             if (sd < 1 || xd.get(0) == 0) {
@@ -1652,7 +4213,7 @@ public class Decimal {
                         // if i != k the length has increased.
                         if (i != k) {
                             x.e++;
-                            if (xd.get(0) == Const.BASE) xd.increment(0, 1.0);
+                            if (xd.get(0) == Const.BASE) xd.set(0, 1);
                         }
 
                         break;
@@ -1669,7 +4230,7 @@ public class Decimal {
             for (i = xd.length(); xd.get((int) (--i)) == 0; ) xd.removeLast();
         } // out: if( !Double.isNaN(sd) && Double.isFinite(sd)){
 
-        if (external) {
+        if (checkRange) {
             if (x.e > Config.maxE) {// Overflow?
                 // Infinity.
                 x.d = null;
@@ -1677,7 +4238,7 @@ public class Decimal {
             } else if (x.e < Config.minE) {// Underflow?
                 // Zero.
                 x.e = 0;
-                x.d = new DdVec(1);
+                x.d = DdVec.FromDouble(0);
                 // Ctor.underflow = true;
             } // else Ctor.underflow = false;
         }
@@ -1695,30 +4256,54 @@ public class Decimal {
         return false;
     }
 
-    /** Convert string of `baseIn` to an array of numbers of `baseOut`.
-     Eg. convertBase('255', 10, 16) returns [15, 15].
-     Eg. convertBase('ff', 16, 10) returns [2, 5, 5].
+    /**
+     * Convert a string of digits in `baseIn` to base 1e7 limbs, most significant first.
+     * Eg. convertBase('ff', 16) returns [255]; convertBase('10000000', 10) returns [1, 0].
+     * <p>
+     * The digits are grouped into machine words, and the words are combined by divide and conquer:
+     * the high half is multiplied by a cached power of the input base and added to the low half.
+     * With Karatsuba multiplication, this is subquadratic in the length of the string.</p>
      */
-    private static DdVec convertBase(String str, double baseIn, double baseOut) {
-        int j, i=0;
-        DdVec arr = DdVec.FromDouble(0);
-        int arrL;
-        int strL = str.length();
+    private static DdVec convertBase(String str, int baseIn) {
+        int chunk = LimbArithmetic.radixWordDigits(baseIn);
 
-        for (; i < strL;) {
-            for (arrL = arr.length(); arrL-->0;) arr.multiply(arrL, baseIn);
-            arr.increment(0, Const.NUMERALS(str.charAt(i++)));
-            for (j = 0; j < arr.length(); j++) {
-                if (arr.get(j) > baseOut - 1) {
-                    if (!arr.hasIndex(j + 1)) arr.addLast(0);
-                    arr.increment(j + 1, (long)(arr.get(j) / baseOut));
-                    arr.modulo(j, baseOut);//arr[j] %= baseOut;
-                }
-            }
+        // Words are aligned to the end of the string, so only the first can be short
+        int strL = str.length();
+        int count = Math.max(1, (strL + chunk - 1) / chunk);
+        long[] words = new long[count];
+        int pos = 0;
+        for (int w = 0; w < count; w++) {
+            int end = strL - (count - 1 - w) * chunk;
+            long v = 0;
+            for (; pos < end; pos++) v = v * baseIn + Const.NUMERALS(str.charAt(pos));
+            words[w] = v;
         }
 
-        arr.reverse();
-        return arr;
+        return limbsToDdVec(combineWords(words, 0, count, baseIn));
+    }
+
+    /**
+     * Value of words[lo..hi), most significant first, each word being `radixWordDigits(radix)` digits.
+     * Result is integer limbs, least significant first.
+     */
+    private static int[] combineWords(long[] words, int lo, int hi, int radix) {
+        int count = hi - lo;
+        if (count == 1) return LimbArithmetic.bigFromLong(words[lo]);
+
+        // Low part is the largest power of two words that leaves a high part, so its scale is a cached power
+        int lowCount = Integer.highestOneBit(count - 1);
+        int level = Integer.numberOfTrailingZeros(lowCount);
+        int[] high = combineWords(words, lo, hi - lowCount, radix);
+        int[] low = combineWords(words, hi - lowCount, hi, radix);
+        return LimbArithmetic.bigAdd(LimbArithmetic.bigMultiply(high, LimbArithmetic.radixWordPower(radix, level)), low);
+    }
+
+    /** Reverse integer limbs (least significant first) into a Decimal digit vector. Zero gives [0] */
+    private static DdVec limbsToDdVec(int[] limbs) {
+        if (limbs.length == 0) return DdVec.FromDouble(0);
+        DdVec result = new DdVec(limbs.length);
+        for (int i = limbs.length; i-- > 0; ) result.addLast(limbs[i]);
+        return result;
     }
 
     /**
@@ -0,0 +1,442 @@
+package e.s.hammercalc.core;
+
+import java.util.ArrayList;
+
+/**
+ * Exact running sum of Decimal, LargeInt and Fraction values.
+ * <p>
+ * Decimal and integer values are added into runs of base 1e7 limbs that grow to cover every
+ * digit added, so nothing is rounded until `finalise` is called. Carries between limbs are deferred,
+ * so adding a value costs one pass over its limbs. Fractions with a denominator other than one are
+ * kept as an exact rational part, combined with the limbs when the sum is finalised.</p>
+ * <p>
+ * This gives the correctly rounded sum at `Config.precision` without raising the precision of each
+ * addition. Memory grows with the digits added rather than the spread of their exponents: values far
+ * apart, such as 1e1000 and 1e-1000, are kept in separate runs, and finalising reads only the limbs
+ * near the leading digit, with the sign of anything below them.</p>
+ */
+public class DecimalAccumulator {
+    private static final long BASE = (long) Decimal.Const.BASE;
+    private static final int LOG_BASE = (int) Decimal.Const.LOG_BASE;
+    private static final double LOG10_2 = 0.30102999566398;
+
+    /** Limb additions allowed before carries are propagated, well inside the range of a long */
+    private static final int CARRY_INTERVAL = 1 << 20;
+
+    /** Runs of limbs closer than this are joined into one */
+    private static final int JOIN_GAP = 16;
+
+    /** A run of signed limbs, least significant first. Each may be outside [0, BASE) until carries are propagated */
+    private static final class Segment {
+        /** Limb exponent of `limbs[0]`, so `limbs[k]` is worth `limbs[k] * BASE^(low + k)` */
+        long low;
+        long[] limbs;
+
+        Segment(long low, long[] limbs) {
+            this.low = low;
+            this.limbs = limbs;
+        }
+
+        long high() {
+            return low + limbs.length - 1;
+        }
+    }
+
+    /** Runs in increasing order of exponent, more than JOIN_GAP zero limbs apart */
+    private final ArrayList<Segment> segments = new ArrayList<Segment>();
+    /** Limb additions since carries were last propagated */
+    private int pending;
+
+    /** Sum of the fractions added, or null if there are none */
+    private Fraction fraction;
+
+    private boolean nan;
+    /** Sign of any infinity added */
+    private boolean positiveInfinity, negativeInfinity;
+
+    /** Add `x` to the sum */
+    public void add(Decimal x) {
+        addDecimal(x, 1);
+    }
+
+    /** Subtract `x` from the sum */
+    public void subtract(Decimal x) {
+        addDecimal(x, -1);
+    }
+
+    /** Add `x` to the sum */
+    public void add(LargeInt x) {
+        addInteger(x, 1);
+    }
+
+    /** Subtract `x` from the sum */
+    public void subtract(LargeInt x) {
+        addInteger(x, -1);
+    }
+
+    /** Add `x` to the sum */
+    public void add(Fraction x) {
+        addFraction(x, 1);
+    }
+
+    /** Subtract `x` from the sum */
+    public void subtract(Fraction x) {
+        addFraction(x, -1);
+    }
+
+    /** Reset the sum to zero */
+    public void clear() {
+        segments.clear();
+        pending = 0;
+        fraction = null;
+        nan = positiveInfinity = negativeInfinity = false;
+    }
+
+    /** Return the sum, rounded to `Config.precision` significant digits using `Config.rounding` */
+    public Decimal finalise() {
+        return finalise(Decimal.Config.precision, Decimal.Config.rounding);
+    }
+
+    /**
+     * Return the sum, rounded once to `sd` significant digits using rounding mode `rm`.
+     * The accumulator is not changed, so more values can be added afterwards.
+     */
+    public Decimal finalise(int sd, Decimal.Rounding rm) {
+        if (nan || (positiveInfinity && negativeInfinity)) return Decimal.decimalNaN();
+        if (positiveInfinity) return new Decimal("Infinity");
+        if (negativeInfinity) return new Decimal("-Infinity");
+
+        propagateCarries();
+        if (fraction != null) return finaliseWithFraction(sd, rm);
+
+        // Find the sign from the most significant non-zero limb
+        long hi = topLimb();
+        if (hi == Long.MIN_VALUE) return new Decimal(0);
+        int sign = limbAt(hi) < 0 ? -1 : 1;
+
+        // Only the limbs holding the first sd digits, and a few guard limbs, are read. Anything below
+        // them only matters by its sign, as a borrow and a sticky digit. If the limbs read cancel down
+        // to too few digits, read more.
+        int need = sd / LOG_BASE + 2;
+        for (int width = need + 1; ; width *= 2) {
+            long bottom = hi - width + 1;
+            int rest = signBelow(bottom);
+
+            // Make the magnitude's limbs all lie in [0, BASE)
+            long[] mag = new long[width];
+            long borrow = rest * sign < 0 ? -1 : 0;
+            for (int k = 0; k < width; k++) {
+                long v = sign * limbAt(bottom + k) + borrow;
+                borrow = 0;
+                if (v < 0) {
+                    v += BASE;
+                    borrow = -1;
+                }
+                mag[k] = v;
+            }
+            int top = width - 1;
+            while (top >= 0 && mag[top] == 0) top--;
+            if (top + 1 < need && rest != 0) continue;
+
+            int lo = 0;
+            while (mag[lo] == 0) lo++;
+            int[] digits = new int[top - lo + 1];
+            for (int k = top; k >= lo; k--) digits[top - k] = (int) mag[k];
+
+            Decimal x = new Decimal();
+            x.setParts(sign, (double) ((bottom + top) * LOG_BASE + decimalWidth(mag[top]) - 1), digits, 0, digits.length);
+            return Decimal.roundToPrecision(x, sd, rm, rest != 0);
+        }
+    }
+
+    /** Add everything added to `other` to this sum */
+    void addAll(DecimalAccumulator other) {
+        other.propagateCarries();
+        for (Segment s : other.segments) {
+            Segment segment = cover(s.low, s.high());
+            int offset = (int) (s.low - segment.low);
+            for (int k = 0; k < s.limbs.length; k++) segment.limbs[offset + k] += s.limbs[k];
+
+            pending += 1;
+            if (pending >= CARRY_INTERVAL) propagateCarries();
+        }
+
+        if (other.fraction != null) fraction = fraction == null ? other.fraction : fraction.add(other.fraction).simplify();
+        nan |= other.nan;
+        positiveInfinity |= other.positiveInfinity;
+        negativeInfinity |= other.negativeInfinity;
+    }
+
+    /**
+     * Add a value held as parts, as in `Decimal.setParts`: `length` limbs from `digits[offset]`,
+     * with no limbs for NaN and ±Infinity. This lets DecimalArray add its values without making a Decimal.
+     */
+    void addParts(double sign, double exponent, int[] digits, int offset, int length) {
+        if (length == 0) { // NaN or ±Infinity
+            if (Double.isNaN(sign)) nan = true;
+            else if (sign > 0) positiveInfinity = true;
+            else negativeInfinity = true;
+            return;
+        }
+        if (length == 1 && digits[offset] == 0) return;
+
+        // The first limb holds the digit at exponent e, so sits at limb exponent floor(e / LOG_BASE)
+        long top = (long) Math.floor(exponent / LOG_BASE);
+        addLimbs(digits, offset, length, top, (int) sign);
+    }
+
+    private void addDecimal(Decimal x, int sign) {
+        int length = x.limbCount();
+        int[] digits = new int[length];
+        if (length > 0) x.copyLimbs(digits, 0);
+        addParts(x.signValue() * sign, x.exponentValue(), digits, 0, length);
+    }
+
+    private void addInteger(LargeInt x, int sign) {
+        if (x.isNaN()) {
+            nan = true;
+            return;
+        }
+        if (x.isZero()) return;
+
+        // Split the decimal digits into limbs, aligned to the last digit
+        String str = x.abs().toString();
+        int length = (str.length() + LOG_BASE - 1) / LOG_BASE;
+        int[] digits = new int[length];
+        int end = str.length();
+        for (int k = length - 1; k >= 0; k--) {
+            int start = Math.max(0, end - LOG_BASE);
+            digits[k] = Integer.parseInt(str.substring(start, end));
+            end = start;
+        }
+        addLimbs(digits, 0, length, length - 1, x.sign() * sign);
+    }
+
+    private void addFraction(Fraction x, int sign) {
+        if (x.isNaN()) {
+            nan = true;
+            return;
+        }
+        if (x.getDenominator().equals(LargeInt.ONE)) {
+            addInteger(x.getNumerator(), sign);
+            return;
+        }
+
+        if (sign < 0) x = x.negate();
+        fraction = fraction == null ? x : fraction.add(x).simplify();
+    }
+
+    /** Add `length` limbs from `digits[offset]`, most significant first, with the first at limb exponent `top` */
+    private void addLimbs(int[] digits, int offset, int length, long top, int sign) {
+        Segment segment = cover(top - length + 1, top);
+
+        int at = (int) (top - segment.low);
+        for (int k = 0; k < length; k++) segment.limbs[at - k] += sign * digits[offset + k];
+
+        pending += 1;
+        if (pending >= CARRY_INTERVAL) propagateCarries();
+    }
+
+    /**
+     * Return a run holding limb exponents `bottom` to `top`. Runs within reach of the range are joined
+     * with it, growing by at least their size at the end that grows. A range out of reach of every run
+     * starts a new one, so the gap between them takes no memory.
+     */
+    private Segment cover(long bottom, long top) {
+        long reach = Math.max(JOIN_GAP, top - bottom + 1);
+        int first = firstEndingAtOrAbove(bottom - reach - 1);
+        int last = first;
+        while (last < segments.size() && segments.get(last).low <= top + reach + 1) last++;
+        last--;
+
+        if (last < first) {
+            Segment segment = new Segment(bottom, new long[(int) (top - bottom + 1)]);
+            segments.add(first, segment);
+            return segment;
+        }
+
+        Segment a = segments.get(first);
+        Segment b = segments.get(last);
+        if (first == last && bottom >= a.low && top <= b.high()) return a;
+
+        long newLow = bottom < a.low ? Math.min(bottom, a.low - a.limbs.length) : a.low;
+        long newHigh = top > b.high() ? Math.max(top, b.high() + b.limbs.length) : b.high();
+
+        // Growing can bring the run near its neighbours
+        while (first > 0 && newLow - segments.get(first - 1).high() - 1 <= JOIN_GAP) {
+            first--;
+            newLow = Math.min(newLow, segments.get(first).low);
+        }
+        while (last + 1 < segments.size() && segments.get(last + 1).low - newHigh - 1 <= JOIN_GAP) {
+            last++;
+            newHigh = Math.max(newHigh, segments.get(last).high());
+        }
+
+        long[] grown = new long[(int) (newHigh - newLow + 1)];
+        for (int i = first; i <= last; i++) {
+            Segment s = segments.get(i);
+            System.arraycopy(s.limbs, 0, grown, (int) (s.low - newLow), s.limbs.length);
+        }
+        Segment joined = segments.get(first);
+        joined.low = newLow;
+        joined.limbs = grown;
+        segments.subList(first + 1, last + 1).clear();
+        return joined;
+    }
+
+    /** Index of the first run whose highest limb exponent is at least `exponent`, or the number of runs */
+    private int firstEndingAtOrAbove(long exponent) {
+        int lo = 0, hi = segments.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segments.get(mid).high() < exponent) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** The limb at limb exponent `k`, which is zero outside the runs */
+    private long limbAt(long k) {
+        int i = firstEndingAtOrAbove(k);
+        if (i == segments.size()) return 0;
+        Segment s = segments.get(i);
+        return k < s.low ? 0 : s.limbs[(int) (k - s.low)];
+    }
+
+    /** Limb exponent of the most significant non-zero limb, or Long.MIN_VALUE if every limb is zero */
+    private long topLimb() {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment s = segments.get(i);
+            for (int k = s.limbs.length - 1; k >= 0; k--) {
+                if (s.limbs[k] != 0) return s.low + k;
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Sign (-1, 0 or 1) of the limbs below limb exponent `bottom`, which is that of the most significant
+     * non-zero one, once carries are propagated
+     */
+    private int signBelow(long bottom) {
+        for (int i = Math.min(firstEndingAtOrAbove(bottom - 1), segments.size() - 1); i >= 0; i--) {
+            Segment s = segments.get(i);
+            for (long k = Math.min(s.high(), bottom - 1); k >= s.low; k--) {
+                long v = s.limbs[(int) (k - s.low)];
+                if (v != 0) return v < 0 ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /** Limb exponent of the most significant non-zero limb below `bottom`, or Long.MIN_VALUE if there is none */
+    private long topBelow(long bottom) {
+        for (int i = Math.min(firstEndingAtOrAbove(bottom - 1), segments.size() - 1); i >= 0; i--) {
+            Segment s = segments.get(i);
+            for (long k = Math.min(s.high(), bottom - 1); k >= s.low; k--) {
+                if (s.limbs[(int) (k - s.low)] != 0) return k;
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Move carries up so every limb lies in (-BASE, BASE). Limbs may still differ in sign;
+     * the sign of the sum is that of the most significant non-zero limb.
+     */
+    private void propagateCarries() {
+        pending = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Segment s = segments.get(i);
+            long carry = 0;
+            for (int k = 0; k < s.limbs.length || carry != 0; k++) {
+                // A carry out of the top goes into the next limb up, which may join this run with the next
+                if (k == s.limbs.length) s = cover(s.high() + 1, s.high() + 1);
+
+                long v = s.limbs[k] + carry;
+                carry = v / BASE;
+                s.limbs[k] = v - carry * BASE;
+            }
+        }
+    }
+
+    /**
+     * Round (limbs + fraction) exactly. The limbs near the leading digit and the fraction, scaled to the same
+     * bottom limb, are added as integers; the limbs and fraction digits below that only matter by their sign,
+     * as a sticky digit. If those cannot be told apart or the integer has too few digits, look further down.
+     */
+    private Decimal finaliseWithFraction(int sd, Decimal.Rounding rm) {
+        LargeInt num = fraction.getNumerator();
+        LargeInt den = fraction.getDenominator();
+        int fractionSign = num.sign();
+        LargeInt numMag = num.abs();
+
+        // |fraction| < 10^fractionDigits, so its leading digit is at or below this limb exponent
+        long fractionDigits = (long) Math.ceil((numMag.bitLength() - den.bitLength() + 1) * LOG10_2);
+        long fractionTop = Math.floorDiv(fractionDigits, LOG_BASE);
+        long hi = topLimb();
+        if (hi == Long.MIN_VALUE && fractionSign == 0) return new Decimal(0);
+
+        int need = sd / LOG_BASE + 2;
+        long top = Math.max(hi, fractionTop);
+        for (int width = need + 1; ; width *= 2) {
+            long bottom = top - width + 1;
+
+            // The limbs from `bottom` up, as an integer
+            LargeInt whole = LargeInt.ZERO;
+            for (long k = hi; k >= bottom; k--) whole = whole.multiply((int) BASE).add(LargeInt.fromLong(limbAt(k)));
+            int rest = signBelow(bottom);
+
+            // The fraction scaled by BASE^-bottom, split into an integer and the sign of what is left
+            LargeInt part = LargeInt.ZERO;
+            int fractionRest = 0;
+            if (fractionSign != 0 && fractionTop < bottom) {
+                fractionRest = fractionSign;
+            } else if (fractionSign != 0) {
+                LargeInt n = numMag, d = den;
+                if (bottom <= 0) n = n.multiply(LargeInt.TEN.pow((int) (-bottom * LOG_BASE)));
+                else d = d.multiply(LargeInt.TEN.pow((int) (bottom * LOG_BASE)));
+                LargeInt[] qr = n.divideAndRemainder(d);
+                part = fractionSign < 0 ? qr[0].negate() : qr[0];
+                if (!qr[1].isZero()) fractionRest = fractionSign;
+            }
+
+            // Sign of the two leftovers together, each less than one unit of the bottom limb
+            int tail = rest == 0 ? fractionRest : rest;
+            if (rest != 0 && fractionRest != 0 && rest != fractionRest) {
+                // The fraction's leftover is at least 1 / (den * BASE^bottom) or, if the fraction is all below
+                // `bottom`, |fraction|. The limbs' leftover is less than BASE^(topBelow + 1).
+                long fractionLeast = fractionTop < bottom
+                        ? (long) Math.floor((numMag.bitLength() - 1 - den.bitLength()) * LOG10_2) - 1
+                        : bottom * LOG_BASE - (long) Math.ceil(den.bitLength() * LOG10_2) - Math.max(0, -bottom * LOG_BASE);
+                if (fractionLeast <= (topBelow(bottom) + 1) * LOG_BASE) continue;
+                tail = fractionRest;
+            }
+
+            LargeInt sum = whole.add(part);
+            if (sum.isZero()) {
+                if (tail == 0) return new Decimal(0);
+                continue;
+            }
+
+            // A leftover of the other sign borrows one unit, and leaves a positive leftover
+            int sign = sum.sign();
+            LargeInt mag = sum.abs();
+            if (tail == -sign) mag = mag.subtract(LargeInt.ONE);
+            String digits = mag.toString();
+            if (tail != 0 && (mag.isZero() || digits.length() < sd + 2)) continue;
+
+            Decimal x = new Decimal((sign < 0 ? "-" : "") + digits + "e" + bottom * LOG_BASE);
+            return Decimal.roundToPrecision(x, sd, rm, tail != 0);
+        }
+    }
+
+    private static int decimalWidth(long v) {
+        int n = 1;
+        while (v >= 10) {
+            v /= 10;
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,430 @@
+package e.s.hammercalc.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A fixed size array of Decimal values, all rounded to the same number of significant digits.
+ * <p>
+ * Digits are held in one flat array of base 1e7 limbs, with a fixed number of limbs per value,
+ * and the exponents and signs in side arrays. Element-wise operations read the operands into Decimals
+ * that are reused across the elements, and use Decimal's own arithmetic and rounding, so each result is
+ * the one the Decimal operation gives. Sums add the stored limbs into a DecimalAccumulator.</p>
+ * <p>
+ * Operations can be split over a ForkJoinPool with `withPool`. The precision and rounding mode are
+ * passed to the tasks, so `Decimal.Config` is only read, when the operation starts.</p>
+ */
+public class DecimalArray {
+    /** Elements handled by one task before the range is not split further */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private final int size;
+    private final int precision;
+    private final int stride;
+
+    /** `stride` limbs per value, most significant first */
+    private final int[] limbs;
+    /** Number of limbs used by each value. Zero for NaN and ±Infinity */
+    private final int[] lengths;
+    private final double[] exponents;
+    /** -1, 1, or NaN */
+    private final double[] signs;
+
+    private ForkJoinPool pool;
+
+    /**
+     * Create an array of `size` zeros, where values are rounded to `precision` significant digits
+     */
+    public DecimalArray(int size, int precision) {
+        if (size < 0) throw new IllegalArgumentException("Size out of range: " + size);
+        if (precision < 1 || precision > Decimal.Const.MAX_DIGITS) {
+            throw new IllegalArgumentException("Precision out of range: " + precision);
+        }
+
+        this.size = size;
+        this.precision = precision;
+
+        // A rounded value's digits can start anywhere in its first limb, so may spill into one more limb
+        stride = (precision + (int) Decimal.Const.LOG_BASE - 1) / (int) Decimal.Const.LOG_BASE + 1;
+        limbs = new int[size * stride];
+        lengths = new int[size];
+        exponents = new double[size];
+        signs = new double[size];
+        for (int i = 0; i < size; i++) {
+            lengths[i] = 1;
+            signs[i] = 1;
+        }
+    }
+
+    /** Create an array holding the given values, rounded to `precision` significant digits */
+    public static DecimalArray of(int precision, Decimal... values) {
+        DecimalArray result = new DecimalArray(values.length, precision);
+        for (int i = 0; i < values.length; i++) result.set(i, values[i]);
+        return result;
+    }
+
+    /** Number of values in the array */
+    public int size() {
+        return size;
+    }
+
+    /** Number of significant digits values are rounded to */
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * Run element-wise operations and reductions as tasks in `pool`.
+     * Use null to run on the calling thread, which is the default. Returns this array.
+     */
+    public DecimalArray withPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /** Return the value at index `i` */
+    public Decimal get(int i) {
+        return load(i, new Decimal());
+    }
+
+    /** Set the value at index `i`, rounded to the precision of the array using rounding mode `rounding` */
+    public void set(int i, Decimal value) {
+        store(i, Decimal.roundToPrecision(value, precision, Decimal.Config.rounding));
+    }
+
+    //region Element-wise operations
+
+    /** Return a new array where each value is this value plus the same index of `y` */
+    public DecimalArray plus(DecimalArray y) {
+        return apply(OP_PLUS, y, null);
+    }
+
+    /** Return a new array where each value is this value plus `y` */
+    public DecimalArray plus(Decimal y) {
+        return apply(OP_PLUS, null, y);
+    }
+
+    /** Return a new array where each value is this value minus the same index of `y` */
+    public DecimalArray minus(DecimalArray y) {
+        return apply(OP_MINUS, y, null);
+    }
+
+    /** Return a new array where each value is this value minus `y` */
+    public DecimalArray minus(Decimal y) {
+        return apply(OP_MINUS, null, y);
+    }
+
+    /** Return a new array where each value is this value times the same index of `y` */
+    public DecimalArray times(DecimalArray y) {
+        return apply(OP_TIMES, y, null);
+    }
+
+    /** Return a new array where each value is this value times `y` */
+    public DecimalArray times(Decimal y) {
+        return apply(OP_TIMES, null, y);
+    }
+
+    /** Return a new array where each value is this value divided by the same index of `y` */
+    public DecimalArray div(DecimalArray y) {
+        return apply(OP_DIV, y, null);
+    }
+
+    /** Return a new array where each value is this value divided by `y` */
+    public DecimalArray div(Decimal y) {
+        return apply(OP_DIV, null, y);
+    }
+
+    /**
+     * Compare each value with the same index of `y`, as `Decimal.cmp`.
+     * This reads the stored limbs directly, so nothing is allocated per element.
+     */
+    public int[] compare(DecimalArray y) {
+        checkSize(y);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) result[i] = compare(this, i, y, i);
+        return result;
+    }
+
+    //endregion
+
+    //region Reductions
+
+    /**
+     * Return the sum of all values, rounded once to the precision of the array.
+     * The values are added exactly with a DecimalAccumulator, so splitting the work over a pool does not change the result.
+     */
+    public Decimal sum() {
+        Decimal.Rounding rm = Decimal.Config.rounding;
+        DecimalAccumulator total;
+        if (pool == null || size <= PARALLEL_THRESHOLD) total = sumRange(0, size);
+        else total = pool.invoke(new SumTask(0, size));
+        return total.finalise(precision, rm);
+    }
+
+    /**
+     * Return the product of all values, rounded once to the precision of the array.
+     * Partial products are truncated to guard digits, noting whether anything was dropped. If the exact
+     * product could round differently from the truncated one, it is found again with more guard digits.
+     */
+    public Decimal product() {
+        Decimal.Rounding rm = Decimal.Config.rounding;
+        for (int guard = 3 + Integer.toString(size).length(); ; guard *= 2) {
+            int workingPrecision = precision + guard;
+            Product total;
+            if (pool == null || size <= PARALLEL_THRESHOLD) total = productRange(workingPrecision, 0, size);
+            else total = pool.invoke(new ProductTask(workingPrecision, 0, size));
+
+            Decimal result = Decimal.roundToPrecision(total.value, precision, rm, total.inexact);
+            if (!total.inexact || !result.isFinite() || result.isZero()) return result;
+
+            // Each truncation loses less than one unit in the last working digit, so the exact product
+            // lies between the truncated one and that plus 2 * size units
+            Decimal error = Decimal.times(total.value, new Decimal(2L * size + "e" + (1 - workingPrecision)), 0, rm, false);
+            Decimal bound = Decimal.plus(total.value, error, 0, rm, false);
+            if (Decimal.roundToPrecision(bound, precision, rm, true).cmp(result) == 0) return result;
+        }
+    }
+
+    /** Return the smallest value, or NaN if any value is NaN or the array is empty */
+    public Decimal min() {
+        return extreme(-1);
+    }
+
+    /** Return the largest value, or NaN if any value is NaN or the array is empty */
+    public Decimal max() {
+        return extreme(1);
+    }
+
+    //endregion
+
+    private static final int OP_PLUS = 0;
+    private static final int OP_MINUS = 1;
+    private static final int OP_TIMES = 2;
+    private static final int OP_DIV = 3;
+
+    /** x op y with Decimal's arithmetic, rounded to `precision` significant digits */
+    private static Decimal operate(int op, Decimal x, Decimal y, int precision, Decimal.Rounding rm) {
+        switch (op) {
+            case OP_PLUS:
+                return Decimal.plus(x, y, precision, rm, true);
+            case OP_MINUS:
+                return Decimal.minus(x, y, precision, rm, true);
+            case OP_TIMES:
+                return Decimal.times(x, y, precision, rm, true);
+            default:
+                return Decimal.divide(x, y, precision, rm, false, -1, true);
+        }
+    }
+
+    /** Element-wise operation with either an array or a single value on the right */
+    private DecimalArray apply(int op, DecimalArray yArray, Decimal yValue) {
+        if (yArray != null) checkSize(yArray);
+        DecimalArray result = new DecimalArray(size, precision);
+        Decimal scalar = (yValue == null) ? null : new Decimal(yValue);
+        Decimal.Rounding rm = Decimal.Config.rounding;
+
+        if (pool == null || size <= PARALLEL_THRESHOLD) {
+            applyRange(op, yArray, scalar, rm, result, 0, size);
+        } else {
+            pool.invoke(new ApplyTask(op, yArray, scalar, rm, result, 0, size));
+        }
+        return result;
+    }
+
+    private void applyRange(int op, DecimalArray yArray, Decimal scalar, Decimal.Rounding rm, DecimalArray result, int from, int to) {
+        Decimal x = new Decimal();
+        Decimal y = (scalar == null) ? new Decimal() : scalar;
+        for (int i = from; i < to; i++) {
+            load(i, x);
+            if (scalar == null) yArray.load(i, y);
+            result.store(i, operate(op, x, y, precision, rm));
+        }
+    }
+
+    private final class ApplyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int op;
+        private final DecimalArray yArray;
+        private final Decimal scalar;
+        private final Decimal.Rounding rm;
+        private final DecimalArray result;
+        private final int from;
+        private final int to;
+
+        ApplyTask(int op, DecimalArray yArray, Decimal scalar, Decimal.Rounding rm, DecimalArray result, int from, int to) {
+            this.op = op;
+            this.yArray = yArray;
+            this.scalar = scalar;
+            this.rm = rm;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                applyRange(op, yArray, scalar, rm, result, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ApplyTask(op, yArray, scalar, rm, result, from, mid),
+                    new ApplyTask(op, yArray, scalar, rm, result, mid, to));
+        }
+    }
+
+    /** Exact sum of the values in [from, to), added straight from the stored limbs */
+    private DecimalAccumulator sumRange(int from, int to) {
+        DecimalAccumulator total = new DecimalAccumulator();
+        for (int i = from; i < to; i++) total.addParts(signs[i], exponents[i], limbs, i * stride, lengths[i]);
+        return total;
+    }
+
+    private final class SumTask extends RecursiveTask<DecimalAccumulator> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        SumTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected DecimalAccumulator compute() {
+            if (to - from <= PARALLEL_THRESHOLD) return sumRange(from, to);
+
+            int mid = (from + to) >>> 1;
+            SumTask high = new SumTask(mid, to);
+            high.fork();
+            DecimalAccumulator low = new SumTask(from, mid).compute();
+            low.addAll(high.join());
+            return low;
+        }
+    }
+
+    /** A product truncated to a working precision, and whether any non-zero digits were dropped */
+    private static final class Product {
+        Decimal value = new Decimal(1);
+        boolean inexact;
+
+        /** Multiply by `y`, truncating to `workingPrecision` significant digits */
+        void times(Decimal y, boolean yInexact, int workingPrecision) {
+            Decimal exact = Decimal.times(value, y, workingPrecision, Decimal.Rounding.ROUND_DOWN, false);
+            value = Decimal.roundToPrecision(exact, workingPrecision, Decimal.Rounding.ROUND_DOWN);
+            inexact |= yInexact || exact.isFinite() && value.cmp(exact) != 0;
+        }
+    }
+
+    private Product productRange(int workingPrecision, int from, int to) {
+        Product total = new Product();
+        Decimal x = new Decimal();
+        for (int i = from; i < to; i++) total.times(load(i, x), false, workingPrecision);
+        return total;
+    }
+
+    private final class ProductTask extends RecursiveTask<Product> {
+        private static final long serialVersionUID = 1L;
+
+        private final int workingPrecision;
+        private final int from;
+        private final int to;
+
+        ProductTask(int workingPrecision, int from, int to) {
+            this.workingPrecision = workingPrecision;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Product compute() {
+            if (to - from <= PARALLEL_THRESHOLD) return productRange(workingPrecision, from, to);
+
+            int mid = (from + to) >>> 1;
+            ProductTask high = new ProductTask(workingPrecision, mid, to);
+            high.fork();
+            Product low = new ProductTask(workingPrecision, from, mid).compute();
+            Product rest = high.join();
+            low.times(rest.value, rest.inexact, workingPrecision);
+            return low;
+        }
+    }
+
+    /** Smallest (direction -1) or largest (direction 1) value, found by comparing the stored limbs */
+    private Decimal extreme(int direction) {
+        if (size == 0) return Decimal.decimalNaN();
+        int best = 0;
+        for (int i = 0; i < size; i++) {
+            if (Double.isNaN(signs[i])) return Decimal.decimalNaN();
+            if (compare(this, i, this, best) * direction > 0) best = i;
+        }
+        return get(best);
+    }
+
+    /** Compare a[i] with b[j], with the same results as `Decimal.cmp` */
+    private static int compare(DecimalArray a, int i, DecimalArray b, int j) {
+        double xs = a.signs[i];
+        double ys = b.signs[j];
+        int xL = a.lengths[i];
+        int yL = b.lengths[j];
+
+        // Either NaN or ±Infinity?
+        if (xL == 0 || yL == 0) {
+            if (Double.isNaN(xs) || Double.isNaN(ys)) return 0;
+            if (xs != ys) return (int) xs;
+            if (xL == yL) return 0;
+            return ((xL == 0) ^ (xs < 0)) ? 1 : -1;
+        }
+
+        // Either zero?
+        boolean xZero = a.limbs[i * a.stride] == 0;
+        boolean yZero = b.limbs[j * b.stride] == 0;
+        if (xZero || yZero) {
+            if (!xZero) return (int) xs;
+            if (!yZero) return (int) -ys;
+            return 0;
+        }
+
+        // Signs differ?
+        if (xs != ys) return (int) xs;
+
+        // Compare exponents.
+        double xe = a.exponents[i];
+        double ye = b.exponents[j];
+        if (xe != ye) return ((xe > ye) ^ (xs < 0)) ? 1 : -1;
+
+        // Compare limb by limb.
+        int xo = i * a.stride;
+        int yo = j * b.stride;
+        for (int k = 0, n = Math.min(xL, yL); k < n; k++) {
+            int xk = a.limbs[xo + k];
+            int yk = b.limbs[yo + k];
+            if (xk != yk) return ((xk > yk) ^ (xs < 0)) ? 1 : -1;
+        }
+
+        // Compare lengths.
+        return xL == yL ? 0 : xL > yL ^ xs < 0 ? 1 : -1;
+    }
+
+    /** Set `target` to the value at index `i`, reusing its digit vector. Returns `target` */
+    private Decimal load(int i, Decimal target) {
+        target.setParts(signs[i], exponents[i], limbs, i * stride, lengths[i]);
+        return target;
+    }
+
+    /** Store a value already rounded to the precision of the array */
+    private void store(int i, Decimal value) {
+        int length = value.limbCount();
+        signs[i] = value.signValue();
+        exponents[i] = value.exponentValue();
+        lengths[i] = length;
+        if (length > 0) value.copyLimbs(limbs, i * stride);
+    }
+
+    private void checkSize(DecimalArray y) {
+        if (y.size != size) throw new IllegalArgumentException("Array sizes differ: " + size + " and " + y.size);
+    }
+}
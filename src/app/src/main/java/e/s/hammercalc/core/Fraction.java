@@ -1,5 +1,11 @@
 package e.s.hammercalc.core;
 
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 /**
  * Rational numbers using big integers.
  *
@@ -8,23 +14,42 @@ package e.s.hammercalc.core;
  */
 @SuppressWarnings("ForLoopReplaceableByForEach")
 public class Fraction {
-    private final LargeInt _num;
-    private final LargeInt _den;
+    /** Numerator and denominator. For a small fraction these are built from _n and _d when first needed.
+     * This is only ever set to the one value, so a race just means an extra allocation. */
+    private LargeInt _num;
+    private LargeInt _den;
+    /** True if numerator and denominator are known to have no common factor.
+     * This is only ever set, so a race just means a redundant gcd. */
+    private boolean _reduced;
+
+    /** Machine word copy of the value, when the denominator is positive and both fit in a long
+     * (excluding Long.MIN_VALUE, so either can be negated). Arithmetic between two small
+     * fractions uses these with overflow checks, and only falls back to LargeInt on overflow. */
+    private final boolean _small;
+    private final long _n;
+    private final long _d;
 
     /** Fraction 0/1 */
-    public static final Fraction ZERO = new Fraction(LargeInt.ZERO,LargeInt.ONE);
+    public static final Fraction ZERO = new Fraction(0, 1, true);
     /** Fraction -1/1 */
-    public static final Fraction NEG_ONE = new Fraction(LargeInt.NEG_ONE,LargeInt.ONE);
+    public static final Fraction NEG_ONE = new Fraction(-1, 1, true);
     /** Fraction 1/1 */
-    public static final Fraction ONE = new Fraction(LargeInt.ONE,LargeInt.ONE);
+    public static final Fraction ONE = new Fraction(1, 1, true);
     /** Fraction 1/2 */
-    public static final Fraction HALF = new Fraction(LargeInt.ONE,LargeInt.TWO);
+    public static final Fraction HALF = new Fraction(1, 2, true);
     /** Fraction -1/2 */
-    public static final Fraction NEG_HALF = new Fraction(LargeInt.NEG_ONE,LargeInt.TWO);
+    public static final Fraction NEG_HALF = new Fraction(-1, 2, true);
     /** Fraction 0/0 */
     public static final Fraction FRAC_NAN = new Fraction(LargeInt.ZERO,LargeInt.ZERO);
 
+    /** Number of terms below which a sum is not split across a ForkJoinPool */
+    private static final int PARALLEL_THRESHOLD = 256;
+
     protected Fraction(LargeInt num, LargeInt den){
+        this(num, den, false);
+    }
+
+    private Fraction(LargeInt num, LargeInt den, boolean reduced){
         if (den.sign() < 0){
             _num = num.negate();
             _den = den.negate();
@@ -32,12 +57,72 @@ public class Fraction {
             _num = num;
             _den = den;
         }
+        _reduced = reduced;
+
+        _small = !_num.isNaN() && _den.sign() > 0 && fitsSmall(_num) && fitsSmall(_den);
+        _n = _small ? _num.longValue() : 0;
+        _d = _small ? _den.longValue() : 0;
+    }
+
+    /** Small fraction. The denominator must be non-zero, and neither may be Long.MIN_VALUE */
+    private Fraction(long num, long den, boolean reduced){
+        if (den < 0) {
+            num = -num;
+            den = -den;
+        }
+        _small = true;
+        _n = num;
+        _d = den;
+        _reduced = reduced;
+    }
+
+    /** return num/den, as a small fraction if it can be */
+    private static Fraction small(long num, long den, boolean reduced){
+        if (den == 0 || num == Long.MIN_VALUE || den == Long.MIN_VALUE) {
+            return new Fraction(LargeInt.fromLong(num), LargeInt.fromLong(den), reduced);
+        }
+        return new Fraction(num, den, reduced);
+    }
+
+    /** True if the value fits in a long, other than Long.MIN_VALUE */
+    private static boolean fitsSmall(LargeInt x){
+        return x.bitLength() <= 63 && x.longValue() != Long.MIN_VALUE;
+    }
+
+    /** The numerator as a LargeInt */
+    private LargeInt num(){
+        if (_num == null) _num = LargeInt.fromLong(_n);
+        return _num;
+    }
+
+    /** The denominator as a LargeInt */
+    private LargeInt den(){
+        if (_den == null) _den = LargeInt.fromLong(_d);
+        return _den;
+    }
+
+    /** Greatest common divisor of two non-negative longs, by the binary method */
+    private static long gcd(long a, long b){
+        if (a == 0) return b;
+        if (b == 0) return a;
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>= Long.numberOfTrailingZeros(a);
+        do {
+            b >>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long t = a;
+                a = b;
+                b = t;
+            }
+            b -= a;
+        } while (b != 0);
+        return a << shift;
     }
 
     /** new fraction representing <c>num/den</c> */
     public static Fraction fromVulgarFraction(LargeInt num, LargeInt den){
         LargeInt cf = num.gcd(den);
-        return new Fraction(num.divide(cf), den.divide(cf));
+        return new Fraction(num.divide(cf), den.divide(cf), true);
     }
 
     /** new fraction representing <c>num/den</c> */
@@ -45,28 +130,30 @@ public class Fraction {
         LargeInt n = new LargeInt(num);
         LargeInt d = new LargeInt(den);
         LargeInt cf = n.gcd(d);
-        return new Fraction(n.divide(cf), d.divide(cf));
+        return new Fraction(n.divide(cf), d.divide(cf), true);
     }
 
     /** new fraction representing <c>num/den</c> */
     public static Fraction fromVulgarFraction(int num, int den){
+        if (den != 0) {
+            long cf = gcd(Math.abs((long) num), Math.abs((long) den));
+            return small(num / cf, den / cf, true);
+        }
         LargeInt n = LargeInt.fromInt(num);
         LargeInt d = LargeInt.fromInt(den);
         LargeInt cf = n.gcd(d);
-        return new Fraction(n.divide(cf), d.divide(cf));
+        return new Fraction(n.divide(cf), d.divide(cf), true);
     }
 
     /** new fraction representing <c>i/1</c> */
     public static Fraction fromInteger(int i){
-        LargeInt n = LargeInt.fromInt(i);
-        LargeInt d = LargeInt.ONE;
-        return new Fraction(n, d);
+        return new Fraction(i, 1, true);
     }
 
     /** new fraction representing <c>i/1</c> */
     public static Fraction fromInteger(LargeInt n){
         LargeInt d = LargeInt.ONE;
-        return new Fraction(n, d);
+        return new Fraction(n, d, true);
     }
 
     /** new fraction  */
@@ -84,73 +171,342 @@ public class Fraction {
         exponent -= 1075;
 
         // At this point, val == sign * significand * 2**exponent.
+        if (significand == 0) return ZERO;
 
         if (exponent >= 0) {
-            LargeInt exp = LargeInt.TWO.pow(exponent);
-            LargeInt a = LargeInt.fromInt(sign)
-                    .multiply(LargeInt.fromLong(significand))
-                    .multiply(exp);
-
-            return new Fraction(a, LargeInt.ONE).simplify();
+            LargeInt a = LargeInt.fromLong(sign * significand).shiftLeft(exponent);
+            return new Fraction(a, LargeInt.ONE, true);
         } else {
-            LargeInt exp = LargeInt.TWO.pow(-exponent);
-            LargeInt a = LargeInt.fromInt(sign)
-                    .multiply(LargeInt.fromLong(significand));
+            // The denominator is a power of two, so reducing is just dropping trailing zero bits
+            int shift = Math.min(Long.numberOfTrailingZeros(significand), -exponent);
+            significand >>= shift;
+            exponent += shift;
 
-            return new Fraction(a, exp).simplify();
+            LargeInt a = LargeInt.fromLong(sign * significand);
+            return new Fraction(a, LargeInt.ONE.shiftLeft(-exponent), true);
         }
     }
 
+    /** return the fraction with denominator at most `maxDenominator` that is closest to f.
+     * This is the last convergent of f's continued fraction that fits, or the semiconvergent
+     * past it if that is closer. Ties go to the smaller denominator. */
+    public static Fraction bestApproximation(double f, long maxDenominator){
+        if (maxDenominator < 1) throw new IllegalArgumentException("maxDenominator must be at least 1");
+        if (Double.isInfinite(f) || Double.isNaN(f)) return FRAC_NAN;
+
+        Fraction exact = fromFloat(f);
+        if (exact.den().bitLength() < 64 && exact.den().longValue() <= maxDenominator) return exact;
+        if (f < 0) return bestApproximation(-f, maxDenominator).negate();
+
+        // Convergents in longs while everything fits, otherwise in LargeInt
+        if (exact.num().bitLength() < 63 && exact.den().bitLength() < 63) {
+            try {
+                return bestApproximationSmall(exact, maxDenominator);
+            } catch (ArithmeticException overflow) {
+                // fall through
+            }
+        }
+        return bestApproximationLarge(exact, LargeInt.fromLong(maxDenominator));
+    }
+
+    /** bestApproximation of exact > 0, whose numerator and denominator fit in longs,
+     * and whose denominator is above `max`. Throws ArithmeticException on overflow */
+    private static Fraction bestApproximationSmall(Fraction exact, long max){
+        long n = exact.num().longValue();
+        long d = exact.den().longValue();
+        long p0 = 0, q0 = 1; // convergent k-2
+        long p1 = 1, q1 = 0; // convergent k-1
+
+        while (d != 0) {
+            long a = n / d;
+            long r = n % d;
+            n = d;
+            d = r;
+
+            // If the next denominator would be too large, choose between p1/q1 and the semiconvergent
+            long t = q1 == 0 ? Long.MAX_VALUE : (max - q0) / q1;
+            if (a > t) {
+                long ps = Math.addExact(Math.multiplyExact(t, p1), p0);
+                long qs = t * q1 + q0;
+                return closer(LargeInt.fromLong(p1), LargeInt.fromLong(q1), LargeInt.fromLong(ps), LargeInt.fromLong(qs), exact);
+            }
+
+            long p2 = Math.addExact(Math.multiplyExact(a, p1), p0);
+            long q2 = a * q1 + q0;
+            p0 = p1;
+            q0 = q1;
+            p1 = p2;
+            q1 = q2;
+        }
+        return new Fraction(LargeInt.fromLong(p1), LargeInt.fromLong(q1), true);
+    }
+
+    /** bestApproximation of exact > 0, whose denominator is above `max` */
+    private static Fraction bestApproximationLarge(Fraction exact, LargeInt max){
+        LargeInt n = exact.num();
+        LargeInt d = exact.den();
+        LargeInt p0 = LargeInt.ZERO, q0 = LargeInt.ONE;
+        LargeInt p1 = LargeInt.ONE, q1 = LargeInt.ZERO;
+
+        while (!d.isZero()) {
+            LargeInt[] qr = n.divideAndRemainder(d);
+            LargeInt a = qr[0];
+            n = d;
+            d = qr[1];
+
+            LargeInt q2 = a.multiply(q1).add(q0);
+            if (q2.compareTo(max) > 0) {
+                LargeInt t = max.subtract(q0).divide(q1);
+                LargeInt ps = t.multiply(p1).add(p0);
+                LargeInt qs = t.multiply(q1).add(q0);
+                return closer(p1, q1, ps, qs, exact);
+            }
+
+            LargeInt p2 = a.multiply(p1).add(p0);
+            p0 = p1;
+            q0 = q1;
+            p1 = p2;
+            q1 = q2;
+        }
+        return new Fraction(p1, q1, true);
+    }
+
+    /** Whichever of convergent p/q and semiconvergent ps/qs is closer to x, preferring p/q on a tie */
+    private static Fraction closer(LargeInt p, LargeInt q, LargeInt ps, LargeInt qs, Fraction x){
+        // |x - p/q| = |Nq - Dp| / Dq, so compare |Nq - Dp| * qs with |N qs - D ps| * q
+        LargeInt e1 = x.num().multiply(q).subtract(x.den().multiply(p)).abs().multiply(qs);
+        LargeInt e2 = x.num().multiply(qs).subtract(x.den().multiply(ps)).abs().multiply(q);
+        if (e2.compareTo(e1) < 0) return new Fraction(ps, qs, true);
+        return new Fraction(p, q, true);
+    }
+
     /** return absolute value of this rational */
     public Fraction abs(){
         if (isPositive()) return this;
         return this.negate();
     }
 
+    /** A series of rational terms, for sum(Series, from, to) */
+    public interface Series {
+        /** Return term k of the series */
+        Fraction term(int k);
+    }
+
+    /** return the sum of all the terms, as by sum(Series, from, to) */
+    public static Fraction sum(Fraction[] terms){
+        return sum(terms, null);
+    }
+
+    /** return the sum of all the terms, as by sum(Series, from, to, pool) */
+    public static Fraction sum(final Fraction[] terms, ForkJoinPool pool){
+        return sum(new Series() {
+            @Override
+            public Fraction term(int k) {
+                return terms[k];
+            }
+        }, 0, terms.length, pool);
+    }
+
+    /** return the sum of terms `from` (inclusive) to `to` (exclusive) of the series */
+    public static Fraction sum(Series series, int from, int to){
+        return sum(series, from, to, null);
+    }
+
+    /** return the sum of terms `from` (inclusive) to `to` (exclusive) of the series.
+     * <p>
+     * Terms are added in pairs in a balanced tree, so each addition is between partial sums
+     * of similar size, rather than a long left fold where one side keeps growing. Terms are
+     * not reduced on the way in; each addition only cancels what Henrici's small gcds find,
+     * and any full reduction is left until the end.</p>
+     * <p>
+     * If `pool` is not null, subtrees are summed in parallel on it.</p> */
+    public static Fraction sum(Series series, int from, int to, ForkJoinPool pool){
+        if (to <= from) return ZERO;
+        Fraction result;
+        if (pool == null || to - from <= PARALLEL_THRESHOLD) result = sumRange(series, from, to);
+        else result = pool.invoke(new SumTask(series, from, to));
+        return result.simplify();
+    }
+
+    /** Balanced tree sum of terms [from, to), which must not be empty */
+    private static Fraction sumRange(Series series, int from, int to){
+        if (to - from == 1) return series.term(from);
+        int mid = (from + to) >>> 1;
+        return sumRange(series, from, mid).add(sumRange(series, mid, to));
+    }
+
+    /** sumRange, with the upper half forked while the range is large */
+    private static final class SumTask extends RecursiveTask<Fraction> {
+        private static final long serialVersionUID = 1L;
+
+        private final Series series;
+        private final int from;
+        private final int to;
+
+        SumTask(Series series, int from, int to) {
+            this.series = series;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Fraction compute() {
+            if (to - from <= PARALLEL_THRESHOLD) return sumRange(series, from, to);
+
+            int mid = (from + to) >>> 1;
+            SumTask high = new SumTask(series, mid, to);
+            high.fork();
+            Fraction low = new SumTask(series, from, mid).compute();
+            return low.add(high.join());
+        }
+    }
+
     /** return this + val */
     public Fraction add(Fraction val){
-        LargeInt a = _num.multiply(val._den);
-        LargeInt b = _den.multiply(val._num);
-        LargeInt c = _den.multiply(val._den);
-        return new Fraction(a.add(b), c);
+        if (_small && val._small) {
+            try {
+                return addSmall(_n, _d, val._n, val._d, _reduced && val._reduced);
+            } catch (ArithmeticException overflow) {
+                // fall through
+            }
+        }
+        return addSigned(val.num(), val);
     }
 
     /** return this - val */
     public Fraction subtract(Fraction val){
-        LargeInt a = _num.multiply(val._den);
-        LargeInt b = _den.multiply(val._num);
-        LargeInt c = _den.multiply(val._den);
-        return new Fraction(a.subtract(b), c);
+        if (_small && val._small) {
+            try {
+                return addSmall(_n, _d, -val._n, val._d, _reduced && val._reduced);
+            } catch (ArithmeticException overflow) {
+                // fall through
+            }
+        }
+        return addSigned(val.num().negate(), val);
     }
 
-    /** return this * val */
+    /** a/b + c/d in longs, as addSigned. Throws ArithmeticException on overflow, including to Long.MIN_VALUE */
+    private static Fraction addSmall(long a, long b, long c, long d, boolean reduced){
+        if (a == Long.MIN_VALUE || c == Long.MIN_VALUE || b == Long.MIN_VALUE || d == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        long g = gcd(b, d);
+        if (g == 1) return small(Math.addExact(Math.multiplyExact(a, d), Math.multiplyExact(b, c)), Math.multiplyExact(b, d), reduced);
+
+        long bg = b / g;
+        long t = Math.addExact(Math.multiplyExact(a, d / g), Math.multiplyExact(c, bg));
+        if (t == 0) return ZERO;
+        if (t == Long.MIN_VALUE) throw new ArithmeticException("long overflow"); // no positive long for gcd
+
+        long g2 = gcd(Math.abs(t), g);
+        return small(t / g2, Math.multiplyExact(bg, d / g2), reduced);
+    }
+
+    /** return this + num/d, where d is val's denominator, by Henrici's method.
+     * With g = gcd(b, d), a/b + c/d = t/(b/g * d) where t = a(d/g) + c(b/g), and any
+     * factor common to t and the denominator must divide g. So the gcds are taken
+     * on the smaller values, and the result is reduced if both inputs were. */
+    private Fraction addSigned(LargeInt num, Fraction val){
+        if (this.isNaN() || val.isNaN()) {
+            LargeInt a = num().multiply(val.den());
+            LargeInt b = den().multiply(num);
+            LargeInt c = den().multiply(val.den());
+            return new Fraction(a.add(b), c);
+        }
+
+        boolean reduced = this._reduced && val._reduced;
+        LargeInt g = den().gcd(val.den());
+        if (g.equals(LargeInt.ONE)) {
+            LargeInt a = num().multiply(val.den());
+            LargeInt b = den().multiply(num);
+            LargeInt c = den().multiply(val.den());
+            return new Fraction(a.add(b), c, reduced);
+        }
+
+        LargeInt bg = den().divide(g);
+        LargeInt dg = val.den().divide(g);
+        LargeInt t = num().multiply(dg).add(num.multiply(bg));
+        if (t.isZero()) return ZERO;
+
+        LargeInt g2 = t.gcd(g);
+        if (g2.equals(LargeInt.ONE)) return new Fraction(t, bg.multiply(val.den()), reduced);
+        return new Fraction(t.divide(g2), bg.multiply(val.den().divide(g2)), reduced);
+    }
+
+    /** return this * val.
+     * Common factors are cancelled across the pair before multiplying, so the
+     * result is reduced if both inputs were. */
     public Fraction multiply(Fraction val){
-        LargeInt a = _num.multiply(val._num);
-        LargeInt c = _den.multiply(val._den);
-        return new Fraction(a, c);
+        if (this.isNaN() || val.isNaN()) {
+            LargeInt a = num().multiply(val.num());
+            LargeInt c = den().multiply(val.den());
+            return new Fraction(a, c);
+        }
+        if (this.isZero() || val.isZero()) return ZERO;
+
+        if (_small && val._small) {
+            long g1 = gcd(Math.abs(_n), val._d);
+            long g2 = gcd(Math.abs(val._n), _d);
+            try {
+                return small(Math.multiplyExact(_n / g1, val._n / g2), Math.multiplyExact(_d / g2, val._d / g1), _reduced && val._reduced);
+            } catch (ArithmeticException overflow) {
+                // fall through
+            }
+        }
+
+        LargeInt g1 = num().gcd(val.den());
+        LargeInt g2 = val.num().gcd(den());
+        LargeInt a = cancel(num(), g1).multiply(cancel(val.num(), g2));
+        LargeInt c = cancel(den(), g2).multiply(cancel(val.den(), g1));
+        return new Fraction(a, c, this._reduced && val._reduced);
     }
 
-    /** return this / val */
+    /** return this / val.
+     * Common factors are cancelled across the pair as in multiply */
     public Fraction divide(Fraction val){
-        LargeInt a = _num.multiply(val._den);
-        LargeInt c = _den.multiply(val._num);
-        return new Fraction(a, c);
+        if (this.isNaN() || val.isNaN() || val.isZero()) {
+            LargeInt a = num().multiply(val.den());
+            LargeInt c = den().multiply(val.num());
+            return new Fraction(a, c);
+        }
+        if (this.isZero()) return ZERO;
+
+        if (_small && val._small) {
+            long g1 = gcd(Math.abs(_n), Math.abs(val._n));
+            long g2 = gcd(val._d, _d);
+            try {
+                return small(Math.multiplyExact(_n / g1, val._d / g2), Math.multiplyExact(_d / g2, val._n / g1), _reduced && val._reduced);
+            } catch (ArithmeticException overflow) {
+                // fall through
+            }
+        }
+
+        LargeInt g1 = num().gcd(val.num());
+        LargeInt g2 = val.den().gcd(den());
+        LargeInt a = cancel(num(), g1).multiply(cancel(val.den(), g2));
+        LargeInt c = cancel(den(), g2).multiply(cancel(val.num(), g1));
+        return new Fraction(a, c, this._reduced && val._reduced);
+    }
+
+    /** x / g, skipping the division when g is one */
+    private static LargeInt cancel(LargeInt x, LargeInt g){
+        return g.equals(LargeInt.ONE) ? x : x.divide(g);
     }
 
     /** return this % val */
     public Fraction modulo(Fraction val){
         // (a/b) % (c/d)  == (ad % bc)/bd
-        LargeInt ad = _num.multiply(val._den);
-        LargeInt bc = _den.multiply(val._num);
-        LargeInt bd = _den.multiply(val._den);
+        LargeInt ad = num().multiply(val.den());
+        LargeInt bc = den().multiply(val.num());
+        LargeInt bd = den().multiply(val.den());
 
         return new Fraction(ad.mod(bc),bd);
     }
 
     /** return (num/s)/(den/s) */
     public Fraction reduce(LargeInt s){
-        LargeInt n = _num.divide(s);
-        LargeInt d = _den.divide(s);
+        LargeInt n = num().divide(s);
+        LargeInt d = den().divide(s);
         return new Fraction(n, d);
     }
 
@@ -164,13 +520,13 @@ public class Fraction {
     public Fraction pow(int n){
         if (n == 0) return ONE;
         if (n > 0) {
-            LargeInt a = _num.pow(n);
-            LargeInt c = _den.pow(n);
-            return new Fraction(a, c);
+            LargeInt a = num().pow(n);
+            LargeInt c = den().pow(n);
+            return new Fraction(a, c, _reduced);
         } else {
-            LargeInt a = _num.pow(-n);
-            LargeInt c = _den.pow(-n);
-            return new Fraction(c, a);
+            LargeInt a = num().pow(-n);
+            LargeInt c = den().pow(-n);
+            return new Fraction(c, a, _reduced);
         }
     }
 
@@ -181,31 +537,103 @@ public class Fraction {
 
     /** Truncate rational to integer valued rational */
     public Fraction truncate(){
-        return new Fraction(_num.divide(_den), LargeInt.ONE);
+        if (_small) return new Fraction(_n / _d, 1, true);
+        return new Fraction(num().divide(den()), LargeInt.ONE, true);
     }
 
     /** Truncate rational to integer */
     public LargeInt truncateToInt(){
-        return _num.divide(_den);
+        if (_small) return LargeInt.fromLong(_n / _d);
+        return num().divide(den());
+    }
+
+    /** floor(log2(this)), for a positive value.
+     * The bit lengths give the answer to within one, and a shifted comparison settles it */
+    public int floorLog2(){
+        if (isNaN() || !isPositive()) throw new ArithmeticException("Logarithm of a non-positive number");
+        LargeInt n = num();
+        LargeInt d = den();
+        int k = n.bitLength() - d.bitLength();
+        boolean atLeast = (k >= 0)
+                ? n.compareTo(d.shiftLeft(k)) >= 0
+                : n.shiftLeft(-k).compareTo(d) >= 0;
+        return atLeast ? k : k - 1;
+    }
+
+    /** floor(log10(this)), for a positive value: the position of the first significant digit.
+     * The digit counts give the answer to within one, and a comparison with a power of ten settles it */
+    public int floorLog10(){
+        if (isNaN() || !isPositive()) throw new ArithmeticException("Logarithm of a non-positive number");
+        LargeInt n = num();
+        LargeInt d = den();
+        int k = n.floorLog10() - d.floorLog10();
+        boolean atLeast = (k >= 0)
+                ? n.compareTo(d.multiply(LargeInt.powerOfTen(k))) >= 0
+                : n.multiply(LargeInt.powerOfTen(-k)).compareTo(d) >= 0;
+        return atLeast ? k : k - 1;
     }
 
-    /** return this rational simplified to smalled numerator and denominator */
+    /** floor(log_base(this)), for a positive value and base > 1. See LargeInt.log */
+    public int log(LargeInt base){
+        if (isNaN() || !isPositive()) throw new ArithmeticException("Logarithm of a non-positive number");
+        LargeInt n = num();
+        LargeInt d = den();
+
+        // For x >= 1, the whole part has the same integer logarithm
+        if (n.compareTo(d) >= 0) return n.divide(d).log(base);
+
+        // For x < 1, the result is -e for the smallest e with base^e >= d/n, or equally >= ceil(d/n)
+        LargeInt[] qr = d.divideAndRemainder(n);
+        LargeInt reciprocal = qr[1].isZero() ? qr[0] : qr[0].add(LargeInt.ONE);
+        int e = reciprocal.log(base);
+        return base.pow(e).equals(reciprocal) ? -e : -e - 1;
+    }
+
+    /** return this rational simplified to smalled numerator and denominator.
+     * This is free if the fraction is already known to be reduced */
     public Fraction simplify(){
-        LargeInt d = _num.gcd(_den).abs();
-        if (d.equals(LargeInt.ONE)) return this;
-        return new Fraction(_num.divide(d), _den.divide(d));
+        if (_reduced || isNaN()) return this;
+        if (_small) {
+            long g = gcd(Math.abs(_n), _d);
+            if (g == 1) {
+                _reduced = true;
+                return this;
+            }
+            return new Fraction(_n / g, _d / g, true);
+        }
+        LargeInt d = num().gcd(den()).abs();
+        if (d.equals(LargeInt.ONE)) {
+            _reduced = true;
+            return this;
+        }
+        return new Fraction(num().divide(d), den().divide(d), true);
+    }
+
+    /** Returns true if this fraction is known to be in lowest terms without taking a gcd */
+    public boolean isKnownReduced(){
+        return _reduced;
     }
 
     /** return the multiplicative inverse of this rational
      * (i.e. a/b becomes b/a) */
-    public Fraction inverse(){return new Fraction(_den, _num);}
+    public Fraction inverse(){
+        if (_small && _n != 0) return new Fraction(_d, _n, _reduced);
+        return new Fraction(den(), num(), _reduced);
+    }
 
     /** Return 0 if ints are equal; <p>
      * -1 if 'val' is greater than 'this'; </p>
      * 1 if 'val' is less */
     public int compareTo(Fraction val) {
-        LargeInt a = this._num.multiply(val._den);
-        LargeInt b = this._den.multiply(val._num);
+        if (_small && val._small) {
+            try {
+                return Long.signum(Math.subtractExact(Math.multiplyExact(_n, val._d), Math.multiplyExact(_d, val._n)));
+            } catch (ArithmeticException overflow) {
+                // fall through
+            }
+        }
+        LargeInt a = this.num().multiply(val.den());
+        LargeInt b = this.den().multiply(val.num());
 
         LargeInt c = a.subtract(b);
         return c.compareTo(LargeInt.ZERO);
@@ -227,96 +655,79 @@ public class Fraction {
 
     @Override
     public int hashCode() {
-        return _num.hashCode() ^ _den.hashCode();
+        // Equal values must hash the same, so use lowest terms
+        Fraction f = simplify();
+        return f.num().hashCode() ^ f.den().hashCode();
     }
 
     /** Returns true if this rational is infinite or undefined */
     public boolean isNaN(){
-        return _den.isZero();
+        return !_small && _den.isZero();
     }
 
     /** return true if this rational is greater than zero */
-    public boolean isPositive(){return _num.sign() == 1;}
+    public boolean isPositive(){
+        if (_small) return _n > 0;
+        return _num.sign() == 1;
+    }
 
     /** returns true if this rational is zero valued */
-    public boolean isZero(){return _num.equals(LargeInt.ZERO);}
+    public boolean isZero(){
+        if (_small) return _n == 0;
+        return _num.equals(LargeInt.ZERO);
+    }
 
     /** returns true if this rational is integer valued */
     public boolean isInteger(){
-        LargeInt intVal = _num.divide(_den).multiply(_den);
-        return intVal.equals(this._num);
+        if (_small) return _n % _d == 0;
+        LargeInt intVal = num().divide(den()).multiply(den());
+        return intVal.equals(this.num());
     }
 
     /** Return a rational with same magnitude and opposite sign */
-    public Fraction negate(){return new Fraction(_num.negate(), _den);}
+    public Fraction negate(){
+        if (_small) return new Fraction(-_n, _d, _reduced);
+        return new Fraction(_num.negate(), _den, _reduced);
+    }
 
     @SuppressWarnings("NullableProblems")
     @Override
     public String toString() {
-        if (_den.equals(LargeInt.ZERO)) return "NaN";
-        if (_num.equals(LargeInt.ZERO)) return "0";
+        if (_small) {
+            Fraction f = simplify();
+            if (f._d == 1) return Long.toString(f._n);
+            return f._n + "/" + f._d;
+        }
+        if (den().equals(LargeInt.ZERO)) return "NaN";
+        if (num().equals(LargeInt.ZERO)) return "0";
 
         Fraction f = simplify();
-        if (f._den.equals(LargeInt.ONE)) return f._num.toString();
-        if (f._den.equals(LargeInt.NEG_ONE)) return f._num.negate().toString();
+        if (f.den().equals(LargeInt.ONE)) return f.num().toString();
+        if (f.den().equals(LargeInt.NEG_ONE)) return f.num().negate().toString();
 
-        return f._num.toString() + "/" + f._den;
+        return f.num().toString() + "/" + f.den();
     }
 
-    /** return this rational expressed as a set of continued fraction terms */
+    /** return this rational expressed as a set of continued fraction terms.
+     * The first term is the floor of the value, and all the others are positive */
     public LargeInt[] toContinuedFractionArray() {
-        int sign = this.compareTo(Fraction.ZERO);
-        if (sign == 0) return new LargeInt[0];
         LargeIntVec result = new LargeIntVec();
-
-        if (sign > 0) { // positive values
-            Fraction frac = this.inverse();
-
-            while (!frac.isZero()) {
-                frac = frac.inverse();
-                result.addLast(frac.truncateToInt());
-                frac = frac.mantissa();
-            }
-        } else { // negative values
-            // WE want all positive terms beyond the first, so:
-            // Where fr is our fraction, I is the integer part, M is mantissa.
-            // fr = I + M; -fr = -I - M; -fr = -I -1 + (1 - I)
-            LargeInt I = this.truncateToInt().subtract(LargeInt.ONE);
-            Fraction m = Fraction.ONE.subtract(this.negate().mantissa());
-
-            Fraction frac = m.inverse();
-
-            while (!frac.isZero()) {
-                frac = frac.inverse();
-                result.addLast(frac.truncateToInt());
-                frac = frac.mantissa();
-            }
-
-            result.removeFirst(); // should be a zero
-            result.addFirst(I); // put back the integer we sliced
-        }
+        ContinuedFractionTerms terms = continuedFractionTerms();
+        while (terms.hasNext()) result.addLast(terms.next());
         return result.toArray();
     }
 
+    /** Return the continued fraction terms of this rational, as toContinuedFractionArray, but
+     * generated only as they are read. Zero and NaN have no terms */
+    public ContinuedFractionTerms continuedFractionTerms(){
+        if (isNaN() || isZero()) return new ContinuedFractionTerms(0, 0);
+        if (_small) return new ContinuedFractionTerms(_n, _d);
+        return new ContinuedFractionTerms(num(), den());
+    }
+
     /** return the given continued fraction approximated as a rational */
     public static Fraction continuedFractionToFraction(LargeInt[] cfList){
-        LargeInt a = LargeInt.ZERO;
-        LargeInt b = LargeInt.ONE;
-        LargeInt c = LargeInt.ONE;
-        LargeInt d = LargeInt.ZERO;
-        int cfLength = cfList.length;
-
-        for (int i = 0; i < cfLength; i++) {
-            LargeInt tmp;
-            tmp = b;
-            b = cfList[i].multiply(b).add(a);
-            a = tmp;
-
-            tmp = d;
-            d = cfList[i].multiply(d).add(c);
-            c = tmp;
-        }
-        return new Fraction(b,d).simplify();
+        return new Convergents().appendAll(cfList, 0, cfList.length).toFraction();
     }
 
     /** x to a continued fraction with n terms */
@@ -325,9 +736,16 @@ public class Fraction {
 
         LargeIntVec result = new LargeIntVec();
         for (int i = 0; i < n; i++) {
-            LargeInt ip = LargeInt.fromFloat(x);
-            result.addLast(ip);
-            x = 1.0 / (x - ip.toFloat());
+            if (Math.abs(x) < 9.0e18) {
+                // Integer part in a long, without the round trip through LargeInt
+                long ip = (long) x;
+                result.addLast(LargeInt.fromLong(ip));
+                x = 1.0 / (x - ip);
+            } else {
+                LargeInt ip = LargeInt.fromFloat(x);
+                result.addLast(ip);
+                x = 1.0 / (x - ip.toFloat());
+            }
         }
         return result.toArray();
     }
@@ -335,64 +753,487 @@ public class Fraction {
     /** Render the rational as a human readable string with
      * numerator and denominator expressed as limited precision strings in 0e0 format */
     public String toFloatString(int precision){
-        if (_den.equals(LargeInt.ZERO)) return "NaN";
-        if (_num.equals(LargeInt.ZERO)) return "0";
+        if (den().equals(LargeInt.ZERO)) return "NaN";
+        if (num().equals(LargeInt.ZERO)) return "0";
 
         Fraction f = simplify();
 
-        if (f._den.equals(LargeInt.ONE)) return _num.toFloatString(precision);
-        if (f._den.equals(LargeInt.NEG_ONE)) return _num.negate().toFloatString(precision);
+        if (f.den().equals(LargeInt.ONE)) return num().toFloatString(precision);
+        if (f.den().equals(LargeInt.NEG_ONE)) return num().negate().toFloatString(precision);
 
-        return f._num.toFloatString(precision)+"/"+f._den.toFloatString(precision);
+        return f.num().toFloatString(precision)+"/"+f.den().toFloatString(precision);
     }
 
-    /** Render this rational as a decimal string, to the given number of places */
+    /** Render this rational as a decimal string, to the given number of places.
+     * Digits are truncated, not rounded, and stop early if the decimal is exact */
     public String toDecimalString(int places){
-        LargeInt product = _num.multiply(_den);
-        if (product.compareTo(LargeInt.ZERO) < 0) return "-"+this.negate().toDecimalString(places);
+        StringBuilder result = new StringBuilder();
+        try {
+            writeDecimalString(result, places);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringBuilder does not throw
+        }
+        return result.toString();
+    }
+
+    /** Write this rational as a decimal to `out`, to the given number of places.
+     * The output is the same as toDecimalString, but is written a block of digits at a time,
+     * so a Writer can take very long expansions without holding them in memory */
+    public void writeDecimalString(Appendable out, int places) throws IOException {
+        if (isNaN()) {
+            out.append("NaN");
+            return;
+        }
+        if (num().sign() < 0) out.append('-');
+
+        DecimalDigits digits = decimalDigits();
+        out.append(digits.integerPart().toString());
+        if (places < 1 || !digits.hasNext()) return;
+
+        out.append('.');
+        digits.writeTo(out, places);
+    }
+
+    /** Return the decimal digits after the point of |this| as an iterator.
+     * This is endless for a repeating decimal, and ends at the last non-zero digit otherwise */
+    public DecimalDigits decimalDigits(){
+        LargeInt[] parts = num().abs().divideAndRemainder(den());
+        if (parts.length < 2) throw new ArithmeticException("Fraction has zero denominator");
+        return new DecimalDigits(parts[0], parts[1], den());
+    }
+
+    /** Number of decimal places before the digits start repeating.
+     * This is the larger of the powers of 2 and 5 in the simplified denominator */
+    public int decimalPreperiod(){
+        DenominatorFactors factors = new DenominatorFactors(simplify().den());
+        return Math.max(factors.twos, factors.fives);
+    }
+
+    /** Length of the repeating cycle in the decimal expansion. This is 0 for a decimal that terminates,
+     * or -1 if the cycle is longer than `maxLength` digits */
+    public long decimalPeriod(long maxLength){
+        if (isNaN()) return -1;
+        LargeInt rest = new DenominatorFactors(simplify().den()).rest;
+        if (rest.equals(LargeInt.ONE)) return 0;
+
+        // The period is the order of 10 modulo the part of the denominator that is coprime to 10
+        long period = 1;
+        if (rest.bitLength() < 60) {
+            long m = rest.longValue();
+            long r = 10 % m;
+            while (r != 1) {
+                if (period >= maxLength) return -1;
+                r = (r * 10) % m;
+                period++;
+            }
+        } else {
+            LargeInt r = LargeInt.TEN.mod(rest);
+            while (!r.equals(LargeInt.ONE)) {
+                if (period >= maxLength) return -1;
+                r = r.multiply(10).mod(rest);
+                period++;
+            }
+        }
+        return period;
+    }
+
+    /** Render this rational as an exact decimal, with the repeating part in brackets.
+     * For example 1/6 is "0.1(6)" and 1/7 is "0.(142857)". If the cycle is longer than
+     * `maxLength` digits, that many digits are given after the preperiod, followed by "..." */
+    public String toRepeatingDecimalString(int maxLength){
+        if (isNaN()) return "NaN";
+
+        int preperiod = decimalPreperiod();
+        long period = decimalPeriod(maxLength);
 
-        LargeInt n = LargeInt.fromInt(places);
         StringBuilder result = new StringBuilder();
-        result.append(truncateToInt().toString());
+        if (num().sign() < 0) result.append('-');
 
-        Fraction frac = this.mantissa();
-        if (frac.isZero()) return result.toString();
+        DecimalDigits digits = decimalDigits();
+        result.append(digits.integerPart().toString());
+        if (!digits.hasNext()) return result.toString();
 
         result.append('.');
+        try {
+            digits.writeTo(result, preperiod);
+            if (period > 0) {
+                result.append('(');
+                digits.writeTo(result, (int) period);
+                result.append(')');
+            } else if (period < 0) {
+                digits.writeTo(result, maxLength);
+                result.append("...");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringBuilder does not throw
+        }
+        return result.toString();
+    }
 
-        LargeInt i = LargeInt.ZERO;
-        LargeInt a = frac._num.multiply(10);
-        LargeInt b = frac._den;
-        for (; i.compareTo(n) < 0; i = i.add(LargeInt.ONE)) {
-            LargeInt d = a.divide(b);
-            result.append(d.toString());
-            a = (a.subtract(d.multiply(b))).multiply(10);
-            if (a.isZero()) break; // terminate if we get an exact decimal
+    /** The decimal digits of a positive rational, produced in blocks by one scaled division each.
+     * Denominators small enough for the scaled remainder to fit a long work in blocks of 9 digits
+     * with machine arithmetic; larger ones use LargeInt in blocks of 18 digits. */
+    public static final class DecimalDigits implements Iterator<Integer> {
+        private static final long SMALL_SCALE = 1000000000L;
+        private static final LargeInt LARGE_SCALE = LargeInt.fromLong(1000000000000000000L);
+
+        private final LargeInt integerPart;
+        private final LargeInt den;
+        private LargeInt remainder;
+
+        /** When the denominator is under 2^33, remainder * 10^9 fits in a long */
+        private final boolean small;
+        private final long smallDen;
+        private long smallRemainder;
+
+        private final char[] block = new char[18];
+        private int blockStart;
+        private int blockEnd;
+
+        private DecimalDigits(LargeInt integerPart, LargeInt remainder, LargeInt den) {
+            this.integerPart = integerPart;
+            this.den = den;
+            this.remainder = remainder;
+            small = den.bitLength() <= 33;
+            smallDen = small ? den.longValue() : 0;
+            smallRemainder = small ? remainder.longValue() : 0;
         }
 
-        return result.toString();
+        /** The whole number part, which comes before the digits */
+        public LargeInt integerPart() {
+            return integerPart;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (blockStart < blockEnd) return true;
+            return small ? smallRemainder != 0 : !remainder.isZero();
+        }
+
+        /** Return the next decimal digit, 0 to 9 */
+        @Override
+        public Integer next() {
+            if (blockStart == blockEnd) {
+                if (!hasNext()) throw new NoSuchElementException();
+                fillBlock();
+            }
+            return block[blockStart++] - '0';
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /** Append up to `count` digits to `out`, stopping early if the decimal ends.
+         * Returns the number of digits written */
+        public int writeTo(Appendable out, int count) throws IOException {
+            int written = 0;
+            while (written < count && hasNext()) {
+                if (blockStart == blockEnd) fillBlock();
+                int n = Math.min(count - written, blockEnd - blockStart);
+                out.append(new String(block, blockStart, n));
+                blockStart += n;
+                written += n;
+            }
+            return written;
+        }
+
+        /** Divide out the next block of digits */
+        private void fillBlock() {
+            int width;
+            long digits;
+            boolean exact;
+            if (small) {
+                long scaled = smallRemainder * SMALL_SCALE;
+                digits = scaled / smallDen;
+                smallRemainder = scaled % smallDen;
+                width = 9;
+                exact = smallRemainder == 0;
+            } else {
+                LargeInt[] qr = remainder.multiply(LARGE_SCALE).divideAndRemainder(den);
+                digits = qr[0].longValue();
+                remainder = qr[1];
+                width = 18;
+                exact = remainder.isZero();
+            }
+
+            // Zero padded to the block width
+            for (int i = width - 1; i >= 0; i--) {
+                block[i] = (char) ('0' + digits % 10);
+                digits /= 10;
+            }
+            blockStart = 0;
+            blockEnd = width;
+
+            // An exact decimal stops at its last non-zero digit
+            if (exact) {
+                while (blockEnd > 0 && block[blockEnd - 1] == '0') blockEnd--;
+            }
+        }
+    }
+
+    /** The continued fraction terms of a rational, by Euclid's algorithm on the numerator and
+     * denominator: each term is one divideAndRemainder, and no intermediate Fractions are made.
+     * While both values are over two words, Lehmer's method finds a batch of terms from the
+     * leading bits in machine words, then updates the large values in one pass. Once they fit
+     * in longs the rest of the terms come from machine arithmetic. */
+    public static final class ContinuedFractionTerms implements Iterator<LargeInt> {
+        /** The remaining value is u/v, with u > v > 0 after the first term */
+        private LargeInt u;
+        private LargeInt v;
+
+        private boolean small;
+        private long smallU;
+        private long smallV;
+
+        /** First term, which may be negative or large */
+        private LargeInt first;
+
+        /** Terms found by a Lehmer step and not yet returned */
+        private final long[] pending = new long[LargeInt.LEHMER_MAX_QUOTIENTS];
+        private int pendingStart;
+        private int pendingEnd;
+        private final LargeInt[] pair = new LargeInt[2];
+
+        /** Terms of num/den, for den > 0 */
+        ContinuedFractionTerms(LargeInt num, LargeInt den) {
+            LargeInt[] qr = num.divideAndRemainder(den);
+            if (qr[1].sign() < 0) { // Floor, so the remainder is positive
+                qr[0] = qr[0].subtract(LargeInt.ONE);
+                qr[1] = qr[1].add(den);
+            }
+            first = qr[0];
+            setRemainder(den, qr[1]);
+        }
+
+        /** Terms of num/den, for den > 0, or no terms if den is zero */
+        ContinuedFractionTerms(long num, long den) {
+            small = true;
+            if (den == 0) return;
+            long q = num / den;
+            long r = num % den;
+            if (r < 0) {
+                q--;
+                r += den;
+            }
+            first = LargeInt.fromLong(q);
+            smallU = den;
+            smallV = r;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (first != null || pendingStart < pendingEnd) return true;
+            return small ? smallV != 0 : !v.isZero();
+        }
+
+        @Override
+        public LargeInt next() {
+            if (first != null) {
+                LargeInt result = first;
+                first = null;
+                return result;
+            }
+            if (pendingStart < pendingEnd) return LargeInt.fromLong(pending[pendingStart++]);
+            if (!hasNext()) throw new NoSuchElementException();
+
+            if (small) {
+                long q = smallU / smallV;
+                long r = smallU - q * smallV;
+                smallU = smallV;
+                smallV = r;
+                return LargeInt.fromLong(q);
+            }
+
+            if (v.bitLength() > 64) {
+                int count = LargeInt.lehmerQuotients(u, v, pending, pair);
+                if (count > 0) {
+                    setRemainder(pair[0], pair[1]);
+                    pendingStart = 1;
+                    pendingEnd = count;
+                    return LargeInt.fromLong(pending[0]);
+                }
+            }
+
+            LargeInt[] qr = u.divideAndRemainder(v);
+            setRemainder(v, qr[1]);
+            return qr[0];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /** Continue with u/v, in longs if u (and so v) fits */
+        private void setRemainder(LargeInt newU, LargeInt newV) {
+            if (newU.bitLength() < 64) {
+                small = true;
+                smallU = newU.longValue();
+                smallV = newV.longValue();
+            } else {
+                u = newU;
+                v = newV;
+            }
+        }
+    }
+
+    /** The convergents of a continued fraction, built up one term at a time.
+     * This holds the matrix [[p_k, p_k-1], [q_k, q_k-1]], the product of [[a_i, 1], [1, 0]] for
+     * every term so far, so each term costs two multiplications. The determinant is always +-1,
+     * so the convergents are in lowest terms without taking a gcd. */
+    public static final class Convergents {
+        /** Below this many terms, appendAll multiplies in one term at a time */
+        private static final int TREE_THRESHOLD = 32;
+
+        private LargeInt p = LargeInt.ONE;
+        private LargeInt pPrev = LargeInt.ZERO;
+        private LargeInt q = LargeInt.ZERO;
+        private LargeInt qPrev = LargeInt.ONE;
+        private int count;
+
+        /** Add the next term, and return this */
+        public Convergents append(LargeInt term) {
+            LargeInt t = term.multiply(p).add(pPrev);
+            pPrev = p;
+            p = t;
+            t = term.multiply(q).add(qPrev);
+            qPrev = q;
+            q = t;
+            count++;
+            return this;
+        }
+
+        /** Add terms[from] to terms[to - 1], and return this.
+         * Long runs are multiplied out as a balanced tree of 2x2 matrices, so the big
+         * multiplications are between values of similar size */
+        public Convergents appendAll(LargeInt[] terms, int from, int to) {
+            if (to - from < TREE_THRESHOLD) {
+                for (int i = from; i < to; i++) append(terms[i]);
+                return this;
+            }
+
+            multiplyBy(product(terms, from, to));
+            count += to - from;
+            return this;
+        }
+
+        /** Add terms[from] to terms[to - 1], repeated `times` times, and return this.
+         * The product for one repeat is raised to the power by squaring, so this takes
+         * O(log times) matrix multiplications rather than one step per term */
+        public Convergents appendRepeated(LargeInt[] terms, int from, int to, long times) {
+            if (times < 0) throw new IllegalArgumentException("Repeat count must not be negative");
+            if (times == 0 || from == to) return this;
+
+            LargeInt[] power = product(terms, from, to);
+            LargeInt[] result = null;
+            for (long n = times; ; ) {
+                if ((n & 1) != 0) result = (result == null) ? power : multiply(result, power);
+                n >>>= 1;
+                if (n == 0) break;
+                power = multiply(power, power);
+            }
+
+            multiplyBy(result);
+            count = (int) Math.min(Integer.MAX_VALUE, count + times * (to - from));
+            return this;
+        }
+
+        /** Number of terms added so far */
+        public int count() {
+            return count;
+        }
+
+        /** The latest convergent, p_k/q_k. With no terms this is 1/0, which is NaN */
+        public Fraction toFraction() {
+            return new Fraction(p, q, true);
+        }
+
+        /** The convergent before the latest one, p_k-1/q_k-1 */
+        public Fraction previous() {
+            return new Fraction(pPrev, qPrev, true);
+        }
+
+        /** The matrix product for terms[from] to terms[to - 1], as {m00, m01, m10, m11} */
+        private static LargeInt[] product(LargeInt[] terms, int from, int to) {
+            if (to - from < TREE_THRESHOLD) {
+                Convergents c = new Convergents();
+                for (int i = from; i < to; i++) c.append(terms[i]);
+                return new LargeInt[]{c.p, c.pPrev, c.q, c.qPrev};
+            }
+
+            int mid = (from + to) >>> 1;
+            return multiply(product(terms, from, mid), product(terms, mid, to));
+        }
+
+        /** Multiply the state on the right by m, given as {m00, m01, m10, m11} */
+        private void multiplyBy(LargeInt[] m) {
+            LargeInt np = p.multiply(m[0]).add(pPrev.multiply(m[2]));
+            LargeInt npPrev = p.multiply(m[1]).add(pPrev.multiply(m[3]));
+            LargeInt nq = q.multiply(m[0]).add(qPrev.multiply(m[2]));
+            LargeInt nqPrev = q.multiply(m[1]).add(qPrev.multiply(m[3]));
+            p = np;
+            pPrev = npPrev;
+            q = nq;
+            qPrev = nqPrev;
+        }
+
+        /** 2x2 matrix product a*b, each as {m00, m01, m10, m11} */
+        private static LargeInt[] multiply(LargeInt[] a, LargeInt[] b) {
+            return new LargeInt[]{
+                    a[0].multiply(b[0]).add(a[1].multiply(b[2])),
+                    a[0].multiply(b[1]).add(a[1].multiply(b[3])),
+                    a[2].multiply(b[0]).add(a[3].multiply(b[2])),
+                    a[2].multiply(b[1]).add(a[3].multiply(b[3]))
+            };
+        }
+    }
+
+    /** Denominator split as 2^twos * 5^fives * rest */
+    private static final class DenominatorFactors {
+        private static final LargeInt FIVE = LargeInt.fromInt(5);
+
+        final int twos;
+        final int fives;
+        final LargeInt rest;
+
+        DenominatorFactors(LargeInt den) {
+            twos = den.getLowestSetBit();
+            LargeInt d = den.shiftRight(twos);
+
+            int count = 0;
+            for (; ; ) {
+                LargeInt[] qr = d.divideAndRemainder(FIVE);
+                if (!qr[1].isZero()) break;
+                d = qr[0];
+                count++;
+            }
+            fives = count;
+            rest = d;
+        }
     }
 
     /** Returns true if BOTH numerator and denominator are greater than 'mag' */
     public boolean overMagnitude(LargeInt mag) {
-        return (_num.compareTo(mag) < 1) && (_den.compareTo(mag) < 1);
+        return (num().compareTo(mag) < 1) && (den().compareTo(mag) < 1);
     }
 
     /** Return the numerator of this fraction. 'n' from n/d. */
     public LargeInt getNumerator() {
-        return _num;
+        return num();
     }
 
     /** Return the denominator of this fraction. 'd' from n/d. */
     public LargeInt getDenominator() {
-        return _den;
+        return den();
     }
 
     /** floor(n / d) / (n % d);
      * Return a new fraction, whose numerator is the integer quotient
      * of the fraction, and whose denominator is the remainder. */
     public LargeInt[] divMod() {
-        LargeInt[] bits = _num.divideAndRemainder(_den);
+        LargeInt[] bits = num().divideAndRemainder(den());
         if (bits.length < 2) return new LargeInt[]{LargeInt.ZERO, LargeInt.ZERO};
         return bits;
     }
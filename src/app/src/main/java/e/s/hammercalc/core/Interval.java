@@ -0,0 +1,524 @@
+package e.s.hammercalc.core;
+
+/**
+ * A closed range of real numbers [lower, upper] that is certain to contain the true result of a calculation.
+ * <p>
+ * Endpoints are Decimals rounded to `Decimal.Config.precision` significant digits, the lower end towards
+ * -Infinity with `ROUND_FLOOR` and the upper end towards +Infinity with `ROUND_CEIL`. Arithmetic and integer
+ * powers round each step outward, so their bounds are exact. Other functions are evaluated with guard digits,
+ * widened by a hundred units in the last guard digit to cover the error of the Decimal functions, then
+ * rounded outward.</p>
+ * <p>
+ * Use `adaptive` to repeat a calculation at increasing precision until the result is narrow enough.</p>
+ */
+public class Interval {
+    /** Extra digits used when evaluating functions other than arithmetic */
+    private static final int GUARD_DIGITS = 10;
+
+    /** Function results are widened by 10^ERROR_DIGITS units in their last guard digit */
+    private static final int ERROR_DIGITS = 2;
+
+    private final Decimal lower;
+    private final Decimal upper;
+
+    private Interval(Decimal lower, Decimal upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /** Return the interval holding only the exact value of `x` */
+    public static Interval of(Decimal x) {
+        if (x.isNaN()) return intervalNaN();
+        return new Interval(x, x);
+    }
+
+    /** Return the interval holding only the exact value of the decimal string `str` */
+    public static Interval of(String str) {
+        return of(new Decimal(str));
+    }
+
+    /** Return the interval holding only `i` */
+    public static Interval of(long i) {
+        return of(new Decimal(Long.toString(i)));
+    }
+
+    /** Return the interval [a, b]. This is NaN if a > b, or either end is NaN */
+    public static Interval between(Decimal a, Decimal b) {
+        if (a.isNaN() || b.isNaN() || a.gt(b)) return intervalNaN();
+        return new Interval(a, b);
+    }
+
+    /** Return an interval that contains nothing, the result of a calculation outside its domain */
+    public static Interval intervalNaN() {
+        return new Interval(Decimal.decimalNaN(), Decimal.decimalNaN());
+    }
+
+    /** Return the interval of all numbers, [-Infinity, Infinity] */
+    public static Interval entire() {
+        return new Interval(Decimal.signedInfinity(-1), Decimal.signedInfinity(1));
+    }
+
+    /** Lower bound */
+    public Decimal lower() {
+        return lower;
+    }
+
+    /** Upper bound */
+    public Decimal upper() {
+        return upper;
+    }
+
+    /** True if this interval contains nothing */
+    public boolean isNaN() {
+        return lower.isNaN();
+    }
+
+    /** True if `x` lies within this interval, including the ends */
+    public boolean contains(Decimal x) {
+        return !isNaN() && !x.isNaN() && !x.lt(lower) && !x.gt(upper);
+    }
+
+    /** Return upper - lower, rounded up */
+    public Decimal width() {
+        if (isNaN()) return Decimal.decimalNaN();
+        Decimal.Rounding rm = Decimal.Config.rounding;
+        try {
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_CEIL;
+            return upper.minus(lower);
+        } finally {
+            Decimal.Config.rounding = rm;
+        }
+    }
+
+    /** Return the value halfway between the ends, rounded to nearest */
+    public Decimal midpoint() {
+        if (isNaN()) return Decimal.decimalNaN();
+        return lower.plus(upper).times(0.5);
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public String toString() {
+        if (isNaN()) return "NaN";
+        return "[" + lower + ", " + upper + "]";
+    }
+
+    //region Arithmetic
+
+    /** Return this + y */
+    public Interval plus(Interval y) {
+        if (isNaN() || y.isNaN()) return intervalNaN();
+        Decimal.Rounding rm = Decimal.Config.rounding;
+        try {
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_FLOOR;
+            Decimal a = lower.plus(y.lower);
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_CEIL;
+            Decimal b = upper.plus(y.upper);
+            return between(a, b);
+        } finally {
+            Decimal.Config.rounding = rm;
+        }
+    }
+
+    /** Return this - y */
+    public Interval minus(Interval y) {
+        if (isNaN() || y.isNaN()) return intervalNaN();
+        Decimal.Rounding rm = Decimal.Config.rounding;
+        try {
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_FLOOR;
+            Decimal a = lower.minus(y.upper);
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_CEIL;
+            Decimal b = upper.minus(y.lower);
+            return between(a, b);
+        } finally {
+            Decimal.Config.rounding = rm;
+        }
+    }
+
+    /** Return this * y */
+    public Interval times(Interval y) {
+        if (isNaN() || y.isNaN()) return intervalNaN();
+        Decimal.Rounding rm = Decimal.Config.rounding;
+        try {
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_FLOOR;
+            Decimal a = min(min(product(lower, y.lower), product(lower, y.upper)),
+                    min(product(upper, y.lower), product(upper, y.upper)));
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_CEIL;
+            Decimal b = max(max(product(lower, y.lower), product(lower, y.upper)),
+                    max(product(upper, y.lower), product(upper, y.upper)));
+            return between(a, b);
+        } finally {
+            Decimal.Config.rounding = rm;
+        }
+    }
+
+    /**
+     * Return this / y.
+     * If `y` contains zero the result is the entire number line, or NaN if `y` is exactly zero.
+     */
+    public Interval div(Interval y) {
+        if (isNaN() || y.isNaN()) return intervalNaN();
+        if (y.lower.isZero() && y.upper.isZero()) return intervalNaN();
+        if (y.contains(new Decimal(0))) return entire();
+
+        Decimal.Rounding rm = Decimal.Config.rounding;
+        try {
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_FLOOR;
+            Decimal a = min(min(lower.div(y.lower), lower.div(y.upper)), min(upper.div(y.lower), upper.div(y.upper)));
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_CEIL;
+            Decimal b = max(max(lower.div(y.lower), lower.div(y.upper)), max(upper.div(y.lower), upper.div(y.upper)));
+            return between(a, b);
+        } finally {
+            Decimal.Config.rounding = rm;
+        }
+    }
+
+    /** Return -this */
+    public Interval negated() {
+        if (isNaN()) return this;
+        return new Interval(upper.negated(), lower.negated());
+    }
+
+    /** Return the interval of absolute values */
+    public Interval abs() {
+        if (isNaN()) return this;
+        if (lower.signum() >= 0) return this;
+        if (upper.signum() <= 0) return negated();
+        return new Interval(new Decimal(0), max(lower.negated(), upper));
+    }
+
+    /** Return this ** n, rounding each multiplication outward */
+    public Interval pow(int n) {
+        if (isNaN()) return this;
+        if (n == 0) return of(1);
+        // -Integer.MIN_VALUE overflows back to itself, so take one factor out before negating
+        if (n == Integer.MIN_VALUE) return of(1).div(pow(Integer.MAX_VALUE).times(this));
+        if (n < 0) return of(1).div(pow(-n));
+
+        if (n % 2 == 1 || lower.signum() >= 0) {
+            return between(signedPower(lower, n, -1), signedPower(upper, n, 1));
+        }
+        if (upper.signum() <= 0) {
+            return between(signedPower(upper, n, -1), signedPower(lower, n, 1));
+        }
+        return between(new Decimal(0), max(signedPower(lower, n, 1), signedPower(upper, n, 1)));
+    }
+
+    /**
+     * Return this ** y.
+     * Negative values can only be raised to a single integer power; otherwise the result is NaN.
+     */
+    public Interval pow(Interval y) {
+        if (isNaN() || y.isNaN()) return intervalNaN();
+
+        // A single integer power can use exact multiplication, and allows negative values
+        Decimal n = y.lower;
+        if (n.eq(y.upper) && n.isFinite() && n.eq(n.ceil()) && Math.abs(n.toDouble()) <= Integer.MAX_VALUE) {
+            return pow((int) n.toDouble());
+        }
+
+        if (lower.signum() > 0) return y.times(ln()).exp();
+        if (lower.isZero() && y.lower.signum() > 0) {
+            if (upper.isZero()) return of(0);
+            return between(new Decimal(0), of(upper).pow(y).upper);
+        }
+        return intervalNaN();
+    }
+
+    //endregion
+
+    //region Roots and transcendental functions
+
+    /** Return the interval of square roots. NaN if any value is negative */
+    public Interval sqrt() {
+        return increasing(FN_ROOT, 2);
+    }
+
+    /** Return the interval of cube roots */
+    public Interval cbrt() {
+        return increasing(FN_ROOT, 3);
+    }
+
+    /** Return the interval of `n`th roots. NaN if `n` is even and any value is negative */
+    public Interval root(int n) {
+        return increasing(FN_ROOT, n);
+    }
+
+    /** Return the interval of e ** x */
+    public Interval exp() {
+        return increasing(FN_EXP, 0);
+    }
+
+    /** Return the interval of natural logarithms. NaN if any value is negative */
+    public Interval ln() {
+        return increasing(FN_LN, 0);
+    }
+
+    /** Return the interval of sines, with the argument in radians */
+    public Interval sin() {
+        return sinOrCos(FN_SIN, 0.5);
+    }
+
+    /** Return the interval of cosines, with the argument in radians */
+    public Interval cos() {
+        return sinOrCos(FN_COS, 0);
+    }
+
+    /** Return the interval of tangents, with the argument in radians. This is the entire number line if there is a pole */
+    public Interval tan() {
+        if (isNaN()) return this;
+        if (!lower.isFinite() || !upper.isFinite()) return entire();
+        if (piMultiples(0.5) != 0) return entire();
+        return increasing(FN_TAN, 0);
+    }
+
+    /** Return the interval of arc sines. NaN if any value is outside -1..1 */
+    public Interval asin() {
+        return increasing(FN_ASIN, 0);
+    }
+
+    /** Return the interval of arc cosines. NaN if any value is outside -1..1 */
+    public Interval acos() {
+        if (isNaN()) return this;
+        return between(bound(FN_ACOS, upper, 0, -1), bound(FN_ACOS, lower, 0, 1));
+    }
+
+    /** Return the interval of arc tangents */
+    public Interval atan() {
+        return increasing(FN_ATAN, 0);
+    }
+
+    /** Return the interval of hyperbolic sines */
+    public Interval sinh() {
+        return increasing(FN_SINH, 0);
+    }
+
+    /** Return the interval of hyperbolic cosines */
+    public Interval cosh() {
+        if (isNaN()) return this;
+        if (lower.signum() >= 0) return increasing(FN_COSH, 0);
+        if (upper.signum() <= 0) return between(bound(FN_COSH, upper, 0, -1), bound(FN_COSH, lower, 0, 1));
+        return between(new Decimal(1), max(bound(FN_COSH, lower, 0, 1), bound(FN_COSH, upper, 0, 1)));
+    }
+
+    /** Return the interval of hyperbolic tangents */
+    public Interval tanh() {
+        return increasing(FN_TANH, 0);
+    }
+
+    /** Return the interval of inverse hyperbolic sines */
+    public Interval asinh() {
+        return increasing(FN_ASINH, 0);
+    }
+
+    /** Return the interval of inverse hyperbolic cosines. NaN if any value is less than 1 */
+    public Interval acosh() {
+        return increasing(FN_ACOSH, 0);
+    }
+
+    /** Return the interval of inverse hyperbolic tangents. NaN if any value is outside -1..1 */
+    public Interval atanh() {
+        return increasing(FN_ATANH, 0);
+    }
+
+    //endregion
+
+    //region Adaptive precision
+
+    /** A calculation that can be repeated at any precision, for `adaptive` */
+    public interface Calculation {
+        /** Run the calculation at the current `Decimal.Config.precision` */
+        Interval evaluate();
+    }
+
+    /**
+     * Run `calculation` at `Decimal.Config.precision`, then at doubled precision until the result
+     * is no wider than `maxWidth` or `maxPrecision` is reached. Returns the last result, which is
+     * wider than asked if `maxPrecision` was not enough. `Decimal.Config.precision` is restored afterwards.
+     */
+    public static Interval adaptive(Calculation calculation, Decimal maxWidth, int maxPrecision) {
+        int pr = Decimal.Config.precision;
+        try {
+            int precision = pr;
+            while (true) {
+                Decimal.Config.precision = precision;
+                Interval result = calculation.evaluate();
+                if (result.isNaN() || !result.width().gt(maxWidth) || precision >= maxPrecision) return result;
+                precision = (int) Math.min(maxPrecision, precision * 2L);
+            }
+        } finally {
+            Decimal.Config.precision = pr;
+        }
+    }
+
+    //endregion
+
+    private static final int FN_ROOT = 0;
+    private static final int FN_EXP = 1;
+    private static final int FN_LN = 2;
+    private static final int FN_SIN = 3;
+    private static final int FN_COS = 4;
+    private static final int FN_TAN = 5;
+    private static final int FN_ASIN = 6;
+    private static final int FN_ACOS = 7;
+    private static final int FN_ATAN = 8;
+    private static final int FN_SINH = 9;
+    private static final int FN_COSH = 10;
+    private static final int FN_TANH = 11;
+    private static final int FN_ASINH = 12;
+    private static final int FN_ACOSH = 13;
+    private static final int FN_ATANH = 14;
+
+    private static Decimal evaluate(int fn, Decimal x, int n) {
+        switch (fn) {
+            case FN_ROOT: return x.root(n);
+            case FN_EXP: return x.exp();
+            case FN_LN: return x.ln();
+            case FN_SIN: return x.sin();
+            case FN_COS: return x.cos();
+            case FN_TAN: return x.tan();
+            case FN_ASIN: return x.asin();
+            case FN_ACOS: return x.acos();
+            case FN_ATAN: return x.atan();
+            case FN_SINH: return x.sinh();
+            case FN_COSH: return x.cosh();
+            case FN_TANH: return x.tanh();
+            case FN_ASINH: return x.asinh();
+            case FN_ACOSH: return x.acosh();
+            default: return x.atanh();
+        }
+    }
+
+    /** Apply a function that increases with its argument to both ends */
+    private Interval increasing(int fn, int n) {
+        if (isNaN()) return this;
+        return between(bound(fn, lower, n, -1), bound(fn, upper, n, 1));
+    }
+
+    /**
+     * Return a lower bound of f(x) if `direction` is negative, otherwise an upper bound.
+     * The function is evaluated with guard digits, moved outward by its allowed error,
+     * then rounded outward to the working precision.
+     */
+    private static Decimal bound(int fn, Decimal x, int n, int direction) {
+        int pr = Decimal.Config.precision;
+        Decimal.Rounding rm = Decimal.Config.rounding;
+        try {
+            Decimal.Config.precision = pr + GUARD_DIGITS;
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_HALF_EVEN;
+            Decimal y = evaluate(fn, x, n);
+
+            // e^x underflows to zero for large negative x, but is still positive
+            if (y.isZero() && fn == FN_EXP) return direction < 0 ? y : new Decimal("1e" + (long) Decimal.Config.minE);
+
+            // Otherwise zero only comes from exact cases such as sin(0) or ln(1)
+            if (!y.isFinite() || y.isZero()) return y;
+
+            long errorExponent = (long) y.exponentValue() - (pr + GUARD_DIGITS) + 1 + ERROR_DIGITS;
+            Decimal error = new Decimal("1e" + errorExponent);
+
+            Decimal.Config.precision = pr;
+            if (direction < 0) {
+                Decimal.Config.rounding = Decimal.Rounding.ROUND_FLOOR;
+                return y.minus(error);
+            }
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_CEIL;
+            return y.plus(error);
+        } finally {
+            Decimal.Config.precision = pr;
+            Decimal.Config.rounding = rm;
+        }
+    }
+
+    /**
+     * Sine has its peaks at π(j + 1/2) and cosine at πj: +1 for even j and -1 for odd j.
+     * Between peaks, the function moves monotonically between its end values.
+     */
+    private Interval sinOrCos(int fn, double offset) {
+        if (isNaN()) return this;
+        if (!lower.isFinite() || !upper.isFinite()) return between(new Decimal(-1), new Decimal(1));
+
+        int peaks = piMultiples(offset);
+        Decimal a = (peaks & 2) != 0 ? new Decimal(-1) : min(bound(fn, lower, 0, -1), bound(fn, upper, 0, -1));
+        Decimal b = (peaks & 1) != 0 ? new Decimal(1) : max(bound(fn, lower, 0, 1), bound(fn, upper, 0, 1));
+
+        // Bounds widened past the range of the function
+        return between(max(a, new Decimal(-1)), min(b, new Decimal(1)));
+    }
+
+    /**
+     * Find which points π(j + offset), for integers j, may lie in this finite interval.
+     * Bit 1 is set for an even j and bit 2 for an odd j. Near the ends, a bit is set if in doubt.
+     */
+    private int piMultiples(double offset) {
+        // Wider than 2π must contain both
+        if (upper.minus(lower).gt(new Decimal("6.2"))) return 3;
+
+        int pr = Decimal.Config.precision;
+        Decimal.Rounding rm = Decimal.Config.rounding;
+        try {
+            // Enough digits to hold j exactly, with guard digits to spare
+            long magnitude = Math.max(0, (long) Math.max(lower.exponentValue(), upper.exponentValue()));
+            Decimal.Config.precision = (int) (pr + GUARD_DIGITS + magnitude);
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_HALF_EVEN;
+
+            Decimal pi = new Decimal(-1).acos();
+            Decimal slack = new Decimal("1e" + (magnitude - pr - GUARD_DIGITS + 1 + ERROR_DIGITS));
+
+            // Any point in the interval has j within a step of `first`
+            Decimal first = lower.div(pi).minus(offset).ceil();
+            int found = 0;
+            for (int k = -1; k <= 2; k++) {
+                Decimal j = first.plus(k);
+                Decimal point = pi.times(j.plus(offset));
+                if (point.plus(slack).lt(lower) || point.minus(slack).gt(upper)) continue;
+
+                Decimal half = j.times(0.5);
+                found |= half.eq(half.ceil()) ? 1 : 2;
+            }
+            return found;
+        } finally {
+            Decimal.Config.precision = pr;
+            Decimal.Config.rounding = rm;
+        }
+    }
+
+    /** Return x ** n for n >= 1, rounded down if `direction` is negative, otherwise up */
+    private static Decimal signedPower(Decimal x, int n, int direction) {
+        if (x.signum() >= 0) return magnitudePower(x, n, direction);
+        if (n % 2 == 0) return magnitudePower(x.negated(), n, direction);
+        return magnitudePower(x.negated(), n, -direction).negated();
+    }
+
+    /** Non-negative x ** n by repeated squaring. Every step rounds the same way, so the result stays a bound */
+    private static Decimal magnitudePower(Decimal x, int n, int direction) {
+        Decimal.Rounding rm = Decimal.Config.rounding;
+        try {
+            Decimal.Config.rounding = direction < 0 ? Decimal.Rounding.ROUND_FLOOR : Decimal.Rounding.ROUND_CEIL;
+            Decimal result = null;
+            Decimal square = x;
+            while (true) {
+                if ((n & 1) != 0) result = result == null ? square : result.times(square);
+                n >>>= 1;
+                if (n == 0) return result;
+                square = square.times(square);
+            }
+        } finally {
+            Decimal.Config.rounding = rm;
+        }
+    }
+
+    /** Product where zero times infinity is zero, as a bound on a range containing zero */
+    private static Decimal product(Decimal a, Decimal b) {
+        if (a.isZero() || b.isZero()) return new Decimal(0);
+        return a.times(b);
+    }
+
+    private static Decimal min(Decimal a, Decimal b) {
+        return b.lt(a) ? b : a;
+    }
+
+    private static Decimal max(Decimal a, Decimal b) {
+        return b.gt(a) ? b : a;
+    }
+}
@@ -467,6 +467,126 @@ public class LargeInt {
         return _nBitLength;
     }
 
+    /** floor(sqrt(this)), for a non-negative value, by Newton's method from above */
+    public LargeInt sqrt() {
+        if (isNaN() || _sign < 0) throw new ArithmeticException("Square root of a negative number");
+        if (_sign == 0) return ZERO;
+
+        LargeInt x = ONE.shiftLeft((bitLength() + 1) / 2);
+        while (true) {
+            LargeInt y = x.add(divide(x)).shiftRight(1);
+            if (y.compareTo(x) >= 0) return x;
+            x = y;
+        }
+    }
+
+    /** floor(log2(this)), for a positive value. This is free, from the bit length */
+    public int floorLog2() {
+        if (isNaN() || _sign <= 0) throw new ArithmeticException("Logarithm of a non-positive number");
+        return bitLength() - 1;
+    }
+
+    /** floor(log10(this)), for a positive value: one less than the number of decimal digits.
+     * The bit length pins this to one of two values, and a comparison with a power of ten
+     * from the cached table picks between them, so no digits are generated */
+    public int floorLog10() {
+        if (isNaN() || _sign <= 0) throw new ArithmeticException("Logarithm of a non-positive number");
+        int bits = bitLength();
+        if (bits < 63) {
+            long v = longValue();
+            int k = (int) ((bits - 1) * LOG10_2);
+            return (k + 1 < LONG_TEN_POWERS.length && v >= LONG_TEN_POWERS[k + 1]) ? k + 1 : k;
+        }
+
+        // 2^(bits-1) <= this < 2^bits, so log10 is in [(bits-1) log10(2), bits log10(2))
+        int k = (int) ((bits - 1) * LOG10_2);
+        return (compareTo(powerOfTen(k + 1)) >= 0) ? k + 1 : k;
+    }
+
+    /**
+     * floor(log_base(this)), for a positive value and base > 1.
+     * <p>
+     * This is the Zeckendorf logarithm (see notes/ZeckendorfLogarithm.h): the powers
+     * base^F(k) for Fibonacci numbers F(k) form a generalised Fibonacci sequence, each the
+     * product of the two before. Stepping a pair of them up until they pass this value, then
+     * back down while dividing out every one that still fits, finds the exponent as a sum of
+     * Fibonacci numbers. Exponents are tracked by addition only, and it takes O(log log n)
+     * multiplications and divisions. A base of 2 uses the bit length instead.</p>
+     */
+    public int log(LargeInt base) {
+        if (isNaN() || _sign <= 0) throw new ArithmeticException("Logarithm of a non-positive number");
+        if (base.isNaN() || base.compareTo(TWO) < 0) throw new ArithmeticException("Logarithm base must be greater than one");
+        if (base.equals(TWO)) return floorLog2();
+        if (base.equals(TEN)) return floorLog10();
+
+        // (base^F(k), base^F(k+1)) and (F(k), F(k+1)), from k = 0
+        LargeInt lowPower = ONE;
+        LargeInt highPower = base;
+        int low = 0;
+        int high = 1;
+
+        // Step forward until the upper power is strictly above n, so the exponent is below F(k+1)
+        while (highPower.compareTo(this) <= 0) {
+            LargeInt next = lowPower.multiply(highPower);
+            lowPower = highPower;
+            highPower = next;
+            int nextExponent = low + high;
+            low = high;
+            high = nextExponent;
+        }
+
+        // Divide out the Zeckendorf terms of the exponent, largest first
+        LargeInt n = this;
+        int result = 0;
+        while (low != 0) {
+            if (lowPower.compareTo(n) <= 0) {
+                n = n.divide(lowPower);
+                result += low;
+            }
+
+            LargeInt previous = highPower.divide(lowPower);
+            highPower = lowPower;
+            lowPower = previous;
+            int previousExponent = high - low;
+            high = low;
+            low = previousExponent;
+        }
+        return result;
+    }
+
+    /** 10^k for k >= 0, from squares of ten that are kept once calculated */
+    static LargeInt powerOfTen(int k) {
+        if (k < LONG_TEN_POWERS.length) return fromLong(LONG_TEN_POWERS[k]);
+
+        LargeInt[] squares = tenSquares(32 - Integer.numberOfLeadingZeros(k));
+        LargeInt result = ONE;
+        for (int i = 0; k != 0; i++, k >>>= 1) {
+            if ((k & 1) != 0) result = (result == ONE) ? squares[i] : result.multiply(squares[i]);
+        }
+        return result;
+    }
+
+    /** Return at least `count` entries of 10^(2^i) */
+    private static synchronized LargeInt[] tenSquares(int count) {
+        if (tenSquares.length < count) {
+            LargeInt[] grown = Arrays.copyOf(tenSquares, count);
+            for (int i = tenSquares.length; i < count; i++) grown[i] = grown[i - 1].multiply(grown[i - 1]);
+            tenSquares = grown;
+        }
+        return tenSquares;
+    }
+
+    private static final double LOG10_2 = 0.30102999566398119521;
+
+    private static final long[] LONG_TEN_POWERS = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+            1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+    };
+
+    /** 10^(2^i), grown as needed */
+    private static LargeInt[] tenSquares = {TEN};
+
     /**
      * unsigned comparison on two arrays - note the arrays may
      * start with leading zeros.
@@ -508,86 +628,103 @@ public class LargeInt {
      * remainder)
      */
     private int[] divide(int[] x, int[] y) {
-        int xyCmp = compareTo(0, x, 0, y);
-        int[] count;
-
-        if (xyCmp > 0) {
-            int[] c;
-            int shift = bitLength(0, x) - bitLength(0, y);
-
-            if (shift > 1) {
-                c = shiftLeft(y, shift - 1);
-                count = shiftLeft(ONE._magnitude, shift - 1);
-                if (shift % 32 == 0) {
-                    // Special case where the shift is the size of an int.
-                    int[] countSpecial = new int[shift / 32 + 1];
-                    System.arraycopy(count, 0, countSpecial, 1, countSpecial.length - 1);
-                    countSpecial[0] = 0;
-                    count = countSpecial;
-                }
-            } else {
-                c = new int[x.length];
-                count = new int[1];
-
-                System.arraycopy(y, 0, c, c.length - y.length, y.length);
-                count[0] = 1;
-            }
-
-            int[] iCount = new int[count.length];
-
-            subtract(0, x, 0, c);
-            System.arraycopy(count, 0, iCount, 0, count.length);
+        if (y.length == 1) return divideByWord(x, y[0] & IntMask);
+        return divideByWords(x, y);
+    }
 
-            int xStart = 0;
-            int cStart = 0;
-            int iCountStart = 0;
+    /**
+     * Short division by a single word, one word of x at a time. Same contract as divide(x, y):
+     * returns the quotient, and leaves the remainder in x. The bit-at-a-time loop above costs
+     * a pass over x for every bit of the quotient, so this matters for gcd and digit output.
+     */
+    private static int[] divideByWord(int[] x, long d) {
+        int[] q = new int[x.length];
+        long r = 0;
+        for (int i = 0; i < x.length; i++) {
+            long cur = (r << 32) | (x[i] & IntMask);
+            q[i] = (int) Long.divideUnsigned(cur, d);
+            r = Long.remainderUnsigned(cur, d);
+        }
+        Arrays.fill(x, 0);
+        if (x.length > 0) x[x.length - 1] = (int) r;
+        return q;
+    }
 
-            for (;;) {
-                int cmp = compareTo(xStart, x, cStart, c);
+    /**
+     * Long division by a divisor of two or more words, Knuth's Algorithm D (TAOCP 4.3.1).
+     * Same contract as divide(x, y). Each quotient word is estimated from the top two words
+     * of the remainder and the top word of the divisor, corrected at most twice, and then
+     * multiplied out and subtracted in one pass.
+     */
+    private int[] divideByWords(int[] x, int[] y) {
+        int xs = 0;
+        while (xs < x.length && x[xs] == 0) xs++;
+        int xLen = x.length - xs;
+        int n = y.length;
+        if (xLen < n || compareTo(xs, x, 0, y) < 0) return new int[1]; // x is already the remainder
+
+        // Work in little-endian, with the divisor shifted so its top bit is set
+        int shift = Integer.numberOfLeadingZeros(y[0]);
+        int[] v = new int[n];
+        int[] u = new int[xLen + 1];
+        for (int i = 0; i < n; i++) v[i] = y[n - 1 - i];
+        for (int i = 0; i < xLen; i++) u[i] = x[x.length - 1 - i];
+        if (shift > 0) {
+            for (int i = n - 1; i > 0; i--) v[i] = (v[i] << shift) | (v[i - 1] >>> (32 - shift));
+            v[0] <<= shift;
+            u[xLen] = u[xLen - 1] >>> (32 - shift);
+            for (int i = xLen - 1; i > 0; i--) u[i] = (u[i] << shift) | (u[i - 1] >>> (32 - shift));
+            u[0] <<= shift;
+        }
+
+        int m = xLen - n;
+        int[] q = new int[m + 1];
+        long vTop = v[n - 1] & IntMask;
+        long vNext = v[n - 2] & IntMask;
+
+        for (int j = m; j >= 0; j--) {
+            long top = ((u[j + n] & IntMask) << 32) | (u[j + n - 1] & IntMask);
+            long qHat = Long.divideUnsigned(top, vTop);
+            long rHat = Long.remainderUnsigned(top, vTop);
+            while (qHat > IntMask || Long.compareUnsigned(qHat * vNext, (rHat << 32) | (u[j + n - 2] & IntMask)) > 0) {
+                qHat--;
+                rHat += vTop;
+                if (rHat > IntMask) break;
+            }
 
-                while (cmp >= 0) {
-                    subtract(xStart, x, cStart, c);
-                    add(count, iCount);
-                    cmp = compareTo(xStart, x, cStart, c);
+            // u[j..j+n] -= qHat * v
+            long borrow = 0;
+            long t;
+            for (int i = 0; i < n; i++) {
+                long p = qHat * (v[i] & IntMask);
+                t = (u[i + j] & IntMask) - borrow - (p & IntMask);
+                u[i + j] = (int) t;
+                borrow = (p >>> 32) - (t >> 32);
+            }
+            t = (u[j + n] & IntMask) - borrow;
+            u[j + n] = (int) t;
+
+            if (t < 0) {
+                // The estimate was one too large: add the divisor back
+                qHat--;
+                long carry = 0;
+                for (int i = 0; i < n; i++) {
+                    t = (u[i + j] & IntMask) + (v[i] & IntMask) + carry;
+                    u[i + j] = (int) t;
+                    carry = t >>> 32;
                 }
-
-                xyCmp = compareTo(xStart, x, 0, y);
-
-                if (xyCmp > 0) {
-                    if (x[xStart] == 0) xStart++;
-
-                    shift = bitLength(cStart, c) - bitLength(xStart, x);
-
-                    if (shift == 0) {
-                        shiftRightOne(cStart, c);
-                        shiftRightOne(iCountStart, iCount);
-                    } else {
-                        shiftRight(cStart, c, shift);
-                        shiftRight(iCountStart, iCount, shift);
-                    }
-
-                    if (c[cStart] == 0) cStart++;
-                    if (iCount[iCountStart] == 0) iCountStart++;
-
-                } else if (xyCmp == 0) {
-                    add(count, ONE._magnitude);
-                    for (int i = xStart; i != x.length; i++) {
-                        x[i] = 0;
-                    }
-
-                    break;
-                } else break;
+                u[j + n] += (int) carry;
             }
-        } else if (xyCmp == 0) {
-            count = new int[1];
-            count[0] = 1;
-            zero(x); // no remainder if dividing by self
-        } else {
-            count = new int[1];
-            // remainder is entire value if dividing by a larger number
+            q[m - j] = (int) qHat;
         }
 
-        return count;
+        // Unshift the remainder back into x
+        Arrays.fill(x, 0);
+        for (int i = 0; i < n; i++) {
+            int r = shift > 0 ? (u[i] >>> shift) | (u[i + 1] << (32 - shift)) : u[i];
+            x[x.length - 1 - i] = r;
+        }
+        return q;
     }
 
     /** Divide returning quotient and discarding remainder. If dividing by zero, a value of LARGE_NAN is returned */
@@ -683,6 +820,25 @@ public class LargeInt {
         LargeInt r;
         LargeInt u = this.abs();
         LargeInt v = val.abs();
+        if (u.compareTo(v) < 0) {
+            r = u;
+            u = v;
+            v = r;
+        }
+
+        // Lehmer's method (TAOCP 4.5.2, Algorithm L), several Euclid steps at a time
+        LargeInt[] pair = new LargeInt[2];
+        while (v._magnitude.length > 2) {
+            if (lehmerQuotients(u, v, null, pair) == 0) {
+                // Leading bits were no help, so take one full step
+                r = u.mod(v);
+                u = v;
+                v = r;
+            } else {
+                u = pair[0];
+                v = pair[1];
+            }
+        }
 
         while (v._sign != 0) {
             r = u.mod(v);
@@ -693,6 +849,90 @@ public class LargeInt {
         return u;
     }
 
+    /** Cofactor bound in the Lehmer gcd, so a*x + b*y of words fits in a long */
+    private static final long LEHMER_LIMIT = 1L << 30;
+
+    /** Most quotients one call to lehmerQuotients can find. The cofactors grow at least
+     * as fast as the Fibonacci numbers, and stop below LEHMER_LIMIT */
+    static final int LEHMER_MAX_QUOTIENTS = 48;
+
+    /** Lehmer's inner loop, for u >= v > 0 where v is more than two words long:
+     * run Euclid on the leading 62 bits in longs for as long as the quotients are certain
+     * to match the full values, then apply all of those steps to u and v in one pass.
+     * The quotients are the continued fraction terms of u/v, and are written to `quotients`
+     * if it is not null (it needs room for LEHMER_MAX_QUOTIENTS). The reduced pair goes in `next`.
+     * Returns the number of steps taken, which is 0 if the leading bits were no help */
+    static int lehmerQuotients(LargeInt u, LargeInt v, long[] quotients, LargeInt[] next) {
+        int shift = u.bitLength() - 62;
+        long uHat = u.bitsFrom(shift);
+        long vHat = v.bitsFrom(shift);
+        long a = 1, b = 0, c = 0, d = 1;
+        int count = 0;
+
+        while (vHat + c > 0 && vHat + d > 0) {
+            long q = (uHat + a) / (vHat + c);
+            if (q != (uHat + b) / (vHat + d)) break;
+
+            // Keep the cofactors small enough for the single pass below
+            long nc = a - q * c;
+            long nd = b - q * d;
+            if (Math.abs(nc) >= LEHMER_LIMIT || Math.abs(nd) >= LEHMER_LIMIT || q >= LEHMER_LIMIT) break;
+
+            if (quotients != null) quotients[count] = q;
+            count++;
+            a = c;
+            c = nc;
+            b = d;
+            d = nd;
+            long t = uHat - q * vHat;
+            uHat = vHat;
+            vHat = t;
+        }
+        if (count == 0) return 0;
+
+        int[] nu = new int[u._magnitude.length];
+        int[] nv = new int[u._magnitude.length];
+        linearCombination(u._magnitude, v._magnitude, a, b, c, d, nu, nv);
+        next[0] = new LargeInt(1, nu);
+        next[1] = new LargeInt(1, nv);
+        return count;
+    }
+
+    /** nu = a*u + b*v and nv = c*u + d*v, for results known to be non-negative and no longer than u */
+    private static void linearCombination(int[] u, int[] v, long a, long b, long c, long d, int[] nu, int[] nv) {
+        long carryU = 0;
+        long carryV = 0;
+        int vi = v.length - 1;
+        for (int i = u.length - 1; i >= 0; i--, vi--) {
+            long uw = u[i] & IntMask;
+            long vw = vi >= 0 ? v[vi] & IntMask : 0;
+            long x = a * uw + b * vw + carryU;
+            long y = c * uw + d * vw + carryV;
+            nu[i] = (int) x;
+            nv[i] = (int) y;
+            carryU = x >> 32;
+            carryV = y >> 32;
+        }
+    }
+
+    /** Return (this >> shift) as a long, for a non-negative value where that fits in 63 bits */
+    private long bitsFrom(int shift) {
+        if (shift <= 0) return longValue() << -shift;
+        int wordShift = shift >>> 5;
+        int bitShift = shift & 31;
+        long lo = wordFromEnd(wordShift);
+        long mid = wordFromEnd(wordShift + 1);
+        if (bitShift == 0) return lo | (mid << 32);
+        long hi = wordFromEnd(wordShift + 2);
+        return (lo >>> bitShift) | (mid << (32 - bitShift)) | (hi << (64 - bitShift));
+    }
+
+    /** Unsigned word i of the magnitude, counting from the least significant, or 0 past the top */
+    private long wordFromEnd(int i) {
+        int index = _magnitude.length - 1 - i;
+        return index >= 0 ? _magnitude[index] & IntMask : 0;
+    }
+
     /** Return this integer truncated to 64 bits */
     public long longValue() {
         long val;
@@ -1116,58 +1356,8 @@ public class LargeInt {
      * return x = x % y - done in place (y value preserved)
      */
     private int[] remainder(int[] x, int[] y) {
-        int xyCmp = compareTo(0, x, 0, y);
-
-        if (xyCmp > 0) {
-            int[] c;
-            int shift = bitLength(0, x) - bitLength(0, y);
-
-            if (shift > 1) {
-                c = shiftLeft(y, shift - 1);
-            } else {
-                c = new int[x.length];
-
-                System.arraycopy(y, 0, c, c.length - y.length, y.length);
-            }
-
-            subtract(0, x, 0, c);
-
-            int xStart = 0;
-            int cStart = 0;
-
-            for (;;) {
-                int cmp = compareTo(xStart, x, cStart, c);
-
-                while (cmp >= 0) {
-                    subtract(xStart, x, cStart, c);
-                    cmp = compareTo(xStart, x, cStart, c);
-                }
-
-                xyCmp = compareTo(xStart, x, 0, y);
-
-                if (xyCmp > 0) {
-                    if (x[xStart] == 0) xStart++;
-
-                    shift = bitLength(cStart, c) - bitLength(xStart, x);
-
-                    if (shift == 0) {
-                        shiftRightOne(cStart, c);
-                    } else {
-                        shiftRight(cStart, c, shift);
-                    }
-
-                    if (c[cStart] == 0) cStart++;
-
-                } else if (xyCmp == 0) {
-                    for (int i = xStart; i != x.length; i++) x[i] = 0;
-                    break;
-                }
-                else break;
-            }
-        } else if (xyCmp == 0) {
-            zero(x);
-        }
-
+        if (y.length == 1) divideByWord(x, y[0] & IntMask);
+        else divideByWords(x, y);
         return x;
     }
 
@@ -1422,15 +1612,15 @@ public class LargeInt {
      * This is useful for parsing into a floating point value. */
     public String toFloatString(int precision){
         if (isNaN()) return "";
-        String full = this.toString();
         int sign = (_sign < 0) ? 1 : 0;
+        int digits = (_sign == 0) ? 1 : abs().floorLog10() + 1;
 
         if (precision < 1) precision = 8;
-        if (full.length() <= precision) return full;
-        precision += sign;
+        if (digits + sign <= precision) return toString();
 
-        int exponent = full.length() - precision;
-        return full.substring(0, precision)+"e"+exponent;
+        // Leading digits by division, rather than writing out the whole number
+        int exponent = digits - precision;
+        return divide(powerOfTen(exponent)).toString()+"e"+exponent;
     }
 
     /** convert to a storage format. Can be exactly recovered with 'fromStorage' */
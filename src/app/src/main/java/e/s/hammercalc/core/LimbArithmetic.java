@@ -0,0 +1,438 @@
+package e.s.hammercalc.core;
+
+import java.util.Arrays;
+
+/**
+ * Unsigned arithmetic on arrays of base 1e7 limbs, the same base as Decimal digits.
+ * <p>
+ * Integers are least significant limb first, with no high zero limbs. Fixed point values are
+ * most significant limb first, with the integer part in the first limb. Used for the constants in
+ * ConstantCache, and by Decimal for radix conversion and division of long operands.</p>
+ * <p>
+ * Nothing here reads or changes `Decimal.Config`, so it is safe to use from any thread.</p>
+ */
+final class LimbArithmetic {
+    private static final int BASE = 10000000;
+
+    /** Below this many limbs in the shorter operand, long multiplication is faster than Karatsuba */
+    private static final int KARATSUBA_LIMBS = 40;
+
+    /** Radix powers above this level are not kept, so the cache stays a fixed size */
+    private static final int MAX_CACHED_LEVEL = 12;
+
+    /** word^(2^level) for each radix, indexed by radix then level. Each radix is locked separately */
+    private static final int[][][] radixPowers = new int[37][][];
+    private static final Object[] radixLocks = new Object[37];
+
+    static {
+        for (int i = 0; i < radixLocks.length; i++) radixLocks[i] = new Object();
+    }
+
+    private LimbArithmetic() { }
+
+    //region Radix words
+
+    /** Largest number of digits of `radix` that always fit in a long */
+    static int radixWordDigits(int radix) {
+        int digits = 0;
+        long word = 1;
+        while (word <= Long.MAX_VALUE / radix) {
+            word *= radix;
+            digits++;
+        }
+        return digits;
+    }
+
+    /** radix^radixWordDigits(radix), the value of one machine word of digits */
+    static long radixWord(int radix) {
+        long word = 1;
+        while (word <= Long.MAX_VALUE / radix) word *= radix;
+        return word;
+    }
+
+    /**
+     * radixWord(radix)^(2^level) as integer limbs, for radix 2 to 36.
+     * The lower levels are cached, so repeated conversions from the same radix only pay for the
+     * multiplications once. The result must not be modified.
+     */
+    static int[] radixWordPower(int radix, int level) {
+        int[] power;
+        int from;
+        synchronized (radixLocks[radix]) {
+            int[][] powers = radixPowers[radix];
+            if (powers == null) {
+                powers = new int[][]{bigFromLong(radixWord(radix))};
+                radixPowers[radix] = powers;
+            }
+            int cached = Math.min(level, MAX_CACHED_LEVEL);
+            if (powers.length <= cached) {
+                int[][] grown = Arrays.copyOf(powers, cached + 1);
+                for (int i = powers.length; i <= cached; i++) grown[i] = bigMultiply(grown[i - 1], grown[i - 1]);
+                radixPowers[radix] = powers = grown;
+            }
+            power = powers[cached];
+            from = cached;
+        }
+
+        // Very large powers are used once per conversion, so are not worth keeping
+        for (; from < level; from++) power = bigMultiply(power, power);
+        return power;
+    }
+
+    /** base^n as integer limbs, least significant first, by repeated squaring */
+    static int[] integerPower(int base, long n) {
+        int[] result = bigFromLong(1);
+        int[] square = bigFromLong(base);
+        for (; ; ) {
+            if ((n & 1) != 0) result = bigMultiply(result, square);
+            n >>= 1;
+            if (n == 0) return result;
+            square = bigMultiply(square, square);
+        }
+    }
+
+    //endregion
+
+    //region Integer limb arithmetic. Least significant limb first, no high zero limbs.
+
+    static int[] bigFromLong(long v) {
+        int[] tmp = new int[3];
+        int len = 0;
+        while (v > 0) {
+            tmp[len++] = (int) (v % BASE);
+            v /= BASE;
+        }
+        return Arrays.copyOf(tmp, len);
+    }
+
+    static int[] bigMultiplySmall(int[] a, long k) {
+        int[] r = new int[a.length + 3];
+        long carry = 0;
+        for (int i = 0; i < a.length; i++) {
+            long t = a[i] * k + carry;
+            r[i] = (int) (t % BASE);
+            carry = t / BASE;
+        }
+        for (int i = a.length; carry > 0; i++) {
+            r[i] = (int) (carry % BASE);
+            carry /= BASE;
+        }
+        return bigTrim(r);
+    }
+
+    /** a * b, by Karatsuba splitting for large operands */
+    static int[] bigMultiply(int[] a, int[] b) {
+        if (a.length < b.length) {
+            int[] t = a;
+            a = b;
+            b = t;
+        }
+        if (b.length < KARATSUBA_LIMBS) return bigMultiplyLong(a, b);
+
+        int h = (a.length + 1) / 2;
+        int[] a0 = bigLow(a, h);
+        int[] a1 = bigHigh(a, h);
+        if (b.length <= h) {
+            // Unbalanced: split only the longer operand
+            return bigAddShifted(bigMultiply(a0, b), bigMultiply(a1, b), h);
+        }
+
+        int[] b0 = bigLow(b, h);
+        int[] b1 = bigHigh(b, h);
+        int[] z0 = bigMultiply(a0, b0);
+        int[] z2 = bigMultiply(a1, b1);
+        int[] z1 = bigSubtract(bigSubtract(bigMultiply(bigAdd(a0, a1), bigAdd(b0, b1)), z0), z2);
+        return bigAddShifted(bigAddShifted(z0, z1, h), z2, 2 * h);
+    }
+
+    /** a * b by long multiplication, where a is the longer */
+    private static int[] bigMultiplyLong(int[] a, int[] b) {
+        int[] r = new int[a.length + b.length];
+        for (int i = 0; i < b.length; i++) {
+            long bi = b[i];
+            if (bi == 0) continue;
+            long carry = 0;
+            for (int j = 0; j < a.length; j++) {
+                long t = r[i + j] + bi * a[j] + carry;
+                r[i + j] = (int) (t % BASE);
+                carry = t / BASE;
+            }
+            for (int k = i + a.length; carry > 0; k++) {
+                long t = r[k] + carry;
+                r[k] = (int) (t % BASE);
+                carry = t / BASE;
+            }
+        }
+        return bigTrim(r);
+    }
+
+    static int[] bigAdd(int[] a, int[] b) {
+        if (a.length < b.length) {
+            int[] t = a;
+            a = b;
+            b = t;
+        }
+        int[] r = new int[a.length + 1];
+        int carry = 0;
+        for (int i = 0; i < a.length; i++) {
+            int t = a[i] + (i < b.length ? b[i] : 0) + carry;
+            carry = t >= BASE ? 1 : 0;
+            r[i] = t - carry * BASE;
+        }
+        r[a.length] = carry;
+        return bigTrim(r);
+    }
+
+    /** a + b * BASE^shift */
+    private static int[] bigAddShifted(int[] a, int[] b, int shift) {
+        if (b.length == 0) return a;
+        int[] r = new int[Math.max(a.length, b.length + shift) + 1];
+        System.arraycopy(a, 0, r, 0, a.length);
+        int carry = 0;
+        int i = shift;
+        for (int j = 0; j < b.length; i++, j++) {
+            int t = r[i] + b[j] + carry;
+            carry = t >= BASE ? 1 : 0;
+            r[i] = t - carry * BASE;
+        }
+        for (; carry > 0; i++) {
+            int t = r[i] + carry;
+            carry = t >= BASE ? 1 : 0;
+            r[i] = t - carry * BASE;
+        }
+        return bigTrim(r);
+    }
+
+    /** The lowest `n` limbs of a */
+    private static int[] bigLow(int[] a, int n) {
+        return a.length <= n ? a : bigTrim(Arrays.copyOf(a, n));
+    }
+
+    /** a / BASE^n, truncated */
+    private static int[] bigHigh(int[] a, int n) {
+        return a.length <= n ? new int[0] : Arrays.copyOfRange(a, n, a.length);
+    }
+
+    /** a - b, where a >= b */
+    static int[] bigSubtract(int[] a, int[] b) {
+        int[] r = new int[a.length];
+        int borrow = 0;
+        for (int i = 0; i < a.length; i++) {
+            int t = a[i] - (i < b.length ? b[i] : 0) - borrow;
+            borrow = t < 0 ? 1 : 0;
+            r[i] = t + borrow * BASE;
+        }
+        return bigTrim(r);
+    }
+
+    static int bigCompare(int[] a, int[] b) {
+        if (a.length != b.length) return a.length < b.length ? -1 : 1;
+        for (int i = a.length; i-- > 0; ) {
+            if (a[i] != b[i]) return a[i] < b[i] ? -1 : 1;
+        }
+        return 0;
+    }
+
+    private static int[] bigTrim(int[] a) {
+        int len = a.length;
+        while (len > 0 && a[len - 1] == 0) len--;
+        return len == a.length ? a : Arrays.copyOf(a, len);
+    }
+
+    //endregion
+
+    //region Fixed point limb arithmetic. Most significant limb first, integer part in the first limb.
+
+    /** a += b, both the same length. The integer part must not overflow */
+    static void fixedAdd(int[] a, int[] b) {
+        int carry = 0;
+        for (int i = a.length; i-- > 0; ) {
+            int t = a[i] + b[i] + carry;
+            carry = t >= BASE ? 1 : 0;
+            a[i] = t - carry * BASE;
+        }
+    }
+
+    /** a -= b, both the same length, where a >= b */
+    static void fixedSubtract(int[] a, int[] b) {
+        int borrow = 0;
+        for (int i = a.length; i-- > 0; ) {
+            int t = a[i] - b[i] - borrow;
+            borrow = t < 0 ? 1 : 0;
+            a[i] = t + borrow * BASE;
+        }
+    }
+
+    /** a *= k, in place. Returns `a` */
+    static int[] fixedMultiplySmall(int[] a, long k) {
+        long carry = 0;
+        for (int i = a.length; i-- > 0; ) {
+            long t = a[i] * k + carry;
+            a[i] = (int) (t % BASE);
+            carry = t / BASE;
+        }
+        return a;
+    }
+
+    /** a /= k, in place, truncating. Returns false if the result is zero */
+    static boolean fixedDivideSmall(int[] a, long k) {
+        long rem = 0;
+        int any = 0;
+        for (int i = 0; i < a.length; i++) {
+            long t = rem * BASE + a[i];
+            a[i] = (int) (t / k);
+            rem = t % k;
+            any |= a[i];
+        }
+        return any != 0;
+    }
+
+    /** a * b, truncated to `n` limbs */
+    static int[] fixedMultiply(int[] a, int[] b, int n) {
+        int aL = Math.min(a.length, n);
+        int bL = Math.min(b.length, n);
+        if (Math.min(aL, bL) >= KARATSUBA_LIMBS) return fixedMultiplyBig(a, aL, b, bL, n);
+
+        // r[k + 1] holds the limb at position k, r[0] catches integer overflow
+        int[] r = new int[aL + bL];
+        for (int i = aL; i-- > 0; ) {
+            long ai = a[i];
+            if (ai == 0) continue;
+            long carry = 0;
+            for (int j = bL; j-- > 0; ) {
+                int k = i + j + 1;
+                long t = r[k] + ai * b[j] + carry;
+                r[k] = (int) (t % BASE);
+                carry = t / BASE;
+            }
+            for (int k = i; carry > 0; k--) {
+                long t = r[k] + carry;
+                r[k] = (int) (t % BASE);
+                carry = t / BASE;
+            }
+        }
+        return Arrays.copyOfRange(r, 1, n + 1);
+    }
+
+    /** fixedMultiply for long operands, by the integer multiplication of the limbs */
+    private static int[] fixedMultiplyBig(int[] a, int aL, int[] b, int bL, int n) {
+        int[] p = bigMultiply(fixedToBig(a, aL), fixedToBig(b, bL));
+
+        // The limb at position k (k = 0 being the integer part) is p[top - k]
+        int top = aL + bL - 2;
+        int[] r = new int[n];
+        for (int k = 0; k < n && k <= top; k++) {
+            int i = top - k;
+            if (i < p.length) r[k] = p[i];
+        }
+        return r;
+    }
+
+    /** The first `len` fixed point limbs as an integer, least significant limb first */
+    static int[] fixedToBig(int[] a, int len) {
+        int[] r = new int[len];
+        for (int i = 0; i < len; i++) r[i] = a[len - 1 - i];
+        return bigTrim(r);
+    }
+
+    /** Fixed point value of a double in the range [0, BASE) */
+    private static int[] fixedFromDouble(double v, int n) {
+        int[] r = new int[n];
+        for (int i = 0; i < n && i < 4; i++) {
+            r[i] = (int) Math.floor(v);
+            v = (v - r[i]) * BASE;
+        }
+        return r;
+    }
+
+    /**
+     * 1/y to `n` limbs, for 1 <= y < BASE, by Newton iteration r = r + r(1 - yr).
+     * Precision is doubled on each step, starting from a double estimate.
+     */
+    static int[] fixedReciprocal(int[] y, int n) {
+        double estimate = y[0] + (y.length > 1 ? y[1] / (double) BASE : 0) + (y.length > 2 ? y[2] / ((double) BASE * BASE) : 0);
+        int[] r = fixedFromDouble(1.0 / estimate, n);
+
+        int w = 2;
+        for (int finalSteps = 0; finalSteps < 2; ) {
+            w = Math.min(n, w * 2);
+            if (w == n) finalSteps++;
+
+            int[] one = new int[w];
+            one[0] = 1;
+            int[] yr = fixedMultiply(y, r, w);
+            int[] rw = Arrays.copyOf(r, w);
+            if (compareFixed(yr, one) <= 0) {
+                fixedSubtract(one, yr);
+                fixedAdd(rw, fixedMultiply(rw, one, w));
+            } else {
+                fixedSubtract(yr, one);
+                fixedSubtract(rw, fixedMultiply(rw, yr, w));
+            }
+            r = Arrays.copyOf(rw, n);
+        }
+        return r;
+    }
+
+    /**
+     * sqrt(k) to `n` limbs, for small integer k, by Newton iteration for 1/sqrt(k):
+     * r = r + r(1 - kr^2)/2, then sqrt(k) = kr
+     */
+    static int[] fixedSqrtSmall(long k, int n) {
+        int[] r = fixedFromDouble(1.0 / Math.sqrt(k), n);
+
+        int w = 2;
+        for (int finalSteps = 0; finalSteps < 2; ) {
+            w = Math.min(n, w * 2);
+            if (w == n) finalSteps++;
+
+            int[] one = new int[w];
+            one[0] = 1;
+            int[] rw = Arrays.copyOf(r, w);
+            int[] kr2 = fixedMultiplySmall(fixedMultiply(rw, rw, w), k);
+            if (compareFixed(kr2, one) <= 0) {
+                fixedSubtract(one, kr2);
+                int[] step = fixedMultiply(rw, one, w);
+                fixedDivideSmall(step, 2);
+                fixedAdd(rw, step);
+            } else {
+                fixedSubtract(kr2, one);
+                int[] step = fixedMultiply(rw, kr2, w);
+                fixedDivideSmall(step, 2);
+                fixedSubtract(rw, step);
+            }
+            r = Arrays.copyOf(rw, n);
+        }
+        return fixedMultiplySmall(r, k);
+    }
+
+    /** x / y to `n` limbs, for big integers where the result is less than BASE */
+    static int[] fixedDivideBig(int[] x, int[] y, int n) {
+        // Scale both to a single limb integer part
+        int[] xf = new int[n];
+        int[] yf = new int[n + 1];
+        for (int i = 0; i < n && i < x.length; i++) xf[i] = x[x.length - 1 - i];
+        for (int i = 0; i < n + 1 && i < y.length; i++) yf[i] = y[y.length - 1 - i];
+
+        int[] result = fixedMultiply(xf, fixedReciprocal(yf, n + 1), n + 1);
+
+        // Undo the scaling
+        int shift = x.length - y.length;
+        if (shift == 0) return Arrays.copyOf(result, n);
+        int[] shifted = new int[n];
+        for (int i = 0; i < n; i++) {
+            int src = i + shift;
+            if (src >= 0 && src < result.length) shifted[i] = result[src];
+        }
+        return shifted;
+    }
+
+    private static int compareFixed(int[] a, int[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) return a[i] < b[i] ? -1 : 1;
+        }
+        return 0;
+    }
+
+    //endregion
+}
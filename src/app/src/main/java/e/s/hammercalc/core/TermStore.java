@@ -0,0 +1,110 @@
+package e.s.hammercalc.core;
+
+import java.util.Arrays;
+
+/**
+ * Append-only list of continued fraction terms, held compactly.
+ * <p>
+ * Nearly all terms are small (by the Gauss-Kuzmin law, about 99% of the terms of a typical
+ * real are below 100), so each term takes one int slot. The rare term that does not fit in an
+ * int is kept in an escape list, found by binary search on its index. This is around a tenth of
+ * the memory of a LargeInt[], where every term is two objects.</p>
+ * <p>
+ * Items can be added but never changed, so any number of readers can share one store, each
+ * seeing only the part that existed when they were made.</p>
+ */
+public final class TermStore {
+    /** Marks a slot whose term is in the escape list */
+    private static final int ESCAPE = Integer.MIN_VALUE;
+    private static final int MIN_INITIAL_CAPACITY = 8;
+
+    /** Shared values for the commonest terms, so reading them does not allocate */
+    private static final LargeInt[] SMALL_VALUES = new LargeInt[64];
+
+    static {
+        for (int i = 0; i < SMALL_VALUES.length; i++) SMALL_VALUES[i] = LargeInt.fromInt(i);
+    }
+
+    private int[] _terms;
+    private int _size;
+
+    /** Indexes of escaped terms, in ascending order, and their values */
+    private int[] _bigIndex;
+    private LargeInt[] _bigValue;
+    private int _bigCount;
+
+    public TermStore() {
+        this(MIN_INITIAL_CAPACITY);
+    }
+
+    public TermStore(int capacity) {
+        _terms = new int[Math.max(capacity, MIN_INITIAL_CAPACITY)];
+        _bigIndex = new int[0];
+        _bigValue = new LargeInt[0];
+    }
+
+    /** Store holding `terms[from]` to `terms[terms.length - 1]` */
+    public static TermStore fromArray(LargeInt[] terms, int from) {
+        TermStore result = new TermStore(terms.length - from);
+        for (int i = from; i < terms.length; i++) result.addLast(terms[i]);
+        return result;
+    }
+
+    /** Add a term at the end */
+    public void addLast(LargeInt term) {
+        if (_size == _terms.length) _terms = Arrays.copyOf(_terms, Math.max(MIN_INITIAL_CAPACITY, _size * 2));
+
+        if (term.bitLength() < 32) {
+            int value = (int) term.longValue();
+            if (value != ESCAPE) {
+                _terms[_size++] = value;
+                return;
+            }
+        }
+
+        if (_bigCount == _bigIndex.length) {
+            int capacity = Math.max(4, _bigCount * 2);
+            _bigIndex = Arrays.copyOf(_bigIndex, capacity);
+            _bigValue = Arrays.copyOf(_bigValue, capacity);
+        }
+        _bigIndex[_bigCount] = _size;
+        _bigValue[_bigCount] = term;
+        _bigCount++;
+        _terms[_size++] = ESCAPE;
+    }
+
+    /** Return term i */
+    public LargeInt get(int i) {
+        if (i < 0 || i >= _size) throw new IndexOutOfBoundsException("Term " + i + " of " + _size);
+
+        int value = _terms[i];
+        if (value == ESCAPE) return _bigValue[Arrays.binarySearch(_bigIndex, 0, _bigCount, i)];
+        if (value >= 0 && value < SMALL_VALUES.length) return SMALL_VALUES[value];
+        return LargeInt.fromInt(value);
+    }
+
+    /** Return true if term i is zero, without making a LargeInt */
+    public boolean isZero(int i) {
+        if (i < 0 || i >= _size) throw new IndexOutOfBoundsException("Term " + i + " of " + _size);
+        return _terms[i] == 0;
+    }
+
+    /** Number of terms */
+    public int size() {
+        return _size;
+    }
+
+    /** Number of terms too large for the compact slots */
+    public int escapedCount() {
+        return _bigCount;
+    }
+
+    /** Release any spare capacity */
+    public void trimToSize() {
+        if (_terms.length > _size) _terms = Arrays.copyOf(_terms, _size);
+        if (_bigIndex.length > _bigCount) {
+            _bigIndex = Arrays.copyOf(_bigIndex, _bigCount);
+            _bigValue = Arrays.copyOf(_bigValue, _bigCount);
+        }
+    }
+}
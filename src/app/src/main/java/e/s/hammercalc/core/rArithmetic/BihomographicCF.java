@@ -0,0 +1,224 @@
+package e.s.hammercalc.core.rArithmetic;
+
+import e.s.hammercalc.core.LargeInt;
+
+/**
+ * Gosper's bihomographic algorithm: the terms of
+ * <pre>
+ *     z = (a*x*y + b*x + c*y + d) / (e*x*y + f*x + g*y + h)
+ * </pre>
+ * for continued fractions x and y, read one term at a time from each.
+ * <p>
+ * Taking a term t from x substitutes x = t + 1/x', and likewise for y, which keeps z in the same
+ * form. After the first term, every tail x' and y' is at least 1. So once z has the same integer
+ * part at all four corners x', y' in {1, infinity}, and the denominator does not change sign between
+ * them, that integer part is the next term of z. It is removed by z = t + 1/z', which again keeps
+ * the form. An input that runs out of terms is infinite from then on, and z no longer depends on it.</p>
+ * <p>
+ * Some results can never be decided, such as sqrt(2) * sqrt(2): the input tails never pin z to either
+ * side of 2. Rather than read forever, an ArithmeticException is thrown after MAX_INPUT_TERMS terms
+ * are read without producing any output.</p>
+ */
+public class BihomographicCF extends CF {
+    /** Input terms read, without an output term, before giving up */
+    private static final int MAX_INPUT_TERMS = 2000;
+
+    private final CF _x;
+    private final CF _y;
+    /** Index of the next term to read from each input, or -1 once it has run out */
+    private int _xIndex;
+    private int _yIndex;
+
+    private LargeInt a, b, c, d;
+    private LargeInt e, f, g, h;
+
+    public BihomographicCF(CF x, CF y, long a, long b, long c, long d, long e, long f, long g, long h) {
+        this(x, y, LargeInt.fromLong(a), LargeInt.fromLong(b), LargeInt.fromLong(c), LargeInt.fromLong(d),
+                LargeInt.fromLong(e), LargeInt.fromLong(f), LargeInt.fromLong(g), LargeInt.fromLong(h));
+    }
+
+    public BihomographicCF(CF x, CF y, LargeInt a, LargeInt b, LargeInt c, LargeInt d, LargeInt e, LargeInt f, LargeInt g, LargeInt h) {
+        _x = x;
+        _y = y;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.d = d;
+        this.e = e;
+        this.f = f;
+        this.g = g;
+        this.h = h;
+    }
+
+    @Override
+    protected LargeInt nextTerm() {
+        for (int read = 0; read < MAX_INPUT_TERMS; read++) {
+            if (e.isZero() && f.isZero() && g.isZero() && h.isZero()) return null; // z is infinite
+
+            // The first term of an input can be anything, so it must be read before the corners mean anything
+            if (_xIndex == 0) {
+                takeX();
+                continue;
+            }
+            if (_yIndex == 0) {
+                takeY();
+                continue;
+            }
+
+            boolean xLive = _xIndex > 0;
+            boolean yLive = _yIndex > 0;
+
+            // Corners at x', y' = 1 always count. Those at infinity only while that input has terms left,
+            // as once it runs out, z is independent of it.
+            LargeInt t;
+            if (xLive && yLive) {
+                t = floorIfSame(a, e, a.add(b), e.add(f), a.add(c), e.add(g), sum(a, b, c, d), sum(e, f, g, h));
+            } else if (xLive) {
+                t = floorIfSame(a.add(b), e.add(f), sum(a, b, c, d), sum(e, f, g, h));
+            } else if (yLive) {
+                t = floorIfSame(a.add(c), e.add(g), sum(a, b, c, d), sum(e, f, g, h));
+            } else {
+                t = floorIfSame(sum(a, b, c, d), sum(e, f, g, h));
+            }
+
+            if (t != null) {
+                emit(t);
+                return t;
+            }
+
+            if (xLive && (!yLive || xIsWider())) takeX();
+            else if (yLive) takeY();
+            else return null; // both inputs have ended, and the denominator is zero
+        }
+        throw new ArithmeticException("Continued fraction term could not be decided after " + MAX_INPUT_TERMS + " input terms");
+    }
+
+    /** z = t + 1/z' */
+    private void emit(LargeInt t) {
+        LargeInt na = a.subtract(t.multiply(e));
+        LargeInt nb = b.subtract(t.multiply(f));
+        LargeInt nc = c.subtract(t.multiply(g));
+        LargeInt nd = d.subtract(t.multiply(h));
+        a = e;
+        b = f;
+        c = g;
+        d = h;
+        e = na;
+        f = nb;
+        g = nc;
+        h = nd;
+    }
+
+    /** x = t + 1/x', or x = infinity if it has no more terms */
+    private void takeX() {
+        LargeInt t = _x.term(_xIndex);
+        if (t == null) {
+            _xIndex = -1;
+            c = a;
+            d = b;
+            a = LargeInt.ZERO;
+            b = LargeInt.ZERO;
+            g = e;
+            h = f;
+            e = LargeInt.ZERO;
+            f = LargeInt.ZERO;
+            return;
+        }
+        _xIndex++;
+
+        LargeInt na = a.multiply(t).add(c);
+        LargeInt nb = b.multiply(t).add(d);
+        c = a;
+        d = b;
+        a = na;
+        b = nb;
+        LargeInt ne = e.multiply(t).add(g);
+        LargeInt nf = f.multiply(t).add(h);
+        g = e;
+        h = f;
+        e = ne;
+        f = nf;
+    }
+
+    /** y = t + 1/y', or y = infinity if it has no more terms */
+    private void takeY() {
+        LargeInt t = _y.term(_yIndex);
+        if (t == null) {
+            _yIndex = -1;
+            b = a;
+            d = c;
+            a = LargeInt.ZERO;
+            c = LargeInt.ZERO;
+            f = e;
+            h = g;
+            e = LargeInt.ZERO;
+            g = LargeInt.ZERO;
+            return;
+        }
+        _yIndex++;
+
+        LargeInt na = a.multiply(t).add(b);
+        LargeInt nc = c.multiply(t).add(d);
+        b = a;
+        d = c;
+        a = na;
+        c = nc;
+        LargeInt ne = e.multiply(t).add(f);
+        LargeInt ng = g.multiply(t).add(h);
+        f = e;
+        h = g;
+        e = ne;
+        g = ng;
+    }
+
+    /** True if z varies more between x' = 1 and infinity than between y' = 1 and infinity,
+     * judged roughly from the corner values */
+    private boolean xIsWider() {
+        double xInfYInf = ratio(a, e);
+        double xInfY1 = ratio(a.add(b), e.add(f));
+        double x1YInf = ratio(a.add(c), e.add(g));
+        double x1Y1 = ratio(sum(a, b, c, d), sum(e, f, g, h));
+
+        double xWidth = Math.max(Math.abs(xInfYInf - x1YInf), Math.abs(xInfY1 - x1Y1));
+        double yWidth = Math.max(Math.abs(xInfYInf - xInfY1), Math.abs(x1YInf - x1Y1));
+        if (Double.isNaN(xWidth)) return true;
+        return !(yWidth > xWidth);
+    }
+
+    /** n/d as a double, good to a few digits, or infinity if d is zero */
+    private static double ratio(LargeInt n, LargeInt d) {
+        if (d.isZero()) return n.sign() < 0 ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        int shift = Math.max(n.bitLength(), d.bitLength()) - 62;
+        if (shift > 0) {
+            n = n.shiftRight(shift);
+            d = d.shiftRight(shift);
+            if (d.isZero()) return n.sign() < 0 ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return (double) n.longValue() / (double) d.longValue();
+    }
+
+    private static LargeInt sum(LargeInt w, LargeInt x, LargeInt y, LargeInt z) {
+        return w.add(x).add(y).add(z);
+    }
+
+    /** Given pairs of numerator and denominator, return the floor of their ratios if all are the same.
+     * Returns null if they differ, or if the denominators are not all non-zero with the same sign */
+    static LargeInt floorIfSame(LargeInt... pairs) {
+        int sign = pairs[1].sign();
+        if (sign == 0) return null;
+
+        LargeInt result = null;
+        for (int i = 0; i < pairs.length; i += 2) {
+            LargeInt den = pairs[i + 1];
+            if (den.sign() != sign) return null;
+
+            LargeInt[] qr = pairs[i].divideAndRemainder(den);
+            LargeInt q = qr[0];
+            if (qr[1].sign() != 0 && qr[1].sign() != den.sign()) q = q.subtract(LargeInt.ONE);
+
+            if (result == null) result = q;
+            else if (!result.equals(q)) return null;
+        }
+        return result;
+    }
+}
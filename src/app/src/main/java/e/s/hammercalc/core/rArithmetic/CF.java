@@ -1,13 +1,46 @@
 package e.s.hammercalc.core.rArithmetic;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 import e.s.hammercalc.core.Fraction;
 import e.s.hammercalc.core.LargeInt;
 
 /**
  * Public interface to continued fractions.
  * There are various different concretes, and they will convert between themselves.
+ * <p>
+ * A CF is a lazy stream of regular continued fraction terms [a0; a1, a2, ...], where a0 may be
+ * any integer and the rest are positive. Terms are only worked out when something reads them,
+ * and each is kept once found, so a value used in several expressions is only expanded once.
+ * A CF that runs out of terms is rational; one with no terms at all is infinite.</p>
+ * <p>
+ * Arithmetic between two CFs uses Gosper's bihomographic algorithm (see BihomographicCF), which
+ * pulls terms from its inputs only until the next output term is certain. So irrationals can be
+ * combined exactly, and the precision is chosen only when the result is read.</p>
  */
 public abstract class CF {
+    /** Terms found so far */
+    private final ArrayList<LargeInt> _terms = new ArrayList<>();
+    /** True once nextTerm has returned null */
+    private boolean _finished;
+
+    /** Number of terms shown by toString() */
+    private static final int DISPLAY_TERMS = 20;
+
+    /** Work out the next term, or return null if there are no more.
+     * This is called at most once per term; callers should use `term`, which keeps the results */
+    protected abstract LargeInt nextTerm();
+
+    /** A source of terms by index, for make_cf_from_generator */
+    public interface Generator {
+        /** Return term k, or null if the continued fraction ends before it */
+        LargeInt term(int k);
+    }
+
+    //region Construction
+
     public static CF make_cf_from_integer_continued_fraction_array(LargeInt[] cfList){
         // Example: 10/7 = 1 + 1/(2 + 1/3):: make_cf_from_integer_continued_fraction_array([1,2,3])  ->  FiniteCF { frac: Fraction { num: 10n, den: 7n } }
         // If you wish to make a continued fraction from an infinitely repeating array, use make_cf_from_repeating_pattern instead.
@@ -18,4 +51,160 @@ public abstract class CF {
         return new FiniteCF(frac);
     }
 
+    /** Continued fraction of `prefix` followed by `pattern` repeated forever.
+     * Example: sqrt(2) = [1; 2, 2, 2, ...]:: make_cf_from_repeating_pattern([1], [2]) */
+    public static CF make_cf_from_repeating_pattern(LargeInt[] prefix, LargeInt[] pattern){
+        return new PeriodicCF(prefix, pattern);
+    }
+
+    /** Continued fraction whose terms are given by a function of their index */
+    public static CF make_cf_from_generator(Generator generator){
+        return new GeneratedCF(generator);
+    }
+
+    /** e = [2; 1, 2, 1, 1, 4, 1, 1, 6, ...] */
+    public static CF make_cf_e(){
+        return new GeneratedCF(new Generator() {
+            @Override
+            public LargeInt term(int k) {
+                if (k == 0) return LargeInt.TWO;
+                if (k % 3 == 2) return LargeInt.fromLong(2L * (k + 1) / 3);
+                return LargeInt.ONE;
+            }
+        });
+    }
+
+    /** pi = [3; 7, 15, 1, 292, ...], which has no pattern, so the terms are found from a generalised continued fraction */
+    public static CF make_cf_pi(){
+        return new PiCF();
+    }
+
+    /** Square root of a non-negative integer, as a prefix and repeating pattern */
+    public static CF make_cf_sqrt(LargeInt n){
+        return PeriodicCF.sqrt(n);
+    }
+
+    /** (p + sqrt(d)) / q, for d >= 0 and q non-zero, as a prefix and repeating pattern */
+    public static CF make_cf_from_quadratic_surd(LargeInt p, LargeInt d, LargeInt q){
+        return PeriodicCF.quadraticSurd(p, d, q);
+    }
+
+    //endregion
+
+    //region Terms
+
+    /** Return term k, or null if the continued fraction has k or fewer terms */
+    public LargeInt term(int k) {
+        while (_terms.size() <= k) {
+            if (_finished) return null;
+            LargeInt next = nextTerm();
+            if (next == null) {
+                _finished = true;
+                return null;
+            }
+            _terms.add(next);
+        }
+        return _terms.get(k);
+    }
+
+    /** Return the terms in order, worked out as they are read */
+    public Iterator<LargeInt> terms() {
+        return new Iterator<LargeInt>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return term(index) != null;
+            }
+
+            @Override
+            public LargeInt next() {
+                LargeInt t = term(index);
+                if (t == null) throw new NoSuchElementException();
+                index++;
+                return t;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    //endregion
+
+    //region Arithmetic
+
+    /** return this + other */
+    public CF add(CF other) {
+        return new BihomographicCF(this, other, 0, 1, 1, 0, 0, 0, 0, 1);
+    }
+
+    /** return this - other */
+    public CF subtract(CF other) {
+        return new BihomographicCF(this, other, 0, 1, -1, 0, 0, 0, 0, 1);
+    }
+
+    /** return this * other */
+    public CF multiply(CF other) {
+        return new BihomographicCF(this, other, 1, 0, 0, 0, 0, 0, 0, 1);
+    }
+
+    /** return this / other. Dividing by zero gives a CF with no terms */
+    public CF divide(CF other) {
+        return new BihomographicCF(this, other, 0, 1, 0, 0, 0, 0, 1, 0);
+    }
+
+    //endregion
+
+    //region Output
+
+    /** The rational value of the first `n` terms, or of all of them if there are fewer */
+    public Fraction convergent(int n) {
+        Fraction.Convergents convergents = new Fraction.Convergents();
+        for (int i = 0; i < n; i++) {
+            LargeInt t = term(i);
+            if (t == null) break;
+            convergents.append(t);
+        }
+        return convergents.toFraction();
+    }
+
+    /** Render the value as a decimal string, to the given number of places.
+     * Digits are truncated, not rounded, as in Fraction.toDecimalString. Successive convergents
+     * are on opposite sides of the value, so terms are read until two of them agree */
+    public String toDecimalString(int places) {
+        Fraction.Convergents convergents = new Fraction.Convergents();
+        String last = null;
+        for (int i = 0; ; i++) {
+            LargeInt t = term(i);
+            if (t == null) {
+                if (i == 0) return "NaN";
+                return convergents.toFraction().toDecimalString(places);
+            }
+            convergents.append(t);
+
+            String current = convergents.toFraction().toDecimalString(places);
+            if (current.equals(last)) return current;
+            last = current;
+        }
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < DISPLAY_TERMS; i++) {
+            LargeInt t = term(i);
+            if (t == null) break;
+            if (i == 1) sb.append("; ");
+            else if (i > 1) sb.append(", ");
+            sb.append(t);
+        }
+        if (term(DISPLAY_TERMS) != null) sb.append(", ...");
+        return sb.append("]").toString();
+    }
+
+    //endregion
 }
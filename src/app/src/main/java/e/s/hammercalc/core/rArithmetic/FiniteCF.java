@@ -1,10 +1,34 @@
 package e.s.hammercalc.core.rArithmetic;
 
+import java.util.Iterator;
+
 import e.s.hammercalc.core.Fraction;
+import e.s.hammercalc.core.LargeInt;
 
+/** Continued fraction of a rational, with terms found by Euclid's algorithm as they are read */
 public class FiniteCF extends CF {
+    private final Fraction _value;
+    private Iterator<LargeInt> _source;
+
+    public FiniteCF(Fraction frac) {
+        _value = frac;
+    }
 
-    public FiniteCF(Fraction terms) {
+    /** The rational value */
+    public Fraction toFraction() {
+        return _value;
+    }
 
+    @Override
+    protected LargeInt nextTerm() {
+        if (_source == null) {
+            // Zero has no terms as a Fraction, but is [0] here, as no terms means infinity
+            if (_value.isZero()) {
+                _source = _value.continuedFractionTerms();
+                return LargeInt.ZERO;
+            }
+            _source = _value.continuedFractionTerms();
+        }
+        return _source.hasNext() ? _source.next() : null;
     }
 }
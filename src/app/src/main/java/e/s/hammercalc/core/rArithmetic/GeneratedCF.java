@@ -0,0 +1,18 @@
+package e.s.hammercalc.core.rArithmetic;
+
+import e.s.hammercalc.core.LargeInt;
+
+/** Continued fraction whose terms come from a function of their index */
+public class GeneratedCF extends CF {
+    private final Generator _generator;
+    private int _index;
+
+    public GeneratedCF(Generator generator) {
+        _generator = generator;
+    }
+
+    @Override
+    protected LargeInt nextTerm() {
+        return _generator.term(_index++);
+    }
+}
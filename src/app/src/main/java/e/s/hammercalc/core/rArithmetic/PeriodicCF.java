@@ -0,0 +1,149 @@
+package e.s.hammercalc.core.rArithmetic;
+
+import java.util.Arrays;
+
+import e.s.hammercalc.core.Fraction;
+import e.s.hammercalc.core.LargeInt;
+
+/** Continued fraction made of a fixed prefix, then a pattern repeated forever.
+ * Terms are read from the two arrays in turn, and convergents multiply whole repeats out at once.
+ * Every quadratic irrational has a continued fraction of this form (Lagrange's theorem) */
+public class PeriodicCF extends CF {
+    /** The prefix and pattern, or null while a surd's period is still being found */
+    private LargeInt[] _prefix;
+    private LargeInt[] _pattern;
+    /** Index of the term nextTerm returns, kept within the first repeat of the pattern */
+    private int _next;
+
+    /** Makes the terms of a surd until its period is found, then null */
+    private QuadraticSurdCF _source;
+    /** Index of the first reduced complete quotient, where the period starts, or -1 if not reached yet */
+    private int _periodStart = -1;
+    private LargeInt _startP;
+    private LargeInt _startQ;
+
+    /** An empty pattern gives the finite continued fraction `prefix` */
+    public PeriodicCF(LargeInt[] prefix, LargeInt[] pattern) {
+        _prefix = prefix.clone();
+        _pattern = pattern.clone();
+    }
+
+    private PeriodicCF(QuadraticSurdCF source) {
+        _source = source;
+    }
+
+    /** Square root of a non-negative integer, exactly */
+    public static CF sqrt(LargeInt n) {
+        if (n.sign() < 0) throw new ArithmeticException("Square root of a negative number");
+        return quadraticSurd(LargeInt.ZERO, n, LargeInt.ONE);
+    }
+
+    /** (p + sqrt(d)) / q exactly, for d >= 0 and q non-zero. Terms come from the (P, Q) recurrence of
+     * QuadraticSurdCF as they are read, so nothing is worked out up front. The period starts at the first
+     * reduced complete quotient, and is known once that (P, Q) comes round again. For sqrt(n) this is
+     * after the term 2 * floor(sqrt(n)). */
+    public static CF quadraticSurd(LargeInt p, LargeInt d, LargeInt q) {
+        if (q.isZero()) throw new ArithmeticException("Division by zero");
+        if (d.sign() < 0) throw new ArithmeticException("Square root of a negative number");
+
+        LargeInt root = d.sqrt();
+        if (root.multiply(root).equals(d)) { // rational
+            Fraction value = Fraction.fromVulgarFraction(p.add(root), q);
+            LargeInt[] terms = value.isZero() ? new LargeInt[]{LargeInt.ZERO} : value.toContinuedFractionArray();
+            return new PeriodicCF(terms, new LargeInt[0]);
+        }
+        return new PeriodicCF(new QuadraticSurdCF(p, d, q));
+    }
+
+    /** Number of terms before the pattern starts. A surd's terms are read until its period is found */
+    public int prefixLength() {
+        findPeriod();
+        return _prefix.length;
+    }
+
+    /** Number of terms in the repeating pattern, or zero if there is none. A surd's terms are read until its period is found */
+    public int periodLength() {
+        findPeriod();
+        return _pattern.length;
+    }
+
+    /** Term k. Once the period is known the prefix and pattern are indexed directly, so a term many
+     * periods along costs nothing and the terms before it are not kept. Until then terms are read in order */
+    @Override
+    public LargeInt term(int k) {
+        for (int i = 0; i <= k && _source != null; i++) super.term(i);
+        if (_source != null) return super.term(k);
+
+        if (k < _prefix.length) return _prefix[k];
+        if (_pattern.length == 0) return null;
+        return _pattern[(k - _prefix.length) % _pattern.length];
+    }
+
+    /** Terms in order, for reading while a surd's period is still being found */
+    @Override
+    protected LargeInt nextTerm() {
+        if (_source != null) {
+            LargeInt p = _source.nextP();
+            LargeInt q = _source.nextQ();
+            if (_periodStart < 0) {
+                if (_source.isReduced()) {
+                    _periodStart = _next;
+                    _startP = p;
+                    _startQ = q;
+                }
+            } else if (p.equals(_startP) && q.equals(_startQ)) {
+                periodFound();
+            }
+        }
+        if (_source != null) {
+            _next++;
+            return _source.nextTerm();
+        }
+
+        int k = _next;
+        if (k < _prefix.length) {
+            _next++;
+            return _prefix[k];
+        }
+        if (_pattern.length == 0) return null;
+        _next = _prefix.length + (k - _prefix.length + 1) % _pattern.length;
+        return _pattern[k - _prefix.length];
+    }
+
+    /** The value of the first `n` terms. Whole repeats of the pattern are multiplied out as a
+     * power of the pattern's matrix, so this takes O(log n) big multiplications, not O(n) */
+    @Override
+    public Fraction convergent(int n) {
+        if (_source != null) {
+            for (int k = 0; k < n && _source != null; k++) term(k);
+            if (_source != null) return super.convergent(n);
+        }
+
+        Fraction.Convergents convergents = new Fraction.Convergents();
+        int head = Math.min(n, _prefix.length);
+        convergents.appendAll(_prefix, 0, head);
+        if (n > head && _pattern.length > 0) {
+            int rest = n - head;
+            convergents.appendRepeated(_pattern, 0, _pattern.length, rest / _pattern.length);
+            convergents.appendAll(_pattern, 0, rest % _pattern.length);
+        }
+        return convergents.toFraction();
+    }
+
+    /** Read terms until a surd's period is found */
+    private void findPeriod() {
+        for (int k = 0; _source != null; k++) term(k);
+    }
+
+    /** The terms read so far are the prefix and one whole period, which now repeats */
+    private void periodFound() {
+        LargeInt[] read = new LargeInt[_next];
+        for (int k = 0; k < _next; k++) read[k] = term(k);
+        _prefix = Arrays.copyOf(read, _periodStart);
+        _pattern = Arrays.copyOfRange(read, _periodStart, _next);
+        _next = _periodStart;
+        _source = null;
+        _startP = null;
+        _startQ = null;
+    }
+}
@@ -0,0 +1,62 @@
+package e.s.hammercalc.core.rArithmetic;
+
+import e.s.hammercalc.core.LargeInt;
+
+/**
+ * The regular continued fraction of pi, which has no known pattern.
+ * <p>
+ * The generalised continued fraction 4/pi = 1 + 1^2/(3 + 2^2/(5 + 3^2/(7 + ...))) does have one,
+ * so this runs the homographic form of Gosper's algorithm on it: the state is z = (p*w + q)/(r*w + s),
+ * starting from z = 4/w, where w is the rest of the generalised fraction. Each tail is at least 1,
+ * so once z gives the same integer part at w = 1 and at w = infinity, that is the next term.</p>
+ */
+public class PiCF extends CF {
+    private static final LargeInt FOUR = LargeInt.fromInt(4);
+
+    private LargeInt p = LargeInt.ZERO;
+    private LargeInt q = FOUR;
+    private LargeInt r = LargeInt.ONE;
+    private LargeInt s = LargeInt.ZERO;
+    /** Index of the next generalised term, which is 2k+1 with partial numerator (k+1)^2 */
+    private int k;
+
+    @Override
+    protected LargeInt nextTerm() {
+        while (true) {
+            if (k > 0) {
+                LargeInt t = BihomographicCF.floorIfSame(p, r, p.add(q), r.add(s));
+                if (t != null) {
+                    LargeInt nr = p.subtract(t.multiply(r));
+                    LargeInt ns = q.subtract(t.multiply(s));
+                    p = r;
+                    q = s;
+                    r = nr;
+                    s = ns;
+                    return t;
+                }
+            }
+
+            // w = a + b/w'
+            LargeInt a = LargeInt.fromLong(2L * k + 1);
+            LargeInt b = LargeInt.fromLong((long) (k + 1) * (k + 1));
+            LargeInt np = p.multiply(a).add(q);
+            LargeInt nr = r.multiply(a).add(s);
+            q = p.multiply(b);
+            s = r.multiply(b);
+            p = np;
+            r = nr;
+            k++;
+
+            // The partial numerators leave common factors behind
+            if ((k & 15) == 0) {
+                LargeInt g = p.gcd(q).gcd(r).gcd(s);
+                if (!g.equals(LargeInt.ONE)) {
+                    p = p.divide(g);
+                    q = q.divide(g);
+                    r = r.divide(g);
+                    s = s.divide(g);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package e.s.hammercalc.core.rArithmetic;
+
+import e.s.hammercalc.core.LargeInt;
+
+/**
+ * Quadratic irrational (P + sqrt(D)) / Q, for D > 0 not a perfect square, with terms made as they are read.
+ * <p>
+ * With s = floor(sqrt(D)), each complete quotient is (P + sqrt(D)) / Q, and the next follows in
+ * integers: a = floor((P + s) / Q) (or (P + s + 1) / Q when Q is negative), P' = a*Q - P,
+ * Q' = (D - P'^2) / Q. This needs Q to divide D - P^2, so the constructor scales all three by |Q|
+ * when it does not. The terms are eventually periodic, from the first complete quotient that is
+ * reduced: PeriodicCF reads terms from this until that (P, Q) comes round again.</p>
+ */
+public class QuadraticSurdCF extends CF {
+    private final LargeInt _d;
+    private final LargeInt _root;
+    private LargeInt _p;
+    private LargeInt _q;
+
+    /** (p + sqrt(d)) / q. `d` must be positive and not a perfect square, and `q` non-zero */
+    public QuadraticSurdCF(LargeInt p, LargeInt d, LargeInt q) {
+        if (q.isZero()) throw new ArithmeticException("Division by zero");
+        if (d.sign() <= 0) throw new ArithmeticException("Square root of a non-positive number");
+
+        if (!d.subtract(p.multiply(p)).remainder(q).isZero()) {
+            LargeInt scale = q.abs();
+            p = p.multiply(scale);
+            d = d.multiply(q).multiply(q);
+            q = q.multiply(scale);
+        }
+        _p = p;
+        _d = d;
+        _q = q;
+        _root = d.sqrt();
+        if (_root.multiply(_root).equals(d)) throw new ArithmeticException("Not a quadratic irrational: " + d + " is a perfect square");
+    }
+
+    /** P of the complete quotient for the next term */
+    LargeInt nextP() {
+        return _p;
+    }
+
+    /** Q of the complete quotient for the next term */
+    LargeInt nextQ() {
+        return _q;
+    }
+
+    /** True if the next complete quotient is reduced: greater than 1, with its conjugate (P - sqrt(D)) / Q
+     * between -1 and 0. With s = floor(sqrt(D)) this is 0 &lt; Q, P &lt;= s, s - P &lt; Q &lt;= s + P.
+     * Every later complete quotient is then reduced too, and the terms from here are purely periodic */
+    boolean isReduced() {
+        return _q.sign() > 0 && _p.compareTo(_root) <= 0
+                && _root.subtract(_p).compareTo(_q) < 0 && _q.compareTo(_root.add(_p)) <= 0;
+    }
+
+    @Override
+    protected LargeInt nextTerm() {
+        LargeInt top = _q.sign() > 0 ? _p.add(_root) : _p.add(_root).add(LargeInt.ONE);
+        LargeInt a = floorDivide(top, _q);
+
+        _p = a.multiply(_q).subtract(_p);
+        _q = _d.subtract(_p.multiply(_p)).divide(_q);
+        return a;
+    }
+
+    private static LargeInt floorDivide(LargeInt n, LargeInt d) {
+        LargeInt[] qr = n.divideAndRemainder(d);
+        if (qr[1].sign() != 0 && qr[1].sign() != d.sign()) return qr[0].subtract(LargeInt.ONE);
+        return qr[0];
+    }
+}
@@ -0,0 +1,159 @@
+package e.s.hammercalc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import e.s.hammercalc.core.ConstructiveReal;
+import e.s.hammercalc.core.Fraction;
+import e.s.hammercalc.core.LargeInt;
+import e.s.hammercalc.core.rArithmetic.CF;
+import e.s.hammercalc.core.rArithmetic.PeriodicCF;
+
+public class CFTest {
+    private static final String PI_50 = "3.14159265358979323846264338327950288419716939937510";
+    private static final String E_50 = "2.71828182845904523536028747135266249775724709369995";
+    private static final String SQRT2_50 = "1.41421356237309504880168872420969807856967187537694";
+
+    @Test
+    public void constants_have_the_right_terms() {
+        assertEquals("e", "[2; 1, 2, 1, 1, 4, 1, 1, 6, 1, 1, 8, 1, 1, 10, 1, 1, 12, 1, 1, ...]", CF.make_cf_e().toString());
+        assertEquals("pi", "[3; 7, 15, 1, 292, 1, 1, 1, 2, 1, 3, 1, 14, 2, 1, 1, 2, 2, 2, 2, ...]", CF.make_cf_pi().toString());
+        assertEquals("sqrt 7", "[2; 1, 1, 1, 4, 1, 1, 1, 4, 1, 1, 1, 4, 1, 1, 1, 4, 1, 1, 1, ...]", CF.make_cf_sqrt(LargeInt.fromInt(7)).toString());
+        assertEquals("sqrt 49", "[7]", CF.make_cf_sqrt(LargeInt.fromInt(49)).toString());
+        assertEquals("repeating", "[1; 2, 3, 4, 3, 4, 3, 4, 3, 4, 3, 4, 3, 4, 3, 4, 3, 4, 3, 4, ...]",
+                CF.make_cf_from_repeating_pattern(LargeInt.arrayFromInts(1, 2), LargeInt.arrayFromInts(3, 4)).toString());
+        assertEquals("fraction", "[-2; 1, 1, 2, 2]", CF.make_cf_from_Fraction(Fraction.fromVulgarFraction(-17, 12)).toString());
+        assertEquals("zero", "[0]", CF.make_cf_from_Fraction(Fraction.ZERO).toString());
+    }
+
+    @Test
+    public void can_display_to_any_number_of_places() {
+        assertEquals("pi", PI_50, CF.make_cf_pi().toDecimalString(50));
+        assertEquals("e", E_50, CF.make_cf_e().toDecimalString(50));
+        assertEquals("sqrt 2", SQRT2_50, CF.make_cf_sqrt(LargeInt.TWO).toDecimalString(50));
+        assertEquals("sqrt 2 as a pattern", SQRT2_50, CF.make_cf_from_repeating_pattern(LargeInt.arrayFromInts(1), LargeInt.arrayFromInts(2)).toDecimalString(50));
+        assertEquals("exact", "0.1428", CF.make_cf_from_Fraction(Fraction.fromVulgarFraction(1, 7)).toDecimalString(4));
+    }
+
+    @Test
+    public void can_do_exact_rational_arithmetic() {
+        CF third = CF.make_cf_from_Fraction(Fraction.fromVulgarFraction(1, 3));
+        CF sixth = CF.make_cf_from_Fraction(Fraction.fromVulgarFraction(1, 6));
+        CF negative = CF.make_cf_from_Fraction(Fraction.fromVulgarFraction(-22, 7));
+
+        assertEquals("add", "[0; 2]", third.add(sixth).toString());
+        assertEquals("subtract", "[0; 6]", third.subtract(sixth).toString());
+        assertEquals("multiply", "[0; 18]", third.multiply(sixth).toString());
+        assertEquals("divide", "[2]", third.divide(sixth).toString());
+        assertEquals("negative", "-1.0476190476", third.multiply(negative).toDecimalString(10));
+        assertEquals("to zero", "[0]", third.subtract(third).toString());
+        assertNull("divide by zero", third.divide(third.subtract(third)).term(0));
+    }
+
+    @Test
+    public void can_combine_irrationals_exactly() {
+        CF pi = CF.make_cf_pi();
+        CF e = CF.make_cf_e();
+        CF root2 = CF.make_cf_sqrt(LargeInt.TWO);
+        ConstructiveReal crPi = ConstructiveReal.pi();
+        ConstructiveReal crE = ConstructiveReal.fromInteger(1).exp();
+        ConstructiveReal crRoot2 = ConstructiveReal.fromInteger(2).sqrt();
+
+        assertEquals("pi + e", reference(crPi.add(crE)), pi.add(e).toDecimalString(40));
+        assertEquals("pi - e", reference(crPi.subtract(crE)), pi.subtract(e).toDecimalString(40));
+        assertEquals("pi * e", reference(crPi.multiply(crE)), pi.multiply(e).toDecimalString(40));
+        assertEquals("pi / e", reference(crPi.divide(crE)), pi.divide(e).toDecimalString(40));
+        assertEquals("e - pi", reference(crE.subtract(crPi)), e.subtract(pi).toDecimalString(40));
+        assertEquals("(sqrt 2 + e) * pi", reference(crRoot2.add(crE).multiply(crPi)), root2.add(e).multiply(pi).toDecimalString(40));
+        assertEquals("sqrt 2 / 7", reference(crRoot2.divide(ConstructiveReal.fromInteger(7))),
+                root2.divide(CF.make_cf_from_Fraction(Fraction.fromInteger(7))).toDecimalString(40));
+    }
+
+    @Test
+    public void shared_subexpressions_are_only_expanded_once() {
+        final int[] calls = new int[1];
+        final int[] highest = {-1};
+        CF counted = CF.make_cf_from_generator(new CF.Generator() {
+            @Override
+            public LargeInt term(int k) {
+                calls[0]++;
+                highest[0] = Math.max(highest[0], k);
+                return LargeInt.fromInt(k + 1);
+            }
+        });
+
+        CF sum = counted.add(counted);
+        CF product = counted.multiply(CF.make_cf_e());
+        sum.toDecimalString(30);
+        product.toDecimalString(30);
+        int used = calls[0];
+        assertTrue("read some terms", used > 5);
+
+        assertEquals("each term generated once", highest[0] + 1, used);
+
+        sum.toDecimalString(30);
+        assertEquals("repeating a result reads nothing", used, calls[0]);
+    }
+
+    @Test
+    public void square_roots_and_surds_are_periodic() {
+        PeriodicCF root61 = (PeriodicCF) CF.make_cf_sqrt(LargeInt.fromInt(61));
+        assertEquals("prefix", 1, root61.prefixLength());
+        assertEquals("period", 11, root61.periodLength());
+        assertEquals("sqrt 61", "[7; 1, 4, 3, 1, 2, 2, 1, 3, 4, 1, 14, 1, 4, 3, 1, 2, 2, 1, 3, ...]", root61.toString());
+
+        // The convergent before the end of the second period is the fundamental solution of x^2 - 61y^2 = 1
+        assertEquals("Pell", "1766319049/226153980", root61.convergent(22).toString());
+
+        assertEquals("term after many periods", LargeInt.fromInt(14), root61.term(1 + 11 * 100000000 + 10));
+        assertEquals("far term of sqrt 2", LargeInt.TWO, CF.make_cf_sqrt(LargeInt.TWO).term(Integer.MAX_VALUE));
+        assertEquals("golden ratio", "[1; 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, ...]",
+                CF.make_cf_from_quadratic_surd(LargeInt.ONE, LargeInt.fromInt(5), LargeInt.TWO).toString());
+        assertEquals("perfect square", "[0; 2]", CF.make_cf_from_quadratic_surd(LargeInt.fromInt(-1), LargeInt.fromInt(4), LargeInt.fromInt(2)).toString());
+
+        ConstructiveReal root7 = ConstructiveReal.fromInteger(7).sqrt();
+        assertEquals("(3 + sqrt 7) / -2", reference(root7.add(ConstructiveReal.fromInteger(3)).divide(ConstructiveReal.fromInteger(-2))),
+                CF.make_cf_from_quadratic_surd(LargeInt.fromInt(3), LargeInt.fromInt(7), LargeInt.fromInt(-2)).toDecimalString(40));
+        assertEquals("(5 + sqrt 7) / 3", reference(root7.add(ConstructiveReal.fromInteger(5)).divide(ConstructiveReal.fromInteger(3))),
+                CF.make_cf_from_quadratic_surd(LargeInt.fromInt(5), LargeInt.fromInt(7), LargeInt.fromInt(3)).toDecimalString(40));
+    }
+
+    @Test
+    public void periodic_convergents_match_one_term_at_a_time() {
+        CF[] values = {
+                CF.make_cf_sqrt(LargeInt.fromInt(2)),
+                CF.make_cf_sqrt(LargeInt.fromInt(94)),
+                CF.make_cf_from_repeating_pattern(LargeInt.arrayFromInts(-3, 1, 5), LargeInt.arrayFromInts(2, 7, 1)),
+                CF.make_cf_from_repeating_pattern(LargeInt.arrayFromInts(4, 1), new LargeInt[0])
+        };
+        for (CF value : values) {
+            Fraction.Convergents convergents = new Fraction.Convergents();
+            for (int n = 1; n <= 60; n++) {
+                LargeInt t = value.term(n - 1);
+                if (t != null) convergents.append(t);
+                assertEquals(value + " " + n, convergents.toFraction().toString(), value.convergent(n).toString());
+            }
+        }
+
+        Fraction big = CF.make_cf_sqrt(LargeInt.TWO).convergent(20001);
+        LargeInt p = big.getNumerator();
+        LargeInt q = big.getDenominator();
+        assertEquals("p^2 - 2q^2", LargeInt.ONE, p.multiply(p).subtract(LargeInt.TWO.multiply(q).multiply(q)).abs());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void undecidable_results_are_an_error() {
+        // sqrt(2)^2 is exactly 2, but no finite number of input terms can show that the result is not just under 2
+        CF root2 = CF.make_cf_sqrt(LargeInt.TWO);
+        root2.multiply(root2).term(0);
+    }
+
+    /** A constructive real to 40 places, truncated rather than rounded */
+    private static String reference(ConstructiveReal x) {
+        String s = x.toString(45);
+        return s.substring(0, s.length() - 5);
+    }
+}
@@ -0,0 +1,122 @@
+package e.s.hammercalc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import e.s.hammercalc.core.ConstructiveReal;
+import e.s.hammercalc.core.Decimal;
+import e.s.hammercalc.core.Fraction;
+import e.s.hammercalc.core.LargeInt;
+
+public class ConstructiveRealTest {
+    private static final String PI_60 = "3.141592653589793238462643383279502884197169399375105820974945";
+    private static final String E_60 = "2.718281828459045235360287471352662497757247093699959574966968";
+    private static final String SQRT2_60 = "1.414213562373095048801688724209698078569671875376948073176680";
+
+    @Test
+    public void exact_results_display_exactly() {
+        ConstructiveReal third = ConstructiveReal.fromFraction(Fraction.fromVulgarFraction(1, 3));
+        assertEquals("(1/3)*3", "1.0000000000", third.multiply(ConstructiveReal.fromInteger(3)).toString(10));
+
+        ConstructiveReal root2 = ConstructiveReal.fromInteger(2).sqrt();
+        assertEquals("sqrt(2)^2", "2.000000000000000000000000000000", root2.multiply(root2).toString(30));
+
+        ConstructiveReal tenth = ConstructiveReal.fromFraction(Fraction.fromVulgarFraction(1, 10));
+        ConstructiveReal sum = tenth.add(tenth).add(tenth).subtract(ConstructiveReal.fromFraction(Fraction.fromVulgarFraction(3, 10)));
+        assertEquals("0.1+0.1+0.1-0.3", "0.00000000000000000000", sum.toString());
+    }
+
+    @Test
+    public void can_display_to_any_number_of_places() {
+        assertEquals("pi", PI_60, ConstructiveReal.pi().toString(60));
+        assertEquals("pi short", "3.14", ConstructiveReal.pi().toString(2));
+        assertEquals("pi none", "3", ConstructiveReal.pi().toString(0));
+        assertEquals("e", E_60, ConstructiveReal.fromInteger(1).exp().toString(60));
+        assertEquals("sqrt 2", SQRT2_60, ConstructiveReal.fromInteger(2).sqrt().toString(60));
+    }
+
+    @Test
+    public void can_do_arithmetic() {
+        ConstructiveReal a = ConstructiveReal.fromFraction(Fraction.fromVulgarFraction(22, 7));
+        ConstructiveReal b = ConstructiveReal.fromInteger(-5);
+
+        assertEquals("add", "-1.857142857142857142857142857143", a.add(b).toString(30));
+        assertEquals("subtract", "8.142857142857142857142857142857", a.subtract(b).toString(30));
+        assertEquals("multiply", "-15.714285714285714285714285714286", a.multiply(b).toString(30));
+        assertEquals("divide", "-0.628571428571428571428571428571", a.divide(b).toString(30));
+        assertEquals("inverse", "0.318181818181818181818181818182", a.inverse().toString(30));
+        assertEquals("negate", "5", b.negate().toString(0));
+        assertEquals("shift", "-40.000", b.shiftLeft(3).toString(3));
+        assertEquals("small", "0.00000095", ConstructiveReal.fromInteger(1).shiftRight(20).toString(8));
+    }
+
+    @Test
+    public void large_and_negative_exponentials() {
+        ConstructiveReal ten = ConstructiveReal.fromInteger(10);
+        assertEquals("e^10", "22026.465794806716516957900645284", ten.exp().toString(27));
+        assertEquals("e^-10", "0.000045399929762484851535591516", ten.negate().exp().toString(30));
+        assertEquals("e^x e^-x", "1.00000000000000000000", ten.exp().multiply(ten.negate().exp()).toString());
+    }
+
+    @Test
+    public void exponentials_are_not_evaluated_until_shown() {
+        CountingNode node = new CountingNode();
+        ConstructiveReal x = node.shiftLeft(6).exp();
+        assertEquals("not evaluated", 0, node.calls);
+
+        assertEquals("e^(64/7)", "9347.4", x.toString(1));
+        assertTrue("evaluated", node.calls > 0);
+    }
+
+    @Test
+    public void values_can_be_mixed_with_big_integers() {
+        LargeInt big = new LargeInt("123456789012345678901234567890");
+        ConstructiveReal x = ConstructiveReal.fromInteger(big).multiply(ConstructiveReal.pi());
+        assertEquals("big times pi", "387850941396970290534206277604.82", x.toString(2));
+        assertEquals("as decimal", "3.1415926535897932385", ConstructiveReal.pi().toDecimal(19).toString());
+        assertEquals("decimal type", Decimal.class, ConstructiveReal.pi().toDecimal(3).getClass());
+    }
+
+    @Test
+    public void approximations_are_cached() {
+        CountingNode node = new CountingNode();
+        ConstructiveReal doubled = node.add(node);
+
+        doubled.toString(50);
+        int calls = node.calls;
+        assertTrue("evaluated", calls > 0);
+
+        doubled.toString(20);
+        assertEquals("fewer digits reuse the cache", calls, node.calls);
+
+        ConstructiveReal other = node.multiply(ConstructiveReal.fromInteger(3));
+        other.toString(10);
+        assertEquals("shared node reuses its cache", calls, node.calls);
+
+        doubled.toString(100);
+        assertTrue("more digits evaluate again", node.calls > calls);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void division_by_zero_is_an_error() {
+        ConstructiveReal x = ConstructiveReal.fromInteger(2);
+        x.divide(x.subtract(ConstructiveReal.fromInteger(2))).toString(5);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void square_root_of_negative_is_an_error() {
+        ConstructiveReal.fromInteger(-4).sqrt().toString(5);
+    }
+
+    /** One seventh, counting how often it is evaluated */
+    private static class CountingNode extends ConstructiveReal {
+        int calls;
+
+        @Override
+        protected LargeInt approximate(int p) {
+            calls++;
+            return ConstructiveReal.fromFraction(Fraction.fromVulgarFraction(1, 7)).approximation(p);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import e.s.hammercalc.core.ContinuedFraction;
 import e.s.hammercalc.core.Fraction;
 import e.s.hammercalc.core.LargeInt;
 import e.s.hammercalc.core.LargeIntVec;
+import e.s.hammercalc.core.TermStore;
 
 public class ContinuedFractionTest {
 
@@ -115,4 +116,53 @@ public class ContinuedFractionTest {
         Fraction f2 = cf2.toFraction();
         assertEquals("(1/1/cf)->f", "47/17", f2.toString());
     }
+
+    @Test
+    public void inverting_shares_terms_instead_of_copying(){
+        ContinuedFraction cf0 = new ContinuedFraction(LargeInt.arrayFromInts(2, 1, 3, 4));
+        ContinuedFraction cf1 = cf0.invert();
+        assertEquals("size", 5, cf1.size());
+        assertEquals("zero added", LargeInt.ZERO, cf1.term(0));
+        assertEquals("shared", LargeInt.fromInt(4), cf1.term(4));
+
+        ContinuedFraction cf2 = cf1.invert();
+        assertArrayEquals("back again", cf0.toArray(), cf2.toArray());
+
+        ContinuedFraction offset = new ContinuedFraction(LargeInt.arrayFromInts(0, 1, 2, 2), 0).invert();
+        assertArrayEquals("zero removed", LargeInt.arrayFromInts(1, 2, 2), offset.toArray());
+        assertEquals("offset value", "7/5", offset.toFraction().toString());
+        assertEquals("offset inverted", "5/7", offset.invert().toFraction().toString());
+
+        ContinuedFraction prefixed = new ContinuedFraction(LargeInt.fromInt(-3), LargeInt.arrayFromInts(0, 5));
+        assertEquals("prefixed", "2", prefixed.toFraction().toString()); // -3 + 1/(0 + 1/5)
+        assertArrayEquals("prefixed inverted", LargeInt.arrayFromInts(0, -3, 0, 5), prefixed.invert().toArray());
+    }
+
+    @Test
+    public void large_terms_are_kept_exactly(){
+        LargeInt big = LargeInt.TEN.pow(30);
+        LargeInt[] terms = {LargeInt.fromLong(-2147483648L), LargeInt.fromLong(2147483647L), big, LargeInt.fromLong(2147483648L), LargeInt.ONE, big.negate(), LargeInt.fromInt(63), LargeInt.fromInt(64)};
+        ContinuedFraction cf = new ContinuedFraction(terms);
+        assertArrayEquals("round trip", terms, cf.toArray());
+
+        TermStore store = TermStore.fromArray(terms, 0);
+        assertEquals("escaped", 4, store.escapedCount());
+        assertEquals("big", big, store.get(2));
+
+        Fraction f = Fraction.fromVulgarFraction(big.add(LargeInt.fromInt(7)), LargeInt.fromInt(13));
+        assertEquals("from fraction", f, new ContinuedFraction(f).toFraction());
+    }
+
+    @Test
+    public void term_stores_grow_again_after_trimming(){
+        TermStore store = new TermStore();
+        store.trimToSize();
+        for (int i = 0; i < 20; i++) store.addLast(LargeInt.fromInt(i));
+        assertEquals("size", 20, store.size());
+        assertEquals("last", LargeInt.fromInt(19), store.get(19));
+
+        store.trimToSize();
+        store.addLast(LargeInt.TEN.pow(30));
+        assertEquals("escaped after trim", LargeInt.TEN.pow(30), store.get(20));
+    }
 }
@@ -0,0 +1,149 @@
+package e.s.hammercalc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import e.s.hammercalc.core.Decimal;
+import e.s.hammercalc.core.DecimalAccumulator;
+import e.s.hammercalc.core.Fraction;
+import e.s.hammercalc.core.LargeInt;
+
+public class DecimalAccumulatorTest {
+    @Test
+    public void empty_sum_is_zero() {
+        assertEquals("empty", "0", new DecimalAccumulator().finalise().toString());
+    }
+
+    @Test
+    public void small_values_are_not_lost_against_large_ones() {
+        DecimalAccumulator acc = new DecimalAccumulator();
+        acc.add(new Decimal("1e30"));
+        for (int i = 0; i < 1000; i++) acc.add(new Decimal("0.001"));
+        acc.subtract(new Decimal("1e30"));
+
+        assertEquals("sum", "1", acc.finalise().toString());
+    }
+
+    @Test
+    public void widely_separated_exponents_do_not_fill_the_gap() {
+        DecimalAccumulator acc = new DecimalAccumulator();
+        acc.add(new Decimal("1e100000000000"));
+        acc.add(new Decimal(1));
+        assertEquals("nearest", "1e+100000000000", acc.finalise(20, Decimal.Rounding.ROUND_HALF_UP).toString());
+        assertEquals("up", "1.0000000000000000001e+100000000000", acc.finalise(20, Decimal.Rounding.ROUND_UP).toString());
+
+        acc.subtract(new Decimal("1e100000000000"));
+        assertEquals("cancelled", "1", acc.finalise(20, Decimal.Rounding.ROUND_HALF_UP).toString());
+
+        acc.add(Fraction.fromVulgarFraction(1, 3));
+        acc.subtract(new Decimal("1e-100000000000"));
+        assertEquals("fraction", "1.3333333333333333334", acc.finalise(20, Decimal.Rounding.ROUND_UP).toString());
+        assertEquals("fraction down", "1.3333333333333333333", acc.finalise(20, Decimal.Rounding.ROUND_DOWN).toString());
+    }
+
+    @Test
+    public void rounds_once_at_the_end() {
+        DecimalAccumulator acc = new DecimalAccumulator();
+        acc.add(new Decimal("1.00000000000000000004"));
+        acc.add(new Decimal("0.00000000000000000001"));
+
+        // Each value alone rounds down at 20 digits, but the sum rounds up
+        assertEquals("sum", "1.0000000000000000001", acc.finalise(20, Decimal.Rounding.ROUND_HALF_UP).toString());
+        assertEquals("down", "1", acc.finalise(5, Decimal.Rounding.ROUND_DOWN).toString());
+        assertEquals("up", "1.0001", acc.finalise(5, Decimal.Rounding.ROUND_UP).toString());
+    }
+
+    @Test
+    public void handles_cancellation_and_sign_changes() {
+        DecimalAccumulator acc = new DecimalAccumulator();
+        acc.add(new Decimal("123.456"));
+        acc.subtract(new Decimal("123.457"));
+        assertEquals("negative", "-0.001", acc.finalise().toString());
+
+        acc.add(new Decimal("0.001"));
+        assertEquals("zero", "0", acc.finalise().toString());
+
+        acc.add(new Decimal("-9999999.9999999"));
+        acc.add(new Decimal("10000000"));
+        assertEquals("borrow across limbs", "1e-7", acc.finalise().toString());
+    }
+
+    @Test
+    public void can_add_integers_and_fractions() {
+        DecimalAccumulator acc = new DecimalAccumulator();
+        acc.add(new LargeInt("123456789012345678901234567890"));
+        acc.subtract(LargeInt.fromInt(90));
+        acc.add(Fraction.fromVulgarFraction(1, 3));
+        acc.add(Fraction.fromVulgarFraction(2, 3));
+        acc.add(new Decimal("0.5"));
+
+        assertEquals("sum", "123456789012345678901234567801.5", acc.finalise(40, Decimal.Rounding.ROUND_HALF_UP).toFixed());
+
+        acc.add(Fraction.fromVulgarFraction(1, 7));
+        assertEquals("repeating", "123456789012345678901234567801.642857143",
+                acc.finalise(39, Decimal.Rounding.ROUND_HALF_UP).toFixed());
+    }
+
+    @Test
+    public void fractions_round_correctly_near_a_midpoint() {
+        // 0.5 + 1/3 - 1/3 is exactly a midpoint, where a guard-digit approximation could round either way
+        DecimalAccumulator acc = new DecimalAccumulator();
+        acc.add(new Decimal("2.5"));
+        acc.add(Fraction.fromVulgarFraction(1, 3));
+        acc.subtract(Fraction.fromVulgarFraction(1, 3));
+        assertEquals("even", "2", acc.finalise(1, Decimal.Rounding.ROUND_HALF_EVEN).toString());
+
+        // Just above the midpoint by a tiny fraction
+        acc.add(Fraction.fromVulgarFraction(1, 300000000));
+        assertEquals("above midpoint", "3", acc.finalise(1, Decimal.Rounding.ROUND_HALF_EVEN).toString());
+    }
+
+    @Test
+    public void special_values_follow_decimal_rules() {
+        DecimalAccumulator acc = new DecimalAccumulator();
+        acc.add(new Decimal(1));
+        acc.add(new Decimal("Infinity"));
+        assertEquals("infinity", "Infinity", acc.finalise().toString());
+
+        acc.subtract(new Decimal("Infinity"));
+        assertTrue("infinity minus infinity", acc.finalise().isNaN());
+
+        acc.clear();
+        acc.add(Decimal.decimalNaN());
+        assertTrue("NaN", acc.finalise().isNaN());
+    }
+
+    @Test
+    public void random_sums_match_big_decimal() {
+        Random rnd = new Random(36);
+        for (int round = 0; round < 50; round++) {
+            DecimalAccumulator acc = new DecimalAccumulator();
+            BigDecimal expected = BigDecimal.ZERO;
+            int count = 1 + rnd.nextInt(200);
+            for (int i = 0; i < count; i++) {
+                BigDecimal value = new BigDecimal(new BigInteger(1 + rnd.nextInt(120), rnd),
+                        rnd.nextInt(80) - 40);
+                if (rnd.nextBoolean()) value = value.negate();
+
+                if (rnd.nextBoolean()) {
+                    acc.add(new Decimal(value.toString()));
+                    expected = expected.add(value);
+                } else {
+                    acc.subtract(new Decimal(value.toString()));
+                    expected = expected.subtract(value);
+                }
+            }
+
+            Decimal actual = acc.finalise(25, Decimal.Rounding.ROUND_HALF_EVEN);
+            BigDecimal rounded = expected.round(new MathContext(25, RoundingMode.HALF_EVEN));
+            assertEquals("round " + round, 0, rounded.compareTo(new BigDecimal(actual.toString())));
+        }
+    }
+}
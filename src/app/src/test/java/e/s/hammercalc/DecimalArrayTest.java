@@ -0,0 +1,308 @@
+package e.s.hammercalc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import e.s.hammercalc.core.Decimal;
+import e.s.hammercalc.core.DecimalArray;
+
+public class DecimalArrayTest {
+    @Test
+    public void can_store_and_read_back_values() {
+        DecimalArray a = DecimalArray.of(10, new Decimal("1.5"), new Decimal("-2e30"), new Decimal("0.000123"),
+                new Decimal(0), Decimal.decimalNaN(), new Decimal("-Infinity"));
+
+        assertEquals("size", 6, a.size());
+        assertEquals("precision", 10, a.precision());
+        assertEquals("positive", "1.5", a.get(0).toString());
+        assertEquals("negative", "-2e+30", a.get(1).toString());
+        assertEquals("small", "0.000123", a.get(2).toString());
+        assertEquals("zero", "0", a.get(3).toString());
+        assertEquals("NaN", "NaN", a.get(4).toString());
+        assertEquals("infinity", "-Infinity", a.get(5).toString());
+    }
+
+    @Test
+    public void new_arrays_hold_zeros() {
+        DecimalArray a = new DecimalArray(3, 20);
+
+        assertEquals("zero", "0", a.get(2).toString());
+        assertEquals("sum", "0", a.sum().toString());
+    }
+
+    @Test
+    public void values_are_rounded_to_the_array_precision() {
+        DecimalArray a = new DecimalArray(2, 5);
+        a.set(0, new Decimal("3.14159265"));
+        a.set(1, new Decimal("123456789"));
+
+        assertEquals("fraction", "3.1416", a.get(0).toString());
+        assertEquals("integer", "123460000", a.get(1).toString());
+    }
+
+    @Test
+    public void can_do_element_wise_arithmetic() {
+        DecimalArray x = DecimalArray.of(20, new Decimal(1), new Decimal("2.5"), new Decimal(-7));
+        DecimalArray y = DecimalArray.of(20, new Decimal(3), new Decimal("0.5"), new Decimal(2));
+
+        assertEquals("plus", "[4, 3, -5]", show(x.plus(y)));
+        assertEquals("minus", "[-2, 2, -9]", show(x.minus(y)));
+        assertEquals("times", "[3, 1.25, -14]", show(x.times(y)));
+        assertEquals("div", "[0.33333333333333333333, 5, -3.5]", show(x.div(y)));
+
+        assertEquals("plus scalar", "[11, 12.5, 3]", show(x.plus(new Decimal(10))));
+        assertEquals("minus scalar", "[0, 1.5, -8]", show(x.minus(new Decimal(1))));
+        assertEquals("times scalar", "[2, 5, -14]", show(x.times(new Decimal(2))));
+        assertEquals("div scalar", "[0.25, 0.625, -1.75]", show(x.div(new Decimal(4))));
+    }
+
+    @Test
+    public void element_wise_results_match_single_values() {
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 30;
+            Random rnd = new Random(35);
+            int count = 1000;
+            Decimal[] xs = new Decimal[count];
+            Decimal[] ys = new Decimal[count];
+            for (int i = 0; i < count; i++) {
+                xs[i] = randomValue(rnd);
+                ys[i] = randomValue(rnd);
+            }
+            DecimalArray x = DecimalArray.of(30, xs);
+            DecimalArray y = DecimalArray.of(30, ys);
+
+            DecimalArray sum = x.plus(y), difference = x.minus(y), product = x.times(y), quotient = x.div(y);
+            int[] compare = x.compare(y);
+            for (int i = 0; i < count; i++) {
+                // Inputs are rounded to the array precision when stored
+                xs[i] = x.get(i);
+                ys[i] = y.get(i);
+                assertEquals("plus " + i, xs[i].plus(ys[i]).toString(), sum.get(i).toString());
+                assertEquals("minus " + i, xs[i].minus(ys[i]).toString(), difference.get(i).toString());
+                assertEquals("times " + i, xs[i].times(ys[i]).toString(), product.get(i).toString());
+                assertEquals("div " + i, xs[i].div(ys[i]).toString(), quotient.get(i).toString());
+                assertEquals("compare " + i, xs[i].cmp(ys[i]), compare[i]);
+            }
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    public void operations_use_the_array_precision_and_keep_the_configured_one() {
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 5;
+            DecimalArray x = DecimalArray.of(25, new Decimal(2));
+
+            assertEquals("div", "0.6666666666666666666666667", x.div(new Decimal(3)).get(0).toString());
+            assertEquals("config", 5, Decimal.Config.precision);
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    public void operations_use_the_configured_rounding_mode() {
+        Decimal.Rounding oldRounding = Decimal.Config.rounding;
+        try {
+            DecimalArray x = DecimalArray.of(10, new Decimal("1e1000"), new Decimal(2), new Decimal("-1e-1000"));
+            DecimalArray y = DecimalArray.of(10, new Decimal(1), new Decimal(3), new Decimal("1e1000"));
+
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_UP;
+            assertEquals("plus up", "[1.000000001e+1000, 5, 1e+1000]", show(x.plus(y)));
+            assertEquals("div up", "[1e+1000, 0.6666666667, -1e-2000]", show(x.div(y)));
+
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_DOWN;
+            assertEquals("plus down", "[1e+1000, 5, 9.999999999e+999]", show(x.plus(y)));
+            assertEquals("div down", "[1e+1000, 0.6666666666, -1e-2000]", show(x.div(y)));
+
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_FLOOR;
+            assertEquals("minus floor", "[9.999999999e+999, -1, -1.000000001e+1000]", show(x.minus(y)));
+        } finally {
+            Decimal.Config.rounding = oldRounding;
+        }
+    }
+
+    @Test
+    public void can_compare_special_values() {
+        DecimalArray x = DecimalArray.of(10, new Decimal(1), new Decimal(-1), new Decimal(0), new Decimal("Infinity"),
+                Decimal.decimalNaN(), new Decimal("-Infinity"), new Decimal("1.5"), new Decimal("-1e-5"));
+        DecimalArray y = DecimalArray.of(10, new Decimal(2), new Decimal(-2), new Decimal("-0"), new Decimal("1e100"),
+                new Decimal(1), new Decimal("-Infinity"), new Decimal("1.25"), new Decimal("-1e-6"));
+
+        int[] c = x.compare(y);
+        assertArrayEquals("compare", new int[]{-1, 1, 0, 1, 0, 0, 1, -1}, c);
+    }
+
+    @Test
+    public void can_reduce_with_one_rounding() {
+        DecimalArray a = new DecimalArray(1000, 10);
+        for (int i = 0; i < a.size(); i++) a.set(i, new Decimal("0.1"));
+        a.set(0, new Decimal("1e10"));
+
+        // Rounding each partial sum to 10 digits would lose every 0.1
+        assertEquals("sum", "10000000100", a.sum().toString());
+
+        DecimalArray b = DecimalArray.of(5, new Decimal(2), new Decimal(3), new Decimal("0.5"), new Decimal(-4));
+        assertEquals("product", "-12", b.product().toString());
+        assertEquals("min", "-4", b.min().toString());
+        assertEquals("max", "3", b.max().toString());
+
+        DecimalArray c = DecimalArray.of(5, new Decimal(2), Decimal.decimalNaN());
+        assertTrue("min with NaN", c.min().isNaN());
+        assertTrue("empty max", new DecimalArray(0, 5).max().isNaN());
+    }
+
+    @Test
+    public void sums_and_products_are_rounded_only_once() {
+        Decimal.Rounding oldRounding = Decimal.Config.rounding;
+        try {
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_HALF_EVEN;
+
+            // Rounding 1.00005 to a few guard digits would lose the 1e-30 that puts the sum past the tie
+            DecimalArray a = DecimalArray.of(5, new Decimal(1), new Decimal("5e-5"), new Decimal("1e-30"));
+            assertEquals("sum", "1.0001", a.sum().toString());
+
+            Random rnd = new Random(235);
+            Decimal.Rounding[] modes = Decimal.Rounding.values();
+            for (int round = 0; round < 300; round++) {
+                Decimal.Rounding rm = modes[round % modes.length];
+                if (rm == Decimal.Rounding.NOT_SPECIFIED) continue;
+
+                int count = 1 + rnd.nextInt(8);
+                DecimalArray b = new DecimalArray(count, 5);
+                for (int i = 0; i < count; i++) b.set(i, randomValue(rnd));
+
+                BigDecimal sum = BigDecimal.ZERO, product = BigDecimal.ONE;
+                for (int i = 0; i < count; i++) {
+                    BigDecimal value = new BigDecimal(b.get(i).toString());
+                    sum = sum.add(value);
+                    product = product.multiply(value);
+                }
+
+                Decimal.Config.rounding = rm;
+                assertEquals("sum " + round, 0, round(sum, rm).compareTo(new BigDecimal(b.sum().toString())));
+                assertEquals("product " + round, 0, round(product, rm).compareTo(new BigDecimal(b.product().toString())));
+            }
+        } finally {
+            Decimal.Config.rounding = oldRounding;
+        }
+    }
+
+    @Test
+    public void element_wise_ties_round_as_decimal_does() {
+        int oldPrecision = Decimal.Config.precision;
+        Decimal.Rounding oldRounding = Decimal.Config.rounding;
+        try {
+            Decimal.Config.precision = 31;
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_HALF_CEIL;
+            Decimal x = new Decimal("358935078090294744.3268833752507");
+            Decimal y = new Decimal("5e-10");
+
+            assertEquals("times", x.times(y).toString(), DecimalArray.of(31, x).times(y).get(0).toString());
+            assertEquals("div", x.div(y).toString(), DecimalArray.of(31, x).div(y).get(0).toString());
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+            Decimal.Config.rounding = oldRounding;
+        }
+    }
+
+    @Test
+    public void parallel_results_match_sequential_results() {
+        Random rnd = new Random(135);
+        int count = 5000;
+        DecimalArray x = new DecimalArray(count, 40);
+        DecimalArray y = new DecimalArray(count, 40);
+        for (int i = 0; i < count; i++) {
+            x.set(i, randomValue(rnd));
+            y.set(i, randomValue(rnd));
+        }
+
+        DecimalArray sequentialProduct = x.times(y);
+        DecimalArray sequentialQuotient = x.div(y);
+        Decimal sequentialSum = x.sum();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            x.withPool(pool);
+            DecimalArray parallelProduct = x.times(y);
+            DecimalArray parallelQuotient = x.div(y);
+
+            for (int i = 0; i < count; i++) {
+                assertEquals("times " + i, sequentialProduct.get(i).toString(), parallelProduct.get(i).toString());
+                assertEquals("div " + i, sequentialQuotient.get(i).toString(), parallelQuotient.get(i).toString());
+            }
+            assertEquals("sum", sequentialSum.toString(), x.sum().toString());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatched_sizes_are_rejected() {
+        new DecimalArray(2, 10).plus(new DecimalArray(3, 10));
+    }
+
+    private static Decimal randomValue(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        if (rnd.nextBoolean()) sb.append('-');
+        sb.append(1 + rnd.nextInt(9)).append('.');
+        int digits = 1 + rnd.nextInt(45);
+        for (int i = 0; i < digits; i++) sb.append(rnd.nextInt(10));
+        sb.append('e').append(rnd.nextInt(41) - 20);
+        return new Decimal(sb.toString());
+    }
+
+    /** Round to 5 significant digits, as the Decimal rounding mode `rm` does */
+    private static BigDecimal round(BigDecimal x, Decimal.Rounding rm) {
+        RoundingMode mode;
+        switch (rm) {
+            case ROUND_UP:
+                mode = RoundingMode.UP;
+                break;
+            case ROUND_DOWN:
+                mode = RoundingMode.DOWN;
+                break;
+            case ROUND_CEIL:
+                mode = RoundingMode.CEILING;
+                break;
+            case ROUND_FLOOR:
+                mode = RoundingMode.FLOOR;
+                break;
+            case ROUND_HALF_DOWN:
+                mode = RoundingMode.HALF_DOWN;
+                break;
+            case ROUND_HALF_EVEN:
+                mode = RoundingMode.HALF_EVEN;
+                break;
+            case ROUND_HALF_CEIL:
+                mode = x.signum() < 0 ? RoundingMode.HALF_DOWN : RoundingMode.HALF_UP;
+                break;
+            case ROUND_HALF_FLOOR:
+                mode = x.signum() < 0 ? RoundingMode.HALF_UP : RoundingMode.HALF_DOWN;
+                break;
+            default:
+                mode = RoundingMode.HALF_UP;
+                break;
+        }
+        return x.round(new MathContext(5, mode));
+    }
+
+    private static String show(DecimalArray a) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < a.size(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(a.get(i));
+        }
+        return sb.append(']').toString();
+    }
+}
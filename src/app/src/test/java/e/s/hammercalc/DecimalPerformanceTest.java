@@ -0,0 +1,303 @@
+package e.s.hammercalc;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import e.s.hammercalc.core.Decimal;
+import e.s.hammercalc.core.DecimalAccumulator;
+
+/**
+ * Timing checks for Decimal parsing, arithmetic and transcendental functions.
+ * These print throughput, and check the results are consistent.
+ */
+public class DecimalPerformanceTest {
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on the series code")
+    public void exp_ln_and_pow_throughput_at_common_precisions() {
+        measureAtPrecision(20, 200);
+        measureAtPrecision(100, 50);
+        measureAtPrecision(1000, 1);
+    }
+
+    @Test
+    @Ignore("Takes several minutes. Run by hand when working on the series code")
+    public void exp_ln_and_pow_throughput_at_very_high_precision() {
+        measureAtPrecision(10000, 1);
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on the parser")
+    public void parsing_throughput_over_a_million_mixed_inputs() {
+        int count = 1000000;
+        Random rnd = new Random(2024);
+        String[] plain = new String[count];
+        String[] separated = new String[count];
+        for (int i = 0; i < count; i++) {
+            plain[i] = randomNumberString(rnd);
+
+            // A digit group separator forces the general parser
+            separated[i] = plain[i].replaceFirst("(\\d)", "$1_");
+        }
+
+        // Every twentieth input is in a form only the general parser handles
+        for (int i = 0; i < count; i += 20) plain[i] = separated[i];
+
+        // Best of three rounds, so the first round warms up the compiler
+        long plainTime = Long.MAX_VALUE, generalTime = Long.MAX_VALUE;
+        int invalid = 0;
+        for (int round = 0; round < 3; round++) {
+            long t0 = System.nanoTime();
+            for (String str : plain) invalid += new Decimal(str).isNaN() ? 1 : 0;
+            long t1 = System.nanoTime();
+            for (String str : separated) invalid += new Decimal(str).isNaN() ? 1 : 0;
+            long t2 = System.nanoTime();
+
+            plainTime = Math.min(plainTime, t1 - t0);
+            generalTime = Math.min(generalTime, t2 - t1);
+        }
+
+        System.out.println("Parsed " + count + " mixed inputs in " + plainTime / 1e6 + "ms ("
+                + plainTime / count + "ns each); general parser only: " + generalTime / 1e6 + "ms");
+        assertEquals("all inputs valid", 0, invalid);
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on the base conversion code")
+    public void parsing_long_hex_inputs_is_subquadratic() {
+        measureHexParsing(10000);
+        measureHexParsing(100000);
+    }
+
+    @Test
+    @Ignore("Takes several seconds. Run by hand when working on the base conversion code")
+    public void parsing_a_million_digit_hex_input() {
+        measureHexParsing(1000000);
+    }
+
+    private void measureHexParsing(int length) {
+        Random rnd = new Random(length);
+        StringBuilder sb = new StringBuilder();
+        sb.append(Character.forDigit(1 + rnd.nextInt(15), 16));
+        for (int i = 1; i < length; i++) sb.append(Character.forDigit(rnd.nextInt(16), 16));
+        String hex = sb.toString();
+
+        long t0 = System.nanoTime();
+        Decimal result = new Decimal("0x" + hex);
+        long t1 = System.nanoTime();
+
+        System.out.println("Parsed " + length + " hex digits in " + (t1 - t0) / 1e6 + "ms");
+        assertTrue("value", new BigInteger(hex, 16).equals(new BigDecimal(result.toString()).toBigIntegerExact()));
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on the rendering code")
+    public void rendering_throughput_at_common_precisions() {
+        measureRendering(20, 10000);
+        measureRendering(1000, 10000);
+    }
+
+    private void measureRendering(int digits, int count) {
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = digits;
+            Random rnd = new Random(digits);
+            Decimal[] values = new Decimal[count];
+            for (int i = 0; i < count; i++) {
+                StringBuilder sb = new StringBuilder();
+                for (int j = 0; j < digits; j++) sb.append(rnd.nextInt(10));
+                values[i] = new Decimal(sb.insert(1 + rnd.nextInt(digits - 1), '.').toString());
+            }
+
+            // Best of three rounds, so the first round warms up the compiler
+            long plainTime = Long.MAX_VALUE, fixedTime = Long.MAX_VALUE, expTime = Long.MAX_VALUE;
+            long length = 0;
+            for (int round = 0; round < 3; round++) {
+                long t0 = System.nanoTime();
+                for (Decimal value : values) length += value.toString().length();
+                long t1 = System.nanoTime();
+                for (Decimal value : values) length += value.toFixed(digits / 2).length();
+                long t2 = System.nanoTime();
+                for (Decimal value : values) length += value.toExponential(digits / 2).length();
+                long t3 = System.nanoTime();
+
+                plainTime = Math.min(plainTime, t1 - t0);
+                fixedTime = Math.min(fixedTime, t2 - t1);
+                expTime = Math.min(expTime, t3 - t2);
+            }
+
+            System.out.println("Rendered " + count + " values of " + digits + " digits: toString " + plainTime / 1e6
+                    + "ms; toFixed " + fixedTime / 1e6 + "ms; toExponential " + expTime / 1e6 + "ms");
+            assertTrue("output produced", length > 3L * count * digits);
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on the division code")
+    public void division_throughput_for_each_divisor_size() {
+        // Single limb divisors, the common calculator case
+        measureDivision("by 3", 20, 1, 100000);
+        measureDivision("by 3", 1000, 1, 2000);
+
+        // Long division, with a multi-limb divisor
+        measureDivision("by 20 digits", 20, 20, 100000);
+        measureDivision("by 1000 digits", 1000, 1000, 500);
+
+        // Divisors long enough to use a reciprocal found by Newton iteration
+        measureDivision("by 10000 digits", 10000, 10000, 3);
+    }
+
+    private void measureDivision(String label, int digits, int divisorDigits, int count) {
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = digits;
+            Random rnd = new Random(digits + divisorDigits);
+            Decimal x = new Decimal(randomDigits(rnd, digits));
+            Decimal y = divisorDigits == 1 ? new Decimal(3) : new Decimal(randomDigits(rnd, divisorDigits));
+
+            // Best of three rounds, so the first round warms up the compiler
+            long best = Long.MAX_VALUE;
+            Decimal q = null;
+            for (int round = 0; round < 3; round++) {
+                long t0 = System.nanoTime();
+                for (int i = 0; i < count; i++) q = x.div(y);
+                best = Math.min(best, System.nanoTime() - t0);
+            }
+
+            System.out.println(digits + " digits " + label + ": " + best / 1e3 / count + "us per division");
+
+            // q * y should be within a unit of the last place of x
+            Decimal.Config.precision = digits + divisorDigits + 10;
+            Decimal error = q.times(y).minus(x).abs();
+            assertTrue(label + " result", error.lt(x.times(new Decimal("1e-" + (digits - 2)))));
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on DecimalAccumulator")
+    public void exact_accumulation_against_repeated_rounding() {
+        int count = 1 << 21; // enough to pass through the accumulator's deferred carry step
+        Random rnd = new Random(36);
+        Decimal[] values = new Decimal[count];
+        BigDecimal exact = BigDecimal.ZERO;
+        for (int i = 0; i < count; i++) {
+            // Column of amounts with a wide spread of sizes, so rounding at 20 digits loses the small ones
+            BigDecimal value = BigDecimal.valueOf(rnd.nextLong() % 1000000000000000L, rnd.nextInt(20) - 10);
+            values[i] = new Decimal(value.toString());
+            exact = exact.add(value);
+        }
+
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 20;
+            Decimal naive = null, raised = null, accumulated = null;
+
+            // Best of three rounds, so the first round warms up the compiler
+            long naiveTime = Long.MAX_VALUE, raisedTime = Long.MAX_VALUE, accumulatorTime = Long.MAX_VALUE;
+            for (int round = 0; round < 3; round++) {
+                long t0 = System.nanoTime();
+                naive = new Decimal(0);
+                for (Decimal value : values) naive = naive.plus(value);
+                long t1 = System.nanoTime();
+
+                // Enough digits for every value to be added exactly
+                Decimal.Config.precision = 60;
+                raised = new Decimal(0);
+                for (Decimal value : values) raised = raised.plus(value);
+                Decimal.Config.precision = 20;
+                raised = raised.plus(0);
+                long t2 = System.nanoTime();
+
+                DecimalAccumulator acc = new DecimalAccumulator();
+                for (Decimal value : values) acc.add(value);
+                accumulated = acc.finalise();
+                long t3 = System.nanoTime();
+
+                naiveTime = Math.min(naiveTime, t1 - t0);
+                raisedTime = Math.min(raisedTime, t2 - t1);
+                accumulatorTime = Math.min(accumulatorTime, t3 - t2);
+            }
+
+            BigDecimal expected = exact.round(new MathContext(20, RoundingMode.HALF_UP));
+            BigDecimal naiveError = new BigDecimal(naive.toString()).subtract(expected).abs();
+            System.out.println("Summed " + count + " values: rounding each step " + naiveTime / 1e6 + "ms (error "
+                    + naiveError.toString() + "); at 60 digits " + raisedTime / 1e6 + "ms; accumulator "
+                    + accumulatorTime / 1e6 + "ms");
+
+            assertEquals("accumulator exact", 0, expected.compareTo(new BigDecimal(accumulated.toString())));
+            assertEquals("raised precision exact", 0, expected.compareTo(new BigDecimal(raised.toString())));
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    /** A random number with `digits` significant digits, and one digit before the point */
+    private static String randomDigits(Random rnd, int digits) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(1 + rnd.nextInt(9));
+        if (digits > 1) sb.append('.');
+        for (int i = 1; i < digits; i++) sb.append(rnd.nextInt(10));
+        return sb.toString();
+    }
+
+    /** Random plain decimal strings: integers, fractions, exponent forms and negatives */
+    private static String randomNumberString(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        if (rnd.nextInt(4) == 0) sb.append('-');
+        sb.append(1 + rnd.nextInt(9));
+        int intDigits = rnd.nextInt(10);
+        for (int i = 0; i < intDigits; i++) sb.append(rnd.nextInt(10));
+        if (rnd.nextBoolean()) {
+            sb.append('.');
+            int fracDigits = 1 + rnd.nextInt(12);
+            for (int i = 0; i < fracDigits; i++) sb.append(rnd.nextInt(10));
+        }
+        if (rnd.nextInt(4) == 0) sb.append(rnd.nextBoolean() ? "e-" : "e+").append(rnd.nextInt(300));
+        return sb.toString();
+    }
+
+    private void measureAtPrecision(int digits, int rounds) {
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = digits;
+            Decimal x = new Decimal("1.2345");
+            Decimal y = new Decimal("0.54321");
+            Decimal exp = null, ln = null, pow = null;
+
+            long t0 = System.nanoTime();
+            for (int i = 0; i < rounds; i++) exp = x.exp();
+            long t1 = System.nanoTime();
+            for (int i = 0; i < rounds; i++) ln = x.ln();
+            long t2 = System.nanoTime();
+            for (int i = 0; i < rounds; i++) pow = x.pow(y);
+            long t3 = System.nanoTime();
+
+            System.out.println(digits + " digits: exp " + perCall(t0, t1, rounds) + "ms; ln " + perCall(t1, t2, rounds)
+                    + "ms; pow " + perCall(t2, t3, rounds) + "ms");
+
+            // Check the results agree with a low precision calculation
+            Decimal.Config.precision = 20;
+            assertEquals("exp", "3.4366597611704631832", new Decimal(exp.toString()).plus(0).toString());
+            assertEquals("ln", "0.21066602980309714183", new Decimal(ln.toString()).plus(0).toString());
+            assertEquals("pow", "1.121240760555129398", new Decimal(pow.toString()).plus(0).toString());
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    private static double perCall(long start, long end, int rounds) {
+        return (end - start) / 1.0e6 / rounds;
+    }
+}
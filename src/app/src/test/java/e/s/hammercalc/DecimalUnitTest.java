@@ -1,9 +1,16 @@
 package e.s.hammercalc;
 
+import org.junit.Assume;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
 import e.s.hammercalc.core.Decimal;
 
 public class DecimalUnitTest {
@@ -139,4 +146,545 @@ public class DecimalUnitTest {
         assertEquals("lower", -1, integral.cmp(decimalAbove));
         assertEquals("higher", 1, integral.cmp(decimalBelow));*/
     }
+
+    @Test
+    public void long_radix_inputs_parse_the_same_on_several_threads() throws InterruptedException {
+        Random rnd = new Random(31);
+        final String[] inputs = new String[8];
+        final BigInteger[] expected = new BigInteger[inputs.length];
+        final int[] radixes = {16, 8, 2, 16, 8, 2, 16, 8};
+        for (int i = 0; i < inputs.length; i++) {
+            expected[i] = new BigInteger(20000 + rnd.nextInt(20000), rnd);
+            inputs[i] = expected[i].toString(radixes[i]);
+        }
+        final String[] prefixes = {"0x", "0o", "0b", "0x", "0o", "0b", "0x", "0o"};
+        final boolean[] correct = new boolean[inputs.length];
+
+        Thread[] threads = new Thread[inputs.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Decimal result = new Decimal(prefixes[index] + inputs[index]);
+                    correct[index] = new BigDecimal(result.toFixed()).toBigIntegerExact().equals(expected[index]);
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            assertTrue("input " + i + " in base " + radixes[i], correct[i]);
+        }
+    }
+
+    @Test
+    public void plain_and_general_parsers_agree(){
+        String[] inputs = {"0", "-0", "7", "-12.5", "0.000123", "123456789012345678901234567890",
+                "1.5e10", "1.5E-10", "-.5", "5.", "000120.0300e+3", "9999999.9999999", "1e-7", "10000000"};
+        for (String input : inputs) {
+            // The separator forces the general NumericString parser
+            String separated = input.replaceFirst("(\\d)", "$1_");
+            assertEquals(input, new Decimal(separated).toRawString(), new Decimal(input).toRawString());
+        }
+
+        assertEquals("exponent form", "1.5e+25", new Decimal("1.5e25").toString());
+        assertEquals("leading zeros", "120030", new Decimal("000120.0300e+3").toString());
+        assertEquals("hex digit b", "440", new Decimal("0x1b8").toString());
+        assertEquals("binary with exponent", "48", new Decimal("0b1.1p+5").toString());
+        assertEquals("octal with exponent", "3072", new Decimal("0o6p9").toString());
+        assertEquals("negative binary exponent", "9.31322574615478515625e-10", new Decimal("0x1p-30").toString());
+    }
+
+    @Test
+    public void large_binary_exponents_are_rounded_to_precision(){
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 20;
+            assertEquals("past int range", "6.2065610877265722806e+1292913986", new Decimal("0x1p4294967297").toString());
+            assertEquals("negative, past int range", "1.6111981915033309742e-1292913987", new Decimal("0x1p-4294967297").toString());
+            assertEquals("more digits than precision", "1.2676506002282294015e+30", new Decimal("0x1p100").toString());
+            assertEquals("within precision", "9007199254740992", new Decimal("0x1p53").toString());
+            assertTrue("overflow", new Decimal("0x1p40000000000000000").isPositiveInfinity());
+            assertTrue("underflow", new Decimal("-0x1p-40000000000000000").isZero());
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    public void can_format_with_fixed_exponential_and_precision_notation(){
+        Decimal x = new Decimal("3.456");
+        assertEquals("toFixed()", "3.456", x.toFixed());
+        assertEquals("toFixed(0)", "3", x.toFixed(0));
+        assertEquals("toFixed(2)", "3.46", x.toFixed(2));
+        assertEquals("toFixed(2, ROUND_DOWN)", "3.45", x.toFixed(2, Decimal.Rounding.ROUND_DOWN));
+        assertEquals("toFixed(5)", "3.45600", x.toFixed(5));
+        assertEquals("large toFixed()", "1000000000000000000000000", new Decimal("1e24").toFixed());
+        assertEquals("small toFixed(10)", "0.0000000100", new Decimal("1e-8").toFixed(10));
+        assertEquals("negative zero", "0", new Decimal("-0").toFixed(0));
+        assertEquals("rounds to negative zero", "-0", new Decimal("-0.1").toFixed(0));
+
+        Decimal y = new Decimal("45.6");
+        assertEquals("toExponential()", "4.56e+1", y.toExponential());
+        assertEquals("toExponential(0)", "5e+1", y.toExponential(0));
+        assertEquals("toExponential(1)", "4.6e+1", y.toExponential(1));
+        assertEquals("toExponential(1, ROUND_DOWN)", "4.5e+1", y.toExponential(1, Decimal.Rounding.ROUND_DOWN));
+        assertEquals("toExponential(3)", "4.560e+1", y.toExponential(3));
+        assertEquals("negative toExponential()", "-1.2345678901e-20", new Decimal("-0.000000000000000000012345678901").toExponential());
+
+        assertEquals("toPrecision()", "45.6", y.toPrecision());
+        assertEquals("toPrecision(1)", "5e+1", y.toPrecision(1));
+        assertEquals("toPrecision(5)", "45.600", y.toPrecision(5));
+        assertEquals("toPrecision(2, ROUND_UP)", "46", new Decimal("45.1").toPrecision(2, Decimal.Rounding.ROUND_UP));
+        assertEquals("toPrecision of a fraction", "0.0012300", new Decimal("0.00123").toPrecision(5));
+
+        assertEquals("infinity", "-Infinity", new Decimal("-1").div(new Decimal(0)).toFixed(2));
+        assertEquals("NaN", "NaN", Decimal.NaN().toExponential(2));
+    }
+
+    @Test
+    public void can_format_in_binary_octal_and_hex(){
+        Decimal x = new Decimal("255.75");
+        assertEquals("hex", "0xff.c", x.toHexadecimal());
+        assertEquals("octal", "0o377.6", x.toOctal());
+        assertEquals("binary", "0b11111111.11", x.toBinary());
+        assertEquals("hex exponent form", "0x1.ffp+7", x.toHexadecimal(3, Decimal.Rounding.ROUND_DOWN));
+        assertEquals("rounds up past a power of two", "0x1p+8", x.toHexadecimal(2, Decimal.Rounding.ROUND_UP));
+        assertEquals("binary exponent form", "0b1.1p-1", new Decimal("0.75").toBinary(5, Decimal.Rounding.NOT_SPECIFIED));
+        assertEquals("negative", "-0x10", new Decimal(-16).toHexadecimal());
+        assertEquals("zero", "0x0p+0", new Decimal(0).toHexadecimal(4, Decimal.Rounding.NOT_SPECIFIED));
+        assertEquals("small", "0x0.004", new Decimal("0.0009765625").toHexadecimal());
+        assertEquals("infinity", "Infinity", new Decimal(1).div(new Decimal(0)).toBinary());
+    }
+
+    @Test
+    public void binary_octal_and_hex_output_round_trips_through_the_parser(){
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 40;
+            Random rnd = new Random(33);
+            for (int i = 0; i < 500; i++) {
+                // Values with short binary expansions, so the output is exact at 40 digits
+                Decimal x = new Decimal(new BigDecimal(Math.scalb(rnd.nextInt(1000000) - 500000.0, rnd.nextInt(40) - 30)).toString());
+                checkRoundTrip(x.toHexadecimal(), Decimal.Regexes.isHex, x);
+                checkRoundTrip(x.toOctal(), Decimal.Regexes.isOctal, x);
+                checkRoundTrip(x.toBinary(), Decimal.Regexes.isBinary, x);
+                checkRoundTrip(x.toHexadecimal(20, Decimal.Rounding.NOT_SPECIFIED), Decimal.Regexes.isHex, x);
+                checkRoundTrip(x.toOctal(30, Decimal.Rounding.NOT_SPECIFIED), Decimal.Regexes.isOctal, x);
+                checkRoundTrip(x.toBinary(60, Decimal.Rounding.NOT_SPECIFIED), Decimal.Regexes.isBinary, x);
+            }
+
+            // Decimal fractions are inexact in binary, but survive a round trip at enough digits
+            Decimal tenth = new Decimal("0.1");
+            String hex = tenth.toHexadecimal(40, Decimal.Rounding.NOT_SPECIFIED);
+            assertTrue(hex, Decimal.Regexes.isHex.matcher(hex).find());
+            Decimal.Config.precision = 20;
+            assertEquals("0.1 via hex", "0.1", new Decimal(hex).plus(0).toString());
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    private static void checkRoundTrip(String str, java.util.regex.Pattern pattern, Decimal expected) {
+        String unsigned = str.startsWith("-") ? str.substring(1) : str;
+        assertTrue(str + " matches parser", pattern.matcher(unsigned).find());
+        assertEquals(str, expected.toString(), new Decimal(str).toString());
+    }
+
+    @Test
+    public void can_add_subtract_and_multiply_decimals(){
+        Decimal a = new Decimal("1.5");
+        Decimal b = new Decimal("2.25");
+
+        assertEquals("add", "3.75", a.plus(b).toString());
+        assertEquals("subtract", "-0.75", a.minus(b).toString());
+        assertEquals("multiply", "3.375", a.times(b).toString());
+        assertEquals("multiply by negative", "-3.375", a.times(-2.25).toString());
+        assertEquals("carry across limbs", "10000000", new Decimal(9999999).plus(1).toString());
+        assertEquals("borrow across limbs", "9999999", new Decimal(10000000).minus(1).toString());
+    }
+
+    @Test
+    public void ties_round_in_every_mode(){
+        int oldPrecision = Decimal.Config.precision;
+        Decimal.Rounding oldRounding = Decimal.Config.rounding;
+        Decimal.Rounding[] modes = {
+                Decimal.Rounding.ROUND_UP, Decimal.Rounding.ROUND_DOWN, Decimal.Rounding.ROUND_CEIL,
+                Decimal.Rounding.ROUND_FLOOR, Decimal.Rounding.ROUND_HALF_UP, Decimal.Rounding.ROUND_HALF_DOWN,
+                Decimal.Rounding.ROUND_HALF_EVEN, Decimal.Rounding.ROUND_HALF_CEIL, Decimal.Rounding.ROUND_HALF_FLOOR};
+        // Each value is half of a numerator, so it is exactly halfway between two integers
+        int[] numerators = {3, -3, 5, -5};
+        String[][] expected = {
+                {"2", "1", "2", "1", "2", "1", "2", "2", "1"},
+                {"-2", "-1", "-1", "-2", "-2", "-1", "-2", "-1", "-2"},
+                {"3", "2", "3", "2", "3", "2", "2", "3", "2"},
+                {"-3", "-2", "-2", "-3", "-3", "-2", "-2", "-2", "-3"}};
+        try {
+            Decimal.Config.precision = 1;
+            for (int v = 0; v < numerators.length; v++) {
+                int n = numerators[v];
+                Decimal half = new Decimal(n * 0.5);
+                for (int m = 0; m < modes.length; m++) {
+                    Decimal.Config.rounding = modes[m];
+                    String name = n + "/2 " + modes[m];
+                    assertEquals("div " + name, expected[v][m], new Decimal(n).div(new Decimal(2)).toString());
+                    assertEquals("times " + name, expected[v][m], half.times(new Decimal(1)).toString());
+                    assertEquals("plus " + name, expected[v][m], new Decimal(n / 2).plus(new Decimal(n % 2 * 0.5)).toString());
+                    assertEquals("toFixed " + name, expected[v][m], half.toFixed(0, modes[m]));
+                }
+            }
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+            Decimal.Config.rounding = oldRounding;
+        }
+    }
+
+    @Test
+    public void can_calculate_natural_exponential_and_logarithm(){
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 20;
+            assertEquals("e", "2.7182818284590452354", new Decimal(1).exp().toString());
+            assertEquals("exp(-5)", "0.0067379469990854670966", new Decimal(-5).exp().toString());
+            assertEquals("ln(10)", "2.302585092994045684", new Decimal(10).ln().toString());
+            assertEquals("ln(1e-30)", "-69.077552789821370521", new Decimal("1e-30").ln().toString());
+            assertEquals("ln(1)", "0", new Decimal(1).ln().toString());
+            assertTrue("ln(-1)", new Decimal(-1).ln().isNaN());
+
+            // more digits than are held in the constant
+            Decimal.Config.precision = 1200;
+            String ln10 = new Decimal(10).ln().toString();
+            assertEquals("long ln(10)", "1670584980782805975119385444500997813114", ln10.substring(1020, 1060));
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    public void exponents_past_the_range_of_an_int_do_not_wrap(){
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 20;
+            Decimal big = new Decimal("3e3000000000");
+            assertEquals("plus", "3e+3000000000", big.plus(new Decimal(1)).toString());
+            assertEquals("minus", "3e+3000000000", big.minus(new Decimal(1)).toString());
+            assertEquals("times", "6e+3000000000", big.times(new Decimal(2)).toString());
+            assertEquals("small times", "6e-3000000000", new Decimal("3e-3000000000").times(new Decimal(2)).toString());
+            assertEquals("exp", "1.0777506079585649102e+4342944819", new Decimal("1e10").exp().toString());
+            assertEquals("exp of negative", "9.2785844203248725781e-4342944820", new Decimal("-1e10").exp().toString());
+            assertEquals("ln", "6907755280.0807493407", big.ln().toString());
+            assertEquals("integer power", "1e+3000000000", new Decimal(10).pow(new Decimal("3e9")).toString());
+            assertEquals("negative integer power", "1e-3000000000", new Decimal(10).pow(new Decimal("-3e9")).toString());
+
+            // Close to maxE and minE, which are 9e15 and -9e15
+            assertEquals("exp near maxE", "3.5729141276278443188e+8685889638065036", new Decimal("2e16").exp().toString());
+            assertEquals("exp near minE", "2.7988358081920301463e-8685889638065037", new Decimal("-2e16").exp().toString());
+            assertEquals("at maxE", "9e+9000000000000000", new Decimal("9e9000000000000000").plus(new Decimal(1)).toString());
+            assertTrue("past maxE", new Decimal("1e9000000000000000").times(new Decimal(10)).isPositiveInfinity());
+            assertTrue("past minE", new Decimal("1e-9000000000000000").div(new Decimal(10)).isZero());
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    public void can_raise_decimals_to_non_integer_powers(){
+        assertEquals("sqrt 2", "1.4142135623730950488", new Decimal(2).pow(new Decimal(0.5)).toString());
+        assertEquals("integer power", "1024", new Decimal(2).pow(new Decimal(10)).toString());
+        assertEquals("negative power", "0.001", new Decimal(10).pow(new Decimal(-3)).toString());
+        assertEquals("fractional power", "1.121240760555129398", new Decimal("1.2345").pow(new Decimal("0.54321")).toString());
+        assertEquals("zero power", "1", new Decimal(0).pow(new Decimal(0)).toString());
+        assertTrue("negative base", new Decimal(-2).pow(new Decimal(0.5)).isNaN());
+    }
+
+    @Test
+    public void can_extend_constants_beyond_embedded_digits(){
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Const.prefetch(3000);
+            Decimal.Config.precision = 3000;
+
+            String ln10 = new Decimal(10).ln().toString();
+            assertEquals("length", 3001, ln10.length());
+            assertEquals("ln(10) tail", "0141963322419180876210182049194926514838", ln10.substring(2960, 3000));
+
+            // Lower precision results are taken from the same cached value
+            Decimal.Config.precision = 1200;
+            assertTrue("shorter ln(10)", ln10.startsWith(new Decimal(10).ln().toString().substring(0, 1199)));
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    public void can_take_square_roots(){
+        assertEquals("sqrt 2", "1.4142135623730950488", new Decimal(2).sqrt().toString());
+        assertEquals("perfect square", "12345", new Decimal(152399025).sqrt().toString());
+        assertEquals("small value", "0.0001", new Decimal("1e-8").sqrt().toString());
+        assertEquals("huge exponent", "1e+500", new Decimal("1e1000").sqrt().toString());
+        assertEquals("negative zero", "0", new Decimal("-0").sqrt().toString());
+        assertTrue("negative", new Decimal(-4).sqrt().isNaN());
+        assertTrue("infinity", new Decimal("Infinity").sqrt().isPositiveInfinity());
+    }
+
+    @Test
+    public void can_take_cube_and_nth_roots(){
+        assertEquals("cbrt 2", "1.2599210498948731648", new Decimal(2).cbrt().toString());
+        assertEquals("cbrt -27", "-3", new Decimal(-27).cbrt().toString());
+        assertEquals("perfect cube", "0.012", new Decimal("0.000001728").cbrt().toString());
+        assertEquals("5th root", "1.1486983549970350068", new Decimal(2).root(5).toString());
+        assertEquals("7th root of negative", "-2", new Decimal(-128).root(7).toString());
+        assertTrue("even root of negative", new Decimal(-16).root(4).isNaN());
+        assertTrue("zeroth root", new Decimal(16).root(0).isNaN());
+    }
+
+    @Test
+    public void high_degree_roots_round_correctly(){
+        Random rnd = new Random(28);
+        int oldPrecision = Decimal.Config.precision;
+        Decimal.Rounding oldRounding = Decimal.Config.rounding;
+        try {
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_HALF_UP;
+            for (int i = 0; i < 40; i++) {
+                int precision = 1 + rnd.nextInt(30);
+                int n = 50 + rnd.nextInt(2000);
+                Decimal.Config.precision = precision;
+
+                BigDecimal value = new BigDecimal(new BigInteger(1 + rnd.nextInt(100), rnd).add(BigInteger.ONE), rnd.nextInt(60) - 30);
+                BigDecimal root = new BigDecimal(new Decimal(value.toString()).root(n).toString());
+
+                // Rounded half up, the root is within [root - half, root + half) of a unit in the last place
+                BigDecimal half = BigDecimal.ONE.movePointLeft(precision - root.precision() + root.scale()).divide(BigDecimal.valueOf(2));
+                assertTrue("root " + n + " of " + value + " not too high", root.subtract(half).pow(n).compareTo(value) <= 0);
+                assertTrue("root " + n + " of " + value + " not too low", root.add(half).pow(n).compareTo(value) > 0);
+            }
+
+            // Exact roots and halfway cases need the exact check
+            Decimal.Config.precision = 20;
+            assertEquals("exact", "1.5", new Decimal(new BigDecimal("1.5").pow(5000).toString()).root(5000).toString());
+            Decimal.Config.precision = 3;
+            String halfway = new BigDecimal("1.235").pow(3000).toString();
+            assertEquals("halfway, up", "1.24", new Decimal(halfway).root(3000).toString());
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_HALF_DOWN;
+            assertEquals("halfway, down", "1.23", new Decimal(halfway).root(3000).toString());
+
+            Decimal.Config.precision = 20;
+            assertEquals("huge degree", "1.0000000003227718086", new Decimal(2).root(2147483647).toString());
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+            Decimal.Config.rounding = oldRounding;
+        }
+    }
+
+    @Test
+    public void square_roots_round_correctly(){
+        Random rnd = new Random(1234);
+        int oldPrecision = Decimal.Config.precision;
+        Decimal.Rounding oldRounding = Decimal.Config.rounding;
+        try {
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_HALF_UP;
+            for (int i = 0; i < 500; i++) {
+                int precision = 1 + rnd.nextInt(60);
+                Decimal.Config.precision = precision;
+
+                // random digits, sometimes squared to get exact and halfway cases
+                BigDecimal value = new BigDecimal(new BigInteger(1 + rnd.nextInt(120), rnd), rnd.nextInt(80) - 40);
+                if (value.signum() == 0) continue;
+                if (rnd.nextInt(4) == 0) value = value.multiply(value);
+
+                String expected = referenceSqrt(value, precision).toString();
+                String actual = new Decimal(value.toString()).sqrt().toString();
+                assertEquals("sqrt(" + value + ") at " + precision + " digits", 0,
+                        new BigDecimal(expected).compareTo(new BigDecimal(actual)));
+            }
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+            Decimal.Config.rounding = oldRounding;
+        }
+    }
+
+    @Test
+    public void can_calculate_trigonometric_functions(){
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 25;
+            Decimal one = new Decimal(1);
+            assertEquals("sin(1)", "0.8414709848078965066525023", one.sin().toString());
+            assertEquals("cos(1)", "0.5403023058681397174009366", one.cos().toString());
+            assertEquals("tan(1)", "1.557407724654902230506975", one.tan().toString());
+            assertEquals("atan(1)", "0.7853981633974483096156608", one.atan().toString());
+            assertEquals("sin(-2)", "-0.9092974268256816953960199", new Decimal(-2).sin().toString());
+            assertEquals("cos(-2)", "-0.4161468365471423869975682", new Decimal(-2).cos().toString());
+            assertEquals("tan(100)", "-0.5872139151569290766778096", new Decimal(100).tan().toString());
+            assertEquals("asin(0.5)", "0.5235987755982988730771072", new Decimal(0.5).asin().toString());
+            assertEquals("acos(-1)", "3.141592653589793238462643", new Decimal(-1).acos().toString());
+            assertTrue("asin(2)", new Decimal(2).asin().isNaN());
+            assertTrue("sin(Infinity)", new Decimal("Infinity").sin().isNaN());
+
+            // Close to a multiple of pi, the remainder still has full precision
+            assertEquals("sin(3.14159)", "0.00000265358979323534841747263", new Decimal("3.14159").sin().toString());
+            assertEquals("sin(1e20)", "-0.6452512852657808442058117", new Decimal("1e20").sin().toString());
+
+            // Repeated use of the same argument gives the same result from the reduction cache
+            assertEquals("cached sin(1e20)", "-0.6452512852657808442058117", new Decimal("1e20").sin().toString());
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    public void can_calculate_hyperbolic_functions(){
+        int oldPrecision = Decimal.Config.precision;
+        Decimal.Rounding oldRounding = Decimal.Config.rounding;
+        try {
+            Decimal.Config.precision = 25;
+            Decimal half = new Decimal(0.5);
+            assertEquals("sinh(0.5)", "0.5210953054937473616224256", half.sinh().toString());
+            assertEquals("cosh(0.5)", "1.127625965206380785226225", half.cosh().toString());
+            assertEquals("tanh(0.5)", "0.4621171572600097585023185", half.tanh().toString());
+            assertEquals("sinh(-2)", "-3.626860407847018767668214", new Decimal(-2).sinh().toString());
+            assertEquals("tanh(100)", "1", new Decimal(100).tanh().toString());
+            assertEquals("asinh(1)", "0.8813735870195430252326093", new Decimal(1).asinh().toString());
+            assertEquals("acosh(2)", "1.316957896924816708625046", new Decimal(2).acosh().toString());
+            assertEquals("atanh(0.5)", "0.5493061443340548456976226", half.atanh().toString());
+            assertEquals("atanh(tiny)", "1e-30", new Decimal("1e-30").atanh().toString());
+            assertTrue("atanh(1)", new Decimal(1).atanh().isPositiveInfinity());
+            assertTrue("acosh(0.5)", half.acosh().isNaN());
+
+            // Large arguments give a tanh just short of 1, which directed rounding must see
+            Decimal.Config.precision = 15;
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_CEIL;
+            assertEquals("ceil tanh(-45.47)", "-0.999999999999999", new Decimal("-45.47").tanh().toString());
+            assertEquals("ceil tanh(45.47)", "1", new Decimal("45.47").tanh().toString());
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_DOWN;
+            assertEquals("down tanh(1000)", "0.999999999999999", new Decimal(1000).tanh().toString());
+
+            // Tiny arguments skip the logarithm, whose guard digits would grow with the exponent
+            Decimal tiny = new Decimal("1e-3000000000");
+            assertEquals("down asinh(tiny)", "9.99999999999999e-3000000001", tiny.asinh().toString());
+            assertEquals("down atanh(tiny)", "1e-3000000000", tiny.atanh().toString());
+            Decimal.Config.rounding = Decimal.Rounding.ROUND_UP;
+            assertEquals("up asinh(tiny)", "1e-3000000000", tiny.asinh().toString());
+            assertEquals("up atanh(-tiny)", "-1.00000000000001e-3000000000", tiny.negated().atanh().toString());
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+            Decimal.Config.rounding = oldRounding;
+        }
+    }
+
+    @Test
+    public void comparisons_with_plain_numbers_match_decimal_comparisons(){
+        Random rnd = new Random(39);
+        String[] samples = {"0", "-0", "1", "-1", "0.5", "1.0000001", "9999999", "10000000", "10000000.0000001",
+                "123456789012345678", "-9223372036854775807", "1e30", "-1e-30", "Infinity", "-Infinity"};
+        long[] longs = {0, 1, -1, 7, 9999999, 10000000, 10000001, 123456789012345678L, Long.MAX_VALUE, Long.MIN_VALUE};
+        double[] doubles = {0.0, 0.5, -0.25, 1.5e-20, 3.0e25, 1.0000001, 1e7, 1.16, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+        for (String sample : samples) {
+            Decimal x = new Decimal(sample);
+            for (long n : longs) {
+                assertEquals(sample + " cmp " + n, x.cmp(new Decimal(Long.toString(n))), x.cmp(n));
+            }
+            for (double v : doubles) {
+                assertEquals(sample + " cmp " + v, x.cmp(new Decimal(v)), x.cmp(v));
+            }
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            long n = rnd.nextInt(2000001) - 1000000;
+            Decimal x = new Decimal((n + rnd.nextInt(3) - 1) + (rnd.nextBoolean() ? "" : ".5"));
+            assertEquals(x + " cmp " + n, x.cmp(new Decimal(Long.toString(n))), x.cmp(n));
+            double v = (rnd.nextInt(2000001) - 1000000) / 64.0;
+            assertEquals(x + " cmp " + v, x.cmp(new Decimal(v)), x.cmp(v));
+        }
+
+        assertFalse("NaN eq", Decimal.decimalNaN().eq(0));
+        assertFalse("eq NaN", new Decimal(1).eq(Double.NaN));
+        assertTrue("gt", new Decimal("2.5").gt(2));
+        assertTrue("lt", new Decimal("-2.5").lt(-2.25));
+    }
+
+    @Test
+    public void can_test_sign_magnitude_and_integers(){
+        assertEquals("positive", 1, new Decimal("0.001").signum());
+        assertEquals("negative", -1, new Decimal("-1e40").signum());
+        assertEquals("zero", 0, new Decimal("-0").signum());
+        assertEquals("NaN", 0, Decimal.decimalNaN().signum());
+        assertEquals("-Infinity", -1, new Decimal("-Infinity").signum());
+
+        assertTrue("zero", new Decimal(0).isInteger());
+        assertTrue("big", new Decimal("1e40").isInteger());
+        assertTrue("limb boundary", new Decimal("-10000000").isInteger());
+        assertTrue("trailing zeros", new Decimal("12.000").isInteger());
+        assertFalse("fraction", new Decimal("10000000.0000001").isInteger());
+        assertFalse("small", new Decimal("1e-40").isInteger());
+        assertFalse("Infinity", new Decimal("Infinity").isInteger());
+
+        assertEquals("greater", 1, new Decimal("-3").compareMagnitude(new Decimal("2.5")));
+        assertEquals("less", -1, new Decimal("0.1").compareMagnitude(new Decimal("-0.2")));
+        assertEquals("equal", 0, new Decimal("-7").compareMagnitude(new Decimal("7")));
+        assertEquals("infinity", 1, new Decimal("-Infinity").compareMagnitude(new Decimal("1e100")));
+    }
+
+    @Test
+    public void comparisons_with_plain_numbers_do_not_allocate(){
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("allocation counting", bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue("allocation counting", counter.isThreadAllocatedMemorySupported());
+        counter.setThreadAllocatedMemoryEnabled(true);
+
+        Decimal[] values = {new Decimal("0.999999999999"), new Decimal("1"), new Decimal("-123456789012.5"), new Decimal("1e40")};
+        long thread = Thread.currentThread().getId();
+        int hits = 0;
+
+        // Warm up so the loop is compiled before we count
+        for (int i = 0; i < 20000; i++) hits += countComparisons(values);
+
+        long before = counter.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100000; i++) hits += countComparisons(values);
+        long allocated = counter.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue("hits", hits > 0);
+        // A single Decimal per comparison would be tens of megabytes
+        assertTrue("allocated " + allocated + " bytes", allocated < 100000);
+    }
+
+    private static int countComparisons(Decimal[] values) {
+        int hits = 0;
+        for (Decimal x : values) {
+            if (x.eq(1)) hits++;
+            if (x.gt(0)) hits++;
+            if (x.lt(-123456789012L)) hits++;
+            if (x.cmp(2.0) < 0) hits++;
+            if (x.gt(1e30)) hits++;
+            if (x.compareMagnitude(x) == 0) hits++;
+            if (x.isInteger()) hits++;
+            hits += x.signum();
+        }
+        return hits;
+    }
+
+    /** Square root of a positive value, rounded half-up to `precision` digits, using integer square roots */
+    private static BigDecimal referenceSqrt(BigDecimal value, int precision) {
+        // Scale so the integer root has at least precision + 2 digits
+        int shift = precision + 2 + (value.scale() - value.precision() + 1) / 2 + 1;
+        BigInteger scaled = value.movePointRight(2 * shift).toBigInteger();
+        BigInteger root = integerSqrt(scaled);
+
+        // Append a sticky digit if the root is not exact
+        boolean exact = root.multiply(root).equals(scaled) && value.movePointRight(2 * shift).stripTrailingZeros().scale() <= 0;
+        BigDecimal result = new BigDecimal(exact ? root : root.multiply(BigInteger.TEN).add(BigInteger.ONE), exact ? shift : shift + 1);
+        return result.round(new MathContext(precision, RoundingMode.HALF_UP));
+    }
+
+    private static BigInteger integerSqrt(BigInteger n) {
+        BigInteger x = BigInteger.ONE.shiftLeft(n.bitLength() / 2 + 1);
+        for (; ; ) {
+            BigInteger next = x.add(n.divide(x)).shiftRight(1);
+            if (next.compareTo(x) >= 0) return x;
+            x = next;
+        }
+    }
 }
@@ -0,0 +1,307 @@
+package e.s.hammercalc;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import e.s.hammercalc.core.ContinuedFraction;
+import e.s.hammercalc.core.Fraction;
+import e.s.hammercalc.core.LargeInt;
+
+/**
+ * Timing checks for Fraction arithmetic and rendering.
+ * These print throughput, and check the results are consistent.
+ */
+public class FractionPerformanceTest {
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on decimal expansion")
+    public void decimal_expansion_to_a_hundred_thousand_places() {
+        measureDecimalString("1/7919", Fraction.fromVulgarFraction(1, 7919), 100000);
+        measureDecimalString("22/7", Fraction.fromVulgarFraction(22, 7), 100000);
+        measureDecimalString("40 digit denominator", Fraction.fromVulgarFraction(LargeInt.ONE, LargeInt.TEN.pow(40).subtract(LargeInt.fromInt(17))), 100000);
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on decimal expansion")
+    public void decimal_expansion_can_be_streamed_without_holding_the_digits() throws IOException {
+        final int[] counts = new int[10];
+        Writer counter = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                for (int i = offset; i < offset + length; i++) {
+                    if (buffer[i] >= '0' && buffer[i] <= '9') counts[buffer[i] - '0']++;
+                }
+            }
+
+            @Override public void flush() {}
+            @Override public void close() {}
+        };
+
+        long start = System.nanoTime();
+        Fraction.fromVulgarFraction(1, 9999991).writeDecimalString(counter, 1000000);
+        long time = (System.nanoTime() - start) / 1000000;
+
+        int total = 0;
+        for (int c : counts) total += c;
+        assertEquals("digit count", 1000001, total);
+        System.out.println("Streamed 1/9999991 to a million places in " + time + "ms");
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on Fraction reduction")
+    public void harmonic_series_with_and_without_lazy_reduction() {
+        measureHarmonic(1000);
+        measureHarmonic(3000);
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on balanced summation")
+    public void harmonic_numbers_by_balanced_summation() {
+        measureHarmonicSum(1000, true);
+        measureHarmonicSum(10000, true);
+        measureHarmonicSum(100000, false);
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on the small Fraction path")
+    public void small_and_mixed_size_arithmetic() {
+        measureMixed("small", 0, 200000);
+        measureMixed("one in ten large", 10, 200000);
+        measureMixed("all large", 1, 50000);
+    }
+
+    /** A running calculation over random fractions, with every `largeEvery`th operand beyond 64 bits */
+    private static void measureMixed(String label, int largeEvery, int count) {
+        Random rnd = new Random(44);
+        LargeInt big = LargeInt.TWO.pow(80).add(LargeInt.ONE);
+        Fraction[] values = new Fraction[1024];
+        for (int i = 0; i < values.length; i++) {
+            Fraction f = Fraction.fromVulgarFraction(rnd.nextInt(20001) - 10000, 1 + rnd.nextInt(1000));
+            if (largeEvery > 0 && i % largeEvery == 0) f = f.multiply(Fraction.fromVulgarFraction(big, big.add(LargeInt.TWO)));
+            values[i] = f;
+        }
+
+        long best = Long.MAX_VALUE;
+        int checksum = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            checksum = 0;
+            for (int i = 0; i < count; i++) {
+                Fraction a = values[i & 1023];
+                Fraction b = values[(i * 7 + 3) & 1023];
+                Fraction r;
+                switch (i & 3) {
+                    case 0: r = a.add(b); break;
+                    case 1: r = a.subtract(b); break;
+                    case 2: r = a.multiply(b); break;
+                    default: r = b.isZero() ? a : a.divide(b); break;
+                }
+                checksum += r.compareTo(a);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        System.out.println(label + ": " + count + " operations in " + best / 1000000 + "ms (checksum " + checksum + ")");
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on continued fraction terms")
+    public void continued_fraction_terms_of_large_rationals() {
+        Random rnd = new Random(45);
+        measureContinuedFraction("random 4000 bit", Fraction.fromVulgarFraction(randomBits(rnd, 4000), randomBits(rnd, 4000)));
+
+        LargeInt a = LargeInt.ONE, b = LargeInt.ONE;
+        for (int i = 0; i < 5000; i++) {
+            LargeInt t = a.add(b);
+            a = b;
+            b = t;
+        }
+        measureContinuedFraction("Fibonacci ratio", Fraction.fromVulgarFraction(b, a));
+
+        Fraction huge = Fraction.fromVulgarFraction(randomBits(rnd, 100000), randomBits(rnd, 100000));
+        long start = System.nanoTime();
+        Iterator<LargeInt> terms = huge.continuedFractionTerms();
+        for (int i = 0; i < 10; i++) terms.next();
+        System.out.println("First 10 terms of a 100000 bit rational in " + (System.nanoTime() - start) / 1000000 + "ms");
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on convergents")
+    public void convergents_of_long_continued_fractions() {
+        Random rnd = new Random(46);
+        for (int n : new int[]{1000, 10000, 50000}) {
+            LargeInt[] terms = new LargeInt[n];
+            for (int i = 0; i < n; i++) terms[i] = LargeInt.fromInt(1 + rnd.nextInt(20));
+
+            long oneByOne = Long.MAX_VALUE, tree = Long.MAX_VALUE;
+            Fraction a = null, b = null;
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                Fraction.Convergents convergents = new Fraction.Convergents();
+                for (int i = 0; i < n; i++) convergents.append(terms[i]);
+                a = convergents.toFraction();
+                oneByOne = Math.min(oneByOne, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                b = Fraction.continuedFractionToFraction(terms);
+                tree = Math.min(tree, System.nanoTime() - start);
+            }
+            assertEquals("same value", a, b);
+            System.out.println(n + " terms: one at a time " + oneByOne / 1000000 + "ms, product tree " + tree / 1000000 + "ms");
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on the term store")
+    public void continued_fraction_storage_for_a_million_terms() {
+        int n = 1000000;
+        Random rnd = new Random(49);
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) values[i] = (long) (1.0 / (1.0 - rnd.nextDouble())); // roughly Gauss-Kuzmin
+        values[n / 2] = Long.MAX_VALUE;
+
+        long before = usedMemory();
+        LargeInt[] terms = new LargeInt[n];
+        for (int i = 0; i < n; i++) terms[i] = LargeInt.fromLong(values[i]);
+        long arrayBytes = usedMemory() - before;
+
+        before = usedMemory();
+        ContinuedFraction cf = new ContinuedFraction(terms);
+        long storeBytes = usedMemory() - before;
+
+        before = usedMemory();
+        ContinuedFraction[] views = new ContinuedFraction[100];
+        views[0] = cf.invert();
+        for (int i = 1; i < views.length; i++) views[i] = views[i - 1].invert();
+        long viewBytes = usedMemory() - before;
+
+        assertEquals("inverted twice", terms[n - 1], views[1].term(n - 1));
+        assertEquals("big term", LargeInt.fromLong(Long.MAX_VALUE), views[0].term(n / 2 + 1));
+        System.out.println("A million terms: LargeInt[] " + arrayBytes / 1024 + "KB, term store " + storeBytes / 1024
+                + "KB, 100 inverted views " + viewBytes / 1024 + "KB");
+    }
+
+    @Test
+    @Ignore("Benchmark. Run by hand when working on digit counts")
+    public void digit_counts_without_writing_digits() {
+        for (int digits = 100; digits <= 10000; digits *= 10) {
+            Random rnd = new Random(digits);
+            LargeInt[] values = new LargeInt[20];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = LargeInt.TEN.pow(digits - 1).add(LargeInt.fromLong(rnd.nextLong() & Long.MAX_VALUE)).multiply(LargeInt.fromInt(1 + rnd.nextInt(9)));
+            }
+
+            long start = System.nanoTime();
+            int byString = 0;
+            for (LargeInt value : values) byString += value.toString().length() - 1;
+            long stringTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int byLog = 0;
+            for (LargeInt value : values) byLog += value.floorLog10();
+            long logTime = System.nanoTime() - start;
+
+            assertEquals(digits + " digits", byString, byLog);
+            System.out.println(values.length + " numbers of " + digits + " digits: string length " + stringTime / 1000 + "us, floorLog10 " + logTime / 1000 + "us");
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void measureContinuedFraction(String label, Fraction f) {
+        long best = Long.MAX_VALUE;
+        LargeInt[] terms = null;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            terms = f.toContinuedFractionArray();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        assertEquals(label + " round trip", f, Fraction.continuedFractionToFraction(terms));
+        System.out.println(label + ": " + terms.length + " continued fraction terms in " + best / 1000000 + "ms");
+    }
+
+    private static LargeInt randomBits(Random rnd, int bits) {
+        LargeInt x = LargeInt.ONE;
+        for (int i = 0; i < bits; i += 30) x = x.shiftLeft(30).add(LargeInt.fromInt(rnd.nextInt(1 << 30)));
+        return x;
+    }
+
+    private static void measureHarmonicSum(int n, boolean withFold) {
+        Fraction[] terms = new Fraction[n];
+        for (int k = 1; k <= n; k++) terms[k - 1] = Fraction.fromVulgarFraction(1, k);
+
+        long start = System.nanoTime();
+        Fraction tree = Fraction.sum(terms);
+        long treeTime = (System.nanoTime() - start) / 1000000;
+
+        ForkJoinPool pool = new ForkJoinPool();
+        start = System.nanoTime();
+        Fraction parallel = Fraction.sum(terms, pool);
+        long parallelTime = (System.nanoTime() - start) / 1000000;
+        pool.shutdown();
+        assertEquals("H(" + n + ") parallel", tree, parallel);
+
+        String foldResult = "";
+        if (withFold) {
+            start = System.nanoTime();
+            Fraction fold = Fraction.ZERO;
+            for (Fraction term : terms) fold = fold.add(term);
+            foldResult = ", left fold " + (System.nanoTime() - start) / 1000000 + "ms";
+            assertEquals("H(" + n + ") fold", fold, tree);
+        }
+
+        System.out.println("H(" + n + "): balanced tree " + treeTime + "ms, parallel " + parallelTime + "ms on "
+                + pool.getParallelism() + " threads" + foldResult + " (" + tree.getDenominator().bitLength() + " bit denominator)");
+    }
+
+    private static void measureHarmonic(int n) {
+        // Left fold with the plain cross multiplication formula, reduced once at the end
+        long start = System.nanoTime();
+        LargeInt num = LargeInt.ZERO;
+        LargeInt den = LargeInt.ONE;
+        for (int k = 1; k <= n; k++) {
+            LargeInt kk = LargeInt.fromInt(k);
+            num = num.multiply(kk).add(den);
+            den = den.multiply(kk);
+        }
+        Fraction naive = Fraction.fromVulgarFraction(num, den);
+        long naiveTime = (System.nanoTime() - start) / 1000000;
+        int naiveBits = den.bitLength();
+
+        // Left fold with Fraction.add, which keeps every partial sum in lowest terms
+        start = System.nanoTime();
+        Fraction sum = Fraction.ZERO;
+        for (int k = 1; k <= n; k++) sum = sum.add(Fraction.fromVulgarFraction(1, k));
+        long lazyTime = (System.nanoTime() - start) / 1000000;
+
+        assertEquals("H(" + n + ")", naive, sum);
+        assertTrue("reduced", sum.isKnownReduced());
+        System.out.println("H(" + n + "): cross multiplied " + naiveTime + "ms (" + naiveBits + " bit denominator), "
+                + "Henrici " + lazyTime + "ms (" + sum.getDenominator().bitLength() + " bit denominator)");
+    }
+
+    private static void measureDecimalString(String label, Fraction f, int places) {
+        long best = Long.MAX_VALUE;
+        String result = null;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            result = f.toDecimalString(places);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        assertEquals(label + " length", places + 2, result.length());
+        System.out.println(label + " to " + places + " places: " + best / 1000000 + "ms");
+    }
+}
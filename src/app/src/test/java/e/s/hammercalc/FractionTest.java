@@ -6,6 +6,19 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -296,6 +309,165 @@ public class FractionTest {
         assertEquals("859659751656285302520311/3: 30", "286553250552095100840103.66", e.toDecimalString(2));
     }
 
+    @Test
+    public void long_decimal_strings_match_big_decimal_truncation(){
+        Random rnd = new Random(40);
+        for (int i = 0; i < 300; i++) {
+            BigInteger num = new BigInteger(1 + rnd.nextInt(150), rnd);
+            BigInteger den = new BigInteger(1 + rnd.nextInt(i % 3 == 0 ? 30 : 150), rnd).add(BigInteger.ONE);
+            if (rnd.nextBoolean()) num = num.negate();
+            int places = rnd.nextInt(200);
+
+            Fraction f = Fraction.fromVulgarFraction(num.toString(), den.toString());
+
+            // Truncated digits, with trailing zeros dropped only when the decimal is exact
+            BigInteger[] qr = num.abs().multiply(BigInteger.TEN.pow(places)).divideAndRemainder(den);
+            BigDecimal truncated = new BigDecimal(qr[0], places);
+            String expected = qr[1].signum() == 0 ? truncated.stripTrailingZeros().toPlainString() : truncated.toPlainString();
+            if (num.signum() < 0) expected = "-" + expected;
+
+            assertEquals(num + "/" + den + ": " + places, expected, f.toDecimalString(places));
+        }
+    }
+
+    @Test
+    public void decimal_digits_can_be_streamed() throws IOException {
+        Fraction f = Fraction.fromVulgarFraction(22, 7);
+        StringWriter out = new StringWriter();
+        f.writeDecimalString(out, 40);
+        assertEquals("writer", "3.1428571428571428571428571428571428571428", out.toString());
+
+        Fraction.DecimalDigits digits = Fraction.fromVulgarFraction(-5, 16).decimalDigits();
+        assertEquals("integer part", "0", digits.integerPart().toString());
+        StringBuilder sb = new StringBuilder();
+        while (digits.hasNext()) sb.append(digits.next());
+        assertEquals("exact digits", "3125", sb.toString());
+
+        // 1/(10^40 - 1) repeats 39 zeros and a one
+        Fraction big = Fraction.fromVulgarFraction(LargeInt.ONE, LargeInt.TEN.pow(40).subtract(LargeInt.ONE));
+        Fraction.DecimalDigits bigDigits = big.decimalDigits();
+        int sum = 0;
+        for (int i = 0; i < 80; i++) sum += bigDigits.next();
+        assertEquals("digit sum", 2, sum);
+        assertTrue("endless", bigDigits.hasNext());
+    }
+
+    @Test
+    public void can_find_repeating_decimals(){
+        assertEquals("1/6", "0.1(6)", Fraction.fromVulgarFraction(1, 6).toRepeatingDecimalString(100));
+        assertEquals("1/7", "0.(142857)", Fraction.fromVulgarFraction(1, 7).toRepeatingDecimalString(100));
+        assertEquals("-22/7", "-3.(142857)", Fraction.fromVulgarFraction(-22, 7).toRepeatingDecimalString(100));
+        assertEquals("5/8", "0.625", Fraction.fromVulgarFraction(5, 8).toRepeatingDecimalString(100));
+        assertEquals("12", "12", Fraction.fromInteger(12).toRepeatingDecimalString(100));
+        assertEquals("1/12", "0.08(3)", Fraction.fromVulgarFraction(1, 12).toRepeatingDecimalString(100));
+        assertEquals("1/97 too long", "0.0103092783...", Fraction.fromVulgarFraction(1, 97).toRepeatingDecimalString(10));
+
+        assertEquals("period 1/7", 6, Fraction.fromVulgarFraction(1, 7).decimalPeriod(1000));
+        assertEquals("period 1/97", 96, Fraction.fromVulgarFraction(3, 97).decimalPeriod(1000));
+        assertEquals("period 1/97 limited", -1, Fraction.fromVulgarFraction(3, 97).decimalPeriod(50));
+        assertEquals("period exact", 0, Fraction.fromVulgarFraction(7, 40).decimalPeriod(1000));
+        assertEquals("preperiod 7/40", 3, Fraction.fromVulgarFraction(7, 40).decimalPreperiod());
+        assertEquals("unreduced", 6, Fraction.fromVulgarFraction(LargeInt.fromInt(14), LargeInt.fromInt(49)).decimalPeriod(1000));
+
+        // 10^3 = 1 modulo 111, once the powers of 2 and 5 are taken out
+        Fraction large = Fraction.fromVulgarFraction(LargeInt.ONE, LargeInt.fromInt(111).multiply(LargeInt.TEN.pow(20)));
+        assertEquals("large 2^a 5^b", 3, large.decimalPeriod(1000));
+        assertEquals("large preperiod", 20, large.decimalPreperiod());
+    }
+
+    @Test
+    public void arithmetic_on_reduced_fractions_stays_reduced(){
+        Random rnd = new Random(41);
+        for (int i = 0; i < 500; i++) {
+            Fraction a = randomFraction(rnd);
+            Fraction b = randomFraction(rnd);
+
+            checkReduced("a+b", a.add(b), a.toString() + " + " + b);
+            checkReduced("a-b", a.subtract(b), a.toString() + " - " + b);
+            checkReduced("a*b", a.multiply(b), a.toString() + " * " + b);
+            if (!b.isZero()) checkReduced("a/b", a.divide(b), a.toString() + " / " + b);
+
+            // Same values as the unreduced formulas
+            LargeInt n = a.getNumerator().multiply(b.getDenominator()).add(a.getDenominator().multiply(b.getNumerator()));
+            LargeInt d = a.getDenominator().multiply(b.getDenominator());
+            assertEquals("sum value", Fraction.fromVulgarFraction(n, d), a.add(b));
+        }
+
+        assertTrue("division by zero", Fraction.ONE.divide(Fraction.ZERO).isNaN());
+        assertTrue("NaN sum", Fraction.FRAC_NAN.add(Fraction.ONE).isNaN());
+        assertEquals("zero product", "0", Fraction.fromVulgarFraction(3, 4).multiply(Fraction.ZERO).toString());
+    }
+
+    @Test
+    public void simplify_is_free_once_reduced(){
+        Fraction f = Fraction.fromVulgarFraction(LargeInt.fromInt(6), LargeInt.fromInt(8));
+        assertTrue("from vulgar fraction", f.isKnownReduced());
+        assertTrue("simplify returns itself", f == f.simplify());
+        assertTrue("negate", f.negate().isKnownReduced());
+        assertTrue("inverse", f.inverse().isKnownReduced());
+
+        Fraction unreduced = Fraction.fromVulgarFraction(3, 4).modulo(Fraction.HALF); // 2/8
+        assertFalse("modulo", unreduced.isKnownReduced());
+        Fraction simplified = unreduced.simplify();
+        assertEquals("simplified", "1/4", simplified.getNumerator() + "/" + simplified.getDenominator());
+        assertTrue("after simplify", simplified.isKnownReduced());
+        assertTrue("simplify twice", simplified == simplified.simplify());
+        assertEquals("equal values hash the same", Fraction.fromVulgarFraction(1, 4).hashCode(), unreduced.hashCode());
+    }
+
+    @Test
+    public void can_sum_many_fractions(){
+        Random rnd = new Random(42);
+        Fraction[] terms = new Fraction[1000];
+        Fraction fold = Fraction.ZERO;
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = randomFraction(rnd);
+            fold = fold.add(terms[i]);
+        }
+
+        Fraction sum = Fraction.sum(terms);
+        assertEquals("tree sum", fold, sum);
+        assertTrue("reduced", sum.isKnownReduced());
+        assertEquals("parallel sum", fold, Fraction.sum(terms, new ForkJoinPool(4)));
+
+        assertEquals("empty", Fraction.ZERO, Fraction.sum(new Fraction[0]));
+        assertEquals("single", "3/4", Fraction.sum(new Fraction[]{Fraction.fromVulgarFraction(6, 8)}).toString());
+        assertTrue("NaN", Fraction.sum(new Fraction[]{Fraction.ONE, Fraction.FRAC_NAN, Fraction.HALF}).isNaN());
+    }
+
+    @Test
+    public void can_sum_a_series(){
+        // e = sum 1/k!, to 30 terms
+        Fraction e = Fraction.sum(new Fraction.Series() {
+            @Override
+            public Fraction term(int k) {
+                return Fraction.fromVulgarFraction(LargeInt.ONE, LargeInt.fromInt(k).factorial());
+            }
+        }, 0, 30);
+        assertEquals("e", "2.71828182845904523536", e.toDecimalString(20));
+
+        Fraction h = Fraction.sum(new Fraction.Series() {
+            @Override
+            public Fraction term(int k) {
+                return Fraction.fromVulgarFraction(1, k);
+            }
+        }, 1, 11);
+        assertEquals("H(10)", "7381/2520", h.toString());
+    }
+
+    private static Fraction randomFraction(Random rnd) {
+        LargeInt n = LargeInt.fromLong(rnd.nextInt(2001) - 1000).multiply(LargeInt.fromLong(1 + rnd.nextInt(36)));
+        LargeInt d = LargeInt.fromLong(1 + rnd.nextInt(1000)).multiply(LargeInt.fromLong(1 + rnd.nextInt(36)));
+        return Fraction.fromVulgarFraction(n, d);
+    }
+
+    private static void checkReduced(String label, Fraction f, String input) {
+        assertTrue(label + " flag: " + input, f.isKnownReduced());
+        LargeInt g = f.getNumerator().gcd(f.getDenominator());
+        assertEquals(label + " lowest terms: " + input + " = " + f.getNumerator() + "/" + f.getDenominator(), LargeInt.ONE, g);
+        assertTrue(label + " denominator sign: " + input, f.getDenominator().sign() > 0);
+    }
+
     @Test
     public void can_divMod_a_fraction_into_itself(){
         Fraction a = Fraction.fromVulgarFraction("859659751656285302520311", "3");
@@ -340,6 +512,55 @@ public class FractionTest {
         assertArrayEquals("f4",expectedF4, f4.toContinuedFractionArray());
     }
 
+    @Test
+    public void continued_fraction_terms_match_euclids_algorithm(){
+        assertArrayEquals("-3", LargeInt.arrayFromInts(-3), Fraction.fromInteger(-3).toContinuedFractionArray());
+        assertArrayEquals("-1/2", LargeInt.arrayFromInts(-1, 2), Fraction.fromVulgarFraction(-1, 2).toContinuedFractionArray());
+        assertArrayEquals("zero", new LargeInt[0], Fraction.ZERO.toContinuedFractionArray());
+
+        Random rnd = new Random(45);
+        for (int i = 0; i < 300; i++) {
+            BigInteger num = new BigInteger(1 + rnd.nextInt(1500), rnd);
+            BigInteger den = new BigInteger(1 + rnd.nextInt(1500), rnd).add(BigInteger.ONE);
+            if (rnd.nextBoolean()) num = num.negate();
+            if (i % 10 == 0) den = num.abs().add(BigInteger.ONE); // long runs of small terms
+
+            List<String> expected = new ArrayList<>();
+            BigInteger[] qr = num.divideAndRemainder(den);
+            if (qr[1].signum() < 0) {
+                qr[0] = qr[0].subtract(BigInteger.ONE);
+                qr[1] = qr[1].add(den);
+            }
+            expected.add(qr[0].toString());
+            BigInteger u = den, v = qr[1];
+            while (v.signum() != 0) {
+                qr = u.divideAndRemainder(v);
+                expected.add(qr[0].toString());
+                u = v;
+                v = qr[1];
+            }
+
+            Fraction f = Fraction.fromVulgarFraction(num.toString(), den.toString());
+            List<String> actual = new ArrayList<>();
+            for (LargeInt term : f.toContinuedFractionArray()) actual.add(term.toString());
+            assertEquals(num + "/" + den, expected, actual);
+        }
+    }
+
+    @Test
+    public void continued_fraction_terms_are_generated_lazily(){
+        LargeInt big = LargeInt.TEN.pow(5000);
+        Fraction f = Fraction.fromVulgarFraction(big.multiply(LargeInt.fromInt(355)).add(LargeInt.ONE), big.multiply(LargeInt.fromInt(113)));
+        Iterator<LargeInt> terms = f.continuedFractionTerms();
+        assertEquals("3", LargeInt.fromInt(3), terms.next());
+        assertEquals("7", LargeInt.fromInt(7), terms.next());
+        assertEquals("16", LargeInt.fromInt(16), terms.next());
+        assertTrue("more", terms.hasNext());
+
+        Iterator<LargeInt> none = Fraction.ZERO.continuedFractionTerms();
+        assertFalse("zero has no terms", none.hasNext());
+    }
+
     @Test
     public void can_restore_a_rational_fraction_from_a_rational_continued_fraction(){
         LargeInt[] cf1 = LargeInt.arrayFromInts(0,1,2,2);
@@ -358,6 +579,177 @@ public class FractionTest {
         assertEquals("cf4",expectedF4, Fraction.continuedFractionToFraction(cf4));
     }
 
+    @Test
+    public void convergents_can_be_built_one_term_at_a_time(){
+        LargeInt[] pi = LargeInt.arrayFromInts(3, 7, 15, 1, 292, 1, 1, 1, 2);
+        String[] expected = {"3", "22/7", "333/106", "355/113", "103993/33102", "104348/33215", "208341/66317", "312689/99532", "833719/265381"};
+
+        Fraction.Convergents convergents = new Fraction.Convergents();
+        for (int i = 0; i < pi.length; i++) {
+            convergents.append(pi[i]);
+            Fraction f = convergents.toFraction();
+            assertEquals("convergent " + i, expected[i], f.toString());
+            assertTrue("reduced " + i, f.isKnownReduced());
+            assertEquals("same as array " + i, f, Fraction.continuedFractionToFraction(Arrays.copyOf(pi, i + 1)));
+            if (i > 0) assertEquals("previous " + i, expected[i - 1], convergents.previous().toString());
+        }
+        assertEquals("count", pi.length, convergents.count());
+    }
+
+    @Test
+    public void long_continued_fractions_multiply_out_as_a_tree(){
+        Random rnd = new Random(46);
+        for (int n : new int[]{31, 32, 33, 100, 1000, 2049}) {
+            LargeInt[] terms = new LargeInt[n];
+            terms[0] = LargeInt.fromInt(rnd.nextInt(2001) - 1000);
+            for (int i = 1; i < n; i++) terms[i] = LargeInt.fromInt(1 + rnd.nextInt(i % 50 == 0 ? 1000000 : 10));
+            terms[n - 1] = LargeInt.TWO; // [..., a, 1] would come back as [..., a + 1]
+
+            Fraction.Convergents oneByOne = new Fraction.Convergents();
+            for (int i = 0; i < n; i++) oneByOne.append(terms[i]);
+
+            Fraction.Convergents split = new Fraction.Convergents().appendAll(terms, 0, n / 3).appendAll(terms, n / 3, n);
+            Fraction tree = Fraction.continuedFractionToFraction(terms);
+
+            assertEquals("tree " + n, oneByOne.toFraction().toString(), tree.toString());
+            assertEquals("split " + n, oneByOne.toFraction().toString(), split.toFraction().toString());
+            assertEquals("split previous " + n, oneByOne.previous().toString(), split.previous().toString());
+            assertArrayEquals("round trip " + n, terms, tree.toContinuedFractionArray());
+        }
+    }
+
+    @Test
+    public void floats_convert_exactly_in_lowest_terms(){
+        Random rnd = new Random(43);
+        for (int i = 0; i < 500; i++) {
+            double x = Double.longBitsToDouble(rnd.nextLong());
+            if (Double.isNaN(x) || Double.isInfinite(x)) continue;
+
+            Fraction f = Fraction.fromFloat(x);
+            BigDecimal exact = new BigDecimal(x);
+            BigInteger num = new BigInteger(f.getNumerator().toString());
+            BigInteger den = new BigInteger(f.getDenominator().toString());
+            BigInteger scaled = exact.scale() > 0 ? num.multiply(BigInteger.TEN.pow(exact.scale())) : num;
+            BigInteger unscaled = exact.scale() > 0 ? exact.unscaledValue().multiply(den) : exact.toBigIntegerExact().multiply(den);
+
+            assertEquals("value of " + x, unscaled, scaled);
+            assertEquals("lowest terms " + x, BigInteger.ONE, num.gcd(den));
+            assertTrue("flag " + x, f.isKnownReduced());
+        }
+        assertEquals("zero", "0", Fraction.fromFloat(-0.0).toString());
+        assertEquals("tiny", "1/" + BigInteger.ONE.shiftLeft(1074), Fraction.fromFloat(Double.MIN_VALUE).toString());
+    }
+
+    @Test
+    public void can_find_best_rational_approximations(){
+        assertEquals("pi 7", "22/7", Fraction.bestApproximation(Math.PI, 7).toString());
+        assertEquals("pi 100", "311/99", Fraction.bestApproximation(Math.PI, 100).toString());
+        assertEquals("pi 1000", "355/113", Fraction.bestApproximation(Math.PI, 1000).toString());
+        assertEquals("-pi 1000", "-355/113", Fraction.bestApproximation(-Math.PI, 1000).toString());
+        assertEquals("0.1", "1/10", Fraction.bestApproximation(0.1, 10).toString());
+        assertEquals("exact", "3/8", Fraction.bestApproximation(0.375, 1000).toString());
+        assertEquals("tiny", "0", Fraction.bestApproximation(1e-30, 1000).toString());
+        assertEquals("huge", new BigDecimal(1e300).toBigInteger().toString(), Fraction.bestApproximation(1e300, 10).toString());
+        assertTrue("NaN", Fraction.bestApproximation(Double.NaN, 10).isNaN());
+
+        // The exact value's denominator is 2^66, past the range of longs
+        assertEquals("large path", "1/12288", Fraction.bestApproximation(1.0 / 3.0 / 4096.0, 1000000).toString());
+        assertEquals("large path tiny", "0", Fraction.bestApproximation(1.2345e-25, 1000000000000000000L).toString());
+        Fraction third = Fraction.bestApproximation(1.0 / 3.0, Long.MAX_VALUE);
+        assertEquals("all the bits", Fraction.fromFloat(1.0 / 3.0), third);
+
+        // Against a search over every denominator
+        Random rnd = new Random(43);
+        for (int i = 0; i < 200; i++) {
+            double x = rnd.nextDouble() * 20 - 10;
+            int max = 1 + rnd.nextInt(300);
+            assertEquals(x + " to " + max, bruteForceBest(x, max), Fraction.bestApproximation(x, max));
+        }
+    }
+
+    /** Closest p/q to x with q <= max, smaller q on a tie, by trying every q */
+    private static Fraction bruteForceBest(double x, int max) {
+        BigDecimal exact = new BigDecimal(x);
+        BigDecimal bestError = null;
+        Fraction best = null;
+        for (int q = 1; q <= max; q++) {
+            BigInteger floor = exact.multiply(BigDecimal.valueOf(q)).setScale(0, java.math.RoundingMode.FLOOR).toBigIntegerExact();
+            for (BigInteger p : new BigInteger[]{floor, floor.add(BigInteger.ONE)}) {
+                BigDecimal error = exact.multiply(BigDecimal.valueOf(q)).subtract(new BigDecimal(p)).abs()
+                        .divide(BigDecimal.valueOf(q), 400, java.math.RoundingMode.HALF_EVEN);
+                if (bestError == null || error.compareTo(bestError) < 0) {
+                    bestError = error;
+                    best = Fraction.fromVulgarFraction(p.toString(), Integer.toString(q));
+                }
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void small_fractions_overflow_into_large_ones(){
+        Random rnd = new Random(44);
+        long[] edges = {0, 1, -1, 2, 3, 6, Long.MAX_VALUE, -Long.MAX_VALUE, Long.MAX_VALUE - 1, 1L << 62, 3037000499L, 3037000500L, 4294967296L};
+        for (int i = 0; i < 2000; i++) {
+            long an = i < 200 ? edges[rnd.nextInt(edges.length)] : rnd.nextLong() >> rnd.nextInt(64);
+            long ad = i < 200 ? edges[1 + rnd.nextInt(edges.length - 1)] : rnd.nextLong() >> rnd.nextInt(64);
+            long bn = rnd.nextBoolean() ? edges[rnd.nextInt(edges.length)] : rnd.nextLong() >> rnd.nextInt(64);
+            long bd = rnd.nextBoolean() ? edges[1 + rnd.nextInt(edges.length - 1)] : rnd.nextLong() >> rnd.nextInt(64);
+            if (ad == 0 || ad == Long.MIN_VALUE) ad = 7;
+            if (bd == 0 || bd == Long.MIN_VALUE) bd = 5;
+            if (an == Long.MIN_VALUE) an = 11;
+            if (bn == Long.MIN_VALUE) bn = 13;
+
+            Fraction a = Fraction.fromVulgarFraction(Long.toString(an), Long.toString(ad));
+            Fraction b = Fraction.fromVulgarFraction(Long.toString(bn), Long.toString(bd));
+            BigInteger[] x = {BigInteger.valueOf(an), BigInteger.valueOf(ad)};
+            BigInteger[] y = {BigInteger.valueOf(bn), BigInteger.valueOf(bd)};
+            String label = a + " , " + b;
+
+            assertEquals(label + " add", reference(x[0].multiply(y[1]).add(y[0].multiply(x[1])), x[1].multiply(y[1])), a.add(b).toString());
+            assertEquals(label + " subtract", reference(x[0].multiply(y[1]).subtract(y[0].multiply(x[1])), x[1].multiply(y[1])), a.subtract(b).toString());
+            assertEquals(label + " multiply", reference(x[0].multiply(y[0]), x[1].multiply(y[1])), a.multiply(b).toString());
+            if (bn != 0) {
+                assertEquals(label + " divide", reference(x[0].multiply(y[1]), x[1].multiply(y[0])), a.divide(b).toString());
+            }
+            int expected = x[0].multiply(y[1]).subtract(y[0].multiply(x[1])).signum() * x[1].signum() * y[1].signum();
+            assertEquals(label + " compare", expected, a.compareTo(b));
+            assertEquals(label + " truncate", x[0].divide(x[1]).toString(), a.truncateToInt().toString());
+            assertEquals(label + " inverse", an == 0 ? "NaN" : reference(x[1], x[0]), a.inverse().toString());
+            assertEquals(label + " hash", a.hashCode(), a.add(Fraction.ZERO).hashCode());
+        }
+
+        Fraction max = Fraction.fromVulgarFraction(Long.toString(Long.MAX_VALUE), "1");
+        assertEquals("max+max", "18446744073709551614", max.add(max).toString());
+        assertEquals("max*max", "85070591730234615847396907784232501249", max.multiply(max).toString());
+        assertEquals("back down", "9223372036854775807", max.multiply(max).divide(max).toString());
+        assertEquals("min", "-9223372036854775808", max.negate().subtract(Fraction.ONE).toString());
+
+        // Sums landing exactly on Long.MIN_VALUE, which has no positive long
+        Fraction a = Fraction.fromVulgarFraction("-4611686018427387905", "2");
+        Fraction b = Fraction.fromVulgarFraction("-4611686018427387903", "2");
+        assertEquals("min over common factor", "-4611686018427387904", a.add(b).toString());
+        Fraction c = Fraction.fromVulgarFraction("-1", "10");
+        Fraction d = Fraction.fromVulgarFraction(Long.toString(-Long.MAX_VALUE), "10");
+        assertEquals("min in subtract", "4611686018427387903/5", c.subtract(d).toString());
+        Fraction e = Fraction.fromVulgarFraction("-4611686018427387903", Long.toString(Long.MAX_VALUE));
+        Fraction f = Fraction.fromVulgarFraction("-4611686018427387905", Long.toString(Long.MAX_VALUE));
+        assertEquals("min keeps its sign", "-9223372036854775808/9223372036854775807", e.add(f).toString());
+    }
+
+    /** Lowest-terms string for num/den by BigInteger */
+    private static String reference(BigInteger num, BigInteger den){
+        if (den.signum() < 0) {
+            num = num.negate();
+            den = den.negate();
+        }
+        BigInteger g = num.gcd(den);
+        num = num.divide(g);
+        den = den.divide(g);
+        if (den.equals(BigInteger.ONE)) return num.toString();
+        return num + "/" + den;
+    }
+
     @Test
     public void can_convert_a_floating_point_to_a_continued_fraction(){
         LargeInt[] cf1 = Fraction.floatToContinuedFraction(0.1875, 3); // 3/16
@@ -375,4 +767,33 @@ public class FractionTest {
         assertEquals("2", "0.1875", f1.toDecimalString(4));
     }
 
+
+    @Test
+    public void fraction_logarithms_match_big_decimal(){
+        Random rnd = new Random(50);
+        for (int i = 0; i < 300; i++) {
+            BigInteger n = new BigInteger(1 + rnd.nextInt(300), rnd).add(BigInteger.ONE);
+            BigInteger d = new BigInteger(1 + rnd.nextInt(300), rnd).add(BigInteger.ONE);
+            Fraction f = Fraction.fromVulgarFraction(new LargeInt(n.toString()), new LargeInt(d.toString()));
+
+            BigDecimal value = new BigDecimal(n).divide(new BigDecimal(d), new MathContext(40, RoundingMode.DOWN));
+            int expected10 = value.precision() - value.scale() - 1;
+            assertEquals("log10 " + n + "/" + d, expected10, f.floorLog10());
+            assertEquals("log_10 " + n + "/" + d, expected10, f.log(LargeInt.TEN));
+
+            int k = n.bitLength() - d.bitLength();
+            int expected2 = (k >= 0 ? n.compareTo(d.shiftLeft(k)) : n.shiftLeft(-k).compareTo(d)) >= 0 ? k : k - 1;
+            assertEquals("log2 " + n + "/" + d, expected2, f.floorLog2());
+            assertEquals("log_2 " + n + "/" + d, expected2, f.log(LargeInt.TWO));
+        }
+
+        assertEquals("1/10", -1, Fraction.fromVulgarFraction(1, 10).floorLog10());
+        assertEquals("1/11", -2, Fraction.fromVulgarFraction(1, 11).floorLog10());
+        assertEquals("1/9", -1, Fraction.fromVulgarFraction(1, 9).floorLog10());
+        assertEquals("1/27 base 3", -3, Fraction.fromVulgarFraction(1, 27).log(LargeInt.fromInt(3)));
+        assertEquals("1/28 base 3", -4, Fraction.fromVulgarFraction(1, 28).log(LargeInt.fromInt(3)));
+        assertEquals("2/27 base 3", -3, Fraction.fromVulgarFraction(2, 27).log(LargeInt.fromInt(3)));
+        assertEquals("82/27 base 3", 1, Fraction.fromVulgarFraction(82, 27).log(LargeInt.fromInt(3)));
+        assertEquals("one", 0, Fraction.fromInteger(1).floorLog2());
+    }
 }
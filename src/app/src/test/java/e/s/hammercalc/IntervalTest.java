@@ -0,0 +1,182 @@
+package e.s.hammercalc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import e.s.hammercalc.core.Decimal;
+import e.s.hammercalc.core.Interval;
+
+public class IntervalTest {
+    @Test
+    public void arithmetic_rounds_outward() {
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 5;
+            Interval third = Interval.of(1).div(Interval.of(3));
+            assertEquals("third", "[0.33333, 0.33334]", third.toString());
+
+            Interval sum = Interval.of("1.00001").plus(Interval.of("0.000004"));
+            assertEquals("sum", "[1, 1.0001]", sum.toString());
+
+            Interval difference = Interval.of(1).minus(third);
+            assertEquals("difference", "[0.66666, 0.66667]", difference.toString());
+
+            Interval product = Interval.between(new Decimal(-2), new Decimal(3)).times(Interval.between(new Decimal(-5), new Decimal(4)));
+            assertEquals("product", "[-15, 12]", product.toString());
+
+            assertEquals("negated", "[-0.33334, -0.33333]", third.negated().toString());
+            assertEquals("abs", "[0, 2]", Interval.between(new Decimal(-2), new Decimal(1)).abs().toString());
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    public void division_by_a_range_containing_zero() {
+        Interval x = Interval.of(1);
+        assertEquals("entire", "[-Infinity, Infinity]", x.div(Interval.between(new Decimal(-1), new Decimal(1))).toString());
+        assertTrue("zero", x.div(Interval.of(0)).isNaN());
+    }
+
+    @Test
+    public void integer_powers_handle_signs() {
+        Interval x = Interval.between(new Decimal(-3), new Decimal(2));
+        assertEquals("square", "[0, 9]", x.pow(2).toString());
+        assertEquals("cube", "[-27, 8]", x.pow(3).toString());
+        assertEquals("negative square", "[4, 9]", Interval.between(new Decimal(-3), new Decimal(-2)).pow(2).toString());
+        assertEquals("zero power", "[1, 1]", x.pow(0).toString());
+        assertEquals("inverse", "[0.25, 0.5]", Interval.between(new Decimal(2), new Decimal(4)).pow(-1).toString());
+        assertEquals("most negative power", "[1, 1]", Interval.of(-1).pow(Integer.MIN_VALUE).toString());
+        assertEquals("integer interval power", "[-27, 8]", x.pow(Interval.of(3)).toString());
+        assertTrue("fractional power of negative", x.pow(Interval.of("0.5")).isNaN());
+    }
+
+    @Test
+    public void functions_contain_the_true_value() {
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 20;
+            Random rnd = new Random(37);
+            for (int i = 0; i < 200; i++) {
+                Decimal x = new Decimal((rnd.nextInt(2000000) - 1000000) + "e-6");
+                Decimal positive = x.abs().plus(new Decimal("0.001"));
+                Decimal unit = x.times(new Decimal("0.999"));
+
+                checkContains("exp", Interval.of(x).exp(), x, FN.EXP);
+                checkContains("ln", Interval.of(positive).ln(), positive, FN.LN);
+                checkContains("sqrt", Interval.of(positive).sqrt(), positive, FN.SQRT);
+                checkContains("cbrt", Interval.of(x).cbrt(), x, FN.CBRT);
+                checkContains("sin", Interval.of(x).sin(), x, FN.SIN);
+                checkContains("cos", Interval.of(x).cos(), x, FN.COS);
+                checkContains("tan", Interval.of(x).tan(), x, FN.TAN);
+                checkContains("asin", Interval.of(unit).asin(), unit, FN.ASIN);
+                checkContains("acos", Interval.of(unit).acos(), unit, FN.ACOS);
+                checkContains("atan", Interval.of(x).atan(), x, FN.ATAN);
+                checkContains("sinh", Interval.of(x).sinh(), x, FN.SINH);
+                checkContains("cosh", Interval.of(x).cosh(), x, FN.COSH);
+                checkContains("tanh", Interval.of(x).tanh(), x, FN.TANH);
+                checkContains("asinh", Interval.of(x).asinh(), x, FN.ASINH);
+                checkContains("atanh", Interval.of(unit).atanh(), unit, FN.ATANH);
+            }
+
+            // e^x is too small for a Decimal, but still above zero
+            assertEquals("exp underflow", "[0, 1e-9000000000000000]", Interval.of("-1e17").exp().toString());
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    @Test
+    public void periodic_functions_include_peaks_and_poles() {
+        Interval x = Interval.between(new Decimal(1), new Decimal(2));
+        assertEquals("sin peak", "1", x.sin().upper().toString());
+        assertTrue("sin lower", x.sin().lower().lt(new Decimal("0.8415")));
+
+        Interval y = Interval.between(new Decimal(3), new Decimal("3.5"));
+        assertEquals("cos trough", "-1", y.cos().lower().toString());
+
+        assertEquals("tan pole", "[-Infinity, Infinity]", x.tan().toString());
+        assertEquals("wide sin", "[-1, 1]", Interval.between(new Decimal(0), new Decimal(10)).sin().toString());
+
+        Interval z = Interval.between(new Decimal(-1), new Decimal(2));
+        assertEquals("cosh minimum", "1", z.cosh().lower().toString());
+    }
+
+    @Test
+    public void domain_errors_are_nan() {
+        assertTrue("sqrt", Interval.between(new Decimal(-1), new Decimal(1)).sqrt().isNaN());
+        assertTrue("ln", Interval.of(-2).ln().isNaN());
+        assertTrue("asin", Interval.of(2).asin().isNaN());
+        assertTrue("between", Interval.between(new Decimal(2), new Decimal(1)).isNaN());
+    }
+
+    @Test
+    public void real_powers_use_logarithms() {
+        Interval x = Interval.of(2).pow(Interval.of("0.5"));
+        assertTrue("sqrt 2", x.contains(new Decimal("1.41421356237309504880168872420969807")));
+
+        Interval zero = Interval.between(new Decimal(0), new Decimal(4)).pow(Interval.of("0.5"));
+        assertEquals("from zero", "0", zero.lower().toString());
+        assertTrue("to two", zero.contains(new Decimal(2)));
+    }
+
+    @Test
+    public void adaptive_mode_raises_precision_until_narrow() {
+        int oldPrecision = Decimal.Config.precision;
+        try {
+            Decimal.Config.precision = 10;
+            final Interval x = Interval.of(3);
+            Interval.Calculation calculation = new Interval.Calculation() {
+                @Override
+                public Interval evaluate() {
+                    // Cancellation loses most of the digits: (e^x)^2 - e^(2x) is exactly zero
+                    return x.exp().pow(2).minus(x.times(Interval.of(2)).exp()).plus(x.sin());
+                }
+            };
+
+            Interval narrow = Interval.adaptive(calculation, new Decimal("1e-30"), 1000);
+            assertFalse("narrow enough", narrow.width().gt(new Decimal("1e-30")));
+            assertTrue("contains", narrow.contains(new Decimal("0.14112000805986722210074480280811027984693")));
+            assertEquals("precision restored", 10, Decimal.Config.precision);
+
+            Interval limited = Interval.adaptive(calculation, new Decimal("1e-30"), 20);
+            assertTrue("stops at the limit", limited.width().gt(new Decimal("1e-30")));
+        } finally {
+            Decimal.Config.precision = oldPrecision;
+        }
+    }
+
+    private enum FN {EXP, LN, SQRT, CBRT, SIN, COS, TAN, ASIN, ACOS, ATAN, SINH, COSH, TANH, ASINH, ATANH}
+
+    private static void checkContains(String label, Interval result, Decimal x, FN fn) {
+        Decimal.Config.precision = 60;
+        Decimal expected;
+        switch (fn) {
+            case EXP: expected = x.exp(); break;
+            case LN: expected = x.ln(); break;
+            case SQRT: expected = x.sqrt(); break;
+            case CBRT: expected = x.cbrt(); break;
+            case SIN: expected = x.sin(); break;
+            case COS: expected = x.cos(); break;
+            case TAN: expected = x.tan(); break;
+            case ASIN: expected = x.asin(); break;
+            case ACOS: expected = x.acos(); break;
+            case ATAN: expected = x.atan(); break;
+            case SINH: expected = x.sinh(); break;
+            case COSH: expected = x.cosh(); break;
+            case TANH: expected = x.tanh(); break;
+            case ASINH: expected = x.asinh(); break;
+            default: expected = x.atanh(); break;
+        }
+        Decimal.Config.precision = 20;
+
+        assertTrue(label + "(" + x + ") = " + expected + " in " + result, result.contains(expected));
+
+        // Within a few units of the 20th digit
+        Decimal tolerance = expected.abs().times(new Decimal("1e-17")).plus(new Decimal("1e-40"));
+        assertFalse(label + "(" + x + ") width " + result.width(), result.width().gt(tolerance));
+    }
+}
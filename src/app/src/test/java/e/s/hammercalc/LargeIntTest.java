@@ -4,6 +4,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.math.BigInteger;
+import java.util.Random;
+
 import org.junit.Test;
 
 import e.s.hammercalc.core.LargeInt;
@@ -368,6 +371,70 @@ public class LargeIntTest {
         assertEquals("a / 0", LargeInt.LARGE_NAN, a.divide(LargeInt.ZERO));
     }
 
+    @Test
+    public void division_by_single_word_values_matches_big_integer(){
+        Random rnd = new Random(41);
+        for (int i = 0; i < 500; i++) {
+            BigInteger x = new BigInteger(1 + rnd.nextInt(400), rnd);
+            if (rnd.nextBoolean()) x = x.negate();
+            BigInteger y = BigInteger.valueOf(i % 2 == 0 ? 1 + rnd.nextInt(1000) : (rnd.nextLong() >>> 32) + 1);
+
+            LargeInt a = new LargeInt(x.toString());
+            LargeInt b = new LargeInt(y.toString());
+            LargeInt[] qr = a.divideAndRemainder(b);
+
+            assertEquals(x + " / " + y, x.divide(y).toString(), qr[0].toString());
+            assertEquals(x + " rem " + y, x.remainder(y).toString(), qr[1].toString());
+            assertEquals(x + " divide " + y, x.divide(y).toString(), a.divide(b).toString());
+            assertEquals(x + " mod " + y, x.mod(y).toString(), a.mod(b).toString());
+        }
+    }
+
+    @Test
+    public void division_by_multi_word_values_matches_big_integer(){
+        Random rnd = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            BigInteger y = new BigInteger(33 + rnd.nextInt(300), rnd);
+            BigInteger x = new BigInteger(1 + rnd.nextInt(700), rnd);
+            if (i % 5 == 0) x = x.multiply(y).add(BigInteger.valueOf(rnd.nextInt(3))); // near-exact quotients
+            if (i % 7 == 0) y = BigInteger.ONE.shiftLeft(32 * (1 + rnd.nextInt(6))).subtract(BigInteger.ONE); // all ones
+            if (rnd.nextBoolean()) x = x.negate();
+
+            LargeInt a = new LargeInt(x.toString());
+            LargeInt b = new LargeInt(y.toString());
+            LargeInt[] qr = a.divideAndRemainder(b);
+
+            assertEquals(x + " / " + y, x.divide(y).toString(), qr[0].toString());
+            assertEquals(x + " rem " + y, x.remainder(y).toString(), qr[1].toString());
+            assertEquals(x + " mod " + y, x.mod(y).toString(), a.mod(b).toString());
+        }
+    }
+
+    @Test
+    public void gcd_of_large_values_matches_big_integer(){
+        Random rnd = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            BigInteger common = new BigInteger(1 + rnd.nextInt(200), rnd).add(BigInteger.ONE);
+            BigInteger x = new BigInteger(rnd.nextInt(1000), rnd).multiply(common);
+            BigInteger y = new BigInteger(rnd.nextInt(1000), rnd).multiply(common);
+            if (rnd.nextBoolean()) x = x.negate();
+
+            LargeInt a = new LargeInt(x.toString());
+            LargeInt b = new LargeInt(y.toString());
+            assertEquals("gcd(" + x + ", " + y + ")", x.gcd(y).toString(), a.gcd(b).toString());
+        }
+
+        // Consecutive Fibonacci numbers take the most steps
+        LargeInt f1 = LargeInt.ONE;
+        LargeInt f2 = LargeInt.ONE;
+        for (int i = 0; i < 2000; i++) {
+            LargeInt t = f1.add(f2);
+            f1 = f2;
+            f2 = t;
+        }
+        assertEquals("fibonacci", LargeInt.ONE, f2.gcd(f1));
+    }
+
     @Test
     public void divideAndRemainder_gives_quotient_and_remainder(){
         LargeInt a = new LargeInt("384626433832795028841971693993");
@@ -643,4 +710,79 @@ public class LargeIntTest {
         LargeInt c = LargeInt.fromFloat(0.5);
         assertEquals("c", "0", c.toString());
     }
+
+    @Test
+    public void integer_logarithms_match_digit_and_bit_counts(){
+        Random rnd = new Random(50);
+        for (int i = 0; i < 300; i++) {
+            BigInteger big = new BigInteger(1 + rnd.nextInt(2000), rnd).add(BigInteger.ONE);
+            LargeInt x = new LargeInt(big.toString());
+
+            assertEquals("log2 " + big, big.bitLength() - 1, x.floorLog2());
+            assertEquals("log10 " + big, big.toString().length() - 1, x.floorLog10());
+            assertEquals("log_10 " + big, big.toString().length() - 1, x.log(LargeInt.TEN));
+            assertEquals("log_2 " + big, big.bitLength() - 1, x.log(LargeInt.TWO));
+
+            int base = 3 + rnd.nextInt(1000);
+            assertEquals("log_" + base + " " + big, naiveLog(big, BigInteger.valueOf(base)), x.log(LargeInt.fromInt(base)));
+        }
+    }
+
+    @Test
+    public void integer_logarithms_are_exact_at_powers(){
+        for (int base = 2; base < 40; base++) {
+            LargeInt b = LargeInt.fromInt(base);
+            for (int e = 0; e < 120; e++) {
+                LargeInt power = b.pow(e);
+                assertEquals(base + "^" + e, e, power.log(b));
+                if (e > 0) assertEquals(base + "^" + e + " - 1", e - 1, power.subtract(LargeInt.ONE).log(b));
+                if (e > 0) assertEquals(base + "^" + e + " + 1", e, power.add(LargeInt.ONE).log(b));
+            }
+        }
+        for (int e = 0; e < 400; e++) {
+            LargeInt power = LargeInt.TEN.pow(e);
+            assertEquals("10^" + e, e, power.floorLog10());
+            if (e > 0) assertEquals("10^" + e + " - 1", e - 1, power.subtract(LargeInt.ONE).floorLog10());
+        }
+    }
+
+    @Test
+    public void square_roots_are_rounded_down(){
+        Random rnd = new Random(48);
+        for (int i = 0; i < 300; i++) {
+            BigInteger big = new BigInteger(rnd.nextInt(600), rnd);
+            BigInteger root = new BigInteger(new LargeInt(big.toString()).sqrt().toString());
+            assertTrue("not above " + big, root.multiply(root).compareTo(big) <= 0);
+            assertTrue("not below " + big, root.add(BigInteger.ONE).pow(2).compareTo(big) > 0);
+        }
+        LargeInt square = LargeInt.TEN.pow(40);
+        assertEquals("square", "100000000000000000000", square.sqrt().toString());
+        assertEquals("below square", "99999999999999999999", square.subtract(LargeInt.ONE).sqrt().toString());
+        assertEquals("zero", "0", LargeInt.ZERO.sqrt().toString());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void logarithm_of_zero_is_an_error(){
+        LargeInt.ZERO.floorLog10();
+    }
+
+    @Test
+    public void float_strings_of_large_numbers_keep_their_leading_digits(){
+        LargeInt big = LargeInt.fromInt(7).pow(500);
+        String full = big.toString();
+        assertEquals("positive", full.substring(0, 10) + "e" + (full.length() - 10), big.toFloatString(10));
+        assertEquals("negative", "-" + full.substring(0, 10) + "e" + (full.length() - 10), big.negate().toFloatString(10));
+        assertEquals("fits", full, big.toFloatString(full.length()));
+    }
+
+    /** Largest e with base^e <= x, by repeated multiplication */
+    private static int naiveLog(BigInteger x, BigInteger base) {
+        int e = 0;
+        BigInteger power = base;
+        while (power.compareTo(x) <= 0) {
+            power = power.multiply(base);
+            e++;
+        }
+        return e;
+    }
 }